@@ -48,6 +48,10 @@ public class AvailableExpressions
         this(null);
     }
 
+    public ValueExpression getExpression() {
+        return expression;
+    }
+
     @Override
     public StructuredRepresentation representation() {
         return new StringRepresentation(expression);
@@ -123,7 +127,7 @@ public class AvailableExpressions
         return result;
     }
 
-    private static boolean filter(ValueExpression expression) {
+    static boolean filter(ValueExpression expression) {
         if (expression instanceof Identifier) {
             return false;
         }
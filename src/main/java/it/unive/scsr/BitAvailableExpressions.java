@@ -0,0 +1,279 @@
+package it.unive.scsr;
+
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import it.unive.lisa.analysis.BaseLattice;
+import it.unive.lisa.analysis.Lattice;
+import it.unive.lisa.analysis.ScopeToken;
+import it.unive.lisa.analysis.SemanticException;
+import it.unive.lisa.analysis.SemanticOracle;
+import it.unive.lisa.analysis.lattices.Satisfiability;
+import it.unive.lisa.analysis.value.ValueDomain;
+import it.unive.lisa.program.cfg.ProgramPoint;
+import it.unive.lisa.symbolic.value.Identifier;
+import it.unive.lisa.symbolic.value.ValueExpression;
+import it.unive.lisa.util.representation.SetRepresentation;
+import it.unive.lisa.util.representation.StringRepresentation;
+import it.unive.lisa.util.representation.StructuredRepresentation;
+import it.unive.scsr.storage.ValueNumbering;
+
+/**
+ * The available expressions analysis of {@link AvailableExpressions}, storing
+ * the available expressions as a {@link BitSet} over the numbers given by a
+ * {@link ValueNumbering} shared by all the instances derived from the same
+ * one. Expressions are hashed once, when first numbered: afterwards, the lub
+ * is a word-wise and, the glb a word-wise or, and an assignment to a variable
+ * clears the expressions reading it with a single and-not. Since
+ * {@code a + b} and {@code b + a} have the same number, they are also the
+ * same available expression.
+ * <br>
+ * <br>
+ * The expressions generated and killed are the ones of
+ * {@link AvailableExpressions}: an assignment or an expression makes the
+ * expression available (unless it is an identifier, a constant, or reads the
+ * assigned variable), and an assignment kills all the expressions reading the
+ * assigned variable.
+ */
+public class BitAvailableExpressions
+		implements
+		ValueDomain<BitAvailableExpressions>,
+		BaseLattice<BitAvailableExpressions> {
+
+	private final ValueNumbering numbering;
+
+	private final BitSet available;
+
+	private final boolean isBottom;
+
+	/**
+	 * Builds the top element (no expression is available), with a fresh
+	 * value numbering.
+	 */
+	public BitAvailableExpressions() {
+		this(new ValueNumbering(), new BitSet(), false);
+	}
+
+	private BitAvailableExpressions(
+			ValueNumbering numbering,
+			BitSet available,
+			boolean isBottom) {
+		this.numbering = numbering;
+		this.available = available;
+		this.isBottom = isBottom;
+	}
+
+	/**
+	 * Yields the available expressions. For each number, the first expression
+	 * that has been given that number is returned.
+	 *
+	 * @return the available expressions
+	 */
+	public Set<ValueExpression> getAvailableExpressions() {
+		Set<ValueExpression> result = new HashSet<>();
+		for (int i = available.nextSetBit(0); i >= 0; i = available.nextSetBit(i + 1))
+			result.add(numbering.get(i));
+		return result;
+	}
+
+	private BitAvailableExpressions mk(
+			BitSet result) {
+		return result.equals(available) ? this : new BitAvailableExpressions(numbering, result, false);
+	}
+
+	@Override
+	public BitAvailableExpressions lubAux(
+			BitAvailableExpressions other)
+			throws SemanticException {
+		// an expression is available if it is available on all paths
+		BitSet result = (BitSet) available.clone();
+		result.and(other.available);
+		return mk(result);
+	}
+
+	@Override
+	public BitAvailableExpressions glbAux(
+			BitAvailableExpressions other)
+			throws SemanticException {
+		BitSet result = (BitSet) available.clone();
+		result.or(other.available);
+		return mk(result);
+	}
+
+	@Override
+	public BitAvailableExpressions wideningAux(
+			BitAvailableExpressions other)
+			throws SemanticException {
+		// the lattice has finite height
+		return lubAux(other);
+	}
+
+	@Override
+	public boolean lessOrEqualAux(
+			BitAvailableExpressions other)
+			throws SemanticException {
+		// more available expressions means more precise information
+		BitSet missing = (BitSet) other.available.clone();
+		missing.andNot(available);
+		return missing.isEmpty();
+	}
+
+	@Override
+	public BitAvailableExpressions assign(
+			Identifier id,
+			ValueExpression expression,
+			ProgramPoint pp,
+			SemanticOracle oracle)
+			throws SemanticException {
+		if (isBottom)
+			return this;
+		BitSet result = (BitSet) available.clone();
+		result.andNot(numbering.readers(id));
+		if (AvailableExpressions.filter(expression)) {
+			int number = numbering.number(expression);
+			if (!numbering.reads(number, id))
+				result.set(number);
+		}
+		return mk(result);
+	}
+
+	@Override
+	public BitAvailableExpressions smallStepSemantics(
+			ValueExpression expression,
+			ProgramPoint pp,
+			SemanticOracle oracle)
+			throws SemanticException {
+		if (isBottom || !AvailableExpressions.filter(expression))
+			return this;
+		int number = numbering.number(expression);
+		if (available.get(number))
+			return this;
+		BitSet result = (BitSet) available.clone();
+		result.set(number);
+		return mk(result);
+	}
+
+	@Override
+	public BitAvailableExpressions assume(
+			ValueExpression expression,
+			ProgramPoint src,
+			ProgramPoint dest,
+			SemanticOracle oracle)
+			throws SemanticException {
+		return this;
+	}
+
+	@Override
+	public Satisfiability satisfies(
+			ValueExpression expression,
+			ProgramPoint pp,
+			SemanticOracle oracle)
+			throws SemanticException {
+		return Satisfiability.UNKNOWN;
+	}
+
+	@Override
+	public BitAvailableExpressions forgetIdentifier(
+			Identifier id)
+			throws SemanticException {
+		if (isBottom)
+			return this;
+		BitSet result = (BitSet) available.clone();
+		result.andNot(numbering.readers(id));
+		return mk(result);
+	}
+
+	@Override
+	public BitAvailableExpressions forgetIdentifiersIf(
+			Predicate<Identifier> test)
+			throws SemanticException {
+		if (isBottom)
+			return this;
+		BitSet result = (BitSet) available.clone();
+		for (int i = available.nextSetBit(0); i >= 0; i = available.nextSetBit(i + 1)) {
+			BitSet read = numbering.reads(i);
+			for (int j = read.nextSetBit(0); j >= 0; j = read.nextSetBit(j + 1))
+				if (test.test((Identifier) numbering.get(j))) {
+					result.clear(i);
+					break;
+				}
+		}
+		return mk(result);
+	}
+
+	/* Out of the scope of the course: these are needed to handle calls */
+
+	@Override
+	public BitAvailableExpressions pushScope(
+			ScopeToken token)
+			throws SemanticException {
+		return this;
+	}
+
+	@Override
+	public BitAvailableExpressions popScope(
+			ScopeToken token)
+			throws SemanticException {
+		return this;
+	}
+
+	@Override
+	public boolean knowsIdentifier(
+			Identifier id) {
+		return !isBottom && numbering.readers(id).intersects(available);
+	}
+
+	@Override
+	public BitAvailableExpressions top() {
+		return isTop() ? this : new BitAvailableExpressions(numbering, new BitSet(), false);
+	}
+
+	@Override
+	public boolean isTop() {
+		return !isBottom && available.isEmpty();
+	}
+
+	@Override
+	public BitAvailableExpressions bottom() {
+		return isBottom ? this : new BitAvailableExpressions(numbering, new BitSet(), true);
+	}
+
+	@Override
+	public boolean isBottom() {
+		return isBottom;
+	}
+
+	@Override
+	public StructuredRepresentation representation() {
+		if (isTop())
+			return Lattice.topRepresentation();
+		if (isBottom())
+			return Lattice.bottomRepresentation();
+		return new SetRepresentation(getAvailableExpressions(), StringRepresentation::new);
+	}
+
+	@Override
+	public int hashCode() {
+		return available.hashCode() * 31 + Boolean.hashCode(isBottom);
+	}
+
+	@Override
+	public boolean equals(
+			Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		BitAvailableExpressions other = (BitAvailableExpressions) obj;
+		return isBottom == other.isBottom && numbering == other.numbering && available.equals(other.available);
+	}
+
+	@Override
+	public String toString() {
+		return representation().toString();
+	}
+}
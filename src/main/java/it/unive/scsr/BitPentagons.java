@@ -0,0 +1,544 @@
+package it.unive.scsr;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import it.unive.lisa.analysis.BaseLattice;
+import it.unive.lisa.analysis.Lattice;
+import it.unive.lisa.analysis.ScopeToken;
+import it.unive.lisa.analysis.SemanticException;
+import it.unive.lisa.analysis.SemanticOracle;
+import it.unive.lisa.analysis.lattices.Satisfiability;
+import it.unive.lisa.analysis.nonrelational.value.ValueEnvironment;
+import it.unive.lisa.analysis.value.ValueDomain;
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.ProgramPoint;
+import it.unive.lisa.symbolic.value.BinaryExpression;
+import it.unive.lisa.symbolic.value.Constant;
+import it.unive.lisa.symbolic.value.Identifier;
+import it.unive.lisa.symbolic.value.UnaryExpression;
+import it.unive.lisa.symbolic.value.ValueExpression;
+import it.unive.lisa.symbolic.value.operator.NegatableOperator;
+import it.unive.lisa.symbolic.value.operator.SubtractionOperator;
+import it.unive.lisa.symbolic.value.operator.binary.BinaryOperator;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonEq;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonGe;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonGt;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonLe;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonLt;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonNe;
+import it.unive.lisa.symbolic.value.operator.unary.LogicalNegation;
+import it.unive.lisa.util.numeric.MathNumber;
+import it.unive.lisa.util.representation.MapRepresentation;
+import it.unive.lisa.util.representation.StringRepresentation;
+import it.unive.lisa.util.representation.StructuredRepresentation;
+import it.unive.scsr.storage.BitMatrix;
+import it.unive.scsr.storage.IdentifierNumbering;
+
+/**
+ * The {@link Pentagons} domain, with the strict upper bounds of all variables
+ * stored as a single {@link BitMatrix}: the row of {@code x} has the bit of
+ * {@code y} set if {@code x < y}. Rows are indexed through a dense
+ * {@link IdentifierNumbering} of the cfg the element refers to: assignments
+ * and assumptions move the element to the numbering of the cfg of their
+ * program point, so that the rows only grow with the variables of that cfg.
+ * Elements over the same numbering are combined position by position (lub is
+ * a row-wise and, glb a row-wise or and the partial order a row inclusion
+ * test, each working on 64 variables per word); the other operand is first
+ * renumbered otherwise.
+ * <br>
+ * <br>
+ * Elements are kept closed: the bounds implied by the intervals are added as
+ * whole rows, and the relation is then transitively closed with Warshall's
+ * algorithm. A variable that ends up being a bound of itself makes the
+ * element bottom. Differently from {@link Pentagons}, assigning a variable
+ * also drops it from the bounds of the other variables.
+ */
+public class BitPentagons implements ValueDomain<BitPentagons>, BaseLattice<BitPentagons> {
+
+	private static final ValueEnvironment<Intervals> TOP_INTERVALS = new ValueEnvironment<>(new Intervals()).top();
+
+	private final Map<CFG, IdentifierNumbering> numberings;
+
+	private final IdentifierNumbering numbering;
+
+	private final ValueEnvironment<Intervals> intervals;
+
+	private final BitMatrix bounds;
+
+	/**
+	 * Builds the top element, with a fresh identifier numbering.
+	 */
+	public BitPentagons() {
+		this(new ConcurrentHashMap<>(), new IdentifierNumbering(), TOP_INTERVALS, BitMatrix.EMPTY);
+	}
+
+	private BitPentagons(
+			Map<CFG, IdentifierNumbering> numberings,
+			IdentifierNumbering numbering,
+			ValueEnvironment<Intervals> intervals,
+			BitMatrix bounds) {
+		this.numberings = numberings;
+		this.numbering = numbering;
+		this.intervals = intervals;
+		this.bounds = bounds;
+	}
+
+	private BitPentagons mk(
+			ValueEnvironment<Intervals> intervals,
+			BitMatrix bounds) {
+		if (intervals.isBottom())
+			return bottom();
+		if (intervals == this.intervals && bounds == this.bounds)
+			return this;
+		return new BitPentagons(numberings, numbering, intervals, bounds);
+	}
+
+	// this element, over the numbering of the cfg of the program point
+	private BitPentagons localTo(
+			ProgramPoint pp) {
+		if (pp == null || pp.getCFG() == null)
+			return this;
+		return rebase(numberings.computeIfAbsent(pp.getCFG(), cfg -> new IdentifierNumbering()));
+	}
+
+	// this element, over the given numbering: only the identifiers that
+	// appear in the bounds are numbered there
+	private BitPentagons rebase(
+			IdentifierNumbering target) {
+		if (target == numbering)
+			return this;
+		int[] mapping = involved();
+		for (int i = 0; i < mapping.length; i++)
+			if (mapping[i] >= 0)
+				mapping[i] = target.number(numbering.get(i));
+		return new BitPentagons(numberings, target, intervals, bounds.rename(mapping));
+	}
+
+	private static int[] grow(
+			int[] mapping,
+			int length) {
+		int old = mapping.length;
+		int[] result = Arrays.copyOf(mapping, length);
+		Arrays.fill(result, old, length, -1);
+		return result;
+	}
+
+	/**
+	 * Yields the strict upper bounds of the given identifier.
+	 *
+	 * @param id the identifier
+	 *
+	 * @return the identifiers that are known to be greater than {@code id}
+	 */
+	public Set<Identifier> getBounds(
+			Identifier id) {
+		Set<Identifier> result = new HashSet<>();
+		int row = numbering.indexOf(id);
+		if (row >= 0)
+			for (int column : bounds.columns(row))
+				result.add(numbering.get(column));
+		return result;
+	}
+
+	/**
+	 * Yields the interval of the given identifier.
+	 *
+	 * @param id the identifier
+	 *
+	 * @return the interval
+	 */
+	public Intervals getInterval(
+			Identifier id) {
+		return intervals.getState(id);
+	}
+
+	@Override
+	public BitPentagons top() {
+		return isTop() ? this : new BitPentagons(numberings, numbering, TOP_INTERVALS, BitMatrix.EMPTY);
+	}
+
+	@Override
+	public boolean isTop() {
+		return intervals.isTop() && bounds.equals(BitMatrix.EMPTY);
+	}
+
+	@Override
+	public BitPentagons bottom() {
+		return isBottom() ? this : new BitPentagons(numberings, numbering, TOP_INTERVALS.bottom(), BitMatrix.EMPTY);
+	}
+
+	@Override
+	public boolean isBottom() {
+		return intervals.isBottom();
+	}
+
+	/**
+	 * Adds the bounds implied by the intervals ({@code x < y} whenever the high
+	 * of {@code x} is smaller than the low of {@code y}) and closes the
+	 * relation transitively. Identifiers are visited by decreasing high while
+	 * a single row accumulates, by decreasing low, the identifiers whose low
+	 * exceeds the current high: that row is the set of bounds of the current
+	 * identifier.
+	 */
+	private BitPentagons closure(
+			ValueEnvironment<Intervals> intervals,
+			BitMatrix bounds) {
+		if (intervals.isBottom())
+			return bottom();
+
+		List<Identifier> byLow = new ArrayList<>();
+		for (Identifier id : intervals.getKeys())
+			if (!intervals.getState(id).isBottom())
+				byLow.add(id);
+
+		if (!byLow.isEmpty()) {
+			List<Identifier> byHigh = new ArrayList<>(byLow);
+			byLow.sort((a, b) -> intervals.getState(b).interval.getLow().compareTo(intervals.getState(a).interval.getLow()));
+			byHigh.sort((a, b) -> intervals.getState(b).interval.getHigh().compareTo(intervals.getState(a).interval.getHigh()));
+			int width = 0;
+			for (Identifier id : byLow)
+				width = Math.max(width, numbering.number(id) + 1);
+			// rows only span the columns of the identifiers with an interval
+			long[] prefix = new long[(width + 63) >>> 6];
+			int added = 0;
+			for (Identifier id : byHigh) {
+				MathNumber high = intervals.getState(id).interval.getHigh();
+				while (added < byLow.size()
+						&& intervals.getState(byLow.get(added)).interval.getLow().compareTo(high) > 0) {
+					int column = numbering.number(byLow.get(added++));
+					prefix[column >>> 6] |= 1L << (column & 63);
+				}
+				// orRow copies the bits, so the prefix can keep growing
+				if (added > 0)
+					bounds = bounds.orRow(numbering.number(id), prefix);
+			}
+		}
+
+		bounds = bounds.closure();
+		// x < x cannot hold
+		return bounds.hasDiagonal() ? bottom() : mk(intervals, bounds);
+	}
+
+	@Override
+	public BitPentagons lubAux(
+			BitPentagons that)
+			throws SemanticException {
+		BitPentagons other = that.rebase(numbering);
+		// elements are closed, so the bounds implied by the intervals of one
+		// side are already part of its rows
+		return mk(intervals.lub(other.intervals), bounds.and(other.bounds));
+	}
+
+	@Override
+	public BitPentagons wideningAux(
+			BitPentagons that)
+			throws SemanticException {
+		BitPentagons other = that.rebase(numbering);
+		// rows can only lose bits, so they stabilize on their own
+		return mk(intervals.widening(other.intervals), bounds.and(other.bounds));
+	}
+
+	@Override
+	public BitPentagons glbAux(
+			BitPentagons that)
+			throws SemanticException {
+		BitPentagons other = that.rebase(numbering);
+		return closure(intervals.glb(other.intervals), bounds.or(other.bounds));
+	}
+
+	@Override
+	public BitPentagons narrowingAux(
+			BitPentagons that)
+			throws SemanticException {
+		BitPentagons other = that.rebase(numbering);
+		return closure(intervals.narrowing(other.intervals), bounds.or(other.bounds));
+	}
+
+	@Override
+	public boolean lessOrEqualAux(
+			BitPentagons that)
+			throws SemanticException {
+		BitPentagons other = that.rebase(numbering);
+		return bounds.includes(other.bounds) && intervals.lessOrEqual(other.intervals);
+	}
+
+	@Override
+	public BitPentagons assign(
+			Identifier id,
+			ValueExpression expression,
+			ProgramPoint pp,
+			SemanticOracle oracle)
+			throws SemanticException {
+		if (isBottom())
+			return this;
+		return localTo(pp).assignLocal(id, expression, pp, oracle);
+	}
+
+	private BitPentagons assignLocal(
+			Identifier id,
+			ValueExpression expression,
+			ProgramPoint pp,
+			SemanticOracle oracle)
+			throws SemanticException {
+		int x = numbering.number(id);
+		BitMatrix newBounds = bounds;
+		if (expression instanceof Identifier)
+			// x = y
+			newBounds = newBounds.copyRow(numbering.number((Identifier) expression), x);
+		else if (expression instanceof BinaryExpression
+				&& ((BinaryExpression) expression).getOperator() instanceof SubtractionOperator
+				&& ((BinaryExpression) expression).getLeft() instanceof Identifier
+				&& isPositive(((BinaryExpression) expression).getRight())) {
+			// x = y - c, with c > 0
+			int y = numbering.number((Identifier) ((BinaryExpression) expression).getLeft());
+			newBounds = newBounds.copyRow(y, x).set(x, y);
+		} else
+			newBounds = newBounds.clearRow(x);
+
+		// the bounds on the old value of x (and x < x, if x was on the right)
+		// do not hold anymore
+		newBounds = newBounds.clearColumn(x);
+		return closure(intervals.assign(id, expression, pp, oracle), newBounds);
+	}
+
+	private static boolean isPositive(
+			ValueExpression expression) {
+		return expression instanceof Constant
+				&& ((Constant) expression).getValue() instanceof Integer
+				&& (Integer) ((Constant) expression).getValue() > 0;
+	}
+
+	@Override
+	public BitPentagons smallStepSemantics(
+			ValueExpression expression,
+			ProgramPoint pp,
+			SemanticOracle oracle)
+			throws SemanticException {
+		return mk(intervals.smallStepSemantics(expression, pp, oracle), bounds);
+	}
+
+	@Override
+	public BitPentagons assume(
+			ValueExpression expression,
+			ProgramPoint src,
+			ProgramPoint dest,
+			SemanticOracle oracle)
+			throws SemanticException {
+		if (isBottom())
+			return this;
+		return localTo(src).assumeLocal(expression, src, dest, oracle);
+	}
+
+	private BitPentagons assumeLocal(
+			ValueExpression expression,
+			ProgramPoint src,
+			ProgramPoint dest,
+			SemanticOracle oracle)
+			throws SemanticException {
+		BitMatrix newBounds = bounds;
+		BinaryExpression comparison = comparison(expression);
+		if (comparison != null) {
+			BinaryOperator operator = operator(expression);
+			int x = numbering.number((Identifier) comparison.getLeft());
+			int y = numbering.number((Identifier) comparison.getRight());
+			if (operator instanceof ComparisonEq)
+				// x == y: the bounds are shared
+				newBounds = newBounds.copyRow(y, x).or(newBounds.copyRow(x, y));
+			else if (operator instanceof ComparisonLt)
+				newBounds = newBounds.set(x, y);
+			else if (operator instanceof ComparisonLe)
+				newBounds = newBounds.copyRow(y, x).or(newBounds);
+			else if (operator instanceof ComparisonGt)
+				newBounds = newBounds.set(y, x);
+			else if (operator instanceof ComparisonGe)
+				newBounds = newBounds.copyRow(x, y).or(newBounds);
+		}
+
+		// the transitive closure propagates x < y to the bounds of y
+		return closure(intervals.assume(expression, src, dest, oracle), newBounds);
+	}
+
+	/**
+	 * Yields the comparison between two identifiers contained in the given
+	 * expression, possibly under a logical negation, or {@code null}.
+	 */
+	private static BinaryExpression comparison(
+			ValueExpression expression) {
+		if (expression instanceof UnaryExpression
+				&& ((UnaryExpression) expression).getOperator() == LogicalNegation.INSTANCE)
+			expression = (ValueExpression) ((UnaryExpression) expression).getExpression();
+		if (expression instanceof BinaryExpression
+				&& ((BinaryExpression) expression).getLeft() instanceof Identifier
+				&& ((BinaryExpression) expression).getRight() instanceof Identifier)
+			return (BinaryExpression) expression;
+		return null;
+	}
+
+	/**
+	 * Yields the operator of the comparison returned by
+	 * {@link #comparison(ValueExpression)}, negated if needed.
+	 */
+	private static BinaryOperator operator(
+			ValueExpression expression) {
+		if (expression instanceof BinaryExpression)
+			return ((BinaryExpression) expression).getOperator();
+		BinaryOperator operator = ((BinaryExpression) ((UnaryExpression) expression).getExpression()).getOperator();
+		return operator instanceof NegatableOperator ? (BinaryOperator) ((NegatableOperator) operator).opposite()
+				: null;
+	}
+
+	@Override
+	public BitPentagons forgetIdentifier(
+			Identifier id)
+			throws SemanticException {
+		int index = numbering.indexOf(id);
+		BitMatrix newBounds = index < 0 ? bounds : bounds.clearRow(index).clearColumn(index);
+		return mk(intervals.forgetIdentifier(id), newBounds);
+	}
+
+	@Override
+	public BitPentagons forgetIdentifiersIf(
+			Predicate<Identifier> test)
+			throws SemanticException {
+		BitMatrix newBounds = bounds;
+		for (int i = 0; i < bounds.size(); i++)
+			if (test.test(numbering.get(i)))
+				newBounds = newBounds.clearRow(i).clearColumn(i);
+		return mk(intervals.forgetIdentifiersIf(test), newBounds);
+	}
+
+	@Override
+	public Satisfiability satisfies(
+			ValueExpression expression,
+			ProgramPoint pp,
+			SemanticOracle oracle)
+			throws SemanticException {
+		Satisfiability result = intervals.satisfies(expression, pp, oracle);
+		BinaryExpression comparison = comparison(expression);
+		if (comparison == null)
+			return result;
+
+		BinaryOperator operator = operator(expression);
+		int x = numbering.indexOf((Identifier) comparison.getLeft());
+		int y = numbering.indexOf((Identifier) comparison.getRight());
+		boolean lt = x >= 0 && y >= 0 && bounds.get(x, y);
+		boolean gt = x >= 0 && y >= 0 && bounds.get(y, x);
+		Satisfiability fromBounds = Satisfiability.UNKNOWN;
+		if (operator instanceof ComparisonLt || operator instanceof ComparisonLe)
+			fromBounds = lt ? Satisfiability.SATISFIED : gt ? Satisfiability.NOT_SATISFIED : fromBounds;
+		else if (operator instanceof ComparisonGt || operator instanceof ComparisonGe)
+			fromBounds = gt ? Satisfiability.SATISFIED : lt ? Satisfiability.NOT_SATISFIED : fromBounds;
+		else if (operator instanceof ComparisonEq)
+			fromBounds = lt || gt ? Satisfiability.NOT_SATISFIED : fromBounds;
+		else if (operator instanceof ComparisonNe)
+			fromBounds = lt || gt ? Satisfiability.SATISFIED : fromBounds;
+		return result.glb(fromBounds);
+	}
+
+	@Override
+	public BitPentagons pushScope(
+			ScopeToken token)
+			throws SemanticException {
+		int[] mapping = involved();
+		for (int i = 0; i < mapping.length; i++)
+			if (mapping[i] >= 0)
+				mapping[i] = numbering.number(numbering.get(i).pushScope(token));
+		return mk(intervals.pushScope(token), bounds.rename(mapping));
+	}
+
+	@Override
+	public BitPentagons popScope(
+			ScopeToken token)
+			throws SemanticException {
+		int[] mapping = involved();
+		for (int i = 0; i < mapping.length; i++)
+			if (mapping[i] >= 0) {
+				Identifier popped = numbering.get(i).popScope(token);
+				// identifiers that are not in the scope are dropped
+				mapping[i] = popped == null ? -1 : numbering.number(popped);
+			}
+		return mk(intervals.popScope(token), bounds.rename(mapping));
+	}
+
+	// the identity on the indexes appearing in the bounds, -1 elsewhere: the
+	// other identifiers of the numbering are not renamed
+	private int[] involved() {
+		int[] mapping = new int[bounds.size()];
+		Arrays.fill(mapping, -1);
+		for (int i = 0; i < bounds.size(); i++)
+			if (!bounds.isEmpty(i)) {
+				mapping[i] = i;
+				for (int j : bounds.columns(i)) {
+					if (j >= mapping.length)
+						mapping = grow(mapping, j + 1);
+					mapping[j] = j;
+				}
+			}
+		return mapping;
+	}
+
+	@Override
+	public boolean knowsIdentifier(
+			Identifier id) {
+		int index = numbering.indexOf(id);
+		return intervals.knowsIdentifier(id) || (index >= 0 && !bounds.isEmpty(index));
+	}
+
+	@Override
+	public StructuredRepresentation representation() {
+		if (isTop())
+			return Lattice.topRepresentation();
+		if (isBottom())
+			return Lattice.bottomRepresentation();
+		Set<Identifier> ids = new HashSet<>(intervals.getKeys());
+		for (int i = 0; i < bounds.size(); i++)
+			if (!bounds.isEmpty(i))
+				ids.add(numbering.get(i));
+		Map<StructuredRepresentation, StructuredRepresentation> mapping = new HashMap<>();
+		for (Identifier id : ids) {
+			Set<Identifier> upper = getBounds(id);
+			UpperBounds state = upper.isEmpty() ? new UpperBounds(true) : new UpperBounds(upper);
+			mapping.put(new StringRepresentation(id),
+					new StringRepresentation(intervals.getState(id).representation() + ", " + state.representation()));
+		}
+		return new MapRepresentation(mapping);
+	}
+
+	@Override
+	public int hashCode() {
+		// bounds are hashed through their identifiers, as the same element
+		// can be numbered differently
+		int result = intervals.hashCode();
+		for (int i = 0; i < bounds.size(); i++)
+			for (int j : bounds.columns(i))
+				result += numbering.get(i).hashCode() * 31 + numbering.get(j).hashCode();
+		return result;
+	}
+
+	@Override
+	public boolean equals(
+			Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		BitPentagons other = ((BitPentagons) obj).rebase(numbering);
+		return Objects.equals(intervals, other.intervals) && Objects.equals(bounds, other.bounds);
+	}
+
+	@Override
+	public String toString() {
+		return representation().toString();
+	}
+}
@@ -0,0 +1,369 @@
+package it.unive.scsr;
+
+import java.util.Objects;
+
+import it.unive.lisa.analysis.Lattice;
+import it.unive.lisa.analysis.SemanticException;
+import it.unive.lisa.analysis.SemanticOracle;
+import it.unive.lisa.analysis.nonrelational.value.BaseNonRelationalValueDomain;
+import it.unive.lisa.analysis.nonrelational.value.ValueEnvironment;
+import it.unive.lisa.program.cfg.ProgramPoint;
+import it.unive.lisa.symbolic.value.Constant;
+import it.unive.lisa.symbolic.value.Identifier;
+import it.unive.lisa.symbolic.value.ValueExpression;
+import it.unive.lisa.symbolic.value.operator.AdditionOperator;
+import it.unive.lisa.symbolic.value.operator.DivisionOperator;
+import it.unive.lisa.symbolic.value.operator.MultiplicationOperator;
+import it.unive.lisa.symbolic.value.operator.SubtractionOperator;
+import it.unive.lisa.symbolic.value.operator.binary.BinaryOperator;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonEq;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonNe;
+import it.unive.lisa.symbolic.value.operator.unary.NumericNegation;
+import it.unive.lisa.symbolic.value.operator.unary.UnaryOperator;
+import it.unive.lisa.util.representation.StringRepresentation;
+import it.unive.lisa.util.representation.StructuredRepresentation;
+
+/**
+ * The congruence abstract domain, tracking values of the form
+ * {@code a*Z + b} (that is, the integers that are equal to {@code b} modulo
+ * {@code a}), generalizing the parity of {@link ParitySolution} (that is
+ * {@code 2*Z + 0} or {@code 2*Z + 1}). A modulus of {@code 0} represents the
+ * single constant {@code b}, while a modulus of {@code 1} is top. The remainder
+ * is kept in {@code [0, a)}. Computations are performed on {@code long}s: an
+ * operation whose result does not fit goes to top.
+ */
+public class Congruence implements BaseNonRelationalValueDomain<Congruence> {
+
+	/**
+	 * The abstract top element ({@code 1*Z + 0}).
+	 */
+	private static final Congruence TOP = new Congruence(1, 0);
+
+	/**
+	 * The abstract bottom element.
+	 */
+	private static final Congruence BOTTOM = new Congruence(0, 0, true);
+
+	/**
+	 * The modulus {@code a}, {@code 0} for constants.
+	 */
+	public final long modulus;
+
+	/**
+	 * The remainder {@code b}, or the value of the constant if
+	 * {@link #modulus} is {@code 0}.
+	 */
+	public final long remainder;
+
+	private final boolean isBottom;
+
+	/**
+	 * Builds the top element.
+	 */
+	public Congruence() {
+		this(1, 0);
+	}
+
+	/**
+	 * Builds the congruence class {@code modulus*Z + remainder}.
+	 *
+	 * @param modulus   the modulus, {@code 0} for a single constant
+	 * @param remainder the remainder
+	 *
+	 * @throws IllegalArgumentException if {@code modulus} is negative
+	 */
+	public Congruence(
+			long modulus,
+			long remainder) {
+		this(modulus, remainder, false);
+		if (modulus < 0)
+			throw new IllegalArgumentException("Negative modulus: " + modulus);
+	}
+
+	private Congruence(
+			long modulus,
+			long remainder,
+			boolean isBottom) {
+		this.modulus = modulus;
+		this.remainder = modulus > 0 ? Math.floorMod(remainder, modulus) : remainder;
+		this.isBottom = isBottom;
+	}
+
+	/**
+	 * Builds the congruence class containing only the given constant.
+	 *
+	 * @param value the constant
+	 *
+	 * @return the congruence class
+	 */
+	public static Congruence constant(
+			long value) {
+		return new Congruence(0, value);
+	}
+
+	/**
+	 * Yields whether this element represents a single constant.
+	 *
+	 * @return {@code true} if the modulus is {@code 0}
+	 */
+	public boolean isConstant() {
+		return !isBottom && modulus == 0;
+	}
+
+	/**
+	 * Yields whether the given value belongs to this congruence class.
+	 *
+	 * @param value the value
+	 *
+	 * @return {@code true} if {@code value} is equal to the remainder modulo
+	 *             the modulus
+	 */
+	public boolean contains(
+			long value) {
+		if (isBottom)
+			return false;
+		if (modulus == 0)
+			return value == remainder;
+		return Math.floorMod(value, modulus) == remainder;
+	}
+
+	private static long gcd(
+			long a,
+			long b) {
+		a = Math.abs(a);
+		b = Math.abs(b);
+		while (b != 0) {
+			long t = a % b;
+			a = b;
+			b = t;
+		}
+		return a;
+	}
+
+	@Override
+	public Congruence lubAux(
+			Congruence other)
+			throws SemanticException {
+		try {
+			long diff = Math.subtractExact(remainder, other.remainder);
+			if (diff == Long.MIN_VALUE)
+				return TOP;
+			return mk(gcd(gcd(modulus, other.modulus), diff), remainder);
+		} catch (ArithmeticException e) {
+			return TOP;
+		}
+	}
+
+	@Override
+	public Congruence glbAux(
+			Congruence other)
+			throws SemanticException {
+		if (modulus == 0)
+			return other.contains(remainder) ? this : BOTTOM;
+		if (other.modulus == 0)
+			return contains(other.remainder) ? other : BOTTOM;
+
+		// chinese remainder theorem
+		long g = gcd(modulus, other.modulus);
+		if (Math.floorMod(remainder - other.remainder, g) != 0)
+			return BOTTOM;
+		try {
+			long m = modulus / g, n = other.modulus / g;
+			long lcm = Math.multiplyExact(m, other.modulus);
+			// x = remainder + modulus * t, with m * t = (other.remainder - remainder) / g (mod n)
+			long t = Math.floorMod(Math.multiplyExact(
+					Math.floorMod((other.remainder - remainder) / g, n), inverse(m, n)), n);
+			return mk(lcm, Math.addExact(remainder, Math.multiplyExact(modulus, t)));
+		} catch (ArithmeticException e) {
+			// any of the two is a sound approximation
+			return this;
+		}
+	}
+
+	// the inverse of a modulo n, with a and n coprime
+	private static long inverse(
+			long a,
+			long n) {
+		if (n == 1)
+			return 0;
+		long r0 = n, r1 = Math.floorMod(a, n), s0 = 0, s1 = 1;
+		while (r1 != 0) {
+			long q = r0 / r1, tmp = r0 - q * r1;
+			r0 = r1;
+			r1 = tmp;
+			tmp = s0 - q * s1;
+			s0 = s1;
+			s1 = tmp;
+		}
+		return Math.floorMod(s0, n);
+	}
+
+	@Override
+	public Congruence wideningAux(
+			Congruence other)
+			throws SemanticException {
+		// ascending chains are finite: each modulus divides the previous one
+		return lubAux(other);
+	}
+
+	@Override
+	public boolean lessOrEqualAux(
+			Congruence other)
+			throws SemanticException {
+		if (other.modulus == 0)
+			return modulus == 0 && remainder == other.remainder;
+		return modulus % other.modulus == 0 && other.contains(remainder);
+	}
+
+	private Congruence mk(
+			long modulus,
+			long remainder) {
+		if (modulus == 1)
+			return TOP;
+		Congruence result = new Congruence(modulus, remainder);
+		return result.equals(this) ? this : result;
+	}
+
+	@Override
+	public Congruence evalNonNullConstant(
+			Constant constant,
+			ProgramPoint pp,
+			SemanticOracle oracle)
+			throws SemanticException {
+		if (constant.getValue() instanceof Integer)
+			return constant((Integer) constant.getValue());
+		return top();
+	}
+
+	@Override
+	public Congruence evalUnaryExpression(
+			UnaryOperator operator,
+			Congruence arg,
+			ProgramPoint pp,
+			SemanticOracle oracle)
+			throws SemanticException {
+		if (arg.isBottom())
+			return bottom();
+		if (operator instanceof NumericNegation)
+			return arg.remainder == Long.MIN_VALUE ? top() : mk(arg.modulus, -arg.remainder);
+		return top();
+	}
+
+	@Override
+	public Congruence evalBinaryExpression(
+			BinaryOperator operator,
+			Congruence left,
+			Congruence right,
+			ProgramPoint pp,
+			SemanticOracle oracle)
+			throws SemanticException {
+		if (left.isBottom() || right.isBottom())
+			return bottom();
+
+		try {
+			if (operator instanceof AdditionOperator)
+				return mk(gcd(left.modulus, right.modulus), Math.addExact(left.remainder, right.remainder));
+			if (operator instanceof SubtractionOperator)
+				return mk(gcd(left.modulus, right.modulus), Math.subtractExact(left.remainder, right.remainder));
+			if (operator instanceof MultiplicationOperator)
+				// (a1*Z + b1) * (a2*Z + b2) is in gcd(a1*a2, a1*b2, a2*b1)*Z + b1*b2
+				return mk(gcd(Math.multiplyExact(left.modulus, right.modulus),
+						gcd(Math.multiplyExact(left.modulus, right.remainder),
+								Math.multiplyExact(right.modulus, left.remainder))),
+						Math.multiplyExact(left.remainder, right.remainder));
+			if (operator instanceof DivisionOperator) {
+				if (right.isConstant() && right.remainder == 0)
+					return bottom();
+				if (left.isConstant() && right.isConstant())
+					return left.remainder == Long.MIN_VALUE && right.remainder == -1 ? top()
+							: constant(left.remainder / right.remainder);
+			}
+		} catch (ArithmeticException e) {
+			// not representable with longs
+		}
+
+		return top();
+	}
+
+	@Override
+	public ValueEnvironment<Congruence> assumeBinaryExpression(
+			ValueEnvironment<Congruence> environment,
+			BinaryOperator operator,
+			ValueExpression left,
+			ValueExpression right,
+			ProgramPoint src,
+			ProgramPoint dest,
+			SemanticOracle oracle)
+			throws SemanticException {
+		Congruence l = eval(left, environment, src, oracle);
+		Congruence r = eval(right, environment, src, oracle);
+		if (operator instanceof ComparisonEq) {
+			Congruence both = l.glb(r);
+			if (both.isBottom())
+				return environment.bottom();
+			ValueEnvironment<Congruence> result = environment;
+			if (left instanceof Identifier)
+				result = result.putState((Identifier) left, both);
+			if (right instanceof Identifier)
+				result = result.putState((Identifier) right, both);
+			return result;
+		}
+		if (operator instanceof ComparisonNe && l.isConstant() && l.equals(r))
+			return environment.bottom();
+		return environment;
+	}
+
+	@Override
+	public Congruence top() {
+		return TOP;
+	}
+
+	@Override
+	public boolean isTop() {
+		return !isBottom && modulus == 1;
+	}
+
+	@Override
+	public Congruence bottom() {
+		return BOTTOM;
+	}
+
+	@Override
+	public boolean isBottom() {
+		return isBottom;
+	}
+
+	@Override
+	public StructuredRepresentation representation() {
+		if (isTop())
+			return Lattice.topRepresentation();
+		if (isBottom())
+			return Lattice.bottomRepresentation();
+		if (modulus == 0)
+			return new StringRepresentation(String.valueOf(remainder));
+		return new StringRepresentation(modulus + "Z+" + remainder);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(modulus, remainder, isBottom);
+	}
+
+	@Override
+	public boolean equals(
+			Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		Congruence other = (Congruence) obj;
+		return modulus == other.modulus && remainder == other.remainder && isBottom == other.isBottom;
+	}
+
+	@Override
+	public String toString() {
+		return representation().toString();
+	}
+}
@@ -0,0 +1,331 @@
+package it.unive.scsr;
+
+import java.util.Objects;
+
+import it.unive.lisa.analysis.Lattice;
+import it.unive.lisa.analysis.SemanticException;
+import it.unive.lisa.analysis.SemanticOracle;
+import it.unive.lisa.analysis.nonrelational.value.BaseNonRelationalValueDomain;
+import it.unive.lisa.analysis.nonrelational.value.ValueEnvironment;
+import it.unive.lisa.program.cfg.ProgramPoint;
+import it.unive.lisa.symbolic.value.Constant;
+import it.unive.lisa.symbolic.value.Identifier;
+import it.unive.lisa.symbolic.value.ValueExpression;
+import it.unive.lisa.symbolic.value.operator.binary.BinaryOperator;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonEq;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonGe;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonGt;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonLe;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonLt;
+import it.unive.lisa.symbolic.value.operator.unary.UnaryOperator;
+import it.unive.lisa.util.numeric.MathNumber;
+import it.unive.lisa.util.numeric.MathNumberConversionException;
+import it.unive.lisa.util.representation.StringRepresentation;
+import it.unive.lisa.util.representation.StructuredRepresentation;
+
+/**
+ * The reduced product of {@link Intervals} and {@link Congruence}. After each
+ * operation the finite bounds of the interval are moved inwards to the closest
+ * values of the congruence class, and an interval made of a single value turns
+ * the congruence into that constant. For a loop stepping by a constant, the
+ * bound reached after widening and the loop guard is tightened to the last
+ * value the counter can actually take.
+ */
+public class IntervalsCongruence implements BaseNonRelationalValueDomain<IntervalsCongruence> {
+
+	private static final IntervalsCongruence TOP = new IntervalsCongruence(Intervals.TOP, new Congruence());
+
+	private static final IntervalsCongruence BOTTOM = new IntervalsCongruence(Intervals.BOTTOM,
+			new Congruence().bottom());
+
+	/**
+	 * The interval component, already reduced.
+	 */
+	public final Intervals intervals;
+
+	/**
+	 * The congruence component, already reduced.
+	 */
+	public final Congruence congruence;
+
+	/**
+	 * Builds the top element.
+	 */
+	public IntervalsCongruence() {
+		this(Intervals.TOP, new Congruence());
+	}
+
+	/**
+	 * Builds the reduced product of the given elements.
+	 *
+	 * @param intervals  the interval component
+	 * @param congruence the congruence component
+	 */
+	public IntervalsCongruence(
+			Intervals intervals,
+			Congruence congruence) {
+		this(intervals, congruence, true);
+	}
+
+	private IntervalsCongruence(
+			Intervals intervals,
+			Congruence congruence,
+			boolean reduce) {
+		Intervals i = intervals;
+		Congruence c = congruence;
+		if (reduce && !i.isBottom() && !c.isBottom()) {
+			Long low = toLong(i.interval.getLow()), high = toLong(i.interval.getHigh());
+			if (c.isConstant())
+				i = contains(i, c.remainder) ? singleton(c.remainder) : Intervals.BOTTOM;
+			else if (low != null && low.equals(high))
+				c = c.contains(low) ? Congruence.constant(low) : c.bottom();
+			else if (c.modulus > 1) {
+				// move each finite bound inwards to the closest value of the class
+				MathNumber l = i.interval.getLow(), h = i.interval.getHigh();
+				if (low != null)
+					l = new MathNumber(low + Math.floorMod(c.remainder - low, c.modulus));
+				if (high != null)
+					h = new MathNumber(high - Math.floorMod(high - c.remainder, c.modulus));
+				if (l.compareTo(h) > 0)
+					i = Intervals.BOTTOM;
+				else {
+					i = new Intervals(l, h);
+					if (l.equals(h))
+						c = Congruence.constant(toLong(l));
+				}
+			}
+		}
+
+		if (i.isBottom() || c.isBottom()) {
+			i = Intervals.BOTTOM;
+			c = congruence.bottom();
+		}
+		this.intervals = i;
+		this.congruence = c;
+	}
+
+	private static Long toLong(
+			MathNumber number) {
+		if (number.isInfinite())
+			return null;
+		try {
+			return number.toLong();
+		} catch (MathNumberConversionException e) {
+			return null;
+		}
+	}
+
+	private static Intervals singleton(
+			long value) {
+		MathNumber number = new MathNumber(value);
+		return new Intervals(number, number);
+	}
+
+	private static boolean contains(
+			Intervals intervals,
+			long value) {
+		MathNumber number = new MathNumber(value);
+		return intervals.interval.getLow().compareTo(number) <= 0 && intervals.interval.getHigh().compareTo(number) >= 0;
+	}
+
+	/**
+	 * Yields whether no concretization of this element is zero, according to
+	 * either of the two components. This holds, for instance, for odd values
+	 * whose interval contains zero.
+	 *
+	 * @return {@code true} if zero is excluded
+	 */
+	public boolean excludesZero() {
+		return isBottom() || !contains(intervals, 0) || !congruence.contains(0);
+	}
+
+	@Override
+	public IntervalsCongruence lubAux(
+			IntervalsCongruence other)
+			throws SemanticException {
+		return new IntervalsCongruence(intervals.lub(other.intervals), congruence.lub(other.congruence));
+	}
+
+	@Override
+	public IntervalsCongruence glbAux(
+			IntervalsCongruence other)
+			throws SemanticException {
+		MathNumber low = intervals.interval.getLow().max(other.intervals.interval.getLow());
+		MathNumber high = intervals.interval.getHigh().min(other.intervals.interval.getHigh());
+		if (low.compareTo(high) > 0)
+			return BOTTOM;
+		return new IntervalsCongruence(new Intervals(low, high), congruence.glb(other.congruence));
+	}
+
+	@Override
+	public IntervalsCongruence wideningAux(
+			IntervalsCongruence other)
+			throws SemanticException {
+		// no reduction here, as moving the bounds could break the
+		// convergence of the widening
+		return new IntervalsCongruence(intervals.widening(other.intervals), congruence.widening(other.congruence),
+				false);
+	}
+
+	@Override
+	public IntervalsCongruence narrowingAux(
+			IntervalsCongruence other)
+			throws SemanticException {
+		return new IntervalsCongruence(intervals.narrowing(other.intervals), congruence);
+	}
+
+	@Override
+	public boolean lessOrEqualAux(
+			IntervalsCongruence other)
+			throws SemanticException {
+		return intervals.lessOrEqual(other.intervals) && congruence.lessOrEqual(other.congruence);
+	}
+
+	@Override
+	public IntervalsCongruence evalNonNullConstant(
+			Constant constant,
+			ProgramPoint pp,
+			SemanticOracle oracle)
+			throws SemanticException {
+		return new IntervalsCongruence(intervals.evalNonNullConstant(constant, pp, oracle),
+				congruence.evalNonNullConstant(constant, pp, oracle));
+	}
+
+	@Override
+	public IntervalsCongruence evalUnaryExpression(
+			UnaryOperator operator,
+			IntervalsCongruence arg,
+			ProgramPoint pp,
+			SemanticOracle oracle)
+			throws SemanticException {
+		return new IntervalsCongruence(intervals.evalUnaryExpression(operator, arg.intervals, pp, oracle),
+				congruence.evalUnaryExpression(operator, arg.congruence, pp, oracle));
+	}
+
+	@Override
+	public IntervalsCongruence evalBinaryExpression(
+			BinaryOperator operator,
+			IntervalsCongruence left,
+			IntervalsCongruence right,
+			ProgramPoint pp,
+			SemanticOracle oracle)
+			throws SemanticException {
+		if (left.isBottom() || right.isBottom())
+			return bottom();
+		return new IntervalsCongruence(
+				intervals.evalBinaryExpression(operator, left.intervals, right.intervals, pp, oracle),
+				congruence.evalBinaryExpression(operator, left.congruence, right.congruence, pp, oracle));
+	}
+
+	@Override
+	public ValueEnvironment<IntervalsCongruence> assumeBinaryExpression(
+			ValueEnvironment<IntervalsCongruence> environment,
+			BinaryOperator operator,
+			ValueExpression left,
+			ValueExpression right,
+			ProgramPoint src,
+			ProgramPoint dest,
+			SemanticOracle oracle)
+			throws SemanticException {
+		ValueEnvironment<IntervalsCongruence> result = environment;
+		if (left instanceof Identifier)
+			result = refine(result, (Identifier) left, operator, eval(right, environment, src, oracle));
+		if (right instanceof Identifier && !result.isBottom())
+			result = refine(result, (Identifier) right, flip(operator), eval(left, environment, src, oracle));
+		return result;
+	}
+
+	private static BinaryOperator flip(
+			BinaryOperator operator) {
+		if (operator instanceof ComparisonLt)
+			return ComparisonGt.INSTANCE;
+		if (operator instanceof ComparisonLe)
+			return ComparisonGe.INSTANCE;
+		if (operator instanceof ComparisonGt)
+			return ComparisonLt.INSTANCE;
+		if (operator instanceof ComparisonGe)
+			return ComparisonLe.INSTANCE;
+		return operator;
+	}
+
+	private static ValueEnvironment<IntervalsCongruence> refine(
+			ValueEnvironment<IntervalsCongruence> environment,
+			Identifier id,
+			BinaryOperator operator,
+			IntervalsCongruence other)
+			throws SemanticException {
+		if (other.isBottom())
+			return environment;
+		MathNumber low = other.intervals.interval.getLow(), high = other.intervals.interval.getHigh();
+		IntervalsCongruence bound;
+		if (operator instanceof ComparisonEq)
+			bound = other;
+		else if (operator instanceof ComparisonLt)
+			bound = new IntervalsCongruence(new Intervals(MathNumber.MINUS_INFINITY, high.subtract(MathNumber.ONE)),
+					new Congruence());
+		else if (operator instanceof ComparisonLe)
+			bound = new IntervalsCongruence(new Intervals(MathNumber.MINUS_INFINITY, high), new Congruence());
+		else if (operator instanceof ComparisonGt)
+			bound = new IntervalsCongruence(new Intervals(low.add(MathNumber.ONE), MathNumber.PLUS_INFINITY),
+					new Congruence());
+		else if (operator instanceof ComparisonGe)
+			bound = new IntervalsCongruence(new Intervals(low, MathNumber.PLUS_INFINITY), new Congruence());
+		else
+			return environment;
+
+		IntervalsCongruence refined = environment.getState(id).glb(bound);
+		return refined.isBottom() ? environment.bottom() : environment.putState(id, refined);
+	}
+
+	@Override
+	public IntervalsCongruence top() {
+		return TOP;
+	}
+
+	@Override
+	public boolean isTop() {
+		return intervals.isTop() && congruence.isTop();
+	}
+
+	@Override
+	public IntervalsCongruence bottom() {
+		return BOTTOM;
+	}
+
+	@Override
+	public boolean isBottom() {
+		return intervals.isBottom() && congruence.isBottom();
+	}
+
+	@Override
+	public StructuredRepresentation representation() {
+		if (isTop())
+			return Lattice.topRepresentation();
+		if (isBottom())
+			return Lattice.bottomRepresentation();
+		return new StringRepresentation(intervals.representation() + ", " + congruence.representation());
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(intervals, congruence);
+	}
+
+	@Override
+	public boolean equals(
+			Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		IntervalsCongruence other = (IntervalsCongruence) obj;
+		return Objects.equals(intervals, other.intervals) && Objects.equals(congruence, other.congruence);
+	}
+
+	@Override
+	public String toString() {
+		return representation().toString();
+	}
+}
@@ -95,6 +95,22 @@ public class Pentagons
 	}
 	
 
+	@Override
+	public Pentagons narrowingAux(
+			Pentagons other)
+			throws SemanticException {
+		// only infinite interval bounds are refined, while upper bounds can
+		// only grow up to the finite set of tracked identifiers
+		return new Pentagons(upperbounds.glb(other.upperbounds), intervals.narrowing(other.intervals)).closure();
+	}
+
+	@Override
+	public Pentagons glbAux(
+			Pentagons other)
+			throws SemanticException {
+		return new Pentagons(upperbounds.glb(other.upperbounds), intervals.glb(other.intervals)).closure();
+	}
+
 	@Override
 	public Pentagons lubAux(
 			Pentagons other)
@@ -271,7 +287,7 @@ public class Pentagons
 	}
 
 	private Pentagons closure() throws SemanticException {
-		ValueEnvironment<UpperBounds> newBounds = new ValueEnvironment<UpperBounds>(upperbounds.lattice, upperbounds.getMap());
+		ValueEnvironment<UpperBounds> newBounds = upperbounds.mk(upperbounds.lattice, upperbounds.getMap());
 
 		for (Identifier id1 : intervals.getKeys()) {
 			Set<Identifier> closure = new HashSet<>();
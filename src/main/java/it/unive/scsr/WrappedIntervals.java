@@ -0,0 +1,487 @@
+package it.unive.scsr;
+
+import java.util.Objects;
+
+import it.unive.lisa.analysis.Lattice;
+import it.unive.lisa.analysis.SemanticException;
+import it.unive.lisa.analysis.SemanticOracle;
+import it.unive.lisa.analysis.nonrelational.value.BaseNonRelationalValueDomain;
+import it.unive.lisa.analysis.nonrelational.value.ValueEnvironment;
+import it.unive.lisa.program.cfg.ProgramPoint;
+import it.unive.lisa.symbolic.value.Constant;
+import it.unive.lisa.symbolic.value.Identifier;
+import it.unive.lisa.symbolic.value.ValueExpression;
+import it.unive.lisa.symbolic.value.operator.AdditionOperator;
+import it.unive.lisa.symbolic.value.operator.DivisionOperator;
+import it.unive.lisa.symbolic.value.operator.MultiplicationOperator;
+import it.unive.lisa.symbolic.value.operator.SubtractionOperator;
+import it.unive.lisa.symbolic.value.operator.binary.BinaryOperator;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonEq;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonGe;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonGt;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonLe;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonLt;
+import it.unive.lisa.symbolic.value.operator.unary.NumericNegation;
+import it.unive.lisa.symbolic.value.operator.unary.UnaryOperator;
+import it.unive.lisa.util.representation.StringRepresentation;
+import it.unive.lisa.util.representation.StructuredRepresentation;
+import it.unive.scsr.checkers.OverflowChecker.NumericalSize;
+
+/**
+ * An interval domain over the machine integers of a given
+ * {@link NumericalSize}, modeling two's-complement wrap-around: the result of
+ * an operation is computed exactly on {@code long}s, and then brought back in
+ * the range of the size, either by shifting it by a multiple of
+ * {@code 2^bits} (when the whole result wraps by the same amount) or by going
+ * to top. Bounds never exceed the range of the size, so widening jumps to the
+ * bounds of the range instead of infinity, and no {@code MathNumber} is ever
+ * allocated.
+ * <br>
+ * <br>
+ * Only integer sizes are supported. The wrap-around performed by each
+ * operation can be queried through {@link #wrappingOf(BinaryOperator, WrappedIntervals, WrappedIntervals)}
+ * and {@link #wrappingOf(UnaryOperator, WrappedIntervals)}, used by
+ * {@link it.unive.scsr.checkers.WrapAroundChecker}.
+ */
+public class WrappedIntervals implements BaseNonRelationalValueDomain<WrappedIntervals> {
+
+	/**
+	 * How an operation wraps around.
+	 */
+	public enum Wrapping {
+		/**
+		 * The result always fits in the range.
+		 */
+		NONE,
+
+		/**
+		 * The result fits in the range only for some of the operands.
+		 */
+		MAY,
+
+		/**
+		 * The result never fits in the range.
+		 */
+		MUST
+	}
+
+	/**
+	 * The size of the modeled integers.
+	 */
+	public final NumericalSize size;
+
+	/**
+	 * The lower bound, included.
+	 */
+	public final long low;
+
+	/**
+	 * The upper bound, included. If it is smaller than {@link #low}, this is
+	 * the bottom element.
+	 */
+	public final long high;
+
+	/**
+	 * Builds the top element for the given size.
+	 *
+	 * @param size the size of the modeled integers
+	 *
+	 * @throws IllegalArgumentException if {@code size} is not an integer size
+	 */
+	public WrappedIntervals(
+			NumericalSize size) {
+		this(size, min(size), max(size));
+	}
+
+	/**
+	 * Builds the interval.
+	 *
+	 * @param size the size of the modeled integers
+	 * @param low  the lower bound
+	 * @param high the upper bound
+	 *
+	 * @throws IllegalArgumentException if {@code size} is not an integer size,
+	 *                                      or the bounds exceed its range
+	 */
+	public WrappedIntervals(
+			NumericalSize size,
+			long low,
+			long high) {
+		if (low <= high && (low < min(size) || high > max(size)))
+			throw new IllegalArgumentException("[" + low + "," + high + "] exceeds the range of " + size);
+		this.size = size;
+		this.low = low;
+		this.high = high;
+	}
+
+	private static int bits(
+			NumericalSize size) {
+		switch (size) {
+		case INT8:
+		case UINT8:
+			return 8;
+		case INT16:
+		case UINT16:
+			return 16;
+		case INT32:
+		case UINT32:
+			return 32;
+		default:
+			throw new IllegalArgumentException("Wrap-around is not defined for " + size);
+		}
+	}
+
+	private static boolean isSigned(
+			NumericalSize size) {
+		return size == NumericalSize.INT8 || size == NumericalSize.INT16 || size == NumericalSize.INT32;
+	}
+
+	private static long min(
+			NumericalSize size) {
+		return isSigned(size) ? -(1L << (bits(size) - 1)) : 0;
+	}
+
+	private static long max(
+			NumericalSize size) {
+		return isSigned(size) ? (1L << (bits(size) - 1)) - 1 : (1L << bits(size)) - 1;
+	}
+
+	private WrappedIntervals mk(
+			long low,
+			long high) {
+		if (low == this.low && high == this.high)
+			return this;
+		return low > high ? bottom() : new WrappedIntervals(size, low, high);
+	}
+
+	/**
+	 * Brings the exact result {@code [low, high]} of an operation back in the
+	 * range of the size.
+	 */
+	private WrappedIntervals wrap(
+			long[] exact) {
+		if (exact == null)
+			return top();
+		long min = min(size), max = max(size), modulus = 1L << bits(size);
+		long lo = exact[0], hi = exact[1];
+		if (lo >= min && hi <= max)
+			return mk(lo, hi);
+		try {
+			if (Math.subtractExact(hi, lo) >= modulus)
+				return top();
+		} catch (ArithmeticException e) {
+			return top();
+		}
+		long l = Math.floorMod(lo - min, modulus) + min;
+		long h = Math.floorMod(hi - min, modulus) + min;
+		// a result crossing a boundary of the range covers both of its ends
+		return l <= h ? mk(l, h) : top();
+	}
+
+	private static Wrapping wrapping(
+			NumericalSize size,
+			long[] exact) {
+		if (exact == null)
+			return Wrapping.MAY;
+		long min = min(size), max = max(size);
+		if (exact[0] >= min && exact[1] <= max)
+			return Wrapping.NONE;
+		if (exact[1] < min || exact[0] > max)
+			return Wrapping.MUST;
+		return Wrapping.MAY;
+	}
+
+	/**
+	 * Yields how the given binary operation, applied to the given operands,
+	 * wraps around.
+	 *
+	 * @param operator the operator
+	 * @param left     the left operand
+	 * @param right    the right operand
+	 *
+	 * @return the wrapping, {@link Wrapping#NONE} for operators that are not
+	 *             modeled or operands that are bottom
+	 */
+	public static Wrapping wrappingOf(
+			BinaryOperator operator,
+			WrappedIntervals left,
+			WrappedIntervals right) {
+		if (left.isBottom() || right.isBottom() || !isArithmetic(operator))
+			return Wrapping.NONE;
+		if (operator instanceof DivisionOperator && right.low == 0 && right.high == 0)
+			return Wrapping.NONE;
+		return wrapping(left.size, exact(operator, left, right));
+	}
+
+	/**
+	 * Yields how the given unary operation, applied to the given operand,
+	 * wraps around.
+	 *
+	 * @param operator the operator
+	 * @param arg      the operand
+	 *
+	 * @return the wrapping, {@link Wrapping#NONE} for operators that are not
+	 *             modeled or operands that are bottom
+	 */
+	public static Wrapping wrappingOf(
+			UnaryOperator operator,
+			WrappedIntervals arg) {
+		if (arg.isBottom() || !(operator instanceof NumericNegation))
+			return Wrapping.NONE;
+		return wrapping(arg.size, new long[] { -arg.high, -arg.low });
+	}
+
+	private static boolean isArithmetic(
+			BinaryOperator operator) {
+		return operator instanceof AdditionOperator
+				|| operator instanceof SubtractionOperator
+				|| operator instanceof MultiplicationOperator
+				|| operator instanceof DivisionOperator;
+	}
+
+	/**
+	 * Yields the exact result of an arithmetic operation, or {@code null} if
+	 * it does not fit in a {@code long}. Bounds of the operands are at most 32
+	 * bits wide, so only products can exceed that range.
+	 */
+	private static long[] exact(
+			BinaryOperator operator,
+			WrappedIntervals left,
+			WrappedIntervals right) {
+		try {
+			if (operator instanceof AdditionOperator)
+				return new long[] { left.low + right.low, left.high + right.high };
+			if (operator instanceof SubtractionOperator)
+				return new long[] { left.low - right.high, left.high - right.low };
+			if (operator instanceof MultiplicationOperator)
+				return hull(
+						Math.multiplyExact(left.low, right.low),
+						Math.multiplyExact(left.low, right.high),
+						Math.multiplyExact(left.high, right.low),
+						Math.multiplyExact(left.high, right.high));
+
+			// division: the divisor is split around zero, that is excluded
+			long[] negative = null, positive = null;
+			if (right.low < 0)
+				negative = divide(left, right.low, Math.min(right.high, -1));
+			if (right.high > 0)
+				positive = divide(left, Math.max(right.low, 1), right.high);
+			if (negative == null)
+				return positive;
+			if (positive == null)
+				return negative;
+			return hull(negative[0], negative[1], positive[0], positive[1]);
+		} catch (ArithmeticException e) {
+			return null;
+		}
+	}
+
+	private static long[] divide(
+			WrappedIntervals left,
+			long low,
+			long high) {
+		return hull(left.low / low, left.low / high, left.high / low, left.high / high);
+	}
+
+	private static long[] hull(
+			long... values) {
+		long min = values[0], max = values[0];
+		for (long value : values) {
+			min = Math.min(min, value);
+			max = Math.max(max, value);
+		}
+		return new long[] { min, max };
+	}
+
+	@Override
+	public WrappedIntervals evalNonNullConstant(
+			Constant constant,
+			ProgramPoint pp,
+			SemanticOracle oracle)
+			throws SemanticException {
+		Object value = constant.getValue();
+		if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+			long v = ((Number) value).longValue();
+			return wrap(new long[] { v, v });
+		}
+		return top();
+	}
+
+	@Override
+	public WrappedIntervals evalUnaryExpression(
+			UnaryOperator operator,
+			WrappedIntervals arg,
+			ProgramPoint pp,
+			SemanticOracle oracle)
+			throws SemanticException {
+		if (arg.isBottom())
+			return bottom();
+		if (operator instanceof NumericNegation)
+			return wrap(new long[] { -arg.high, -arg.low });
+		return top();
+	}
+
+	@Override
+	public WrappedIntervals evalBinaryExpression(
+			BinaryOperator operator,
+			WrappedIntervals left,
+			WrappedIntervals right,
+			ProgramPoint pp,
+			SemanticOracle oracle)
+			throws SemanticException {
+		if (left.isBottom() || right.isBottom())
+			return bottom();
+		if (!isArithmetic(operator))
+			return top();
+		if (operator instanceof DivisionOperator && right.low == 0 && right.high == 0)
+			// the division always fails
+			return bottom();
+		return wrap(exact(operator, left, right));
+	}
+
+	@Override
+	public ValueEnvironment<WrappedIntervals> assumeBinaryExpression(
+			ValueEnvironment<WrappedIntervals> environment,
+			BinaryOperator operator,
+			ValueExpression left,
+			ValueExpression right,
+			ProgramPoint src,
+			ProgramPoint dest,
+			SemanticOracle oracle)
+			throws SemanticException {
+		ValueEnvironment<WrappedIntervals> result = environment;
+		if (left instanceof Identifier)
+			result = refine(result, (Identifier) left, operator, eval(right, environment, src, oracle));
+		if (right instanceof Identifier && !result.isBottom())
+			result = refine(result, (Identifier) right, flip(operator), eval(left, environment, src, oracle));
+		return result;
+	}
+
+	private static BinaryOperator flip(
+			BinaryOperator operator) {
+		if (operator instanceof ComparisonLt)
+			return ComparisonGt.INSTANCE;
+		if (operator instanceof ComparisonLe)
+			return ComparisonGe.INSTANCE;
+		if (operator instanceof ComparisonGt)
+			return ComparisonLt.INSTANCE;
+		if (operator instanceof ComparisonGe)
+			return ComparisonLe.INSTANCE;
+		return operator;
+	}
+
+	private ValueEnvironment<WrappedIntervals> refine(
+			ValueEnvironment<WrappedIntervals> environment,
+			Identifier id,
+			BinaryOperator operator,
+			WrappedIntervals other)
+			throws SemanticException {
+		if (other.isBottom() || other.size != size)
+			return environment;
+		long min = min(size), max = max(size);
+		WrappedIntervals bound;
+		if (operator instanceof ComparisonEq)
+			bound = other;
+		else if (operator instanceof ComparisonLt)
+			bound = mk(min, other.high - 1);
+		else if (operator instanceof ComparisonLe)
+			bound = mk(min, other.high);
+		else if (operator instanceof ComparisonGt)
+			bound = mk(other.low + 1, max);
+		else if (operator instanceof ComparisonGe)
+			bound = mk(other.low, max);
+		else
+			return environment;
+
+		WrappedIntervals refined = environment.getState(id).glb(bound);
+		return refined.isBottom() ? environment.bottom() : environment.putState(id, refined);
+	}
+
+	@Override
+	public WrappedIntervals lubAux(
+			WrappedIntervals other)
+			throws SemanticException {
+		return mk(Math.min(low, other.low), Math.max(high, other.high));
+	}
+
+	@Override
+	public WrappedIntervals glbAux(
+			WrappedIntervals other)
+			throws SemanticException {
+		return mk(Math.max(low, other.low), Math.min(high, other.high));
+	}
+
+	@Override
+	public WrappedIntervals wideningAux(
+			WrappedIntervals other)
+			throws SemanticException {
+		// the range is finite, but jumping to its bounds avoids climbing it
+		return mk(other.low < low ? min(size) : low, other.high > high ? max(size) : high);
+	}
+
+	@Override
+	public WrappedIntervals narrowingAux(
+			WrappedIntervals other)
+			throws SemanticException {
+		return mk(low == min(size) ? other.low : low, high == max(size) ? other.high : high);
+	}
+
+	@Override
+	public boolean lessOrEqualAux(
+			WrappedIntervals other)
+			throws SemanticException {
+		return other.low <= low && high <= other.high;
+	}
+
+	@Override
+	public WrappedIntervals top() {
+		return isTop() ? this : new WrappedIntervals(size);
+	}
+
+	@Override
+	public boolean isTop() {
+		return low == min(size) && high == max(size);
+	}
+
+	@Override
+	public WrappedIntervals bottom() {
+		return isBottom() ? this : new WrappedIntervals(size, 1, 0);
+	}
+
+	@Override
+	public boolean isBottom() {
+		return low > high;
+	}
+
+	@Override
+	public StructuredRepresentation representation() {
+		if (isBottom())
+			return Lattice.bottomRepresentation();
+		return new StringRepresentation("[" + low + "," + high + "]");
+	}
+
+	@Override
+	public int hashCode() {
+		return isBottom() ? Objects.hash(size) : Objects.hash(size, low, high);
+	}
+
+	@Override
+	public boolean equals(
+			Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		WrappedIntervals other = (WrappedIntervals) obj;
+		if (size != other.size)
+			return false;
+		return isBottom() ? other.isBottom() : low == other.low && high == other.high;
+	}
+
+	@Override
+	public String toString() {
+		return representation().toString();
+	}
+}
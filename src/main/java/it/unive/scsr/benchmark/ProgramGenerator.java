@@ -0,0 +1,225 @@
+package it.unive.scsr.benchmark;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * A deterministic generator of synthetic IMP programs, used to stress the
+ * analyses of this project on inputs that are much bigger than the ones
+ * contained in the {@code inputs} folder. Two generators with the same
+ * parameters and the same seed always produce the same program.
+ * <br>
+ * <br>
+ * The generated program is a single class containing:
+ * <ul>
+ * <li>a source ({@code source1}), a sanitizer ({@code sanitizer1}) and a sink
+ * ({@code sink1}), named as the ones recognized by the taint tests;</li>
+ * <li>{@link #methods} methods {@code m0 ... mN}, each with one parameter and
+ * {@link #locals} local variables, whose bodies mix arithmetic assignments,
+ * (nested) loops, branches and calls.</li>
+ * </ul>
+ * Calls only go from {@code mi} to {@code mj} with {@code j > i}, so that the
+ * call graph is acyclic and its depth grows with the number of methods.
+ */
+public class ProgramGenerator {
+
+	/**
+	 * The name of the generated class.
+	 */
+	public static final String CLASS_NAME = "bench";
+
+	/**
+	 * The name of the generated source method.
+	 */
+	public static final String SOURCE = "source1";
+
+	/**
+	 * The name of the generated sanitizer method.
+	 */
+	public static final String SANITIZER = "sanitizer1";
+
+	/**
+	 * The name of the generated sink method.
+	 */
+	public static final String SINK = "sink1";
+
+	/**
+	 * The seed of the pseudo-random generator.
+	 */
+	public long seed = 42;
+
+	/**
+	 * The number of methods to generate (excluding sources, sanitizers and
+	 * sinks).
+	 */
+	public int methods = 10;
+
+	/**
+	 * The number of local variables of each method.
+	 */
+	public int locals = 5;
+
+	/**
+	 * The maximum nesting depth of loops.
+	 */
+	public int loopDepth = 1;
+
+	/**
+	 * The probability, in {@code [0, 1]}, that a block contains a branch.
+	 */
+	public double branchDensity = 0.3;
+
+	/**
+	 * The number of calls issued by each method towards other generated
+	 * methods.
+	 */
+	public int fanOut = 2;
+
+	/**
+	 * The probability, in {@code [0, 1]}, that an assignment reads from the
+	 * source and that a local flows into the sink.
+	 */
+	public double sourceSinkDensity = 0.1;
+
+	/**
+	 * The number of statements of each straight-line block.
+	 */
+	public int blockSize = 3;
+
+	private Random random;
+
+	private StringBuilder code;
+
+	/**
+	 * Generates the IMP program described by the current parameters.
+	 *
+	 * @return the source code of the program
+	 */
+	public String generate() {
+		random = new Random(seed);
+		code = new StringBuilder();
+
+		code.append("class ").append(CLASS_NAME).append(" {\n\n");
+		line(1, SOURCE + "() {");
+		line(2, "return " + (random.nextInt(200) - 100) + ";");
+		line(1, "}\n");
+		line(1, SANITIZER + "(v) {");
+		line(2, "return 0;");
+		line(1, "}\n");
+		line(1, SINK + "(v) {");
+		line(1, "}\n");
+
+		for (int i = 0; i < methods; i++)
+			method(i);
+
+		code.append("}\n");
+		return code.toString();
+	}
+
+	/**
+	 * Generates the IMP program described by the current parameters and
+	 * stores it in the given file, creating parent directories if needed.
+	 *
+	 * @param file the destination file
+	 *
+	 * @throws IOException if the file cannot be written
+	 */
+	public void generate(
+			Path file)
+			throws IOException {
+		if (file.getParent() != null)
+			Files.createDirectories(file.getParent());
+		try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			writer.write(generate());
+		}
+	}
+
+	private void method(
+			int index) {
+		line(1, "m" + index + "(p) {");
+		for (int l = 0; l < locals; l++)
+			line(2, "def " + local(l) + " = " + random.nextInt(10) + ";");
+
+		block(index, 2, 0);
+
+		int callees = methods - index - 1;
+		for (int c = 0; c < fanOut && callees > 0; c++) {
+			int target = index + 1 + random.nextInt(callees);
+			line(2, randomLocal() + " = this.m" + target + "(" + randomLocal() + ");");
+		}
+
+		line(2, "return " + randomLocal() + ";");
+		line(1, "}\n");
+	}
+
+	private void block(
+			int method,
+			int indent,
+			int depth) {
+		for (int s = 0; s < blockSize; s++)
+			statement(indent);
+
+		if (random.nextDouble() < branchDensity) {
+			line(indent, "if (p > " + random.nextInt(10) + ") {");
+			for (int s = 0; s < blockSize; s++)
+				statement(indent + 1);
+			line(indent, "} else {");
+			for (int s = 0; s < blockSize; s++)
+				statement(indent + 1);
+			line(indent, "}");
+		}
+
+		if (depth < loopDepth) {
+			String counter = randomLocal();
+			line(indent, "while (" + counter + " < " + (10 + random.nextInt(90)) + ") {");
+			block(method, indent + 1, depth + 1);
+			line(indent + 1, counter + " = " + counter + " + 1;");
+			line(indent, "}");
+		}
+	}
+
+	private void statement(
+			int indent) {
+		if (random.nextDouble() < sourceSinkDensity) {
+			switch (random.nextInt(3)) {
+			case 0:
+				line(indent, randomLocal() + " = this." + SOURCE + "();");
+				return;
+			case 1:
+				line(indent, randomLocal() + " = this." + SANITIZER + "(" + randomLocal() + ");");
+				return;
+			default:
+				line(indent, "this." + SINK + "(" + randomLocal() + ");");
+				return;
+			}
+		}
+
+		String left = random.nextBoolean() ? randomLocal() : "p";
+		String right = random.nextBoolean() ? randomLocal() : String.valueOf(random.nextInt(10));
+		String op = random.nextInt(4) == 0 ? " - " : " + ";
+		line(indent, randomLocal() + " = " + left + op + right + ";");
+	}
+
+	private String randomLocal() {
+		if (locals == 0)
+			return "p";
+		return local(random.nextInt(locals));
+	}
+
+	private static String local(
+			int index) {
+		return "l" + index;
+	}
+
+	private void line(
+			int indent,
+			String text) {
+		for (int i = 0; i < indent; i++)
+			code.append('\t');
+		code.append(text).append('\n');
+	}
+}
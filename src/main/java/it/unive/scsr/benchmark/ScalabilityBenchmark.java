@@ -0,0 +1,275 @@
+package it.unive.scsr.benchmark;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.function.BiConsumer;
+
+import it.unive.lisa.DefaultConfiguration;
+import it.unive.lisa.LiSA;
+import it.unive.lisa.analysis.dataflow.PossibleDataflowDomain;
+import it.unive.lisa.analysis.nonrelational.value.ValueEnvironment;
+import it.unive.lisa.conf.LiSAConfiguration;
+import it.unive.lisa.conf.LiSAConfiguration.GraphType;
+import it.unive.lisa.imp.IMPFrontend;
+import it.unive.lisa.imp.ParsingException;
+import it.unive.lisa.interprocedural.context.ContextBasedAnalysis;
+import it.unive.lisa.program.Program;
+import it.unive.scsr.Intervals;
+import it.unive.scsr.Pentagons;
+import it.unive.scsr.ReachingDefinitions;
+import it.unive.scsr.Taint;
+import it.unive.scsr.checkers.TaintAnnotations;
+import it.unive.scsr.checkers.TaintChecker;
+import it.unive.scsr.interprocedural.CallStrings;
+
+/**
+ * Runs the analyses of this project on programs produced by
+ * {@link ProgramGenerator}, growing one generation parameter at a time, and
+ * records the wall-clock time and the peak heap usage of each run in a csv
+ * file.
+ */
+public class ScalabilityBenchmark {
+
+	/**
+	 * The analyses that can be benchmarked.
+	 */
+	public enum Analysis {
+		/**
+		 * {@link Intervals}, intraprocedural.
+		 */
+		INTERVALS,
+
+		/**
+		 * {@link Pentagons}, intraprocedural.
+		 */
+		PENTAGONS,
+
+		/**
+		 * {@link Taint} with the {@link TaintChecker}, interprocedural with
+		 * call strings of length {@link ScalabilityBenchmark#TAINT_CALL_STRINGS}.
+		 */
+		TAINT,
+
+		/**
+		 * {@link ReachingDefinitions}, intraprocedural.
+		 */
+		REACHING_DEFINITIONS,
+	}
+
+	/**
+	 * The length of the call strings used by {@link Analysis#TAINT}. The call
+	 * graph of a generated program is a dag where each method calls
+	 * {@link ProgramGenerator#fanOut} later ones: with the full call stack, the
+	 * number of contexts grows exponentially with the number of methods.
+	 */
+	public static final int TAINT_CALL_STRINGS = 2;
+
+	/**
+	 * The multipliers applied to the base value of each parameter.
+	 */
+	public int[] steps = new int[] { 1, 2, 4, 8 };
+
+	/**
+	 * The folder where generated programs and analysis outputs are stored.
+	 */
+	public String workdir = "outputs/benchmark";
+
+	/**
+	 * Runs the benchmark with the default parameters, writing the results in
+	 * {@code outputs/benchmark/scalability.csv} or in the file passed as first
+	 * argument.
+	 *
+	 * @param args the command line arguments
+	 *
+	 * @throws IOException      if the programs or the results cannot be
+	 *                              written
+	 * @throws ParsingException if a generated program cannot be parsed
+	 */
+	public static void main(
+			String[] args)
+			throws IOException,
+			ParsingException {
+		ScalabilityBenchmark bench = new ScalabilityBenchmark();
+		Path csv = args.length > 0 ? Paths.get(args[0]) : Paths.get(bench.workdir, "scalability.csv");
+		bench.run(csv);
+	}
+
+	/**
+	 * Grows each parameter of a {@link ProgramGenerator} in turn according to
+	 * {@link #steps}, runs every {@link Analysis} on the generated programs and
+	 * writes one csv row per run.
+	 *
+	 * @param csv the destination file
+	 *
+	 * @throws IOException      if the programs or the results cannot be
+	 *                              written
+	 * @throws ParsingException if a generated program cannot be parsed
+	 */
+	public void run(
+			Path csv)
+			throws IOException,
+			ParsingException {
+		if (csv.getParent() != null)
+			Files.createDirectories(csv.getParent());
+
+		try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(csv, StandardCharsets.UTF_8))) {
+			out.println("parameter,value,analysis,millis,peakHeapBytes");
+			sweep(out, "methods", (g, s) -> g.methods *= s);
+			sweep(out, "locals", (g, s) -> g.locals *= s);
+			sweep(out, "loopDepth", (g, s) -> g.loopDepth *= s);
+			sweep(out, "branchDensity", (g, s) -> g.branchDensity = Math.min(1, g.branchDensity * s));
+			sweep(out, "fanOut", (g, s) -> g.fanOut *= s);
+			sweep(out, "sourceSinkDensity", (g, s) -> g.sourceSinkDensity = Math.min(1, g.sourceSinkDensity * s));
+		}
+	}
+
+	private void sweep(
+			PrintWriter out,
+			String parameter,
+			BiConsumer<ProgramGenerator, Integer> grow)
+			throws IOException,
+			ParsingException {
+		for (int step : steps) {
+			ProgramGenerator generator = new ProgramGenerator();
+			grow.accept(generator, step);
+
+			String name = parameter + "-" + step;
+			Path file = Paths.get(workdir, "programs", name + ".imp");
+			generator.generate(file);
+
+			for (Analysis analysis : Analysis.values()) {
+				Program program = IMPFrontend.processFile(file.toString());
+				Measurement m = measure(program, analysis, Paths.get(workdir, name, analysis.name().toLowerCase()));
+				out.println(parameter + "," + valueOf(generator, parameter) + "," + analysis + "," + m.millis + ","
+						+ m.peakHeap);
+				out.flush();
+			}
+		}
+	}
+
+	private static String valueOf(
+			ProgramGenerator generator,
+			String parameter) {
+		switch (parameter) {
+		case "methods":
+			return String.valueOf(generator.methods);
+		case "locals":
+			return String.valueOf(generator.locals);
+		case "loopDepth":
+			return String.valueOf(generator.loopDepth);
+		case "branchDensity":
+			return String.valueOf(generator.branchDensity);
+		case "fanOut":
+			return String.valueOf(generator.fanOut);
+		default:
+			return String.valueOf(generator.sourceSinkDensity);
+		}
+	}
+
+	/**
+	 * Runs the given analysis on the given program, measuring its duration and
+	 * the peak heap usage.
+	 *
+	 * @param program  the program to analyze
+	 * @param analysis the analysis to execute
+	 * @param workdir  the working directory of the analysis
+	 *
+	 * @return the measurement
+	 */
+	public static Measurement measure(
+			Program program,
+			Analysis analysis,
+			Path workdir) {
+		LiSAConfiguration conf = configuration(program, analysis);
+		conf.workdir = workdir.toString();
+
+		System.gc();
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+			pool.resetPeakUsage();
+
+		long start = System.nanoTime();
+		new LiSA(conf).run(program);
+		long millis = (System.nanoTime() - start) / 1_000_000;
+
+		long peak = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+			if (pool.getType() == MemoryType.HEAP)
+				peak += pool.getPeakUsage().getUsed();
+
+		return new Measurement(millis, peak);
+	}
+
+	private static LiSAConfiguration configuration(
+			Program program,
+			Analysis analysis) {
+		LiSAConfiguration conf = new DefaultConfiguration();
+		conf.analysisGraphs = GraphType.NONE;
+		conf.jsonOutput = false;
+
+		switch (analysis) {
+		case INTERVALS:
+			conf.abstractState = DefaultConfiguration.simpleState(
+					DefaultConfiguration.defaultHeapDomain(),
+					new ValueEnvironment<>(new Intervals()),
+					DefaultConfiguration.defaultTypeDomain());
+			break;
+		case PENTAGONS:
+			conf.abstractState = DefaultConfiguration.simpleState(
+					DefaultConfiguration.defaultHeapDomain(),
+					new Pentagons(),
+					DefaultConfiguration.defaultTypeDomain());
+			break;
+		case TAINT:
+			TaintAnnotations.load(program,
+					new String[] { ProgramGenerator.SOURCE },
+					new String[] { ProgramGenerator.SANITIZER },
+					new String[] { ProgramGenerator.SINK });
+			conf.abstractState = DefaultConfiguration.simpleState(
+					DefaultConfiguration.defaultHeapDomain(),
+					new ValueEnvironment<>(new Taint()),
+					DefaultConfiguration.defaultTypeDomain());
+			conf.interproceduralAnalysis = new ContextBasedAnalysis<>(CallStrings.token(TAINT_CALL_STRINGS));
+			conf.semanticChecks.add(new TaintChecker());
+			break;
+		case REACHING_DEFINITIONS:
+		default:
+			conf.abstractState = DefaultConfiguration.simpleState(
+					DefaultConfiguration.defaultHeapDomain(),
+					new PossibleDataflowDomain<>(new ReachingDefinitions()),
+					DefaultConfiguration.defaultTypeDomain());
+			break;
+		}
+
+		return conf;
+	}
+
+	/**
+	 * The time and memory consumed by a single analysis run.
+	 */
+	public static class Measurement {
+
+		/**
+		 * The wall-clock duration of the run, in milliseconds.
+		 */
+		public final long millis;
+
+		/**
+		 * The peak heap usage during the run, in bytes.
+		 */
+		public final long peakHeap;
+
+		private Measurement(
+				long millis,
+				long peakHeap) {
+			this.millis = millis;
+			this.peakHeap = peakHeap;
+		}
+	}
+}
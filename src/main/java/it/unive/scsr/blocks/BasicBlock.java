@@ -0,0 +1,66 @@
+package it.unive.scsr.blocks;
+
+import java.util.Collections;
+import java.util.List;
+
+import it.unive.lisa.program.cfg.statement.Statement;
+
+/**
+ * A maximal sequence of statements of a cfg that are always executed one
+ * after the other: only the first one can have several (or no) predecessors,
+ * and only the last one can have several (or no) followers.
+ */
+public final class BasicBlock {
+
+	private final int index;
+
+	private final List<Statement> statements;
+
+	BasicBlock(
+			int index,
+			List<Statement> statements) {
+		this.index = index;
+		this.statements = Collections.unmodifiableList(statements);
+	}
+
+	/**
+	 * Yields the position of this block in the partition it belongs to.
+	 *
+	 * @return the position
+	 */
+	public int getIndex() {
+		return index;
+	}
+
+	/**
+	 * Yields the statements of this block, in execution order.
+	 *
+	 * @return the statements
+	 */
+	public List<Statement> getStatements() {
+		return statements;
+	}
+
+	/**
+	 * Yields the first statement of this block.
+	 *
+	 * @return the first statement
+	 */
+	public Statement getFirst() {
+		return statements.get(0);
+	}
+
+	/**
+	 * Yields the last statement of this block.
+	 *
+	 * @return the last statement
+	 */
+	public Statement getLast() {
+		return statements.get(statements.size() - 1);
+	}
+
+	@Override
+	public String toString() {
+		return "B" + index + statements;
+	}
+}
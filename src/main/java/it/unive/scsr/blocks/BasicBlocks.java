@@ -0,0 +1,155 @@
+package it.unive.scsr.blocks;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.statement.Statement;
+
+/**
+ * The partition of the nodes of a {@link CFG} into {@link BasicBlock}s. A
+ * node starts a new block (it is a leader) if it is an entrypoint, if it does
+ * not have exactly one predecessor, or if its predecessor has more than one
+ * follower. Each block then extends from its leader along the unique
+ * followers, up to the next leader.
+ */
+public class BasicBlocks {
+
+	private final CFG cfg;
+
+	private final List<BasicBlock> blocks = new ArrayList<>();
+
+	private final Map<Statement, BasicBlock> blockOf = new HashMap<>();
+
+	/**
+	 * Computes the basic blocks of the given cfg.
+	 *
+	 * @param cfg the cfg
+	 */
+	public BasicBlocks(
+			CFG cfg) {
+		this.cfg = cfg;
+		Set<Statement> leaders = new HashSet<>(cfg.getEntrypoints());
+		for (Statement st : cfg.getNodes()) {
+			Collection<Statement> predecessors = cfg.predecessorsOf(st);
+			if (predecessors.size() != 1 || cfg.followersOf(predecessors.iterator().next()).size() != 1)
+				leaders.add(st);
+		}
+
+		for (Statement entry : cfg.getEntrypoints())
+			grow(entry, leaders);
+		for (Statement st : cfg.getNodes())
+			if (leaders.contains(st) && !blockOf.containsKey(st))
+				grow(st, leaders);
+		// nodes on unreachable cycles without leaders
+		for (Statement st : cfg.getNodes())
+			if (!blockOf.containsKey(st)) {
+				leaders.add(st);
+				grow(st, leaders);
+			}
+	}
+
+	private void grow(
+			Statement leader,
+			Set<Statement> leaders) {
+		if (blockOf.containsKey(leader))
+			return;
+		List<Statement> statements = new ArrayList<>();
+		Statement current = leader;
+		while (true) {
+			statements.add(current);
+			Collection<Statement> followers = cfg.followersOf(current);
+			if (followers.size() != 1)
+				break;
+			Statement next = followers.iterator().next();
+			if (leaders.contains(next) || blockOf.containsKey(next))
+				break;
+			current = next;
+		}
+
+		BasicBlock block = new BasicBlock(blocks.size(), statements);
+		blocks.add(block);
+		for (Statement st : statements)
+			blockOf.put(st, block);
+	}
+
+	/**
+	 * Yields the cfg partitioned by this object.
+	 *
+	 * @return the cfg
+	 */
+	public CFG getCfg() {
+		return cfg;
+	}
+
+	/**
+	 * Yields the basic blocks. The ones starting at entrypoints come first.
+	 *
+	 * @return the blocks, indexed by {@link BasicBlock#getIndex()}
+	 */
+	public List<BasicBlock> getBlocks() {
+		return Collections.unmodifiableList(blocks);
+	}
+
+	/**
+	 * Yields the block containing the given node of the cfg.
+	 *
+	 * @param st the node
+	 *
+	 * @return the block, or {@code null} if {@code st} is not a node of the
+	 *             cfg
+	 */
+	public BasicBlock blockOf(
+			Statement st) {
+		return blockOf.get(st);
+	}
+
+	/**
+	 * Yields the blocks that can be executed right after the given one.
+	 *
+	 * @param block the block
+	 *
+	 * @return the successors
+	 */
+	public Set<BasicBlock> successorsOf(
+			BasicBlock block) {
+		Set<BasicBlock> result = new LinkedHashSet<>();
+		for (Statement follower : cfg.followersOf(block.getLast()))
+			result.add(blockOf.get(follower));
+		return result;
+	}
+
+	/**
+	 * Yields the blocks that can be executed right before the given one.
+	 *
+	 * @param block the block
+	 *
+	 * @return the predecessors
+	 */
+	public Set<BasicBlock> predecessorsOf(
+			BasicBlock block) {
+		Set<BasicBlock> result = new LinkedHashSet<>();
+		for (Statement predecessor : cfg.predecessorsOf(block.getFirst()))
+			result.add(blockOf.get(predecessor));
+		return result;
+	}
+
+	/**
+	 * Yields whether the given block starts at an entrypoint of the cfg.
+	 *
+	 * @param block the block
+	 *
+	 * @return {@code true} if the first statement is an entrypoint
+	 */
+	public boolean isEntry(
+			BasicBlock block) {
+		return cfg.getEntrypoints().contains(block.getFirst());
+	}
+}
@@ -0,0 +1,396 @@
+package it.unive.scsr.blocks;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import it.unive.lisa.analysis.SemanticException;
+import it.unive.lisa.analysis.dataflow.DataflowDomain;
+import it.unive.lisa.analysis.dataflow.DataflowElement;
+import it.unive.lisa.analysis.dataflow.DefiniteDataflowDomain;
+import it.unive.lisa.analysis.dataflow.PossibleDataflowDomain;
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.statement.Statement;
+import it.unive.lisa.symbolic.value.Identifier;
+import it.unive.lisa.symbolic.value.ValueExpression;
+import it.unive.scsr.AvailableExpressions;
+import it.unive.scsr.CPropSolution;
+import it.unive.scsr.ReachingDefinitions;
+
+/**
+ * An intraprocedural dataflow analysis working on the {@link BasicBlocks} of a
+ * cfg instead of on its single statements. Before the fixpoint, the gen and
+ * kill functions of the statements of each block are composed into a single
+ * summary: the identifiers assigned by the block, whose elements are killed,
+ * and the elements generated by the block. The fixpoint only visits the
+ * blocks, and only the states at their entries are stored; the state before
+ * or after a single statement is reconstructed on demand, replaying the
+ * statements of its block.
+ * <br>
+ * <br>
+ * Two compositions are supported:
+ * <ul>
+ * <li>if the elements generated by a statement do not depend on the
+ * state (as for {@link ReachingDefinitions} and
+ * {@link AvailableExpressions}), they are computed once, when the summary is
+ * built;</li>
+ * <li>otherwise (as for {@link CPropSolution}), the summary stores, for each
+ * identifier assigned by the block, its last assignment with the expression
+ * rewritten in terms of the values at the entry of the block, and the
+ * elements are generated when the summary is applied.</li>
+ * </ul>
+ * In both cases, the kill of an assignment is expected to remove exactly the
+ * elements whose {@link DataflowElement#getInvolvedIdentifiers()} contain the
+ * assigned identifier, as it does for the domains of this project.
+ *
+ * @param <D> the type of dataflow domain
+ * @param <E> the type of dataflow elements
+ */
+public class BlockDataflow<D extends DataflowDomain<D, E>, E extends DataflowElement<D, E>> {
+
+	private final E element;
+
+	private final Function<Set<E>, D> domain;
+
+	private final boolean possible;
+
+	private final boolean stateDependentGen;
+
+	/**
+	 * Builds the analysis.
+	 *
+	 * @param element           the singleton element providing gen and kill
+	 * @param domain            builds a dataflow domain holding the given
+	 *                              elements
+	 * @param possible          whether the analysis is a possible one (the
+	 *                              states are joined with union) or a
+	 *                              definite one (intersection)
+	 * @param stateDependentGen whether the elements generated by a statement
+	 *                              depend on the state it is executed in
+	 */
+	public BlockDataflow(
+			E element,
+			Function<Set<E>, D> domain,
+			boolean possible,
+			boolean stateDependentGen) {
+		this.element = element;
+		this.domain = domain;
+		this.possible = possible;
+		this.stateDependentGen = stateDependentGen;
+	}
+
+	/**
+	 * Yields the block-level version of {@link ReachingDefinitions}.
+	 *
+	 * @return the analysis
+	 */
+	public static BlockDataflow<PossibleDataflowDomain<ReachingDefinitions>,
+			ReachingDefinitions> reachingDefinitions() {
+		ReachingDefinitions element = new ReachingDefinitions();
+		return new BlockDataflow<>(element,
+				elements -> new PossibleDataflowDomain<>(element, elements, false, false), true, false);
+	}
+
+	/**
+	 * Yields the block-level version of {@link AvailableExpressions}.
+	 *
+	 * @return the analysis
+	 */
+	public static BlockDataflow<DefiniteDataflowDomain<AvailableExpressions>,
+			AvailableExpressions> availableExpressions() {
+		AvailableExpressions element = new AvailableExpressions();
+		return new BlockDataflow<>(element,
+				elements -> new DefiniteDataflowDomain<>(element, elements, false, false), false, false);
+	}
+
+	/**
+	 * Yields the block-level version of {@link CPropSolution}.
+	 *
+	 * @return the analysis
+	 */
+	public static BlockDataflow<DefiniteDataflowDomain<CPropSolution>,
+			CPropSolution> constantPropagation() {
+		CPropSolution element = new CPropSolution();
+		return new BlockDataflow<>(element,
+				elements -> new DefiniteDataflowDomain<>(element, elements, false, false), false, true);
+	}
+
+	/**
+	 * Runs the analysis on the given cfg. At its entrypoints, no element
+	 * holds.
+	 *
+	 * @param cfg the cfg
+	 *
+	 * @return the results of the analysis
+	 *
+	 * @throws SemanticException if the gen or kill functions fail
+	 */
+	public Results analyze(
+			CFG cfg)
+			throws SemanticException {
+		BasicBlocks blocks = new BasicBlocks(cfg);
+		Map<BasicBlock, List<Step>> steps = new HashMap<>();
+		Map<BasicBlock, Summary> summaries = new HashMap<>();
+		for (BasicBlock block : blocks.getBlocks()) {
+			List<Step> blockSteps = new ArrayList<>();
+			for (Statement st : block.getStatements())
+				blockSteps.addAll(Step.of(st));
+			steps.put(block, blockSteps);
+			summaries.put(block, new Summary(blockSteps));
+		}
+
+		// unreached blocks have no entry state
+		Map<BasicBlock, Set<E>> entries = new HashMap<>();
+		Map<BasicBlock, Set<E>> exits = new HashMap<>();
+		Deque<BasicBlock> ws = new ArrayDeque<>();
+		Set<BasicBlock> pending = new HashSet<>();
+		for (BasicBlock block : blocks.getBlocks())
+			if (blocks.isEntry(block)) {
+				ws.add(block);
+				pending.add(block);
+			}
+
+		int visits = 0;
+		while (!ws.isEmpty()) {
+			BasicBlock block = ws.poll();
+			pending.remove(block);
+			visits++;
+
+			Set<E> entry = blocks.isEntry(block) ? Collections.emptySet() : null;
+			for (BasicBlock predecessor : blocks.predecessorsOf(block))
+				entry = join(entry, exits.get(predecessor));
+			if (entries.containsKey(block) && entries.get(block).equals(entry))
+				continue;
+			entries.put(block, entry);
+
+			exits.put(block, summaries.get(block).apply(entry));
+			for (BasicBlock successor : blocks.successorsOf(block))
+				if (pending.add(successor))
+					ws.add(successor);
+		}
+
+		return new Results(blocks, steps, entries, visits);
+	}
+
+	private Set<E> join(
+			Set<E> state,
+			Set<E> other) {
+		if (other == null)
+			return state;
+		if (state == null)
+			return other;
+		Set<E> result = new HashSet<>(state);
+		if (possible)
+			result.addAll(other);
+		else
+			result.retainAll(other);
+		return result;
+	}
+
+	private Set<E> step(
+			Set<E> state,
+			Step step)
+			throws SemanticException {
+		D current = domain.apply(state);
+		Set<E> result = new HashSet<>(state);
+		if (step.target != null) {
+			result.removeAll(element.kill(step.target, step.expression, step.pp, current));
+			result.addAll(element.gen(step.target, step.expression, step.pp, current));
+		} else {
+			result.removeAll(element.kill(step.expression, step.pp, current));
+			result.addAll(element.gen(step.expression, step.pp, current));
+		}
+		return result;
+	}
+
+	private static boolean involves(
+			DataflowElement<?, ?> e,
+			Set<Identifier> ids) {
+		for (Identifier id : e.getInvolvedIdentifiers())
+			if (ids.contains(id))
+				return true;
+		return false;
+	}
+
+	/**
+	 * The composed gen and kill of a basic block.
+	 */
+	private class Summary {
+
+		private final Set<Identifier> killed = new HashSet<>();
+
+		// used if gen does not depend on the state
+		private Set<E> generated = new HashSet<>();
+
+		// used if gen depends on the state: the last assignment of each
+		// identifier, rewritten on the values at the entry of the block
+		private final Map<Identifier, Step> last = new LinkedHashMap<>();
+
+		private Summary(
+				List<Step> steps)
+				throws SemanticException {
+			Map<Identifier, ValueExpression> values = new HashMap<>();
+			for (Step step : steps) {
+				if (stateDependentGen) {
+					if (step.target != null) {
+						Step rewritten = step.substitute(values);
+						values.put(step.target, rewritten.expression);
+						last.put(step.target, rewritten);
+					}
+				} else
+					generated = step(generated, step);
+				if (step.target != null)
+					killed.add(step.target);
+			}
+		}
+
+		private Set<E> apply(
+				Set<E> entry)
+				throws SemanticException {
+			Set<E> result = new HashSet<>();
+			for (E e : entry)
+				if (!involves(e, killed))
+					result.add(e);
+			if (!stateDependentGen)
+				result.addAll(generated);
+			else {
+				D current = domain.apply(entry);
+				for (Step step : last.values())
+					result.addAll(element.gen(step.target, step.expression, step.pp, current));
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * The results of a block-level analysis of a cfg.
+	 */
+	public class Results {
+
+		private final BasicBlocks blocks;
+
+		private final Map<BasicBlock, List<Step>> steps;
+
+		private final Map<BasicBlock, Set<E>> entries;
+
+		private final int visits;
+
+		private Results(
+				BasicBlocks blocks,
+				Map<BasicBlock, List<Step>> steps,
+				Map<BasicBlock, Set<E>> entries,
+				int visits) {
+			this.blocks = blocks;
+			this.steps = steps;
+			this.entries = entries;
+			this.visits = visits;
+		}
+
+		/**
+		 * Yields the basic blocks of the analyzed cfg.
+		 *
+		 * @return the blocks
+		 */
+		public BasicBlocks getBlocks() {
+			return blocks;
+		}
+
+		/**
+		 * Yields how many times a block has been visited during the fixpoint.
+		 *
+		 * @return the number of visits
+		 */
+		public int getVisits() {
+			return visits;
+		}
+
+		/**
+		 * Yields the elements holding at the entry of the given block.
+		 *
+		 * @param block the block
+		 *
+		 * @return the elements, or {@code null} if the block is unreachable
+		 */
+		public Set<E> getEntryState(
+				BasicBlock block) {
+			Set<E> entry = entries.get(block);
+			return entry == null ? null : Collections.unmodifiableSet(entry);
+		}
+
+		/**
+		 * Yields the elements holding before the given node of the cfg,
+		 * replaying the statements of its block that precede it.
+		 *
+		 * @param node the node
+		 *
+		 * @return the elements, or {@code null} if the node is unreachable
+		 *
+		 * @throws SemanticException if the gen or kill functions fail
+		 */
+		public Set<E> getStateBefore(
+				Statement node)
+				throws SemanticException {
+			return replay(node, false);
+		}
+
+		/**
+		 * Yields the elements holding after the given node of the cfg,
+		 * replaying the statements of its block up to it.
+		 *
+		 * @param node the node
+		 *
+		 * @return the elements, or {@code null} if the node is unreachable
+		 *
+		 * @throws SemanticException if the gen or kill functions fail
+		 */
+		public Set<E> getStateAfter(
+				Statement node)
+				throws SemanticException {
+			return replay(node, true);
+		}
+
+		/**
+		 * Yields the dataflow domain holding the elements of
+		 * {@link #getStateAfter(Statement)}.
+		 *
+		 * @param node the node
+		 *
+		 * @return the domain, or {@code null} if the node is unreachable
+		 *
+		 * @throws SemanticException if the gen or kill functions fail
+		 */
+		public D getDomainAfter(
+				Statement node)
+				throws SemanticException {
+			Set<E> state = getStateAfter(node);
+			return state == null ? null : domain.apply(state);
+		}
+
+		private Set<E> replay(
+				Statement node,
+				boolean inclusive)
+				throws SemanticException {
+			BasicBlock block = blocks.blockOf(node);
+			if (block == null)
+				throw new IllegalArgumentException(node + " is not a node of " + blocks.getCfg());
+			Set<E> state = entries.get(block);
+			if (state == null)
+				return null;
+			int position = block.getStatements().indexOf(node) + (inclusive ? 1 : 0);
+			for (Step step : steps.get(block)) {
+				if (block.getStatements().indexOf(step.node) >= position)
+					break;
+				state = step(state, step);
+			}
+			return Collections.unmodifiableSet(state);
+		}
+	}
+}
@@ -0,0 +1,223 @@
+package it.unive.scsr.blocks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import it.unive.lisa.program.cfg.ProgramPoint;
+import it.unive.lisa.program.cfg.statement.Assignment;
+import it.unive.lisa.program.cfg.statement.Expression;
+import it.unive.lisa.program.cfg.statement.NaryExpression;
+import it.unive.lisa.program.cfg.statement.Statement;
+import it.unive.lisa.program.cfg.statement.VariableRef;
+import it.unive.lisa.program.cfg.statement.comparison.Equal;
+import it.unive.lisa.program.cfg.statement.comparison.GreaterOrEqual;
+import it.unive.lisa.program.cfg.statement.comparison.GreaterThan;
+import it.unive.lisa.program.cfg.statement.comparison.LessOrEqual;
+import it.unive.lisa.program.cfg.statement.comparison.LessThan;
+import it.unive.lisa.program.cfg.statement.comparison.NotEqual;
+import it.unive.lisa.program.cfg.statement.literal.Literal;
+import it.unive.lisa.program.cfg.statement.logic.And;
+import it.unive.lisa.program.cfg.statement.logic.Not;
+import it.unive.lisa.program.cfg.statement.logic.Or;
+import it.unive.lisa.program.cfg.statement.numeric.Addition;
+import it.unive.lisa.program.cfg.statement.numeric.Division;
+import it.unive.lisa.program.cfg.statement.numeric.Multiplication;
+import it.unive.lisa.program.cfg.statement.numeric.Negation;
+import it.unive.lisa.program.cfg.statement.numeric.Subtraction;
+import it.unive.lisa.symbolic.value.BinaryExpression;
+import it.unive.lisa.symbolic.value.Constant;
+import it.unive.lisa.symbolic.value.Identifier;
+import it.unive.lisa.symbolic.value.PushAny;
+import it.unive.lisa.symbolic.value.UnaryExpression;
+import it.unive.lisa.symbolic.value.ValueExpression;
+import it.unive.lisa.symbolic.value.operator.binary.BinaryOperator;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonEq;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonGe;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonGt;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonLe;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonLt;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonNe;
+import it.unive.lisa.symbolic.value.operator.binary.LogicalAnd;
+import it.unive.lisa.symbolic.value.operator.binary.LogicalOr;
+import it.unive.lisa.symbolic.value.operator.binary.NumericNonOverflowingAdd;
+import it.unive.lisa.symbolic.value.operator.binary.NumericNonOverflowingDiv;
+import it.unive.lisa.symbolic.value.operator.binary.NumericNonOverflowingMul;
+import it.unive.lisa.symbolic.value.operator.binary.NumericNonOverflowingSub;
+import it.unive.lisa.symbolic.value.operator.unary.LogicalNegation;
+import it.unive.lisa.symbolic.value.operator.unary.NumericNegation;
+
+/**
+ * An effect of a node of a cfg on a dataflow domain: either the assignment
+ * of a value expression to a variable, or the evaluation of a value
+ * expression. A node has one step for each of its sub-expressions, in the
+ * order LiSA evaluates them (left to right, children before their parent),
+ * followed by the assignment, if any. Expressions are translated to the same
+ * symbolic expressions that the semantics of LiSA produces for the numeric,
+ * comparison and logical expressions of IMP; the value of any other
+ * expression (e.g., a call) is unknown: it has no step, nor have the
+ * expressions containing it, and if assigned it is modeled as
+ * {@link PushAny}.
+ */
+final class Step {
+
+	/**
+	 * The node of the cfg the step belongs to.
+	 */
+	final Statement node;
+
+	/**
+	 * The program point the step is executed at: {@link #node} itself, or
+	 * the sub-expression evaluated.
+	 */
+	final ProgramPoint pp;
+
+	/**
+	 * The assigned variable, or {@code null} if the node only evaluates
+	 * {@link #expression}.
+	 */
+	final Identifier target;
+
+	final ValueExpression expression;
+
+	private Step(
+			Statement node,
+			ProgramPoint pp,
+			Identifier target,
+			ValueExpression expression) {
+		this.node = node;
+		this.pp = pp;
+		this.target = target;
+		this.expression = expression;
+	}
+
+	/**
+	 * Yields the steps of the given node, empty if the node has no effect on
+	 * dataflow domains (e.g., returns or no-ops).
+	 */
+	static List<Step> of(
+			Statement node) {
+		List<Step> steps = new ArrayList<>();
+		if (node instanceof Assignment && ((Assignment) node).getLeft() instanceof VariableRef) {
+			Assignment assignment = (Assignment) node;
+			evaluate(node, assignment.getLeft(), steps);
+			ValueExpression value = evaluate(node, assignment.getRight(), steps);
+			if (value == null)
+				value = new PushAny(assignment.getRight().getStaticType(), assignment.getRight().getLocation());
+			steps.add(new Step(node, node, ((VariableRef) assignment.getLeft()).getVariable(), value));
+		} else if (node instanceof Expression)
+			evaluate(node, (Expression) node, steps);
+		return steps;
+	}
+
+	/**
+	 * Yields this step, with the identifiers of its expression replaced by
+	 * the expressions they are mapped to.
+	 */
+	Step substitute(
+			Map<Identifier, ValueExpression> values) {
+		ValueExpression substituted = substitute(expression, values);
+		return substituted == expression ? this : new Step(node, pp, target, substituted);
+	}
+
+	private static ValueExpression substitute(
+			ValueExpression expression,
+			Map<Identifier, ValueExpression> values) {
+		if (expression instanceof Identifier)
+			return values.getOrDefault(expression, expression);
+		if (expression instanceof UnaryExpression) {
+			UnaryExpression unary = (UnaryExpression) expression;
+			ValueExpression arg = (ValueExpression) unary.getExpression();
+			ValueExpression substituted = substitute(arg, values);
+			return substituted == arg ? expression
+					: new UnaryExpression(unary.getStaticType(), substituted, unary.getOperator(),
+							unary.getCodeLocation());
+		}
+		if (expression instanceof BinaryExpression) {
+			BinaryExpression binary = (BinaryExpression) expression;
+			ValueExpression left = (ValueExpression) binary.getLeft();
+			ValueExpression right = (ValueExpression) binary.getRight();
+			ValueExpression sl = substitute(left, values);
+			ValueExpression sr = substitute(right, values);
+			return sl == left && sr == right ? expression
+					: new BinaryExpression(binary.getStaticType(), sl, sr, binary.getOperator(),
+							binary.getCodeLocation());
+		}
+		// the translation does not produce any other expression reading
+		// identifiers
+		return expression;
+	}
+
+	// appends the steps evaluating the given expression, sub-expressions
+	// first, and yields its translation (null if unknown)
+	private static ValueExpression evaluate(
+			Statement node,
+			Expression expression,
+			List<Step> steps) {
+		ValueExpression value;
+		if (expression instanceof VariableRef)
+			value = ((VariableRef) expression).getVariable();
+		else if (expression instanceof Literal) {
+			Object literal = ((Literal<?>) expression).getValue();
+			value = literal == null ? null
+					: new Constant(expression.getStaticType(), literal, expression.getLocation());
+		} else {
+			Expression[] subs = expression instanceof NaryExpression
+					? ((NaryExpression) expression).getSubExpressions()
+					: new Expression[0];
+			ValueExpression[] args = new ValueExpression[subs.length];
+			boolean known = true;
+			for (int i = 0; i < subs.length; i++)
+				known &= (args[i] = evaluate(node, subs[i], steps)) != null;
+			value = known ? translate(expression, args) : null;
+		}
+
+		if (value != null)
+			steps.add(new Step(node, expression, null, value));
+		return value;
+	}
+
+	private static ValueExpression translate(
+			Expression expression,
+			ValueExpression[] args) {
+		if ((expression instanceof Negation || expression instanceof Not) && args.length == 1)
+			return new UnaryExpression(expression.getStaticType(), args[0],
+					expression instanceof Negation ? NumericNegation.INSTANCE : LogicalNegation.INSTANCE,
+					expression.getLocation());
+
+		BinaryOperator operator = operatorOf(expression);
+		if (operator == null || args.length != 2)
+			return null;
+		return new BinaryExpression(expression.getStaticType(), args[0], args[1], operator,
+				expression.getLocation());
+	}
+
+	private static BinaryOperator operatorOf(
+			Expression expression) {
+		if (expression instanceof Addition)
+			return NumericNonOverflowingAdd.INSTANCE;
+		if (expression instanceof Subtraction)
+			return NumericNonOverflowingSub.INSTANCE;
+		if (expression instanceof Multiplication)
+			return NumericNonOverflowingMul.INSTANCE;
+		if (expression instanceof Division)
+			return NumericNonOverflowingDiv.INSTANCE;
+		if (expression instanceof Equal)
+			return ComparisonEq.INSTANCE;
+		if (expression instanceof NotEqual)
+			return ComparisonNe.INSTANCE;
+		if (expression instanceof GreaterThan)
+			return ComparisonGt.INSTANCE;
+		if (expression instanceof GreaterOrEqual)
+			return ComparisonGe.INSTANCE;
+		if (expression instanceof LessThan)
+			return ComparisonLt.INSTANCE;
+		if (expression instanceof LessOrEqual)
+			return ComparisonLe.INSTANCE;
+		if (expression instanceof And)
+			return LogicalAnd.INSTANCE;
+		if (expression instanceof Or)
+			return LogicalOr.INSTANCE;
+		return null;
+	}
+}
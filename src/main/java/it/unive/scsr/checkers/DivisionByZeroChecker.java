@@ -10,6 +10,7 @@ import it.unive.lisa.analysis.AnalyzedCFG;
 import it.unive.lisa.analysis.SemanticException;
 import it.unive.lisa.analysis.SimpleAbstractState;
 import it.unive.lisa.analysis.heap.pointbased.PointBasedHeap;
+import it.unive.lisa.analysis.nonrelational.value.NonRelationalValueDomain;
 import it.unive.lisa.analysis.nonrelational.value.TypeEnvironment;
 import it.unive.lisa.analysis.nonrelational.value.ValueEnvironment;
 import it.unive.lisa.analysis.types.InferredTypes;
@@ -22,12 +23,24 @@ import it.unive.lisa.symbolic.SymbolicExpression;
 import it.unive.lisa.symbolic.value.ValueExpression;
 import it.unive.lisa.type.Type;
 import it.unive.lisa.type.Untyped;
+import it.unive.lisa.util.numeric.MathNumber;
 import it.unive.scsr.Intervals;
+import it.unive.scsr.IntervalsCongruence;
 import it.unive.scsr.checkers.OverflowChecker.NumericalSize;
 
-public class DivisionByZeroChecker implements
+/**
+ * Warns on the divisions whose divisor may be zero. The divisor is evaluated
+ * in the value environment computed by the analysis, whatever its
+ * non-relational domain: zero is excluded if the value is bottom, if it is an
+ * {@link Intervals} not containing zero, or if it is an
+ * {@link IntervalsCongruence} whose {@link IntervalsCongruence#excludesZero()}
+ * holds (e.g., odd values).
+ *
+ * @param <V> the type of non-relational value domain
+ */
+public class DivisionByZeroChecker<V extends NonRelationalValueDomain<V>> implements
 SemanticCheck<
-		SimpleAbstractState<PointBasedHeap, ValueEnvironment<Intervals>, TypeEnvironment<InferredTypes>>> {
+		SimpleAbstractState<PointBasedHeap, ValueEnvironment<V>, TypeEnvironment<InferredTypes>>> {
 	
 	
 	private NumericalSize size;
@@ -38,7 +51,7 @@ SemanticCheck<
 
 	@Override
 	public boolean visit(
-			CheckToolWithAnalysisResults<SimpleAbstractState<PointBasedHeap, ValueEnvironment<Intervals>, TypeEnvironment<InferredTypes>>> tool,
+			CheckToolWithAnalysisResults<SimpleAbstractState<PointBasedHeap, ValueEnvironment<V>, TypeEnvironment<InferredTypes>>> tool,
 			CFG graph, Statement node) {
 		
 		if( node instanceof Division)
@@ -50,13 +63,13 @@ SemanticCheck<
 	}
 
 	private void checkDivision(
-			CheckToolWithAnalysisResults<SimpleAbstractState<PointBasedHeap, ValueEnvironment<Intervals>, TypeEnvironment<InferredTypes>>> tool,
+			CheckToolWithAnalysisResults<SimpleAbstractState<PointBasedHeap, ValueEnvironment<V>, TypeEnvironment<InferredTypes>>> tool,
 			CFG graph, Division div) {
 
-		for (AnalyzedCFG<SimpleAbstractState<PointBasedHeap, ValueEnvironment<Intervals>,
+		for (AnalyzedCFG<SimpleAbstractState<PointBasedHeap, ValueEnvironment<V>,
 				TypeEnvironment<InferredTypes>>> result : tool.getResultOf(graph)) {
 			AnalysisState<
-			SimpleAbstractState<PointBasedHeap, ValueEnvironment<Intervals>,
+			SimpleAbstractState<PointBasedHeap, ValueEnvironment<V>,
 					TypeEnvironment<InferredTypes>>> state = result.getAnalysisStateAfter(div.getRight());
 			
 			Set<SymbolicExpression> reachableIds = new HashSet<>();
@@ -74,11 +87,14 @@ SemanticCheck<
 			
 							// TODO: implement type checks, it is required a numerical type
 			
-							ValueEnvironment<Intervals> valueState = state.getState().getValueState();
+							ValueEnvironment<V> valueState = state.getState().getValueState();
 							
-							Intervals intervalAbstractValue = valueState.eval((ValueExpression) s, div, state.getState());
+							V abstractValue = valueState.eval((ValueExpression) s, div, state.getState());
 							
-							// TODO: add checks for division by zero
+							if (!excludesZero(abstractValue)) {
+								tool.warnOn(div, "The divisor of this division may be zero");
+								return;
+							}
 						}
 					} catch (SemanticException e) {
 						e.printStackTrace();
@@ -90,9 +106,24 @@ SemanticCheck<
 		
 	}
 
+	private static boolean excludesZero(
+			NonRelationalValueDomain<?> value) {
+		if (value.isBottom())
+			return true;
+		if (value instanceof IntervalsCongruence)
+			return ((IntervalsCongruence) value).excludesZero();
+		if (value instanceof Intervals) {
+			Intervals interval = (Intervals) value;
+			return interval.interval.getLow().compareTo(MathNumber.ZERO) > 0
+					|| interval.interval.getHigh().compareTo(MathNumber.ZERO) < 0;
+		}
+		// nothing is known about the values of other domains
+		return false;
+	}
+
 	// compute possible dynamic types / runtime types
 	private Set<Type> getPossibleDynamicTypes(SymbolicExpression s, Division div,
-			SimpleAbstractState<PointBasedHeap, ValueEnvironment<Intervals>, TypeEnvironment<InferredTypes>> state) throws SemanticException {
+			SimpleAbstractState<PointBasedHeap, ValueEnvironment<V>, TypeEnvironment<InferredTypes>> state) throws SemanticException {
 		
 		Set<Type> possibleDynamicTypes = new HashSet<>();
 		Type dynamicTypes = state.getDynamicTypeOf(s, div, state);
@@ -0,0 +1,55 @@
+package it.unive.scsr.checkers;
+
+import java.util.Arrays;
+import java.util.List;
+
+import it.unive.lisa.program.ClassUnit;
+import it.unive.lisa.program.Program;
+import it.unive.lisa.program.Unit;
+import it.unive.lisa.program.cfg.CodeMember;
+import it.unive.lisa.program.cfg.Parameter;
+import it.unive.scsr.Taint;
+
+/**
+ * Loads the annotations recognized by {@link Taint} and {@link TaintChecker}
+ * on the code members of a program, matching them by name: sources return
+ * tainted values, sanitizers return clean values, and all the parameters of
+ * sinks are checked by {@link TaintChecker}.
+ */
+public final class TaintAnnotations {
+
+	private TaintAnnotations() {
+		// static helpers
+	}
+
+	/**
+	 * Annotates the instance code members of the classes of the given
+	 * program.
+	 *
+	 * @param program    the program
+	 * @param sources    the names of the sources
+	 * @param sanitizers the names of the sanitizers
+	 * @param sinks      the names of the sinks
+	 */
+	public static void load(
+			Program program,
+			String[] sources,
+			String[] sanitizers,
+			String[] sinks) {
+		List<String> sourceNames = Arrays.asList(sources);
+		List<String> sanitizerNames = Arrays.asList(sanitizers);
+		List<String> sinkNames = Arrays.asList(sinks);
+		for (Unit unit : program.getUnits())
+			if (unit instanceof ClassUnit)
+				for (CodeMember cm : ((ClassUnit) unit).getInstanceCodeMembers(false)) {
+					String name = cm.getDescriptor().getName();
+					if (sourceNames.contains(name))
+						cm.getDescriptor().getAnnotations().addAnnotation(Taint.TAINTED_ANNOTATION);
+					else if (sanitizerNames.contains(name))
+						cm.getDescriptor().getAnnotations().addAnnotation(Taint.CLEAN_ANNOTATION);
+					else if (sinkNames.contains(name))
+						for (Parameter param : cm.getDescriptor().getFormals())
+							param.addAnnotation(TaintChecker.SINK_ANNOTATION);
+				}
+	}
+}
@@ -0,0 +1,130 @@
+package it.unive.scsr.checkers;
+
+import it.unive.lisa.analysis.AnalysisState;
+import it.unive.lisa.analysis.AnalyzedCFG;
+import it.unive.lisa.analysis.SemanticException;
+import it.unive.lisa.analysis.SimpleAbstractState;
+import it.unive.lisa.analysis.heap.pointbased.PointBasedHeap;
+import it.unive.lisa.analysis.nonrelational.value.TypeEnvironment;
+import it.unive.lisa.analysis.nonrelational.value.ValueEnvironment;
+import it.unive.lisa.analysis.types.InferredTypes;
+import it.unive.lisa.checks.semantic.CheckToolWithAnalysisResults;
+import it.unive.lisa.checks.semantic.SemanticCheck;
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.statement.Expression;
+import it.unive.lisa.program.cfg.statement.Statement;
+import it.unive.lisa.program.cfg.statement.numeric.Addition;
+import it.unive.lisa.program.cfg.statement.numeric.Division;
+import it.unive.lisa.program.cfg.statement.numeric.Multiplication;
+import it.unive.lisa.program.cfg.statement.numeric.Negation;
+import it.unive.lisa.program.cfg.statement.numeric.Subtraction;
+import it.unive.lisa.symbolic.SymbolicExpression;
+import it.unive.lisa.symbolic.value.ValueExpression;
+import it.unive.lisa.symbolic.value.operator.binary.BinaryOperator;
+import it.unive.lisa.symbolic.value.operator.binary.NumericNonOverflowingAdd;
+import it.unive.lisa.symbolic.value.operator.binary.NumericNonOverflowingDiv;
+import it.unive.lisa.symbolic.value.operator.binary.NumericNonOverflowingMul;
+import it.unive.lisa.symbolic.value.operator.binary.NumericNonOverflowingSub;
+import it.unive.lisa.symbolic.value.operator.unary.NumericNegation;
+import it.unive.scsr.WrappedIntervals;
+import it.unive.scsr.WrappedIntervals.Wrapping;
+
+/**
+ * A semantic check reporting the arithmetic operations that wrap around,
+ * according to a {@link WrappedIntervals} analysis. Differently from
+ * {@link OverflowChecker}, that inspects the values of variables, this check
+ * only visits additions, subtractions, multiplications, divisions and
+ * negations, and warns on the ones whose exact result, computed from the
+ * values of the operands, does not fit in the range of the modeled size. The
+ * size is the one of the analyzed values.
+ */
+public class WrapAroundChecker implements
+		SemanticCheck<
+				SimpleAbstractState<PointBasedHeap, ValueEnvironment<WrappedIntervals>, TypeEnvironment<InferredTypes>>> {
+
+	@Override
+	public boolean visit(
+			CheckToolWithAnalysisResults<SimpleAbstractState<PointBasedHeap, ValueEnvironment<WrappedIntervals>, TypeEnvironment<InferredTypes>>> tool,
+			CFG graph,
+			Statement node) {
+		BinaryOperator operator = null;
+		if (node instanceof Addition)
+			operator = NumericNonOverflowingAdd.INSTANCE;
+		else if (node instanceof Subtraction)
+			operator = NumericNonOverflowingSub.INSTANCE;
+		else if (node instanceof Multiplication)
+			operator = NumericNonOverflowingMul.INSTANCE;
+		else if (node instanceof Division)
+			operator = NumericNonOverflowingDiv.INSTANCE;
+
+		try {
+			if (operator != null) {
+				it.unive.lisa.program.cfg.statement.BinaryExpression binary = (it.unive.lisa.program.cfg.statement.BinaryExpression) node;
+				check(tool, graph, node, operator, binary.getLeft(), binary.getRight());
+			} else if (node instanceof Negation)
+				check(tool, graph, node, null, ((Negation) node).getSubExpression(), null);
+		} catch (SemanticException e) {
+			System.err.println("Cannot check " + node);
+			e.printStackTrace(System.err);
+		}
+
+		return true;
+	}
+
+	private void check(
+			CheckToolWithAnalysisResults<SimpleAbstractState<PointBasedHeap, ValueEnvironment<WrappedIntervals>, TypeEnvironment<InferredTypes>>> tool,
+			CFG graph,
+			Statement node,
+			BinaryOperator operator,
+			Expression left,
+			Expression right)
+			throws SemanticException {
+		Wrapping worst = Wrapping.NONE;
+		WrappedIntervals leftValue = null;
+		for (AnalyzedCFG<SimpleAbstractState<PointBasedHeap, ValueEnvironment<WrappedIntervals>,
+				TypeEnvironment<InferredTypes>>> result : tool.getResultOf(graph)) {
+			// operands are evaluated in the state where both have been computed
+			AnalysisState<SimpleAbstractState<PointBasedHeap, ValueEnvironment<WrappedIntervals>,
+					TypeEnvironment<InferredTypes>>> state = result.getAnalysisStateAfter(right == null ? left : right);
+			WrappedIntervals l = valueOf(result.getAnalysisStateAfter(left), state, node);
+			WrappedIntervals r = right == null ? null : valueOf(state, state, node);
+			if (l == null || (right != null && r == null))
+				continue;
+
+			Wrapping wrapping = right == null ? WrappedIntervals.wrappingOf(NumericNegation.INSTANCE, l)
+					: WrappedIntervals.wrappingOf(operator, l, r);
+			if (wrapping.compareTo(worst) > 0) {
+				worst = wrapping;
+				leftValue = l;
+			}
+		}
+
+		if (worst == Wrapping.MUST)
+			tool.warnOn(node, "The operation always wraps around the range of " + leftValue.size);
+		else if (worst == Wrapping.MAY)
+			tool.warnOn(node, "The operation may wrap around the range of " + leftValue.size);
+	}
+
+	/**
+	 * Yields the lub of the values of the expressions computed in
+	 * {@code computed}, evaluated in {@code state}, or {@code null} if they
+	 * are not numeric values.
+	 */
+	private static WrappedIntervals valueOf(
+			AnalysisState<SimpleAbstractState<PointBasedHeap, ValueEnvironment<WrappedIntervals>,
+					TypeEnvironment<InferredTypes>>> computed,
+			AnalysisState<SimpleAbstractState<PointBasedHeap, ValueEnvironment<WrappedIntervals>,
+					TypeEnvironment<InferredTypes>>> state,
+			Statement node)
+			throws SemanticException {
+		WrappedIntervals value = null;
+		ValueEnvironment<WrappedIntervals> env = state.getState().getValueState();
+		for (SymbolicExpression expression : computed.getComputedExpressions()) {
+			if (!(expression instanceof ValueExpression))
+				return null;
+			WrappedIntervals v = env.eval((ValueExpression) expression, node, state.getState());
+			value = value == null ? v : value.lub(v);
+		}
+		return value;
+	}
+}
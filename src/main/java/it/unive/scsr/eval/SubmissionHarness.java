@@ -0,0 +1,431 @@
+package it.unive.scsr.eval;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+/**
+ * An in-process replacement for {@code tester.py}. Each submission provides
+ * its own version of some classes of the {@code it.unive.scsr} package and of
+ * its sub-packages: these are compiled against the classpath of the running
+ * JVM, that is, against the current version of the project, and loaded,
+ * together with a fresh copy of every other class of this project (including
+ * the evaluation tests), by a dedicated child-first class loader. The classes
+ * that a submission does not provide are thus the current ones. Libraries
+ * (LiSA, JUnit, ...) are shared between submissions and stay warm across
+ * evaluations.
+ * <br>
+ * <br>
+ * Submissions are evaluated in parallel, each one writing its outputs in its
+ * own folder: the {@value #CONTEXT} class of the test sources, loaded once per
+ * submission, is told where. The same {@code branch,id,compile,test} table
+ * produced by {@code tester.py} is written at the end. This class must be run
+ * with the test classes on the classpath.
+ */
+public class SubmissionHarness {
+
+	/**
+	 * The evaluation tests executed when none is specified.
+	 */
+	public static final String[] DEFAULT_TESTS = new String[] {
+			"it.unive.scsr.ParityTaskEvaluation",
+			"it.unive.scsr.CPropTaskEvaluation",
+			"it.unive.scsr.TaintThreeLevelsTaskEvaluation"
+	};
+
+	/**
+	 * The class of the test sources holding the settings of the evaluation
+	 * tests, whose {@code outputs} field is set to the output folder of each
+	 * submission.
+	 */
+	public static final String CONTEXT = "it.unive.scsr.eval.EvaluationContext";
+
+	private static final String PACKAGE = "it.unive.scsr.";
+
+	private static final String SOURCES = "src/main/java/it/unive/scsr/";
+
+	/**
+	 * A submission to evaluate.
+	 */
+	public static class Submission {
+
+		/**
+		 * The name of the submission (e.g., the branch).
+		 */
+		public final String name;
+
+		/**
+		 * The sources of the submission, from path relative to the
+		 * {@code it/unive/scsr} source folder (e.g., {@code Parity.java} or
+		 * {@code checkers/TaintChecker.java}) to content.
+		 */
+		public final Map<String, String> sources;
+
+		/**
+		 * Builds the submission.
+		 *
+		 * @param name    the name of the submission
+		 * @param sources the sources of the submission
+		 */
+		public Submission(
+				String name,
+				Map<String, String> sources) {
+			this.name = name;
+			this.sources = sources;
+		}
+	}
+
+	/**
+	 * The outcome of the evaluation of a submission.
+	 */
+	public static class Outcome {
+
+		/**
+		 * Whether the submission compiled.
+		 */
+		public boolean compiled;
+
+		/**
+		 * Whether all the evaluation tests passed.
+		 */
+		public boolean passed;
+
+		/**
+		 * The compilation and test log.
+		 */
+		public final StringBuilder log = new StringBuilder();
+	}
+
+	private final Path logdir;
+
+	private final String[] tests;
+
+	private final int threads;
+
+	/**
+	 * Builds the harness.
+	 *
+	 * @param logdir  the folder where logs, compiled classes and outputs of
+	 *                    each submission are stored
+	 * @param tests   the fully qualified names of the tests to execute
+	 * @param threads the number of submissions evaluated in parallel
+	 */
+	public SubmissionHarness(
+			Path logdir,
+			String[] tests,
+			int threads) {
+		this.logdir = logdir;
+		this.tests = tests;
+		this.threads = threads;
+	}
+
+	/**
+	 * Evaluates all the {@code origin/*} branches of the git repository in the
+	 * current directory (except {@code master}), writing {@code report.csv}.
+	 * Test names can be passed as arguments, otherwise the
+	 * {@link #DEFAULT_TESTS} are executed.
+	 *
+	 * @param args the tests to execute
+	 *
+	 * @throws IOException          if git cannot be invoked or files cannot be
+	 *                                  written
+	 * @throws InterruptedException if the evaluation is interrupted
+	 */
+	public static void main(
+			String[] args)
+			throws IOException,
+			InterruptedException {
+		String[] tests = args.length == 0 ? DEFAULT_TESTS : args;
+		SubmissionHarness harness = new SubmissionHarness(Paths.get("eval-logs"), tests,
+				Runtime.getRuntime().availableProcessors());
+		Map<String, Outcome> outcomes = harness.evaluate(fromGitBranches());
+		writeReport(outcomes, Paths.get("report.csv"));
+		System.out.println("created report.csv");
+	}
+
+	/**
+	 * Reads, from each remote branch of the git repository in the current
+	 * directory, the sources under {@code it/unive/scsr} (sub-packages
+	 * included) that the branch changed since it forked from {@code master},
+	 * without checking it out. As for the merge of {@code tester.py}, all the
+	 * other classes are the ones of {@code master}, including the fixes that
+	 * {@code master} received after the fork.
+	 *
+	 * @return the submissions, one per branch
+	 *
+	 * @throws IOException          if git cannot be invoked
+	 * @throws InterruptedException if git is interrupted
+	 */
+	public static List<Submission> fromGitBranches() throws IOException, InterruptedException {
+		List<Submission> submissions = new ArrayList<>();
+		for (String branch : git("for-each-ref", "--format=%(refname:lstrip=3)", "refs/remotes/origin/").split("\n")) {
+			branch = branch.trim();
+			if (branch.isEmpty() || branch.equals("master") || branch.equals("HEAD"))
+				continue;
+
+			String ref = "origin/" + branch;
+			String base = git("merge-base", "master", ref).trim();
+			Map<String, String> sources = new LinkedHashMap<>();
+			// deleted files are excluded: master's version is kept
+			for (String file : git("diff", "--name-only", "--diff-filter=d", base, ref, "--", SOURCES).split("\n")) {
+				file = file.trim();
+				if (file.endsWith(".java"))
+					sources.put(file.substring(SOURCES.length()), git("show", ref + ":" + file));
+			}
+			submissions.add(new Submission(branch, sources));
+		}
+		return submissions;
+	}
+
+	/**
+	 * Reads one submission from each sub-folder of the given folder, using
+	 * the java files contained in it: files in nested folders belong to the
+	 * corresponding sub-packages of {@code it.unive.scsr}.
+	 *
+	 * @param root the folder containing the submissions
+	 *
+	 * @return the submissions, one per sub-folder
+	 *
+	 * @throws IOException if the folders cannot be read
+	 */
+	public static List<Submission> fromDirectories(
+			Path root)
+			throws IOException {
+		List<Submission> submissions = new ArrayList<>();
+		try (Stream<Path> dirs = Files.list(root)) {
+			for (Path dir : (Iterable<Path>) dirs.filter(Files::isDirectory).sorted()::iterator) {
+				Map<String, String> sources = new LinkedHashMap<>();
+				try (Stream<Path> files = Files.walk(dir)) {
+					for (Path file : (Iterable<Path>) files.filter(f -> f.toString().endsWith(".java")).sorted()::iterator)
+						sources.put(dir.relativize(file).toString().replace('\\', '/'), Files.readString(file));
+				}
+				submissions.add(new Submission(dir.getFileName().toString(), sources));
+			}
+		}
+		return submissions;
+	}
+
+	/**
+	 * Evaluates the given submissions in parallel.
+	 *
+	 * @param submissions the submissions
+	 *
+	 * @return the outcome of each submission, in the order of the submissions
+	 *
+	 * @throws InterruptedException if the evaluation is interrupted
+	 * @throws IOException          if a log file cannot be written
+	 */
+	public Map<String, Outcome> evaluate(
+			List<Submission> submissions)
+			throws InterruptedException,
+			IOException {
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		Map<String, Future<Outcome>> futures = new LinkedHashMap<>();
+		for (Submission s : submissions)
+			futures.put(s.name, pool.submit(() -> evaluate(s)));
+		pool.shutdown();
+
+		Map<String, Outcome> outcomes = new LinkedHashMap<>();
+		for (Entry<String, Future<Outcome>> f : futures.entrySet()) {
+			Outcome outcome;
+			try {
+				outcome = f.getValue().get();
+			} catch (ExecutionException e) {
+				outcome = new Outcome();
+				outcome.log.append(stackTrace(e.getCause()));
+			}
+			outcomes.put(f.getKey(), outcome);
+			Files.createDirectories(logdir);
+			Files.writeString(logdir.resolve(f.getKey() + ".log"), outcome.log);
+		}
+		return outcomes;
+	}
+
+	private Outcome evaluate(
+			Submission submission)
+			throws IOException {
+		Outcome outcome = new Outcome();
+		Path base = logdir.resolve(submission.name);
+		Path src = base.resolve("src");
+		Path classes = base.resolve("classes");
+		Files.createDirectories(src);
+		Files.createDirectories(classes);
+
+		List<String> files = new ArrayList<>();
+		for (Entry<String, String> source : submission.sources.entrySet()) {
+			Path file = src.resolve(source.getKey());
+			Files.createDirectories(file.getParent());
+			Files.writeString(file, source.getValue());
+			files.add(file.toString());
+		}
+
+		outcome.log.append("### BUILD ").append(submission.name).append('\n');
+		if (!files.isEmpty()) {
+			JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+			ByteArrayOutputStream err = new ByteArrayOutputStream();
+			List<String> args = new ArrayList<>(Arrays.asList(
+					"-d", classes.toString(),
+					"-classpath", System.getProperty("java.class.path"),
+					"-encoding", "UTF-8"));
+			args.addAll(files);
+			int code = compiler.run(null, err, err, args.toArray(new String[args.size()]));
+			outcome.log.append(err.toString(StandardCharsets.UTF_8));
+			if (code != 0)
+				return outcome;
+		}
+		outcome.compiled = true;
+
+		outcome.log.append("### TEST ").append(submission.name).append('\n');
+		try (SubmissionClassLoader loader = new SubmissionClassLoader(classes, getClass().getClassLoader())) {
+			loader.loadClass(CONTEXT)
+					.getField("outputs")
+					.set(null, base.resolve("outputs").toString());
+
+			// junit is only a test dependency: it is reached reflectively
+			Class<?> core = loader.loadClass("org.junit.runner.JUnitCore");
+			Method runClasses = core.getMethod("runClasses", Class[].class);
+
+			boolean passed = true;
+			for (String test : tests) {
+				Object result = runClasses.invoke(null, (Object) new Class<?>[] { loader.loadClass(test) });
+				boolean success = (Boolean) result.getClass().getMethod("wasSuccessful").invoke(result);
+				outcome.log.append(test).append(": ").append(success ? "passed" : "failed").append('\n');
+				if (!success)
+					for (Object failure : (List<?>) result.getClass().getMethod("getFailures").invoke(result))
+						outcome.log.append(failure.getClass().getMethod("getTrace").invoke(failure)).append('\n');
+				passed &= success;
+			}
+			outcome.passed = passed;
+		} catch (ReflectiveOperationException e) {
+			outcome.log.append(stackTrace(e));
+		}
+
+		return outcome;
+	}
+
+	/**
+	 * Writes the evaluation table in the same format of {@code tester.py}.
+	 *
+	 * @param outcomes the outcomes of the evaluation
+	 * @param file     the destination file
+	 *
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void writeReport(
+			Map<String, Outcome> outcomes,
+			Path file)
+			throws IOException {
+		try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+			out.println(",branch,id,compile,test");
+			int row = 0;
+			for (Entry<String, Outcome> e : outcomes.entrySet())
+				out.println(row++ + "," + e.getKey() + "," + e.getKey().split("-")[0] + ","
+						+ (e.getValue().compiled ? 1 : 0) + "," + (e.getValue().passed ? 1 : 0));
+		}
+	}
+
+	private static String git(
+			String... args)
+			throws IOException,
+			InterruptedException {
+		List<String> command = new ArrayList<>();
+		command.add("git");
+		command.addAll(Arrays.asList(args));
+		Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+		String output;
+		try (InputStream in = process.getInputStream()) {
+			output = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+		if (process.waitFor() != 0)
+			throw new IOException("git " + String.join(" ", args) + " failed: " + output);
+		return output;
+	}
+
+	private static String stackTrace(
+			Throwable t) {
+		StringWriter writer = new StringWriter();
+		t.printStackTrace(new PrintWriter(writer));
+		return writer.toString();
+	}
+
+	/**
+	 * A child-first class loader for the classes of this project: the
+	 * submission's compiled classes take precedence over the ones of the
+	 * running JVM, and every other class of the project is loaded again from
+	 * the JVM classpath, so that it links against the submission's classes.
+	 * Classes outside of the project are delegated to the parent.
+	 */
+	private static class SubmissionClassLoader extends URLClassLoader {
+
+		static {
+			registerAsParallelCapable();
+		}
+
+		private SubmissionClassLoader(
+				Path classes,
+				ClassLoader parent) {
+			super(urls(classes), parent);
+		}
+
+		private static URL[] urls(
+				Path classes) {
+			List<URL> urls = new ArrayList<>();
+			try {
+				urls.add(classes.toUri().toURL());
+				for (String entry : System.getProperty("java.class.path").split(java.io.File.pathSeparator))
+					if (Files.isDirectory(Paths.get(entry)))
+						// project classes are in directories, libraries are jars
+						urls.add(Paths.get(entry).toUri().toURL());
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return urls.toArray(new URL[urls.size()]);
+		}
+
+		@Override
+		protected Class<?> loadClass(
+				String name,
+				boolean resolve)
+				throws ClassNotFoundException {
+			if (!name.startsWith(PACKAGE))
+				return super.loadClass(name, resolve);
+
+			synchronized (getClassLoadingLock(name)) {
+				Class<?> c = findLoadedClass(name);
+				if (c == null)
+					try {
+						c = findClass(name);
+					} catch (ClassNotFoundException e) {
+						c = super.loadClass(name, false);
+					}
+				if (resolve)
+					resolveClass(c);
+				return c;
+			}
+		}
+	}
+}
@@ -0,0 +1,118 @@
+package it.unive.scsr.fixpoint;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import it.unive.lisa.program.cfg.statement.Statement;
+import it.unive.lisa.util.collections.workset.WorkingSet;
+
+/**
+ * A fixpoint {@link WorkingSet} that wraps another one, processing each node
+ * at most a given number of times once the ascending phase is over. LiSA runs
+ * the descending phase of a fixpoint on the working set of its ascending
+ * phase: the first time the working set is found empty, the ascending phase is
+ * over, and from then on nodes that already exhausted their budget are
+ * discarded instead of being popped. Their states are left as computed by the
+ * previous iterates, that are all post-fixpoints.
+ * <br>
+ * <br>
+ * {@link DescendingPhase#apply(it.unive.lisa.conf.LiSAConfiguration)}
+ * installs it when the narrowing operator is used with a finite budget, as
+ * LiSA only bounds the descending phase driven by the greatest lower bound.
+ */
+public class BoundedDescendingWorkingSet implements WorkingSet<Statement> {
+
+	private final WorkingSet<Statement> wrapped;
+
+	private final int budget;
+
+	private final Map<Statement, Integer> pops = new HashMap<>();
+
+	private boolean descending = false;
+
+	/**
+	 * Builds the working set.
+	 *
+	 * @param wrapped the working set deciding the order of the nodes
+	 * @param budget  the maximum number of times each node is processed during
+	 *                    the descending phase
+	 */
+	public BoundedDescendingWorkingSet(
+			WorkingSet<Statement> wrapped,
+			int budget) {
+		if (budget < 0)
+			throw new IllegalArgumentException("The descending budget cannot be negative");
+		this.wrapped = wrapped;
+		this.budget = budget;
+	}
+
+	/**
+	 * Yields the working set deciding the order of the nodes.
+	 *
+	 * @return the wrapped working set
+	 */
+	public WorkingSet<Statement> getWrapped() {
+		return wrapped;
+	}
+
+	/**
+	 * Yields the maximum number of times each node is processed during the
+	 * descending phase.
+	 *
+	 * @return the budget
+	 */
+	public int getBudget() {
+		return budget;
+	}
+
+	@Override
+	public void push(
+			Statement e) {
+		wrapped.push(e);
+	}
+
+	@Override
+	public Statement pop() {
+		Statement next = wrapped.pop();
+		if (descending)
+			pops.merge(next, 1, Integer::sum);
+		return next;
+	}
+
+	@Override
+	public Statement peek() {
+		return wrapped.peek();
+	}
+
+	@Override
+	public int size() {
+		return wrapped.size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		// nodes out of budget are dropped before LiSA can pop them
+		while (descending && !wrapped.isEmpty() && pops.getOrDefault(wrapped.peek(), 0) >= budget)
+			wrapped.pop();
+		boolean empty = wrapped.isEmpty();
+		if (empty)
+			descending = true;
+		return empty;
+	}
+
+	@Override
+	public Collection<Statement> getContents() {
+		return wrapped.getContents();
+	}
+
+	@Override
+	public BoundedDescendingWorkingSet mk() {
+		return new BoundedDescendingWorkingSet(wrapped.mk(), budget);
+	}
+
+	@Override
+	public String toString() {
+		return wrapped.toString();
+	}
+}
@@ -0,0 +1,110 @@
+package it.unive.scsr.fixpoint;
+
+import it.unive.lisa.conf.LiSAConfiguration;
+import it.unive.lisa.conf.LiSAConfiguration.DescendingPhaseType;
+
+/**
+ * The descending phase executed after the ascending one has reached a
+ * post-fixpoint, recovering part of the precision lost by widening. Each
+ * iterate of the descending phase is still a post-fixpoint, so the phase can
+ * be stopped at any time without losing soundness: with a positive
+ * {@link #budget}, each node is refined at most that many times through the
+ * greatest lower bound of its current and recomputed states. With
+ * {@link #narrowing}, the narrowing operator of the domain is used instead
+ * (see {@link it.unive.scsr.Intervals#narrowingAux} and
+ * {@link it.unive.scsr.Pentagons#narrowingAux}), that guarantees
+ * termination by itself by refining only infinite bounds: the budget, if not
+ * {@link #UNBOUNDED}, still caps the number of times each node is processed,
+ * through a {@link BoundedDescendingWorkingSet}.
+ */
+public class DescendingPhase {
+
+	/**
+	 * The budget of a descending phase that is only stopped by the narrowing
+	 * operator.
+	 */
+	public static final int UNBOUNDED = Integer.MAX_VALUE;
+
+	/**
+	 * The maximum number of descending iterations on each node; {@code 0}
+	 * disables the descending phase.
+	 */
+	public int budget = 2;
+
+	/**
+	 * Whether the narrowing operator should be used instead of the bounded
+	 * greatest lower bound.
+	 */
+	public boolean narrowing = false;
+
+	/**
+	 * Builds the phase with the default settings (at most 2 descending
+	 * iterations on each node).
+	 */
+	public DescendingPhase() {
+	}
+
+	/**
+	 * Builds a bounded phase.
+	 *
+	 * @param budget the maximum number of descending iterations on each node,
+	 *                   {@code 0} to disable the descending phase
+	 */
+	public DescendingPhase(
+			int budget) {
+		if (budget < 0)
+			throw new IllegalArgumentException("The descending budget cannot be negative");
+		this.budget = budget;
+	}
+
+	/**
+	 * Builds a phase driven by the narrowing operator of the domain, running
+	 * until the narrowing stabilizes.
+	 *
+	 * @return the phase
+	 */
+	public static DescendingPhase withNarrowing() {
+		return withNarrowing(UNBOUNDED);
+	}
+
+	/**
+	 * Builds a phase driven by the narrowing operator of the domain, that
+	 * processes each node at most {@code budget} times.
+	 *
+	 * @param budget the maximum number of descending iterations on each node,
+	 *                   {@code 0} to disable the descending phase
+	 *
+	 * @return the phase
+	 */
+	public static DescendingPhase withNarrowing(
+			int budget) {
+		DescendingPhase phase = new DescendingPhase(budget);
+		phase.narrowing = true;
+		return phase;
+	}
+
+	/**
+	 * Applies this phase to the given configuration. A bounded narrowing phase
+	 * wraps the fixpoint working set of the configuration into a
+	 * {@link BoundedDescendingWorkingSet}.
+	 *
+	 * @param conf the configuration to modify
+	 */
+	public void apply(
+			LiSAConfiguration conf) {
+		// a previous bounded phase is replaced, not nested
+		if (conf.fixpointWorkingSet instanceof BoundedDescendingWorkingSet)
+			conf.fixpointWorkingSet = ((BoundedDescendingWorkingSet) conf.fixpointWorkingSet).getWrapped();
+
+		if (narrowing && budget > 0) {
+			conf.descendingPhaseType = DescendingPhaseType.NARROWING;
+			if (budget != UNBOUNDED)
+				conf.fixpointWorkingSet = new BoundedDescendingWorkingSet(conf.fixpointWorkingSet, budget);
+		} else if (budget == 0)
+			conf.descendingPhaseType = DescendingPhaseType.NONE;
+		else {
+			conf.descendingPhaseType = DescendingPhaseType.GLB;
+			conf.glbThreshold = budget;
+		}
+	}
+}
@@ -0,0 +1,130 @@
+package it.unive.scsr.fixpoint;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.statement.Statement;
+import it.unive.lisa.util.collections.workset.WorkingSet;
+
+/**
+ * A fixpoint {@link WorkingSet} that follows the recursive iteration strategy
+ * induced by the {@link WeakTopologicalOrder} of the CFG being analyzed. The
+ * next node to process is the pending one that comes first in the ordering,
+ * except when it is the head of a component that still has pending nodes in
+ * its body: in that case, the body is processed first. This way, inner loops
+ * are stabilized before their enclosing ones are iterated again, and nodes
+ * following a loop are only processed once the loop is stable.
+ * <br>
+ * <br>
+ * Use it with {@code conf.fixpointWorkingSet = new WTOWorkingSet();}. Together
+ * with {@code conf.useWideningPoints = true} (the default), widening is only
+ * applied at loop guards, that for the structured CFGs produced by the IMP
+ * frontend are exactly the heads of the components.
+ */
+public class WTOWorkingSet implements WorkingSet<Statement> {
+
+	/**
+	 * Orderings are computed once per CFG and shared by all the working sets
+	 * created through {@link #mk()}. They are never recomputed: a CFG
+	 * modified after its ordering is computed (e.g., sliced in place) needs
+	 * a new working set.
+	 */
+	private final Map<CFG, WeakTopologicalOrder> orders;
+
+	private final TreeSet<Integer> pending = new TreeSet<>();
+
+	private WeakTopologicalOrder wto;
+
+	/**
+	 * Builds the working set.
+	 */
+	public WTOWorkingSet() {
+		this(new ConcurrentHashMap<>());
+	}
+
+	private WTOWorkingSet(
+			Map<CFG, WeakTopologicalOrder> orders) {
+		this.orders = orders;
+	}
+
+	/**
+	 * Yields the ordering of the given CFG, computing it if needed.
+	 *
+	 * @param cfg the cfg
+	 *
+	 * @return the weak topological ordering of the cfg
+	 */
+	public WeakTopologicalOrder orderOf(
+			CFG cfg) {
+		return orders.computeIfAbsent(cfg, WeakTopologicalOrder::new);
+	}
+
+	@Override
+	public void push(
+			Statement e) {
+		if (wto == null || wto.getCFG() != e.getCFG())
+			wto = orderOf(e.getCFG());
+		int idx = wto.indexOf(e);
+		if (idx < 0)
+			throw new IllegalArgumentException(e + " is not a node of " + wto.getCFG());
+		pending.add(idx);
+	}
+
+	@Override
+	public Statement pop() {
+		Integer next = next();
+		pending.remove(next);
+		return wto.get(next);
+	}
+
+	@Override
+	public Statement peek() {
+		return wto.get(next());
+	}
+
+	private Integer next() {
+		Integer next = pending.first();
+		Statement st = wto.get(next);
+		while (wto.isHead(st)) {
+			// stabilize the body before iterating again on the head
+			Integer inner = pending.higher(next);
+			if (inner == null || inner > wto.componentEnd(st))
+				break;
+			next = inner;
+			st = wto.get(next);
+		}
+		return next;
+	}
+
+	@Override
+	public int size() {
+		return pending.size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return pending.isEmpty();
+	}
+
+	@Override
+	public Collection<Statement> getContents() {
+		Collection<Statement> contents = new ArrayList<>(pending.size());
+		for (Integer idx : pending)
+			contents.add(wto.get(idx));
+		return contents;
+	}
+
+	@Override
+	public WTOWorkingSet mk() {
+		return new WTOWorkingSet(orders);
+	}
+
+	@Override
+	public String toString() {
+		return getContents().toString();
+	}
+}
@@ -0,0 +1,265 @@
+package it.unive.scsr.fixpoint;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.statement.Statement;
+
+/**
+ * Bourdoncle's weak topological ordering of the nodes of a {@link CFG}. The
+ * ordering is a hierarchical decomposition of the graph in strongly connected
+ * components: each component has a head, the only node of the component
+ * targeted by edges coming from outside of it, and its body is ordered
+ * recursively. In the linearization built here, the head of each component
+ * precedes all the nodes of its body, and the nodes of a component are
+ * contiguous.
+ * <br>
+ * <br>
+ * F. Bourdoncle, "Efficient chaotic iteration strategies with widenings",
+ * FMPA 1993.
+ */
+public class WeakTopologicalOrder {
+
+	private final CFG cfg;
+
+	private final Map<Statement, Integer> index = new HashMap<>();
+
+	private final List<Statement> order = new ArrayList<>();
+
+	private final Map<Statement, Integer> componentEnd = new HashMap<>();
+
+	private final Map<Statement, Integer> depth = new HashMap<>();
+
+	// working data of the construction
+	private final Map<Statement, Integer> dfn = new HashMap<>();
+
+	private final Deque<Statement> stack = new ArrayDeque<>();
+
+	private int num = 0;
+
+	/**
+	 * Computes the weak topological ordering of the given CFG.
+	 *
+	 * @param cfg the cfg
+	 */
+	public WeakTopologicalOrder(
+			CFG cfg) {
+		this.cfg = cfg;
+
+		Deque<Object> partition = new ArrayDeque<>();
+		List<Statement> roots = new ArrayList<>(cfg.getEntrypoints());
+		// unreachable nodes are still part of the graph
+		roots.addAll(cfg.getNodes());
+		List<Object> elements = new ArrayList<>();
+		for (Statement root : roots)
+			if (dfn.getOrDefault(root, 0) == 0) {
+				visit(root, partition);
+				elements.addAll(partition);
+				partition.clear();
+			}
+
+		flatten(elements, 0);
+		dfn.clear();
+	}
+
+	private int visit(
+			Statement v,
+			Deque<Object> partition) {
+		stack.push(v);
+		dfn.put(v, ++num);
+		int head = num;
+		boolean loop = false;
+
+		for (Statement w : cfg.followersOf(v)) {
+			int d = dfn.getOrDefault(w, 0);
+			int min = d == 0 ? visit(w, partition) : d;
+			if (min <= head) {
+				head = min;
+				loop = true;
+			}
+		}
+
+		if (head == dfn.get(v)) {
+			dfn.put(v, Integer.MAX_VALUE);
+			Statement element = stack.pop();
+			if (loop) {
+				while (element != v) {
+					dfn.put(element, 0);
+					element = stack.pop();
+				}
+				partition.addFirst(component(v));
+			} else
+				partition.addFirst(v);
+		}
+
+		return head;
+	}
+
+	private Component component(
+			Statement v) {
+		Deque<Object> body = new ArrayDeque<>();
+		for (Statement w : cfg.followersOf(v))
+			if (dfn.getOrDefault(w, 0) == 0)
+				visit(w, body);
+		return new Component(v, new ArrayList<>(body));
+	}
+
+	private void flatten(
+			List<Object> elements,
+			int level) {
+		for (Object element : elements)
+			if (element instanceof Component) {
+				Component c = (Component) element;
+				add(c.head, level + 1);
+				flatten(c.body, level + 1);
+				componentEnd.put(c.head, order.size() - 1);
+			} else
+				add((Statement) element, level);
+	}
+
+	private void add(
+			Statement st,
+			int level) {
+		index.put(st, order.size());
+		order.add(st);
+		depth.put(st, level);
+	}
+
+	/**
+	 * Yields the CFG this ordering refers to.
+	 *
+	 * @return the cfg
+	 */
+	public CFG getCFG() {
+		return cfg;
+	}
+
+	/**
+	 * Yields the position of the given node in the linearized ordering, or
+	 * {@code -1} if the node does not belong to the CFG.
+	 *
+	 * @param st the node
+	 *
+	 * @return the position of the node
+	 */
+	public int indexOf(
+			Statement st) {
+		return index.getOrDefault(st, -1);
+	}
+
+	/**
+	 * Yields the node at the given position of the linearized ordering.
+	 *
+	 * @param index the position
+	 *
+	 * @return the node
+	 */
+	public Statement get(
+			int index) {
+		return order.get(index);
+	}
+
+	/**
+	 * Yields the number of nodes in the ordering.
+	 *
+	 * @return the number of nodes
+	 */
+	public int size() {
+		return order.size();
+	}
+
+	/**
+	 * Yields the linearized ordering.
+	 *
+	 * @return the nodes, in order
+	 */
+	public List<Statement> getOrder() {
+		return Collections.unmodifiableList(order);
+	}
+
+	/**
+	 * Yields whether the given node is the head of a component.
+	 *
+	 * @param st the node
+	 *
+	 * @return {@code true} if that condition holds
+	 */
+	public boolean isHead(
+			Statement st) {
+		return componentEnd.containsKey(st);
+	}
+
+	/**
+	 * Yields the heads of all the components.
+	 *
+	 * @return the heads
+	 */
+	public Set<Statement> getHeads() {
+		return new HashSet<>(componentEnd.keySet());
+	}
+
+	/**
+	 * Yields the position of the last node of the component headed by the
+	 * given node, or {@code -1} if the node is not a head.
+	 *
+	 * @param head the head
+	 *
+	 * @return the position of the last node of the component
+	 */
+	public int componentEnd(
+			Statement head) {
+		return componentEnd.getOrDefault(head, -1);
+	}
+
+	/**
+	 * Yields the number of components containing the given node (a head is
+	 * contained in its own component).
+	 *
+	 * @param st the node
+	 *
+	 * @return the nesting depth of the node
+	 */
+	public int depthOf(
+			Statement st) {
+		return depth.getOrDefault(st, 0);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		Deque<Integer> ends = new ArrayDeque<>();
+		for (int i = 0; i < order.size(); i++) {
+			Statement st = order.get(i);
+			if (isHead(st)) {
+				sb.append("(");
+				ends.push(componentEnd(st));
+			}
+			sb.append(st).append(" ");
+			while (!ends.isEmpty() && ends.peek() == i) {
+				ends.pop();
+				sb.append(") ");
+			}
+		}
+		return sb.toString().trim();
+	}
+
+	private static class Component {
+		private final Statement head;
+		private final List<Object> body;
+
+		private Component(
+				Statement head,
+				List<Object> body) {
+			this.head = head;
+			this.body = body;
+		}
+	}
+}
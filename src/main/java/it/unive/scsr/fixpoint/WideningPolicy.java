@@ -0,0 +1,64 @@
+package it.unive.scsr.fixpoint;
+
+import it.unive.lisa.conf.LiSAConfiguration;
+
+/**
+ * The placement of widening applications during the ascending phase of the
+ * fixpoint. With {@link #loopHeadsOnly}, widening is applied only at loop
+ * heads, and only after {@link #delay} iterations of
+ * plain lub on the same head; every other node only ever joins its incoming
+ * states. Confining widening to few points makes the ascending phase converge
+ * with fewer jumps to top in {@link it.unive.scsr.Intervals},
+ * {@link it.unive.scsr.UpperBounds} and {@link it.unive.scsr.Pentagons},
+ * and thus with fewer spurious warnings from the checkers.
+ */
+public class WideningPolicy {
+
+	/**
+	 * Whether widening should be confined to loop heads.
+	 */
+	public boolean loopHeadsOnly = true;
+
+	/**
+	 * The number of plain lub iterations performed on a node before widening
+	 * it.
+	 */
+	public int delay = 5;
+
+	/**
+	 * Builds the policy with the default settings (widening only at loop
+	 * heads, after 5 lub iterations), that are also the ones of LiSA.
+	 */
+	public WideningPolicy() {
+	}
+
+	/**
+	 * Builds the policy.
+	 *
+	 * @param loopHeadsOnly whether widening should be confined to loop heads
+	 * @param delay         the number of plain lub iterations performed on a
+	 *                          node before widening it
+	 */
+	public WideningPolicy(
+			boolean loopHeadsOnly,
+			int delay) {
+		if (delay < 0)
+			throw new IllegalArgumentException("The widening delay cannot be negative");
+		this.loopHeadsOnly = loopHeadsOnly;
+		this.delay = delay;
+	}
+
+	/**
+	 * Applies this policy to the given configuration. LiSA's widening points
+	 * are the guards of the loops recorded by the frontend, that for the
+	 * structured CFGs produced by the IMP frontend coincide with the heads of
+	 * the components of their {@link WeakTopologicalOrder}.
+	 *
+	 * @param conf the configuration to modify
+	 */
+	public void apply(
+			LiSAConfiguration conf) {
+		conf.useWideningPoints = loopHeadsOnly;
+		conf.wideningThreshold = delay;
+	}
+}
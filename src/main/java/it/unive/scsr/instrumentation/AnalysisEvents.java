@@ -0,0 +1,303 @@
+package it.unive.scsr.instrumentation;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import it.unive.lisa.analysis.dataflow.DataflowDomain;
+import it.unive.lisa.analysis.nonrelational.value.ValueEnvironment;
+import it.unive.lisa.program.cfg.ProgramPoint;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder events emitted by the analyses of this project. Events
+ * are only recorded while a JFR recording is active (e.g., when the JVM is
+ * started with {@code -XX:StartFlightRecording}), and can be inspected with
+ * the standard JFR tooling under the {@code SCSR} category.
+ */
+public final class AnalysisEvents {
+
+	private static final EventType FIXPOINT = EventType.getEventType(FixpointEvent.class);
+
+	private static final EventType WIDENING = EventType.getEventType(WideningEvent.class);
+
+	/**
+	 * The fixpoints running on each thread, innermost first.
+	 */
+	private static final ThreadLocal<Deque<FixpointEvent>> RUNNING = ThreadLocal.withInitial(ArrayDeque::new);
+
+	/**
+	 * The fixpoint events begun and not yet committed, on any thread.
+	 */
+	private static final Set<FixpointEvent> OPEN = ConcurrentHashMap.newKeySet();
+
+	private AnalysisEvents() {
+		// static helpers
+	}
+
+	/**
+	 * Parsing of a source file.
+	 */
+	@Name("it.unive.scsr.Parsing")
+	@Label("Parsing")
+	@Category({ "SCSR", "Phases" })
+	public static class ParsingEvent extends Event {
+
+		/**
+		 * The parsed file.
+		 */
+		@Label("File")
+		public String file;
+	}
+
+	/**
+	 * Fixpoint computation over a single CFG in a single context, as
+	 * delimited by an {@link InstrumentedWorkingSet} and observed by an
+	 * {@link InstrumentedDomain}.
+	 */
+	@Name("it.unive.scsr.Fixpoint")
+	@Label("CFG Fixpoint")
+	@Category({ "SCSR", "Phases" })
+	public static class FixpointEvent extends Event {
+
+		/**
+		 * The signature of the CFG.
+		 */
+		@Label("CFG")
+		public String cfg;
+
+		/**
+		 * The class of the abstract domain.
+		 */
+		@Label("Domain")
+		public String domain;
+
+		/**
+		 * The number of fixpoint iterations, that is, of stability tests.
+		 */
+		@Label("Iterations")
+		@Description("Number of partial order tests performed by the fixpoint")
+		public long iterations;
+
+		/**
+		 * The number of transfer functions executed.
+		 */
+		@Label("Transfers")
+		public long transfers;
+
+		/**
+		 * The number of widenings applied.
+		 */
+		@Label("Widenings")
+		public long widenings;
+
+		/**
+		 * The size of the largest state seen.
+		 */
+		@Label("State Size")
+		@Description("Largest number of tracked identifiers or dataflow elements, -1 if unknown")
+		public int stateSize = -1;
+	}
+
+	/**
+	 * A single widening application.
+	 */
+	@Name("it.unive.scsr.Widening")
+	@Label("Widening")
+	@Category({ "SCSR", "Fixpoint" })
+	public static class WideningEvent extends Event {
+
+		/**
+		 * The signature of the CFG being analyzed.
+		 */
+		@Label("CFG")
+		public String cfg;
+
+		/**
+		 * The class of the abstract domain.
+		 */
+		@Label("Domain")
+		public String domain;
+
+		/**
+		 * The size of the widened state.
+		 */
+		@Label("State Size")
+		public int stateSize;
+	}
+
+	/**
+	 * The visit of a statement by a semantic check.
+	 */
+	@Name("it.unive.scsr.CheckVisit")
+	@Label("Semantic Check Visit")
+	@Category({ "SCSR", "Phases" })
+	public static class CheckVisitEvent extends Event {
+
+		/**
+		 * The class of the check.
+		 */
+		@Label("Check")
+		public String check;
+
+		/**
+		 * The signature of the visited CFG.
+		 */
+		@Label("CFG")
+		public String cfg;
+
+		/**
+		 * The visited statement.
+		 */
+		@Label("Statement")
+		public String statement;
+	}
+
+	/**
+	 * The generation of the analysis outputs (graphs, json files and report).
+	 */
+	@Name("it.unive.scsr.Output")
+	@Label("Output Generation")
+	@Category({ "SCSR", "Phases" })
+	public static class OutputEvent extends Event {
+
+		/**
+		 * The working directory.
+		 */
+		@Label("Workdir")
+		public String workdir;
+	}
+
+	/**
+	 * Begins the event of a fixpoint running on the current thread, that
+	 * becomes the one receiving the notifications of this thread until it
+	 * ends or another fixpoint begins.
+	 *
+	 * @return the event, or {@code null} if fixpoint events are not recorded
+	 */
+	static FixpointEvent beginFixpoint() {
+		if (!FIXPOINT.isEnabled())
+			return null;
+		FixpointEvent event = new FixpointEvent();
+		event.begin();
+		OPEN.add(event);
+		RUNNING.get().push(event);
+		return event;
+	}
+
+	/**
+	 * Ends and commits the event of a fixpoint that was running on the
+	 * current thread, resuming the enclosing one, if any.
+	 *
+	 * @param event the event of the fixpoint
+	 */
+	static void endFixpoint(
+			FixpointEvent event) {
+		RUNNING.get().remove(event);
+		// flush() may have already committed it
+		if (OPEN.remove(event))
+			event.commit();
+	}
+
+	/**
+	 * Notifies that a transfer function on the given state is being executed
+	 * at the given program point, as part of the innermost fixpoint running
+	 * on the current thread.
+	 *
+	 * @param pp    the program point
+	 * @param state the state the transfer function is applied to
+	 */
+	static void transfer(
+			ProgramPoint pp,
+			Object state) {
+		if (!FIXPOINT.isEnabled())
+			return;
+		FixpointEvent event = running();
+		if (event == null)
+			return;
+
+		if (event.cfg == null && pp != null && pp.getCFG() != null)
+			event.cfg = pp.getCFG().getDescriptor().getFullSignature();
+		if (event.domain == null)
+			event.domain = domainOf(state);
+		event.transfers++;
+		event.stateSize = Math.max(event.stateSize, sizeOf(state));
+	}
+
+	/**
+	 * Notifies that a stability test is being executed. Only tests executed
+	 * while a fixpoint is running on the current thread are counted.
+	 */
+	static void iteration() {
+		if (!FIXPOINT.isEnabled())
+			return;
+		FixpointEvent event = running();
+		if (event != null)
+			event.iterations++;
+	}
+
+	/**
+	 * Notifies that a widening has been applied to the given state.
+	 *
+	 * @param state the widened state
+	 */
+	static void widening(
+			Object state) {
+		if (!WIDENING.isEnabled())
+			return;
+
+		WideningEvent widening = new WideningEvent();
+		FixpointEvent event = FIXPOINT.isEnabled() ? running() : null;
+		if (event != null) {
+			event.widenings++;
+			widening.cfg = event.cfg;
+		}
+		widening.domain = domainOf(state);
+		widening.stateSize = sizeOf(state);
+		widening.commit();
+	}
+
+	private static FixpointEvent running() {
+		Deque<FixpointEvent> running = RUNNING.get();
+		// drop the fixpoints interrupted before a flush
+		while (!running.isEmpty() && !OPEN.contains(running.peek()))
+			running.pop();
+		return running.peek();
+	}
+
+	/**
+	 * Commits the fixpoint events that are still open, on any thread (e.g.,
+	 * the ones of fixpoints interrupted by an exception). It is meant to be
+	 * called once the analysis is over.
+	 */
+	public static void flush() {
+		for (FixpointEvent event : OPEN)
+			if (OPEN.remove(event))
+				event.commit();
+		RUNNING.remove();
+	}
+
+	private static String domainOf(
+			Object state) {
+		if (state instanceof ValueEnvironment)
+			return ((ValueEnvironment<?>) state).lattice.getClass().getName();
+		return state.getClass().getName();
+	}
+
+	private static int sizeOf(
+			Object state) {
+		if (state instanceof ValueEnvironment) {
+			ValueEnvironment<?> env = (ValueEnvironment<?>) state;
+			return env.isTop() || env.isBottom() ? 0 : env.getKeys().size();
+		}
+		if (state instanceof DataflowDomain)
+			return ((DataflowDomain<?, ?>) state).getDataflowElements().size();
+		return -1;
+	}
+}
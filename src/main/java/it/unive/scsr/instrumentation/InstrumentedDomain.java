@@ -0,0 +1,263 @@
+package it.unive.scsr.instrumentation;
+
+import java.util.Objects;
+import java.util.function.Predicate;
+
+import it.unive.lisa.analysis.ScopeToken;
+import it.unive.lisa.analysis.SemanticException;
+import it.unive.lisa.analysis.SemanticOracle;
+import it.unive.lisa.analysis.lattices.Satisfiability;
+import it.unive.lisa.analysis.value.ValueDomain;
+import it.unive.lisa.program.cfg.ProgramPoint;
+import it.unive.lisa.symbolic.value.Identifier;
+import it.unive.lisa.symbolic.value.ValueExpression;
+import it.unive.lisa.util.representation.StructuredRepresentation;
+import it.unive.scsr.instrumentation.Metrics.Operation;
+
+/**
+ * A {@link ValueDomain} that wraps another one, counting and timing the lattice
+ * operations and the transfer functions executed on it. The wrapper can be
+ * placed around any value domain of this project, e.g.
+ * {@code new InstrumentedDomain<>(new ValueEnvironment<>(new Intervals()))} or
+ * {@code new InstrumentedDomain<>(new Pentagons())}, and results are collected
+ * in {@link Metrics} only if {@link Metrics#isEnabled()} holds. The wrapper
+ * also emits the fixpoint and widening {@link AnalysisEvents} while a JFR
+ * recording is active, attributing transfer functions and stability tests to
+ * the fixpoints delimited by an {@link InstrumentedWorkingSet}.
+ *
+ * @param <D> the type of the wrapped domain
+ */
+public class InstrumentedDomain<D extends ValueDomain<D>> implements ValueDomain<InstrumentedDomain<D>> {
+
+	private final D wrapped;
+
+	/**
+	 * Builds the instrumented domain.
+	 *
+	 * @param wrapped the domain to instrument
+	 */
+	public InstrumentedDomain(
+			D wrapped) {
+		this.wrapped = wrapped;
+	}
+
+	/**
+	 * Yields the wrapped domain instance.
+	 *
+	 * @return the wrapped domain
+	 */
+	public D getWrapped() {
+		return wrapped;
+	}
+
+	private InstrumentedDomain<D> wrap(
+			D result) {
+		return result == wrapped ? this : new InstrumentedDomain<>(result);
+	}
+
+	@Override
+	public InstrumentedDomain<D> lub(
+			InstrumentedDomain<D> other)
+			throws SemanticException {
+		if (!Metrics.isEnabled())
+			return wrap(wrapped.lub(other.wrapped));
+		long start = System.nanoTime();
+		D result = wrapped.lub(other.wrapped);
+		Metrics.record(Operation.LUB, System.nanoTime() - start);
+		return wrap(result);
+	}
+
+	@Override
+	public InstrumentedDomain<D> glb(
+			InstrumentedDomain<D> other)
+			throws SemanticException {
+		if (!Metrics.isEnabled())
+			return wrap(wrapped.glb(other.wrapped));
+		long start = System.nanoTime();
+		D result = wrapped.glb(other.wrapped);
+		Metrics.record(Operation.GLB, System.nanoTime() - start);
+		return wrap(result);
+	}
+
+	@Override
+	public InstrumentedDomain<D> widening(
+			InstrumentedDomain<D> other)
+			throws SemanticException {
+		if (!Metrics.isEnabled()) {
+			D result = wrapped.widening(other.wrapped);
+			AnalysisEvents.widening(result);
+			return wrap(result);
+		}
+		long start = System.nanoTime();
+		D result = wrapped.widening(other.wrapped);
+		Metrics.record(Operation.WIDENING, System.nanoTime() - start);
+		AnalysisEvents.widening(result);
+		return wrap(result);
+	}
+
+	@Override
+	public InstrumentedDomain<D> narrowing(
+			InstrumentedDomain<D> other)
+			throws SemanticException {
+		if (!Metrics.isEnabled())
+			return wrap(wrapped.narrowing(other.wrapped));
+		long start = System.nanoTime();
+		D result = wrapped.narrowing(other.wrapped);
+		Metrics.record(Operation.NARROWING, System.nanoTime() - start);
+		return wrap(result);
+	}
+
+	@Override
+	public boolean lessOrEqual(
+			InstrumentedDomain<D> other)
+			throws SemanticException {
+		AnalysisEvents.iteration();
+		if (!Metrics.isEnabled())
+			return wrapped.lessOrEqual(other.wrapped);
+		long start = System.nanoTime();
+		boolean result = wrapped.lessOrEqual(other.wrapped);
+		Metrics.record(Operation.LEQ, System.nanoTime() - start);
+		return result;
+	}
+
+	@Override
+	public InstrumentedDomain<D> assign(
+			Identifier id,
+			ValueExpression expression,
+			ProgramPoint pp,
+			SemanticOracle oracle)
+			throws SemanticException {
+		AnalysisEvents.transfer(pp, wrapped);
+		if (!Metrics.isEnabled())
+			return wrap(wrapped.assign(id, expression, pp, oracle));
+		Metrics.enter(pp);
+		long start = System.nanoTime();
+		D result = wrapped.assign(id, expression, pp, oracle);
+		Metrics.record(Operation.TRANSFER, System.nanoTime() - start);
+		return wrap(result);
+	}
+
+	@Override
+	public InstrumentedDomain<D> smallStepSemantics(
+			ValueExpression expression,
+			ProgramPoint pp,
+			SemanticOracle oracle)
+			throws SemanticException {
+		AnalysisEvents.transfer(pp, wrapped);
+		if (!Metrics.isEnabled())
+			return wrap(wrapped.smallStepSemantics(expression, pp, oracle));
+		Metrics.enter(pp);
+		long start = System.nanoTime();
+		D result = wrapped.smallStepSemantics(expression, pp, oracle);
+		Metrics.record(Operation.TRANSFER, System.nanoTime() - start);
+		return wrap(result);
+	}
+
+	@Override
+	public InstrumentedDomain<D> assume(
+			ValueExpression expression,
+			ProgramPoint src,
+			ProgramPoint dest,
+			SemanticOracle oracle)
+			throws SemanticException {
+		AnalysisEvents.transfer(src, wrapped);
+		if (!Metrics.isEnabled())
+			return wrap(wrapped.assume(expression, src, dest, oracle));
+		Metrics.enter(src);
+		long start = System.nanoTime();
+		D result = wrapped.assume(expression, src, dest, oracle);
+		Metrics.record(Operation.TRANSFER, System.nanoTime() - start);
+		return wrap(result);
+	}
+
+	@Override
+	public InstrumentedDomain<D> forgetIdentifier(
+			Identifier id)
+			throws SemanticException {
+		return wrap(wrapped.forgetIdentifier(id));
+	}
+
+	@Override
+	public InstrumentedDomain<D> forgetIdentifiersIf(
+			Predicate<Identifier> test)
+			throws SemanticException {
+		return wrap(wrapped.forgetIdentifiersIf(test));
+	}
+
+	@Override
+	public Satisfiability satisfies(
+			ValueExpression expression,
+			ProgramPoint pp,
+			SemanticOracle oracle)
+			throws SemanticException {
+		return wrapped.satisfies(expression, pp, oracle);
+	}
+
+	@Override
+	public InstrumentedDomain<D> pushScope(
+			ScopeToken token)
+			throws SemanticException {
+		return wrap(wrapped.pushScope(token));
+	}
+
+	@Override
+	public InstrumentedDomain<D> popScope(
+			ScopeToken token)
+			throws SemanticException {
+		return wrap(wrapped.popScope(token));
+	}
+
+	@Override
+	public boolean knowsIdentifier(
+			Identifier id) {
+		return wrapped.knowsIdentifier(id);
+	}
+
+	@Override
+	public InstrumentedDomain<D> top() {
+		return wrap(wrapped.top());
+	}
+
+	@Override
+	public boolean isTop() {
+		return wrapped.isTop();
+	}
+
+	@Override
+	public InstrumentedDomain<D> bottom() {
+		return wrap(wrapped.bottom());
+	}
+
+	@Override
+	public boolean isBottom() {
+		return wrapped.isBottom();
+	}
+
+	@Override
+	public StructuredRepresentation representation() {
+		return wrapped.representation();
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(wrapped);
+	}
+
+	@Override
+	public boolean equals(
+			Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		InstrumentedDomain<?> other = (InstrumentedDomain<?>) obj;
+		return Objects.equals(wrapped, other.wrapped);
+	}
+
+	@Override
+	public String toString() {
+		return wrapped.toString();
+	}
+}
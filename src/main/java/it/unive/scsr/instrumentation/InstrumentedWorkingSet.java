@@ -0,0 +1,102 @@
+package it.unive.scsr.instrumentation;
+
+import java.util.Collection;
+
+import it.unive.lisa.program.cfg.statement.Statement;
+import it.unive.lisa.util.collections.workset.WorkingSet;
+import it.unive.scsr.instrumentation.AnalysisEvents.FixpointEvent;
+
+/**
+ * A fixpoint {@link WorkingSet} that wraps another one, delimiting the
+ * {@link FixpointEvent}s emitted by {@link InstrumentedDomain}s. A fixpoint
+ * starts when its working set is created through {@link #mk()}, and ends when
+ * its working set is found empty: the transfer functions and stability tests
+ * executed in between, on the same thread, are attributed to it. Fixpoints
+ * started while another one is running on the same thread (e.g., the ones of
+ * the callees analyzed while evaluating a call) get their own events, and the
+ * enclosing one is resumed when they end.
+ * <br>
+ * <br>
+ * {@link Profiler#run(it.unive.lisa.conf.LiSAConfiguration, it.unive.lisa.program.Program)}
+ * installs it around the working set of the configuration.
+ */
+public class InstrumentedWorkingSet implements WorkingSet<Statement> {
+
+	private final WorkingSet<Statement> wrapped;
+
+	private FixpointEvent event;
+
+	/**
+	 * Builds the working set.
+	 *
+	 * @param wrapped the working set deciding the order of the nodes
+	 */
+	public InstrumentedWorkingSet(
+			WorkingSet<Statement> wrapped) {
+		this(wrapped, null);
+	}
+
+	private InstrumentedWorkingSet(
+			WorkingSet<Statement> wrapped,
+			FixpointEvent event) {
+		this.wrapped = wrapped;
+		this.event = event;
+	}
+
+	/**
+	 * Yields the working set deciding the order of the nodes.
+	 *
+	 * @return the wrapped working set
+	 */
+	public WorkingSet<Statement> getWrapped() {
+		return wrapped;
+	}
+
+	@Override
+	public void push(
+			Statement e) {
+		if (event != null && event.cfg == null && e.getCFG() != null)
+			event.cfg = e.getCFG().getDescriptor().getFullSignature();
+		wrapped.push(e);
+	}
+
+	@Override
+	public Statement pop() {
+		return wrapped.pop();
+	}
+
+	@Override
+	public Statement peek() {
+		return wrapped.peek();
+	}
+
+	@Override
+	public int size() {
+		return wrapped.size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		boolean empty = wrapped.isEmpty();
+		if (empty && event != null) {
+			AnalysisEvents.endFixpoint(event);
+			event = null;
+		}
+		return empty;
+	}
+
+	@Override
+	public Collection<Statement> getContents() {
+		return wrapped.getContents();
+	}
+
+	@Override
+	public InstrumentedWorkingSet mk() {
+		return new InstrumentedWorkingSet(wrapped.mk(), AnalysisEvents.beginFixpoint());
+	}
+
+	@Override
+	public String toString() {
+		return wrapped.toString();
+	}
+}
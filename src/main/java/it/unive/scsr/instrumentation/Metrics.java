@@ -0,0 +1,312 @@
+package it.unive.scsr.instrumentation;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import it.unive.lisa.analysis.AbstractState;
+import it.unive.lisa.checks.semantic.CheckToolWithAnalysisResults;
+import it.unive.lisa.checks.semantic.SemanticCheck;
+import it.unive.lisa.conf.LiSAConfiguration;
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.ProgramPoint;
+import it.unive.lisa.program.cfg.statement.Statement;
+
+/**
+ * The registry of the operation counters collected by
+ * {@link InstrumentedDomain}s. Counters are grouped by CFG and by kind of
+ * statement, and are backed by {@link LongAdder}s so that concurrent fixpoints
+ * do not contend on the same memory location.
+ * <br>
+ * <br>
+ * Collection is disabled by default: while disabled, instrumented domains only
+ * pay for a single static field read before delegating to the wrapped domain.
+ * {@link #install(LiSAConfiguration)} enables it for a configuration, so that
+ * every run of LiSA with that configuration ends by writing the counters in
+ * {@value #FILE_NAME}, next to its {@code report.json}.
+ */
+public final class Metrics {
+
+	/**
+	 * The name of the file produced by {@link #write(String)}.
+	 */
+	public static final String FILE_NAME = "metrics.json";
+
+	/**
+	 * The operations that are counted.
+	 */
+	public enum Operation {
+		/**
+		 * Least upper bound.
+		 */
+		LUB,
+
+		/**
+		 * Greatest lower bound.
+		 */
+		GLB,
+
+		/**
+		 * Widening.
+		 */
+		WIDENING,
+
+		/**
+		 * Narrowing.
+		 */
+		NARROWING,
+
+		/**
+		 * Partial order test.
+		 */
+		LEQ,
+
+		/**
+		 * Transfer functions (assignments, expression evaluations and
+		 * assumptions).
+		 */
+		TRANSFER;
+	}
+
+	private static final String UNKNOWN = "<unknown>";
+
+	private static final Operation[] OPERATIONS = Operation.values();
+
+	private static final Map<String, Map<String, Counter[]>> COUNTERS = new ConcurrentHashMap<>();
+
+	/**
+	 * The location of the last transfer function executed by each thread:
+	 * lattice operations do not receive a program point, and are thus
+	 * attributed to the statement whose fixpoint iteration is running.
+	 */
+	private static final ThreadLocal<String[]> CURRENT = ThreadLocal.withInitial(() -> new String[] { UNKNOWN, UNKNOWN });
+
+	private static volatile boolean enabled = false;
+
+	private Metrics() {
+		// static registry
+	}
+
+	/**
+	 * Yields whether or not collection is enabled.
+	 *
+	 * @return {@code true} if collection is enabled
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Enables or disables collection.
+	 *
+	 * @param enabled whether collection should be enabled
+	 */
+	public static void setEnabled(
+			boolean enabled) {
+		Metrics.enabled = enabled;
+	}
+
+	/**
+	 * Enables collection and registers, among the semantic checks of the given
+	 * configuration, a check that writes the counters in the {@value #FILE_NAME}
+	 * file of its working directory once the analysis is over. The check is
+	 * registered at most once per configuration.
+	 *
+	 * @param conf the configuration of the analysis
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public static void install(
+			LiSAConfiguration conf) {
+		setEnabled(true);
+		if (!isInstalled(conf))
+			conf.semanticChecks.add(new MetricsWriter(conf));
+	}
+
+	/**
+	 * Yields whether or not the given configuration already writes the
+	 * counters at the end of its runs.
+	 *
+	 * @param conf the configuration of the analysis
+	 *
+	 * @return {@code true} if {@link #install(LiSAConfiguration)} was called on
+	 *             it
+	 */
+	public static boolean isInstalled(
+			LiSAConfiguration conf) {
+		return conf.semanticChecks.stream().anyMatch(MetricsWriter.class::isInstance);
+	}
+
+	/**
+	 * Discards all the collected counters.
+	 */
+	public static void reset() {
+		COUNTERS.clear();
+	}
+
+	/**
+	 * Marks the given program point as the one being analyzed by the current
+	 * thread.
+	 *
+	 * @param pp the program point
+	 */
+	static void enter(
+			ProgramPoint pp) {
+		String[] current = CURRENT.get();
+		if (pp == null) {
+			current[0] = UNKNOWN;
+			current[1] = UNKNOWN;
+			return;
+		}
+		current[0] = pp.getCFG() == null ? UNKNOWN : pp.getCFG().getDescriptor().getFullSignature();
+		current[1] = pp.getClass().getSimpleName();
+	}
+
+	/**
+	 * Records one execution of the given operation, lasting the given amount
+	 * of nanoseconds, at the location of the current thread.
+	 *
+	 * @param op    the operation
+	 * @param nanos the duration of the operation
+	 */
+	static void record(
+			Operation op,
+			long nanos) {
+		String[] current = CURRENT.get();
+		Counter[] counters = COUNTERS
+				.computeIfAbsent(current[0], k -> new ConcurrentHashMap<>())
+				.computeIfAbsent(current[1], k -> newCounters());
+		counters[op.ordinal()].count.increment();
+		counters[op.ordinal()].nanos.add(nanos);
+	}
+
+	private static Counter[] newCounters() {
+		Counter[] counters = new Counter[OPERATIONS.length];
+		for (int i = 0; i < counters.length; i++)
+			counters[i] = new Counter();
+		return counters;
+	}
+
+	/**
+	 * Yields the number of times the given operation was executed, over all
+	 * CFGs and statements.
+	 *
+	 * @param op the operation
+	 *
+	 * @return the number of executions
+	 */
+	public static long count(
+			Operation op) {
+		long total = 0;
+		for (Map<String, Counter[]> kinds : COUNTERS.values())
+			for (Counter[] counters : kinds.values())
+				total += counters[op.ordinal()].count.sum();
+		return total;
+	}
+
+	/**
+	 * Writes the collected counters in the {@value #FILE_NAME} file inside the
+	 * given working directory, next to LiSA's {@code report.json}.
+	 *
+	 * @param workdir the working directory of the analysis
+	 *
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void write(
+			String workdir)
+			throws IOException {
+		Path file = Paths.get(workdir, FILE_NAME);
+		Files.createDirectories(file.getParent());
+
+		// sorted copies, to get a stable output
+		Map<String, Map<String, Counter[]>> sorted = new TreeMap<>();
+		for (Entry<String, Map<String, Counter[]>> cfg : COUNTERS.entrySet())
+			sorted.put(cfg.getKey(), new TreeMap<>(cfg.getValue()));
+
+		try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			writer.write("{\n  \"totals\" : {");
+			for (int i = 0; i < OPERATIONS.length; i++) {
+				writer.write(i == 0 ? "\n" : ",\n");
+				writer.write("    \"" + name(OPERATIONS[i]) + "\" : " + count(OPERATIONS[i]));
+			}
+			writer.write("\n  },\n  \"cfgs\" : {");
+
+			boolean firstCfg = true;
+			for (Entry<String, Map<String, Counter[]>> cfg : sorted.entrySet()) {
+				writer.write(firstCfg ? "\n" : ",\n");
+				firstCfg = false;
+				writer.write("    " + quote(cfg.getKey()) + " : {");
+
+				boolean firstKind = true;
+				for (Entry<String, Counter[]> kind : cfg.getValue().entrySet()) {
+					writer.write(firstKind ? "\n" : ",\n");
+					firstKind = false;
+					writer.write("      " + quote(kind.getKey()) + " : {");
+					for (int i = 0; i < OPERATIONS.length; i++) {
+						Counter c = kind.getValue()[i];
+						writer.write(i == 0 ? "\n" : ",\n");
+						writer.write("        \"" + name(OPERATIONS[i]) + "\" : { \"count\" : " + c.count.sum()
+								+ ", \"nanos\" : " + c.nanos.sum() + " }");
+					}
+					writer.write("\n      }");
+				}
+				writer.write("\n    }");
+			}
+			writer.write("\n  }\n}\n");
+		}
+	}
+
+	private static String name(
+			Operation op) {
+		return op.name().toLowerCase();
+	}
+
+	private static String quote(
+			String str) {
+		return "\"" + str.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+	}
+
+	// runs after the fixpoints, when all the counters are final
+	private static final class MetricsWriter<A extends AbstractState<A>> implements SemanticCheck<A> {
+
+		private final LiSAConfiguration conf;
+
+		private MetricsWriter(
+				LiSAConfiguration conf) {
+			this.conf = conf;
+		}
+
+		@Override
+		public void afterExecution(
+				CheckToolWithAnalysisResults<A> tool) {
+			if (!isEnabled())
+				return;
+			try {
+				write(conf.workdir);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		@Override
+		public boolean visit(
+				CheckToolWithAnalysisResults<A> tool,
+				CFG graph,
+				Statement node) {
+			return false;
+		}
+	}
+
+	private static final class Counter {
+		private final LongAdder count = new LongAdder();
+		private final LongAdder nanos = new LongAdder();
+	}
+}
@@ -0,0 +1,95 @@
+package it.unive.scsr.instrumentation;
+
+import it.unive.lisa.analysis.AbstractState;
+import it.unive.lisa.checks.semantic.CheckToolWithAnalysisResults;
+import it.unive.lisa.checks.semantic.SemanticCheck;
+import it.unive.lisa.program.Global;
+import it.unive.lisa.program.Unit;
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.edge.Edge;
+import it.unive.lisa.program.cfg.statement.Statement;
+import it.unive.scsr.instrumentation.AnalysisEvents.CheckVisitEvent;
+
+/**
+ * A {@link SemanticCheck} that delegates to another one, emitting a
+ * {@link CheckVisitEvent} for each statement visited by the wrapped check.
+ *
+ * @param <A> the type of abstract state the check works on
+ */
+public class ProfiledCheck<A extends AbstractState<A>> implements SemanticCheck<A> {
+
+	private final SemanticCheck<A> wrapped;
+
+	/**
+	 * Builds the check.
+	 *
+	 * @param wrapped the check to profile
+	 */
+	public ProfiledCheck(
+			SemanticCheck<A> wrapped) {
+		this.wrapped = wrapped;
+	}
+
+	@Override
+	public void beforeExecution(
+			CheckToolWithAnalysisResults<A> tool) {
+		wrapped.beforeExecution(tool);
+	}
+
+	@Override
+	public void afterExecution(
+			CheckToolWithAnalysisResults<A> tool) {
+		wrapped.afterExecution(tool);
+	}
+
+	@Override
+	public boolean visitUnit(
+			CheckToolWithAnalysisResults<A> tool,
+			Unit unit) {
+		return wrapped.visitUnit(tool, unit);
+	}
+
+	@Override
+	public void visitGlobal(
+			CheckToolWithAnalysisResults<A> tool,
+			Unit unit,
+			Global global,
+			boolean instance) {
+		wrapped.visitGlobal(tool, unit, global, instance);
+	}
+
+	@Override
+	public boolean visit(
+			CheckToolWithAnalysisResults<A> tool,
+			CFG graph) {
+		return wrapped.visit(tool, graph);
+	}
+
+	@Override
+	public boolean visit(
+			CheckToolWithAnalysisResults<A> tool,
+			CFG graph,
+			Statement node) {
+		CheckVisitEvent event = new CheckVisitEvent();
+		if (!event.isEnabled())
+			return wrapped.visit(tool, graph, node);
+
+		event.begin();
+		try {
+			return wrapped.visit(tool, graph, node);
+		} finally {
+			event.check = wrapped.getClass().getName();
+			event.cfg = graph.getDescriptor().getFullSignature();
+			event.statement = node.toString();
+			event.commit();
+		}
+	}
+
+	@Override
+	public boolean visit(
+			CheckToolWithAnalysisResults<A> tool,
+			CFG graph,
+			Edge edge) {
+		return wrapped.visit(tool, graph, edge);
+	}
+}
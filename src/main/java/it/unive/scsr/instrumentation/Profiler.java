@@ -0,0 +1,120 @@
+package it.unive.scsr.instrumentation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import it.unive.lisa.LiSA;
+import it.unive.lisa.analysis.AbstractState;
+import it.unive.lisa.checks.semantic.CheckToolWithAnalysisResults;
+import it.unive.lisa.checks.semantic.SemanticCheck;
+import it.unive.lisa.conf.LiSAConfiguration;
+import it.unive.lisa.imp.IMPFrontend;
+import it.unive.lisa.imp.ParsingException;
+import it.unive.lisa.program.Program;
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.statement.Statement;
+import it.unive.lisa.util.collections.workset.WorkingSet;
+import it.unive.scsr.instrumentation.AnalysisEvents.OutputEvent;
+import it.unive.scsr.instrumentation.AnalysisEvents.ParsingEvent;
+
+/**
+ * Entry points for running LiSA while emitting the JFR {@link AnalysisEvents}
+ * of each phase: parsing, per-CFG fixpoints (delimited by an
+ * {@link InstrumentedWorkingSet}) and widenings (if the domain is an
+ * {@link InstrumentedDomain}), semantic check visits and output generation.
+ */
+public final class Profiler {
+
+	private Profiler() {
+		// static helpers
+	}
+
+	/**
+	 * Parses the given IMP file, emitting a {@link ParsingEvent}.
+	 *
+	 * @param file the file to parse
+	 *
+	 * @return the parsed program
+	 *
+	 * @throws ParsingException if the file cannot be parsed
+	 */
+	public static Program parse(
+			String file)
+			throws ParsingException {
+		ParsingEvent event = new ParsingEvent();
+		event.file = file;
+		event.begin();
+		try {
+			return IMPFrontend.processFile(file);
+		} finally {
+			event.commit();
+		}
+	}
+
+	/**
+	 * Runs LiSA on the given program. The fixpoint working set of the
+	 * configuration is wrapped into an {@link InstrumentedWorkingSet}, each
+	 * semantic check into a {@link ProfiledCheck}, and an {@link OutputEvent} spans
+	 * from the end of the checks to the end of the run, that is, the time LiSA
+	 * spends dumping graphs, results and the report. If {@link Metrics} are
+	 * enabled, they are written in the working directory once the checks are
+	 * over, as done by {@link Metrics#install(LiSAConfiguration)}.
+	 *
+	 * @param conf    the configuration of the analysis
+	 * @param program the program to analyze
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public static void run(
+			LiSAConfiguration conf,
+			Program program) {
+		WorkingSet<Statement> ws = conf.fixpointWorkingSet;
+		conf.fixpointWorkingSet = new InstrumentedWorkingSet(ws);
+
+		// checked before wrapping the checks, that would hide the writer
+		boolean metrics = Metrics.isEnabled() && !Metrics.isInstalled(conf);
+		List<SemanticCheck<?>> checks = new ArrayList<>(conf.semanticChecks);
+		conf.semanticChecks.clear();
+		for (SemanticCheck<?> check : checks)
+			conf.semanticChecks.add(new ProfiledCheck(check));
+
+		if (metrics)
+			// removed with the other checks at the end of the run
+			Metrics.install(conf);
+
+		OutputPhase marker = new OutputPhase();
+		marker.event.workdir = conf.workdir;
+		conf.semanticChecks.add(marker);
+
+		try {
+			new LiSA(conf).run(program);
+		} finally {
+			AnalysisEvents.flush();
+			if (marker.event.isEnabled())
+				marker.event.commit();
+			conf.semanticChecks.clear();
+			conf.semanticChecks.addAll(checks);
+			conf.fixpointWorkingSet = ws;
+		}
+	}
+
+	private static class OutputPhase<A extends AbstractState<A>> implements SemanticCheck<A> {
+
+		private final OutputEvent event = new OutputEvent();
+
+		@Override
+		public void afterExecution(
+				CheckToolWithAnalysisResults<A> tool) {
+			// fixpoints are over, outputs are dumped right after the checks
+			AnalysisEvents.flush();
+			event.begin();
+		}
+
+		@Override
+		public boolean visit(
+				CheckToolWithAnalysisResults<A> tool,
+				CFG graph,
+				Statement node) {
+			return false;
+		}
+	}
+}
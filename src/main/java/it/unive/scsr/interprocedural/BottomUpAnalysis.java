@@ -0,0 +1,325 @@
+package it.unive.scsr.interprocedural;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import it.unive.lisa.analysis.AbstractState;
+import it.unive.lisa.analysis.AnalysisState;
+import it.unive.lisa.analysis.AnalyzedCFG;
+import it.unive.lisa.analysis.ScopeToken;
+import it.unive.lisa.analysis.SemanticException;
+import it.unive.lisa.analysis.StatementStore;
+import it.unive.lisa.analysis.lattices.ExpressionSet;
+import it.unive.lisa.conf.FixpointConfiguration;
+import it.unive.lisa.interprocedural.ScopeId;
+import it.unive.lisa.interprocedural.UniqueScope;
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.fixpoints.FixpointException;
+import it.unive.lisa.program.cfg.statement.Statement;
+import it.unive.lisa.program.cfg.statement.call.CFGCall;
+import it.unive.lisa.symbolic.SymbolicExpression;
+import it.unive.lisa.symbolic.value.Identifier;
+import it.unive.lisa.symbolic.value.Skip;
+import it.unive.lisa.util.collections.workset.WorkingSet;
+
+/**
+ * A summary-based interprocedural analysis that schedules the cfgs bottom-up
+ * over the condensation of the call graph (see {@link CallGraphSCCs}). Each
+ * cfg is analyzed once, starting from a state where its parameters can hold
+ * any value, and its exit state is used as a summary at every call site
+ * targeting it: the summary is joined with the state of the caller, whose
+ * variables are hidden through {@link ScopeToken}s while the summary is
+ * applied, and the value returned by the callee is bound to the meta variable
+ * of the call before the variables of the callee are removed. Since callees are always analyzed before their callers, shared
+ * callees are analyzed only once, and the components of each level of the
+ * condensation are analyzed in parallel on a {@link ForkJoinPool}.
+ * Recursive components are iterated until the summaries of their cfgs are
+ * stable, applying widening after {@code conf.wideningThreshold} rounds.
+ * <br>
+ * <br>
+ * Summaries do not depend on the values of the parameters at the call site:
+ * this trades some precision with respect to
+ * {@link it.unive.lisa.interprocedural.context.ContextBasedAnalysis} for a
+ * number of fixpoints that is linear in the number of cfgs. Use it with
+ * {@code conf.interproceduralAnalysis = new BottomUpAnalysis<>();}.
+ * <br>
+ * <br>
+ * If a {@link SummaryStore} is provided, the summaries are persisted at the
+ * end of the analysis of each component, and components whose key did not
+ * change since a previous run are not iterated: their summaries are loaded
+ * from the store instead. Unless disabled, a single fixpoint is still computed
+ * for each of their cfgs, starting from the loaded summaries, so that
+ * semantic checks find the per-statement results of all the cfgs; without
+ * it, no result is available for the cfgs of reused components.
+ *
+ * @param <A> the type of {@link AbstractState} computed by the analysis
+ */
+public class BottomUpAnalysis<A extends AbstractState<A>> extends ConcurrentModularAnalysis<A> {
+
+	private static final ScopeId ID = new UniqueScope();
+
+	private final int parallelism;
+
+	private final Map<CFG, AnalyzedCFG<A>> results = new ConcurrentHashMap<>();
+
+	private final Map<CFG, AnalysisState<A>> summaries = new ConcurrentHashMap<>();
+
+	private final Map<CFG, String> keys = new ConcurrentHashMap<>();
+
+	private final SummaryStore store;
+
+	private final SummaryCodec<A> codec;
+
+	private final boolean replay;
+
+	private CallGraphSCCs sccs;
+
+	/**
+	 * Builds the analysis, using one thread per available processor.
+	 */
+	public BottomUpAnalysis() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Builds the analysis.
+	 *
+	 * @param parallelism the number of threads to use
+	 */
+	public BottomUpAnalysis(
+			int parallelism) {
+		this(parallelism, null, null);
+	}
+
+	/**
+	 * Builds the analysis, persisting summaries in the given store.
+	 *
+	 * @param parallelism the number of threads to use
+	 * @param store       the store of the summaries, or {@code null} if
+	 *                        summaries should not be persisted
+	 * @param codec       the encoding of the summaries
+	 */
+	public BottomUpAnalysis(
+			int parallelism,
+			SummaryStore store,
+			SummaryCodec<A> codec) {
+		this(parallelism, store, codec, true);
+	}
+
+	/**
+	 * Builds the analysis, persisting summaries in the given store.
+	 *
+	 * @param parallelism the number of threads to use
+	 * @param store       the store of the summaries, or {@code null} if
+	 *                        summaries should not be persisted
+	 * @param codec       the encoding of the summaries
+	 * @param replay      whether the cfgs of components whose summaries are
+	 *                        loaded from the store should be analyzed once
+	 *                        to compute their per-statement results
+	 */
+	public BottomUpAnalysis(
+			int parallelism,
+			SummaryStore store,
+			SummaryCodec<A> codec,
+			boolean replay) {
+		if (parallelism < 1)
+			throw new IllegalArgumentException("At least one thread is needed");
+		if (store != null && codec == null)
+			throw new IllegalArgumentException("A codec is needed to persist summaries");
+		this.parallelism = parallelism;
+		this.store = store;
+		this.codec = codec;
+		this.replay = replay;
+	}
+
+	/**
+	 * Yields the condensation of the call graph used by the last fixpoint.
+	 *
+	 * @return the condensation
+	 */
+	public CallGraphSCCs getSCCs() {
+		return sccs;
+	}
+
+	@Override
+	public void fixpoint(
+			AnalysisState<A> entryState,
+			FixpointConfiguration conf)
+			throws FixpointException {
+		// new fixpoint iteration: restart
+		results.clear();
+		summaries.clear();
+		keys.clear();
+		sccs = new CallGraphSCCs(app.getAllCFGs());
+
+		if (store != null) {
+			String configuration = SummaryStore.configurationOf(entryState.getState(), codec, conf);
+			// callees come first, so their keys are always available
+			for (Set<CFG> component : sccs.getComponents()) {
+				Set<String> calleeKeys = new HashSet<>();
+				for (CFG cfg : component)
+					for (CFG callee : sccs.getCallees(cfg))
+						if (!component.contains(callee))
+							calleeKeys.add(keys.get(callee));
+				String key = SummaryStore.keyOf(component, calleeKeys, configuration);
+				for (CFG cfg : component)
+					keys.put(cfg, SummaryStore.keyOf(key, cfg));
+			}
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			for (List<Set<CFG>> level : sccs.getLevels()) {
+				List<Callable<Void>> tasks = new ArrayList<>(level.size());
+				for (Set<CFG> component : level)
+					tasks.add(() -> {
+						analyze(component, entryState, conf);
+						return null;
+					});
+				for (Future<Void> future : pool.invokeAll(tasks))
+					future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new FixpointException("Interrupted while computing the fixpoints", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof FixpointException)
+				throw (FixpointException) e.getCause();
+			throw new FixpointException("Error while computing the fixpoints", e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	private void analyze(
+			Set<CFG> component,
+			AnalysisState<A> entryState,
+			FixpointConfiguration conf)
+			throws FixpointException, SemanticException {
+		Map<CFG, String> componentKeys = new HashMap<>();
+		if (store != null) {
+			for (CFG cfg : component)
+				componentKeys.put(cfg, keys.get(cfg));
+			Map<CFG, String> stored = store.load(componentKeys);
+			if (stored != null) {
+				for (CFG cfg : component)
+					summaries.put(cfg, codec.decode(stored.get(cfg), prepare(cfg, entryState)));
+				if (replay)
+					// the stored summaries are already stable: calls inside
+					// the component use them, and one round is enough
+					for (CFG cfg : component)
+						results.put(cfg, cfg.fixpoint(prepare(cfg, entryState), this,
+								conf.fixpointWorkingSet.mk(), conf, ID));
+				return;
+			}
+		}
+
+		boolean recursive = sccs.isRecursive(component.iterator().next());
+		int round = 0;
+		boolean changed;
+		do {
+			changed = false;
+			for (CFG cfg : component) {
+				WorkingSet<Statement> ws = conf.fixpointWorkingSet.mk();
+				AnalyzedCFG<A> result = cfg.fixpoint(prepare(cfg, entryState), this, ws, conf, ID);
+				results.put(cfg, result);
+
+				AnalysisState<A> exit = result.getExitState();
+				AnalysisState<A> previous = summaries.get(cfg);
+				if (previous == null) {
+					summaries.put(cfg, exit);
+					// callers inside the component assumed bottom
+					changed |= recursive;
+				} else if (!exit.lessOrEqual(previous)) {
+					summaries.put(cfg,
+							round < conf.wideningThreshold ? previous.lub(exit) : previous.widening(exit));
+					changed = true;
+				}
+			}
+			round++;
+		} while (changed);
+
+		if (store != null)
+			for (CFG cfg : component) {
+				String encoded = codec.encode(summaries.get(cfg));
+				if (encoded != null)
+					store.store(componentKeys.get(cfg), encoded);
+			}
+	}
+
+	@Override
+	public AnalysisState<A> getAbstractResultOf(
+			CFGCall call,
+			AnalysisState<A> entryState,
+			ExpressionSet[] parameters,
+			StatementStore<A> expressions)
+			throws SemanticException {
+		ScopeToken scope = new ScopeToken(call);
+		AnalysisState<A> callerState = entryState.pushScope(scope);
+		AnalysisState<A> result = entryState.bottom();
+		for (CFG target : call.getTargetedCFGs()) {
+			if (!sccs.getCallees(call.getCFG()).contains(target))
+				// not scheduled: fall back to the worst case
+				return super.getAbstractResultOf(call, entryState, parameters, expressions);
+
+			AnalysisState<A> summary = summaries.get(target);
+			if (summary == null)
+				// same component, not analyzed yet: bottom until the next round
+				continue;
+
+			AnalysisState<A> applied = new AnalysisState<>(
+					callerState.getState().lub(summary.getState()),
+					summary.getComputedExpressions(),
+					summary.getFixpointInformation());
+			result = result.lub(unscope(call, scope, applied));
+		}
+		return result;
+	}
+
+	private AnalysisState<A> unscope(
+			CFGCall call,
+			ScopeToken scope,
+			AnalysisState<A> state)
+			throws SemanticException {
+		if (returnsVoid(call, state))
+			return state.popScope(scope);
+
+		// the returned values are variables of the callee, removed with the
+		// scope: they are first copied to the meta variable of the call,
+		// that becomes a variable of the caller once the scope is removed
+		AnalysisState<A> tmp = state.bottom();
+		Identifier meta = (Identifier) call.getMetaVariable().pushScope(scope);
+		for (SymbolicExpression ret : state.getComputedExpressions())
+			tmp = tmp.lub(state.assign(meta, ret, call));
+		return tmp.popScope(scope);
+	}
+
+	private static boolean returnsVoid(
+			CFGCall call,
+			AnalysisState<?> returned) {
+		if (call.getStaticType().isVoidType())
+			return true;
+		if (returned.getComputedExpressions().isEmpty())
+			return true;
+		return returned.getComputedExpressions().size() == 1
+				&& returned.getComputedExpressions().iterator().next() instanceof Skip;
+	}
+
+	@Override
+	public Collection<AnalyzedCFG<A>> getAnalysisResultsOf(
+			CFG cfg) {
+		AnalyzedCFG<A> result = results.get(cfg);
+		return result == null ? Collections.emptySet() : Collections.singleton(result);
+	}
+}
@@ -0,0 +1,190 @@
+package it.unive.scsr.interprocedural;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.edge.Edge;
+import it.unive.lisa.program.cfg.statement.Statement;
+import it.unive.lisa.program.cfg.statement.call.CFGCall;
+import it.unive.lisa.program.cfg.statement.call.UnresolvedCall;
+import it.unive.lisa.util.datastructures.graph.GraphVisitor;
+
+/**
+ * The condensation of the call graph of a set of {@link CFG}s into its
+ * strongly connected components, computed with Tarjan's algorithm. Since the
+ * call graph built by LiSA is only populated while the fixpoint resolves the
+ * calls, the edges are computed here syntactically: an unresolved call
+ * targets every cfg with the same name, which over-approximates the targets
+ * of any resolution strategy.
+ * <br>
+ * <br>
+ * Components are yielded in reverse topological order (callees before
+ * callers), and grouped in levels: the components of a level only call
+ * components of previous levels (or themselves), and can thus be analyzed
+ * independently from each other.
+ */
+public class CallGraphSCCs {
+
+	private final Map<CFG, Set<CFG>> callees = new LinkedHashMap<>();
+
+	private final List<Set<CFG>> components = new ArrayList<>();
+
+	private final Map<CFG, Integer> componentOf = new HashMap<>();
+
+	private final List<List<Set<CFG>>> levels = new ArrayList<>();
+
+	/**
+	 * Builds the condensation of the call graph of the given cfgs.
+	 *
+	 * @param cfgs the cfgs
+	 */
+	public CallGraphSCCs(
+			Collection<CFG> cfgs) {
+		Map<String, Set<CFG>> byName = new HashMap<>();
+		for (CFG cfg : cfgs)
+			byName.computeIfAbsent(cfg.getDescriptor().getName(), n -> new LinkedHashSet<>()).add(cfg);
+
+		for (CFG cfg : cfgs) {
+			Set<CFG> targets = new LinkedHashSet<>();
+			CallCollector collector = new CallCollector();
+			for (Statement st : cfg.getNodes())
+				st.accept(collector, targets);
+			for (String name : collector.names)
+				targets.addAll(byName.getOrDefault(name, Collections.emptySet()));
+			targets.retainAll(cfgs);
+			callees.put(cfg, targets);
+		}
+
+		new Tarjan().run();
+
+		int[] levelOf = new int[components.size()];
+		for (int i = 0; i < components.size(); i++) {
+			int level = 0;
+			for (CFG cfg : components.get(i))
+				for (CFG callee : callees.get(cfg)) {
+					int other = componentOf.get(callee);
+					if (other != i)
+						level = Math.max(level, levelOf[other] + 1);
+				}
+			levelOf[i] = level;
+			while (levels.size() <= level)
+				levels.add(new ArrayList<>());
+			levels.get(level).add(components.get(i));
+		}
+	}
+
+	/**
+	 * Yields the components, in reverse topological order.
+	 *
+	 * @return the components
+	 */
+	public List<Set<CFG>> getComponents() {
+		return Collections.unmodifiableList(components);
+	}
+
+	/**
+	 * Yields the components grouped in levels: the components of each level
+	 * only call the ones of the previous levels, or themselves.
+	 *
+	 * @return the levels
+	 */
+	public List<List<Set<CFG>>> getLevels() {
+		return Collections.unmodifiableList(levels);
+	}
+
+	/**
+	 * Yields the cfgs that might be called by the given one.
+	 *
+	 * @param cfg the caller
+	 *
+	 * @return the callees
+	 */
+	public Set<CFG> getCallees(
+			CFG cfg) {
+		return Collections.unmodifiableSet(callees.getOrDefault(cfg, Collections.emptySet()));
+	}
+
+	/**
+	 * Yields whether the component containing the given cfg is recursive, that
+	 * is, if it contains more than one cfg or if the cfg calls itself.
+	 *
+	 * @param cfg the cfg
+	 *
+	 * @return {@code true} if the cfg is part of a recursion
+	 */
+	public boolean isRecursive(
+			CFG cfg) {
+		return components.get(componentOf.get(cfg)).size() > 1 || callees.get(cfg).contains(cfg);
+	}
+
+	private class Tarjan {
+
+		private final Map<CFG, Integer> index = new HashMap<>();
+
+		private final Map<CFG, Integer> lowlink = new HashMap<>();
+
+		private final List<CFG> stack = new ArrayList<>();
+
+		private final Set<CFG> onStack = new HashSet<>();
+
+		private void run() {
+			for (CFG cfg : callees.keySet())
+				if (!index.containsKey(cfg))
+					visit(cfg);
+		}
+
+		private void visit(
+				CFG cfg) {
+			index.put(cfg, index.size());
+			lowlink.put(cfg, index.get(cfg));
+			stack.add(cfg);
+			onStack.add(cfg);
+
+			for (CFG callee : callees.get(cfg))
+				if (!index.containsKey(callee)) {
+					visit(callee);
+					lowlink.put(cfg, Math.min(lowlink.get(cfg), lowlink.get(callee)));
+				} else if (onStack.contains(callee))
+					lowlink.put(cfg, Math.min(lowlink.get(cfg), index.get(callee)));
+
+			if (lowlink.get(cfg).equals(index.get(cfg))) {
+				// components are closed callees first
+				Set<CFG> component = new LinkedHashSet<>();
+				CFG member;
+				do {
+					member = stack.remove(stack.size() - 1);
+					onStack.remove(member);
+					component.add(member);
+					componentOf.put(member, components.size());
+				} while (member != cfg);
+				components.add(component);
+			}
+		}
+	}
+
+	private static class CallCollector implements GraphVisitor<CFG, Statement, Edge, Set<CFG>> {
+
+		private final Set<String> names = new HashSet<>();
+
+		@Override
+		public boolean visit(
+				Set<CFG> tool,
+				CFG graph,
+				Statement node) {
+			if (node instanceof CFGCall)
+				tool.addAll(((CFGCall) node).getTargetedCFGs());
+			else if (node instanceof UnresolvedCall)
+				names.add(((UnresolvedCall) node).getTargetName());
+			return true;
+		}
+	}
+}
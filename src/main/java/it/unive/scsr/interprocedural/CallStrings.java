@@ -0,0 +1,160 @@
+package it.unive.scsr.interprocedural;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+import it.unive.lisa.analysis.AbstractState;
+import it.unive.lisa.checks.semantic.CheckToolWithAnalysisResults;
+import it.unive.lisa.checks.semantic.SemanticCheck;
+import it.unive.lisa.conf.LiSAConfiguration;
+import it.unive.lisa.interprocedural.context.ContextBasedAnalysis;
+import it.unive.lisa.interprocedural.context.ContextInsensitiveToken;
+import it.unive.lisa.interprocedural.context.ContextSensitivityToken;
+import it.unive.lisa.interprocedural.context.FullStackToken;
+import it.unive.lisa.interprocedural.context.KDepthToken;
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.statement.Statement;
+
+/**
+ * Call-string context sensitivity for {@link ContextBasedAnalysis}, bounded
+ * to the last {@code k} call sites. With {@code k = 0} the analysis is
+ * context-insensitive, while a negative {@code k} keeps the full call stack
+ * (as {@link FullStackToken} does). The bound can be chosen from the
+ * {@value #PROPERTY} system property, e.g.
+ * {@code -Dscsr.callstrings.k=2}, through {@link #configured()}.
+ */
+public final class CallStrings {
+
+	/**
+	 * The system property holding the bound on the length of call strings.
+	 */
+	public static final String PROPERTY = "scsr.callstrings.k";
+
+	private CallStrings() {
+		// static helpers
+	}
+
+	/**
+	 * Yields the token keeping the last {@code k} call sites.
+	 *
+	 * @param k the length of the call strings, {@code 0} for a
+	 *              context-insensitive analysis, or a negative number for the
+	 *              full call stack
+	 *
+	 * @return the token
+	 */
+	public static ContextSensitivityToken token(
+			int k) {
+		if (k < 0)
+			return FullStackToken.getSingleton();
+		if (k == 0)
+			return ContextInsensitiveToken.getSingleton();
+		return KDepthToken.getSingleton(k);
+	}
+
+	/**
+	 * Yields the length of the call strings set through {@value #PROPERTY},
+	 * defaulting to the full call stack.
+	 *
+	 * @return the length of the call strings
+	 */
+	public static int configuredK() {
+		String k = System.getProperty(PROPERTY);
+		if (k == null || k.isBlank())
+			return -1;
+		try {
+			return Integer.parseInt(k.trim());
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid value for " + PROPERTY + ": " + k, e);
+		}
+	}
+
+	/**
+	 * Yields the token for the call strings set through {@value #PROPERTY}.
+	 *
+	 * @return the token
+	 */
+	public static ContextSensitivityToken configured() {
+		return token(configuredK());
+	}
+
+	/**
+	 * Configures a {@link ContextBasedAnalysis} with call strings of length
+	 * {@code k}, registering a check that counts the contexts created.
+	 *
+	 * @param conf the configuration to modify
+	 * @param k    the length of the call strings, {@code 0} for a
+	 *                 context-insensitive analysis, or a negative number for
+	 *                 the full call stack
+	 *
+	 * @return the check that counts the contexts, populated after the analysis
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public static ContextCounter<?> apply(
+			LiSAConfiguration conf,
+			int k) {
+		conf.interproceduralAnalysis = new ContextBasedAnalysis(token(k));
+		ContextCounter<?> counter = new ContextCounter<>();
+		conf.semanticChecks.add(counter);
+		return counter;
+	}
+
+	/**
+	 * A semantic check that counts the contexts in which each cfg has been
+	 * analyzed, without raising any warning.
+	 *
+	 * @param <A> the type of {@link AbstractState} computed by the analysis
+	 */
+	public static class ContextCounter<A extends AbstractState<A>> implements SemanticCheck<A> {
+
+		private final Map<String, Integer> contexts = new TreeMap<>();
+
+		@Override
+		public void beforeExecution(
+				CheckToolWithAnalysisResults<A> tool) {
+			contexts.clear();
+		}
+
+		@Override
+		public boolean visit(
+				CheckToolWithAnalysisResults<A> tool,
+				CFG graph) {
+			contexts.put(graph.getDescriptor().getFullSignature(), tool.getResultOf(graph).size());
+			// statements are not needed
+			return false;
+		}
+
+		@Override
+		public boolean visit(
+				CheckToolWithAnalysisResults<A> tool,
+				CFG graph,
+				Statement node) {
+			return true;
+		}
+
+		/**
+		 * Yields the number of contexts created for each cfg.
+		 *
+		 * @return the contexts, mapped to the signature of the cfg they refer
+		 *             to
+		 */
+		public Map<String, Integer> getContexts() {
+			return Collections.unmodifiableMap(contexts);
+		}
+
+		/**
+		 * Yields the total number of contexts created.
+		 *
+		 * @return the number of contexts
+		 */
+		public int getTotal() {
+			return contexts.values().stream().mapToInt(Integer::intValue).sum();
+		}
+
+		@Override
+		public String toString() {
+			return getTotal() + " contexts over " + contexts.size() + " cfgs";
+		}
+	}
+}
@@ -0,0 +1,71 @@
+package it.unive.scsr.interprocedural;
+
+import java.util.Set;
+
+import it.unive.lisa.analysis.AbstractState;
+import it.unive.lisa.analysis.AnalysisState;
+import it.unive.lisa.analysis.SemanticException;
+import it.unive.lisa.analysis.symbols.SymbolAliasing;
+import it.unive.lisa.interprocedural.ModularWorstCaseAnalysis;
+import it.unive.lisa.interprocedural.callgraph.CallResolutionException;
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.Parameter;
+import it.unive.lisa.program.cfg.fixpoints.FixpointException;
+import it.unive.lisa.program.cfg.statement.call.Call;
+import it.unive.lisa.program.cfg.statement.call.UnresolvedCall;
+import it.unive.lisa.symbolic.value.PushAny;
+import it.unive.lisa.symbolic.value.Variable;
+import it.unive.lisa.type.Type;
+
+/**
+ * A {@link ModularWorstCaseAnalysis} whose fixpoints are computed by several
+ * threads at once. The call graph is shared by all the fixpoints, and it
+ * records the resolved calls in plain collections: resolution is serialized
+ * on it, while everything else (the working sets, obtained through
+ * {@code conf.fixpointWorkingSet.mk()}, and the abstract states, that are
+ * immutable for all the domains of this project) is private to each fixpoint.
+ *
+ * @param <A> the type of {@link AbstractState} computed by the analysis
+ */
+public abstract class ConcurrentModularAnalysis<A extends AbstractState<A>> extends ModularWorstCaseAnalysis<A> {
+
+	@Override
+	public Call resolve(
+			UnresolvedCall call,
+			Set<Type>[] types,
+			SymbolAliasing aliasing)
+			throws CallResolutionException {
+		synchronized (callgraph) {
+			return super.resolve(call, types, aliasing);
+		}
+	}
+
+	/**
+	 * Yields the state the fixpoint of the given cfg starts from: the given
+	 * one, where each parameter of the cfg can hold any value.
+	 *
+	 * @param cfg        the cfg
+	 * @param entryState the entry state of the whole program
+	 *
+	 * @return the entry state of the cfg
+	 *
+	 * @throws FixpointException if the parameters cannot be assigned
+	 */
+	protected AnalysisState<A> prepare(
+			CFG cfg,
+			AnalysisState<A> entryState)
+			throws FixpointException {
+		AnalysisState<A> prepared = entryState;
+		try {
+			for (Parameter arg : cfg.getDescriptor().getFormals()) {
+				Variable id = new Variable(arg.getStaticType(), arg.getName(), arg.getAnnotations(),
+						arg.getLocation());
+				prepared = prepared.assign(id, new PushAny(arg.getStaticType(), arg.getLocation()),
+						cfg.getGenericProgramPoint());
+			}
+		} catch (SemanticException e) {
+			throw new FixpointException("Error while preparing the entry state for " + cfg, e);
+		}
+		return prepared;
+	}
+}
@@ -0,0 +1,143 @@
+package it.unive.scsr.interprocedural;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import it.unive.lisa.analysis.AbstractState;
+import it.unive.lisa.analysis.AnalysisState;
+import it.unive.lisa.analysis.AnalyzedCFG;
+import it.unive.lisa.conf.FixpointConfiguration;
+import it.unive.lisa.interprocedural.ModularWorstCaseAnalysis;
+import it.unive.lisa.interprocedural.ScopeId;
+import it.unive.lisa.interprocedural.UniqueScope;
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.fixpoints.FixpointException;
+import it.unive.scsr.storage.SpillStore;
+
+/**
+ * A {@link ModularWorstCaseAnalysis} that computes the fixpoints of the CFGs
+ * of the program in parallel, one task per CFG, on a work-stealing
+ * {@link ForkJoinPool}. Since calls are resolved with worst-case assumptions,
+ * the fixpoint of each CFG is independent from the others. Results are
+ * collected in the order in which CFGs are listed by the application, so that
+ * outputs do not depend on the scheduling of the tasks.
+ * <br>
+ * <br>
+ * Use it with
+ * {@code conf.interproceduralAnalysis = new ParallelModularAnalysis<>();}.
+ * The tasks share the call graph, where calls are resolved one at a time
+ * (see {@link ConcurrentModularAnalysis}).
+ * <br>
+ * <br>
+ * If a {@link SpillStore} is provided, the result of each cfg is moved to it
+ * as soon as its fixpoint is computed, so that the heap never holds more
+ * per-statement states than the ones of the cfgs being analyzed.
+ *
+ * @param <A> the type of {@link AbstractState} computed by the analysis
+ */
+public class ParallelModularAnalysis<A extends AbstractState<A>> extends ConcurrentModularAnalysis<A> {
+
+	private static final ScopeId ID = new UniqueScope();
+
+	private final int parallelism;
+
+	private final Map<CFG, AnalyzedCFG<A>> results = new ConcurrentHashMap<>();
+
+	private final SpillStore<A> spill;
+
+	/**
+	 * Builds the analysis, using one thread per available processor.
+	 */
+	public ParallelModularAnalysis() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Builds the analysis.
+	 *
+	 * @param parallelism the number of threads to use
+	 */
+	public ParallelModularAnalysis(
+			int parallelism) {
+		this(parallelism, null);
+	}
+
+	/**
+	 * Builds the analysis, moving results out of the heap.
+	 *
+	 * @param parallelism the number of threads to use
+	 * @param spill       the store where results are moved, or {@code null}
+	 *                        to keep them on the heap
+	 */
+	public ParallelModularAnalysis(
+			int parallelism,
+			SpillStore<A> spill) {
+		if (parallelism < 1)
+			throw new IllegalArgumentException("At least one thread is needed");
+		this.parallelism = parallelism;
+		this.spill = spill;
+	}
+
+	@Override
+	public void fixpoint(
+			AnalysisState<A> entryState,
+			FixpointConfiguration conf)
+			throws FixpointException {
+		// new fixpoint iteration: restart
+		results.clear();
+
+		List<CFG> cfgs = new ArrayList<>(app.getAllCFGs());
+		List<Callable<AnalyzedCFG<A>>> tasks = new ArrayList<>(cfgs.size());
+		for (CFG cfg : cfgs)
+			tasks.add(() -> analyze(cfg, entryState, conf));
+
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			List<Future<AnalyzedCFG<A>>> futures = pool.invokeAll(tasks);
+			for (int i = 0; i < cfgs.size(); i++)
+				results.put(cfgs.get(i), futures.get(i).get());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new FixpointException("Interrupted while computing the fixpoints", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof FixpointException)
+				throw (FixpointException) e.getCause();
+			throw new FixpointException("Error while computing the fixpoints", e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	private AnalyzedCFG<A> analyze(
+			CFG cfg,
+			AnalysisState<A> entryState,
+			FixpointConfiguration conf)
+			throws FixpointException {
+		AnalyzedCFG<A> result = cfg.fixpoint(prepare(cfg, entryState), this, conf.fixpointWorkingSet.mk(), conf, ID);
+		return spill == null ? result : spill.spill(result);
+	}
+
+	@Override
+	public Collection<AnalyzedCFG<A>> getAnalysisResultsOf(
+			CFG cfg) {
+		AnalyzedCFG<A> result = results.get(cfg);
+		return result == null ? Collections.emptySet() : Collections.singleton(result);
+	}
+
+	/**
+	 * Yields the results computed by the last fixpoint.
+	 *
+	 * @return the results, mapped to the cfg they refer to
+	 */
+	public Map<CFG, AnalyzedCFG<A>> getResults() {
+		return Collections.unmodifiableMap(results);
+	}
+}
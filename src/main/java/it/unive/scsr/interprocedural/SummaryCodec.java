@@ -0,0 +1,40 @@
+package it.unive.scsr.interprocedural;
+
+import it.unive.lisa.analysis.AbstractState;
+import it.unive.lisa.analysis.AnalysisState;
+import it.unive.lisa.analysis.SemanticException;
+
+/**
+ * A textual encoding of the summaries (that is, of the exit states) of the
+ * cfgs, used to persist them in a {@link SummaryStore}.
+ *
+ * @param <A> the type of {@link AbstractState} encoded
+ */
+public interface SummaryCodec<A extends AbstractState<A>> {
+
+	/**
+	 * Encodes the given summary.
+	 *
+	 * @param summary the summary
+	 *
+	 * @return the encoded summary, or {@code null} if it cannot be encoded
+	 */
+	String encode(
+			AnalysisState<A> summary);
+
+	/**
+	 * Decodes a summary.
+	 *
+	 * @param encoded  the encoded summary
+	 * @param template a state of the analysis, providing the parts that are
+	 *                     not encoded (e.g., the heap and type information)
+	 *
+	 * @return the summary
+	 *
+	 * @throws SemanticException if the summary cannot be rebuilt
+	 */
+	AnalysisState<A> decode(
+			String encoded,
+			AnalysisState<A> template)
+			throws SemanticException;
+}
@@ -0,0 +1,231 @@
+package it.unive.scsr.interprocedural;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import it.unive.lisa.analysis.AbstractState;
+import it.unive.lisa.analysis.SimpleAbstractState;
+import it.unive.lisa.analysis.lattices.FunctionalLattice;
+import it.unive.lisa.conf.FixpointConfiguration;
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.edge.Edge;
+import it.unive.lisa.program.cfg.statement.Statement;
+
+/**
+ * A file store for the summaries of the cfgs, used to skip the analysis of
+ * unchanged cfgs across runs. Each summary is stored in its own file, named
+ * after a key computed by {@link #keyOf(Set, Collection, String)}: the key
+ * hashes the code of the cfgs of a call graph component together with the
+ * keys of the components they call, so that a change in a cfg invalidates the
+ * summaries of all its (transitive) callers and nothing else, and with the
+ * description of the analysis computed by
+ * {@link #configurationOf(AbstractState, SummaryCodec, FixpointConfiguration)},
+ * so that runs with different domains or fixpoint settings never share
+ * summaries. Files are written atomically, so that a store is never left with
+ * a partial summary.
+ */
+public class SummaryStore {
+
+	private static final String EXTENSION = ".summary";
+
+	private final Path dir;
+
+	private final AtomicInteger hits = new AtomicInteger();
+
+	private final AtomicInteger misses = new AtomicInteger();
+
+	/**
+	 * Builds the store.
+	 *
+	 * @param dir the directory where summaries are stored
+	 */
+	public SummaryStore(
+			String dir) {
+		this.dir = Paths.get(dir);
+	}
+
+	/**
+	 * Describes the analysis producing the summaries: the domains making up
+	 * its abstract state (with the lattices of their functional components,
+	 * such as the values of a
+	 * {@link it.unive.lisa.analysis.nonrelational.value.ValueEnvironment}),
+	 * the codec of the summaries and the settings of the fixpoint that affect
+	 * its results.
+	 *
+	 * @param state the abstract state of the analysis
+	 * @param codec the codec of the summaries
+	 * @param conf  the configuration of the fixpoint
+	 *
+	 * @return the description
+	 */
+	public static String configurationOf(
+			AbstractState<?> state,
+			SummaryCodec<?> codec,
+			FixpointConfiguration conf) {
+		StringBuilder sb = new StringBuilder();
+		describe(state, sb);
+		sb.append('\n').append(codec.getClass().getName())
+				.append('\n').append("widening ").append(conf.wideningThreshold)
+				.append(' ').append(conf.useWideningPoints)
+				.append('\n').append("descending ").append(conf.descendingPhaseType)
+				.append(' ').append(conf.glbThreshold);
+		return sb.toString();
+	}
+
+	// the class of the given domain, followed by its components
+	private static void describe(
+			Object domain,
+			StringBuilder sb) {
+		sb.append(domain.getClass().getName());
+		if (domain instanceof SimpleAbstractState) {
+			SimpleAbstractState<?, ?, ?> state = (SimpleAbstractState<?, ?, ?>) domain;
+			sb.append('(');
+			describe(state.getHeapState(), sb);
+			sb.append(", ");
+			describe(state.getValueState(), sb);
+			sb.append(", ");
+			describe(state.getTypeState(), sb);
+			sb.append(')');
+		} else if (domain instanceof FunctionalLattice)
+			sb.append('<').append(((FunctionalLattice<?, ?, ?>) domain).lattice.getClass().getName()).append('>');
+	}
+
+	/**
+	 * Computes the key of the summaries of a call graph component.
+	 *
+	 * @param component     the cfgs of the component
+	 * @param calleeKeys    the keys of the components called by this one
+	 * @param configuration the description of the analysis, as computed by
+	 *                          {@link #configurationOf(AbstractState, SummaryCodec, FixpointConfiguration)}
+	 *
+	 * @return the key
+	 */
+	public static String keyOf(
+			Set<CFG> component,
+			Collection<String> calleeKeys,
+			String configuration) {
+		StringBuilder sb = new StringBuilder(configuration).append('\n');
+		List<CFG> sorted = component.stream()
+				.sorted(Comparator.comparing(cfg -> cfg.getDescriptor().getFullSignature()))
+				.collect(Collectors.toList());
+		for (CFG cfg : sorted) {
+			sb.append(cfg.getDescriptor().getFullSignature()).append('\n');
+			for (Statement st : cfg.getNodes())
+				sb.append(st.getLocation()).append(' ').append(st).append('\n');
+			for (Edge edge : cfg.getEdges())
+				sb.append(edge.getSource().getLocation()).append(' ').append(edge).append(' ')
+						.append(edge.getDestination().getLocation()).append('\n');
+		}
+		for (String key : new TreeSet<>(calleeKeys))
+			sb.append(key).append('\n');
+		return hash(sb.toString());
+	}
+
+	/**
+	 * Yields the key of the summary of a single cfg of a component.
+	 *
+	 * @param componentKey the key of the component
+	 * @param cfg          the cfg
+	 *
+	 * @return the key
+	 */
+	public static String keyOf(
+			String componentKey,
+			CFG cfg) {
+		return hash(componentKey + '\n' + cfg.getDescriptor().getFullSignature());
+	}
+
+	/**
+	 * Loads all the summaries of the given keys.
+	 *
+	 * @param keys the keys, mapped to the cfg they refer to
+	 *
+	 * @return the encoded summaries, mapped to the cfg they refer to, or
+	 *             {@code null} if at least one of them is missing
+	 */
+	public Map<CFG, String> load(
+			Map<CFG, String> keys) {
+		try {
+			for (String key : keys.values())
+				if (!Files.exists(dir.resolve(key + EXTENSION))) {
+					misses.incrementAndGet();
+					return null;
+				}
+			Map<CFG, String> result = new HashMap<>();
+			for (Entry<CFG, String> entry : keys.entrySet())
+				result.put(entry.getKey(), Files.readString(dir.resolve(entry.getValue() + EXTENSION)));
+			hits.incrementAndGet();
+			return result;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Stores a summary.
+	 *
+	 * @param key     the key of the summary
+	 * @param summary the encoded summary
+	 */
+	public void store(
+			String key,
+			String summary) {
+		try {
+			Files.createDirectories(dir);
+			Path tmp = Files.createTempFile(dir, key, ".tmp");
+			Files.writeString(tmp, summary, StandardCharsets.UTF_8);
+			Files.move(tmp, dir.resolve(key + EXTENSION), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Yields the number of components whose summaries have been reused.
+	 *
+	 * @return the number of hits
+	 */
+	public int getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * Yields the number of components that had to be analyzed.
+	 *
+	 * @return the number of misses
+	 */
+	public int getMisses() {
+		return misses.get();
+	}
+
+	private static String hash(
+			String content) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+			StringBuilder sb = new StringBuilder();
+			for (byte b : digest)
+				sb.append(String.format("%02x", b));
+			return sb.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+}
@@ -0,0 +1,200 @@
+package it.unive.scsr.interprocedural;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.Function;
+
+import it.unive.lisa.analysis.AnalysisState;
+import it.unive.lisa.analysis.Lattice;
+import it.unive.lisa.analysis.SemanticException;
+import it.unive.lisa.analysis.SimpleAbstractState;
+import it.unive.lisa.analysis.heap.HeapDomain;
+import it.unive.lisa.analysis.lattices.ExpressionSet;
+import it.unive.lisa.analysis.nonrelational.value.NonRelationalValueDomain;
+import it.unive.lisa.analysis.nonrelational.value.ValueEnvironment;
+import it.unive.lisa.analysis.type.TypeDomain;
+import it.unive.lisa.program.SyntheticLocation;
+import it.unive.lisa.symbolic.SymbolicExpression;
+import it.unive.lisa.symbolic.value.Constant;
+import it.unive.lisa.symbolic.value.Identifier;
+import it.unive.lisa.symbolic.value.Skip;
+import it.unive.lisa.symbolic.value.Variable;
+import it.unive.lisa.type.Untyped;
+import it.unive.lisa.util.numeric.MathNumber;
+import it.unive.scsr.Intervals;
+import it.unive.scsr.Taint;
+
+/**
+ * A {@link SummaryCodec} for states whose value component is a
+ * {@link ValueEnvironment}. Only the value component is encoded, one variable
+ * per line, using the representation of its abstract value; the heap and
+ * type components are taken from the template state when decoding, as they
+ * are not affected by the summarized cfg for the programs analyzed in this
+ * project. Identifiers are rebuilt as {@link Variable}s: summaries whose
+ * computed expressions are not variables (or the {@link Skip} of cfgs that do
+ * not return a value), or whose value component holds other identifiers
+ * (e.g., the heap locations of a heap domain), are not encoded, so that their
+ * cfgs are analyzed again instead of being reused with different
+ * identifiers.
+ *
+ * @param <H> the type of heap domain
+ * @param <V> the type of non-relational value domain
+ * @param <T> the type of type domain
+ */
+public class ValueEnvironmentCodec<H extends HeapDomain<H>,
+		V extends NonRelationalValueDomain<V>,
+		T extends TypeDomain<T>>
+		implements
+		SummaryCodec<SimpleAbstractState<H, ValueEnvironment<V>, T>> {
+
+	private static final String TOP = "#TOP";
+
+	private static final String BOTTOM = "#BOTTOM";
+
+	private static final String COMPUTED = "#COMPUTED";
+
+	private static final String SKIP = "#SKIP";
+
+	private final Function<String, V> parser;
+
+	/**
+	 * Builds the codec.
+	 *
+	 * @param parser the function parsing the representation of an abstract
+	 *                   value, throwing an
+	 *                   {@link IllegalArgumentException} on unknown
+	 *                   representations
+	 */
+	public ValueEnvironmentCodec(
+			Function<String, V> parser) {
+		this.parser = parser;
+	}
+
+	/**
+	 * Yields a codec for {@link Intervals} environments.
+	 *
+	 * @param <H> the type of heap domain
+	 * @param <T> the type of type domain
+	 *
+	 * @return the codec
+	 */
+	public static <H extends HeapDomain<H>,
+			T extends TypeDomain<T>> ValueEnvironmentCodec<H, Intervals, T> intervals() {
+		return new ValueEnvironmentCodec<>(ValueEnvironmentCodec::parseInterval);
+	}
+
+	/**
+	 * Yields a codec for {@link Taint} environments.
+	 *
+	 * @param <H> the type of heap domain
+	 * @param <T> the type of type domain
+	 *
+	 * @return the codec
+	 */
+	public static <H extends HeapDomain<H>,
+			T extends TypeDomain<T>> ValueEnvironmentCodec<H, Taint, T> taint() {
+		Taint top = new Taint();
+		// constants are always clean
+		Taint clean = top.evalNonNullConstant(new Constant(Untyped.INSTANCE, 0, SyntheticLocation.INSTANCE),
+				null, null);
+		return new ValueEnvironmentCodec<>(repr -> {
+			if (repr.equals("_"))
+				return clean;
+			if (repr.equals("#"))
+				return top;
+			if (repr.equals(Lattice.bottomRepresentation().toString()))
+				return top.bottom();
+			throw new IllegalArgumentException("Not a taint value: " + repr);
+		});
+	}
+
+	private static Intervals parseInterval(
+			String repr) {
+		if (repr.equals(Lattice.bottomRepresentation().toString()))
+			return new Intervals().bottom();
+		String[] bounds = repr.substring(1, repr.length() - 1).split(",");
+		return new Intervals(parseBound(bounds[0].trim()), parseBound(bounds[1].trim()));
+	}
+
+	private static MathNumber parseBound(
+			String bound) {
+		if (bound.endsWith("Inf"))
+			return bound.startsWith("-") ? MathNumber.MINUS_INFINITY : MathNumber.PLUS_INFINITY;
+		return new MathNumber(new BigDecimal(bound));
+	}
+
+	@Override
+	public String encode(
+			AnalysisState<SimpleAbstractState<H, ValueEnvironment<V>, T>> summary) {
+		StringBuilder sb = new StringBuilder(COMPUTED);
+		for (SymbolicExpression expr : summary.getComputedExpressions()) {
+			if (expr instanceof Skip)
+				// the exit state of a cfg that does not return a value
+				sb.append('\t').append(SKIP);
+			else if (expr instanceof Variable)
+				sb.append('\t').append(((Variable) expr).getName());
+			else
+				return null;
+		}
+		sb.append('\n');
+
+		ValueEnvironment<V> env = summary.getState().getValueState();
+		if (env.isTop())
+			return sb.append(TOP).append('\n').toString();
+		if (env.isBottom())
+			return sb.append(BOTTOM).append('\n').toString();
+		for (Entry<Identifier, V> entry : env) {
+			if (!(entry.getKey() instanceof Variable))
+				return null;
+			sb.append(entry.getKey().getName()).append('\t').append(entry.getValue().representation()).append('\n');
+		}
+		return sb.toString();
+	}
+
+	@Override
+	public AnalysisState<SimpleAbstractState<H, ValueEnvironment<V>, T>> decode(
+			String encoded,
+			AnalysisState<SimpleAbstractState<H, ValueEnvironment<V>, T>> template)
+			throws SemanticException {
+		SimpleAbstractState<H, ValueEnvironment<V>, T> state = template.getState();
+		ValueEnvironment<V> env = state.getValueState();
+		List<SymbolicExpression> computed = new ArrayList<>();
+		Map<Identifier, V> function = new HashMap<>();
+
+		for (String line : encoded.split("\n")) {
+			String[] fields = line.split("\t");
+			if (fields[0].equals(COMPUTED)) {
+				for (int i = 1; i < fields.length; i++)
+					computed.add(fields[i].equals(SKIP) ? new Skip(SyntheticLocation.INSTANCE) : variable(fields[i]));
+			} else if (fields[0].equals(TOP))
+				env = env.top();
+			else if (fields[0].equals(BOTTOM))
+				env = env.bottom();
+			else if (fields.length == 2)
+				try {
+					function.put(variable(fields[0]), parser.apply(fields[1]));
+				} catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+					throw new SemanticException("Malformed summary value: " + fields[1], e);
+				}
+			else if (!line.isBlank())
+				throw new SemanticException("Malformed summary line: " + line);
+		}
+
+		if (!function.isEmpty())
+			env = new ValueEnvironment<>(env.lattice, function);
+
+		return new AnalysisState<>(
+				new SimpleAbstractState<>(state.getHeapState(), env, state.getTypeState()),
+				new ExpressionSet(computed.toArray(SymbolicExpression[]::new)),
+				template.getFixpointInformation());
+	}
+
+	private static Variable variable(
+			String name) {
+		return new Variable(Untyped.INSTANCE, name, SyntheticLocation.INSTANCE);
+	}
+}
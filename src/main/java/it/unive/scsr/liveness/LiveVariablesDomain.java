@@ -0,0 +1,245 @@
+package it.unive.scsr.liveness;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import it.unive.lisa.analysis.ScopeToken;
+import it.unive.lisa.analysis.SemanticException;
+import it.unive.lisa.analysis.SemanticOracle;
+import it.unive.lisa.analysis.lattices.Satisfiability;
+import it.unive.lisa.analysis.value.ValueDomain;
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.ProgramPoint;
+import it.unive.lisa.program.cfg.statement.Assignment;
+import it.unive.lisa.symbolic.value.Identifier;
+import it.unive.lisa.symbolic.value.ValueExpression;
+import it.unive.lisa.symbolic.value.Variable;
+import it.unive.lisa.util.representation.StructuredRepresentation;
+
+/**
+ * A {@link ValueDomain} that wraps another one, removing from it the
+ * variables that are dead according to a {@link Liveness} pre-pass. After
+ * each assignment statement, all the local variables of the cfg that will not
+ * be read before being assigned again are forgotten through
+ * {@link ValueDomain#forgetIdentifiersIf(Predicate)}, except for the assigned
+ * one. Variables are only removed at the end of a statement, so that the
+ * values of the ones read by the statement are still available while
+ * evaluating it, and identifiers that are not local variables (e.g., the ones
+ * of the callers, or the return values of calls) are never removed.
+ * <br>
+ * <br>
+ * Smaller states make every lub and partial order test cheaper; this matters
+ * most for {@link it.unive.scsr.Pentagons}, whose closure is quadratic in the
+ * number of tracked identifiers. The wrapper can be placed around any value
+ * domain of this project, e.g.
+ * {@code new LiveVariablesDomain<>(new ValueEnvironment<>(new Intervals()))}
+ * or {@code new LiveVariablesDomain<>(new Pentagons())}.
+ *
+ * @param <D> the type of the wrapped domain
+ */
+public class LiveVariablesDomain<D extends ValueDomain<D>> implements ValueDomain<LiveVariablesDomain<D>> {
+
+	/**
+	 * Liveness information is computed once per cfg and shared by all the
+	 * instances derived from the same one.
+	 */
+	private final Map<CFG, Liveness> liveness;
+
+	private final D wrapped;
+
+	/**
+	 * Builds the domain.
+	 *
+	 * @param wrapped the domain to wrap
+	 */
+	public LiveVariablesDomain(
+			D wrapped) {
+		this(wrapped, new ConcurrentHashMap<>());
+	}
+
+	private LiveVariablesDomain(
+			D wrapped,
+			Map<CFG, Liveness> liveness) {
+		this.wrapped = wrapped;
+		this.liveness = liveness;
+	}
+
+	/**
+	 * Yields the wrapped domain instance.
+	 *
+	 * @return the wrapped domain
+	 */
+	public D getWrapped() {
+		return wrapped;
+	}
+
+	private LiveVariablesDomain<D> wrap(
+			D result) {
+		return result == wrapped ? this : new LiveVariablesDomain<>(result, liveness);
+	}
+
+	@Override
+	public LiveVariablesDomain<D> assign(
+			Identifier id,
+			ValueExpression expression,
+			ProgramPoint pp,
+			SemanticOracle oracle)
+			throws SemanticException {
+		D result = wrapped.assign(id, expression, pp, oracle);
+		// only whole assignment statements end the lifetime of variables
+		if (!(pp instanceof Assignment) || pp.getCFG() == null || result.isBottom() || result.isTop())
+			return wrap(result);
+
+		Assignment st = (Assignment) pp;
+		Liveness info = liveness.computeIfAbsent(pp.getCFG(), Liveness::new);
+		return wrap(result.forgetIdentifiersIf(
+				i -> i instanceof Variable && !i.equals(id) && info.isDeadAfter(st, i.getName())));
+	}
+
+	@Override
+	public LiveVariablesDomain<D> smallStepSemantics(
+			ValueExpression expression,
+			ProgramPoint pp,
+			SemanticOracle oracle)
+			throws SemanticException {
+		return wrap(wrapped.smallStepSemantics(expression, pp, oracle));
+	}
+
+	@Override
+	public LiveVariablesDomain<D> assume(
+			ValueExpression expression,
+			ProgramPoint src,
+			ProgramPoint dest,
+			SemanticOracle oracle)
+			throws SemanticException {
+		return wrap(wrapped.assume(expression, src, dest, oracle));
+	}
+
+	@Override
+	public LiveVariablesDomain<D> lub(
+			LiveVariablesDomain<D> other)
+			throws SemanticException {
+		return wrap(wrapped.lub(other.wrapped));
+	}
+
+	@Override
+	public LiveVariablesDomain<D> glb(
+			LiveVariablesDomain<D> other)
+			throws SemanticException {
+		return wrap(wrapped.glb(other.wrapped));
+	}
+
+	@Override
+	public LiveVariablesDomain<D> widening(
+			LiveVariablesDomain<D> other)
+			throws SemanticException {
+		return wrap(wrapped.widening(other.wrapped));
+	}
+
+	@Override
+	public LiveVariablesDomain<D> narrowing(
+			LiveVariablesDomain<D> other)
+			throws SemanticException {
+		return wrap(wrapped.narrowing(other.wrapped));
+	}
+
+	@Override
+	public boolean lessOrEqual(
+			LiveVariablesDomain<D> other)
+			throws SemanticException {
+		return wrapped.lessOrEqual(other.wrapped);
+	}
+
+	@Override
+	public LiveVariablesDomain<D> forgetIdentifier(
+			Identifier id)
+			throws SemanticException {
+		return wrap(wrapped.forgetIdentifier(id));
+	}
+
+	@Override
+	public LiveVariablesDomain<D> forgetIdentifiersIf(
+			Predicate<Identifier> test)
+			throws SemanticException {
+		return wrap(wrapped.forgetIdentifiersIf(test));
+	}
+
+	@Override
+	public Satisfiability satisfies(
+			ValueExpression expression,
+			ProgramPoint pp,
+			SemanticOracle oracle)
+			throws SemanticException {
+		return wrapped.satisfies(expression, pp, oracle);
+	}
+
+	@Override
+	public LiveVariablesDomain<D> pushScope(
+			ScopeToken token)
+			throws SemanticException {
+		return wrap(wrapped.pushScope(token));
+	}
+
+	@Override
+	public LiveVariablesDomain<D> popScope(
+			ScopeToken token)
+			throws SemanticException {
+		return wrap(wrapped.popScope(token));
+	}
+
+	@Override
+	public boolean knowsIdentifier(
+			Identifier id) {
+		return wrapped.knowsIdentifier(id);
+	}
+
+	@Override
+	public LiveVariablesDomain<D> top() {
+		return wrap(wrapped.top());
+	}
+
+	@Override
+	public boolean isTop() {
+		return wrapped.isTop();
+	}
+
+	@Override
+	public LiveVariablesDomain<D> bottom() {
+		return wrap(wrapped.bottom());
+	}
+
+	@Override
+	public boolean isBottom() {
+		return wrapped.isBottom();
+	}
+
+	@Override
+	public StructuredRepresentation representation() {
+		return wrapped.representation();
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(wrapped);
+	}
+
+	@Override
+	public boolean equals(
+			Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		LiveVariablesDomain<?> other = (LiveVariablesDomain<?>) obj;
+		return Objects.equals(wrapped, other.wrapped);
+	}
+
+	@Override
+	public String toString() {
+		return wrapped.toString();
+	}
+}
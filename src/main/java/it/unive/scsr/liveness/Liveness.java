@@ -0,0 +1,150 @@
+package it.unive.scsr.liveness;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.Parameter;
+import it.unive.lisa.program.cfg.edge.Edge;
+import it.unive.lisa.program.cfg.statement.Assignment;
+import it.unive.lisa.program.cfg.statement.Statement;
+import it.unive.lisa.program.cfg.statement.VariableRef;
+import it.unive.lisa.util.datastructures.graph.GraphVisitor;
+
+/**
+ * A backward liveness analysis over the local variables of a {@link CFG}. A
+ * variable is live after a statement if there exists a path from the
+ * statement to a use of the variable that does not assign it. Variables are
+ * identified by name, as the {@link VariableRef}s of the cfg are.
+ */
+public class Liveness {
+
+	private final Set<String> variables = new HashSet<>();
+
+	private final Map<Statement, Set<String>> liveAfter = new HashMap<>();
+
+	/**
+	 * Computes the liveness information of the given cfg.
+	 *
+	 * @param cfg the cfg
+	 */
+	public Liveness(
+			CFG cfg) {
+		Map<Statement, Set<String>> uses = new HashMap<>();
+		Map<Statement, Set<String>> defs = new HashMap<>();
+		for (Parameter formal : cfg.getDescriptor().getFormals())
+			variables.add(formal.getName());
+		for (Statement st : cfg.getNodes()) {
+			RefCollector collector = new RefCollector();
+			st.accept(collector, null);
+			Set<String> used = collector.uses();
+			uses.put(st, used);
+			defs.put(st, collector.defs);
+			variables.addAll(used);
+			variables.addAll(collector.defs);
+			liveAfter.put(st, new HashSet<>());
+		}
+
+		// backward worklist: the live-in of a node flows into its predecessors
+		Map<Statement, Set<String>> liveIn = new HashMap<>();
+		Deque<Statement> ws = new ArrayDeque<>(cfg.getNodes());
+		Set<Statement> pending = new HashSet<>(ws);
+		while (!ws.isEmpty()) {
+			Statement st = ws.pop();
+			pending.remove(st);
+
+			Set<String> out = liveAfter.get(st);
+			for (Statement follower : cfg.followersOf(st))
+				out.addAll(liveIn.getOrDefault(follower, Collections.emptySet()));
+
+			Set<String> in = new HashSet<>(out);
+			in.removeAll(defs.get(st));
+			in.addAll(uses.get(st));
+			if (!in.equals(liveIn.get(st))) {
+				liveIn.put(st, in);
+				for (Statement pred : cfg.predecessorsOf(st))
+					if (pending.add(pred))
+						ws.push(pred);
+			}
+		}
+	}
+
+	/**
+	 * Yields the names of the variables of the cfg.
+	 *
+	 * @return the names of the variables
+	 */
+	public Set<String> getVariables() {
+		return Collections.unmodifiableSet(variables);
+	}
+
+	/**
+	 * Yields the names of the variables that are live after the given
+	 * statement.
+	 *
+	 * @param st the statement
+	 *
+	 * @return the names of the live variables
+	 */
+	public Set<String> getLiveAfter(
+			Statement st) {
+		return Collections.unmodifiableSet(liveAfter.getOrDefault(st, Collections.emptySet()));
+	}
+
+	/**
+	 * Yields whether the given name is a variable of the cfg that is dead
+	 * after the given statement, that is, that will not be read before being
+	 * assigned again.
+	 *
+	 * @param st   the statement
+	 * @param name the name of the variable
+	 *
+	 * @return {@code true} if the variable is dead after the statement
+	 */
+	public boolean isDeadAfter(
+			Statement st,
+			String name) {
+		return variables.contains(name) && liveAfter.containsKey(st) && !liveAfter.get(st).contains(name);
+	}
+
+	private static class RefCollector implements GraphVisitor<CFG, Statement, Edge, Void> {
+
+		private final List<VariableRef> refs = new ArrayList<>();
+
+		private final Set<VariableRef> targets = Collections.newSetFromMap(new IdentityHashMap<>());
+
+		private final Set<String> defs = new HashSet<>();
+
+		@Override
+		public boolean visit(
+				Void tool,
+				CFG graph,
+				Statement node) {
+			if (node instanceof Assignment && ((Assignment) node).getLeft() instanceof VariableRef) {
+				VariableRef target = (VariableRef) ((Assignment) node).getLeft();
+				targets.add(target);
+				defs.add(target.getName());
+			} else if (node instanceof VariableRef)
+				refs.add((VariableRef) node);
+			return true;
+		}
+
+		private Set<String> uses() {
+			// children are visited before their parents: targets are only
+			// known at the end of the visit
+			Set<String> uses = new HashSet<>();
+			for (VariableRef ref : refs)
+				if (!targets.contains(ref))
+					uses.add(ref.getName());
+			return uses;
+		}
+	}
+}
@@ -0,0 +1,378 @@
+package it.unive.scsr.outputs;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * A comparison engine for golden output directories. Each pair of files is
+ * first compared byte by byte, in parallel; only the pairs that differ are
+ * parsed and compared structurally, so that the common case of identical
+ * outputs costs one read of each file. Hashes of the expected files can be
+ * precomputed in a manifest (see {@link #writeManifest(Path)}), avoiding to
+ * read the expected corpus at all: the hash of an expected file is only
+ * trusted if the file has not been modified after the manifest was written.
+ * <br>
+ * <br>
+ * In the structural comparison of json files, arrays of objects are compared
+ * regardless of the order of their elements, as LiSA's
+ * {@code JsonReportComparer} does for the nodes, edges and descriptions of
+ * graphs, while arrays of values (e.g., the sub-nodes of a node, whose order
+ * is the one of the operands) are compared position by position. The {@code report.json} file is always
+ * compared structurally, ignoring the information that changes from run to
+ * run (timestamps, duration, working directory).
+ */
+public class GoldenComparer {
+
+	/**
+	 * The name of the manifest file storing the hashes of the expected files.
+	 */
+	public static final String MANIFEST = "hashes.sha256";
+
+	private static final String REPORT = "report.json";
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private final boolean failFast;
+
+	/**
+	 * Builds the comparer.
+	 *
+	 * @param failFast if {@code true}, the comparison stops at the first
+	 *                     difference
+	 */
+	public GoldenComparer(
+			boolean failFast) {
+		this.failFast = failFast;
+	}
+
+	/**
+	 * The outcome of a comparison.
+	 */
+	public static class Result {
+
+		/**
+		 * The files that are only in the expected directory.
+		 */
+		public final Set<String> missing = Collections.synchronizedSet(new TreeSet<>());
+
+		/**
+		 * The files that are only in the actual directory.
+		 */
+		public final Set<String> extra = Collections.synchronizedSet(new TreeSet<>());
+
+		/**
+		 * The files that differ, mapped to a description of the first
+		 * difference found.
+		 */
+		public final Map<String, String> different = Collections.synchronizedMap(new HashMap<>());
+
+		/**
+		 * Yields whether the two directories are equivalent.
+		 *
+		 * @return {@code true} if no difference was found
+		 */
+		public boolean isEqual() {
+			return missing.isEmpty() && extra.isEmpty() && different.isEmpty();
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder();
+			for (String file : missing)
+				sb.append("missing: ").append(file).append('\n');
+			for (String file : extra)
+				sb.append("extra: ").append(file).append('\n');
+			for (String file : new TreeSet<>(different.keySet()))
+				sb.append("different: ").append(file).append(" (").append(different.get(file)).append(")\n");
+			return sb.toString();
+		}
+	}
+
+	/**
+	 * Compares the files contained in the two directories.
+	 *
+	 * @param expected the directory containing the expected files
+	 * @param actual   the directory containing the actual files
+	 *
+	 * @return the result of the comparison
+	 *
+	 * @throws IOException if the directories cannot be read
+	 */
+	public Result compare(
+			Path expected,
+			Path actual)
+			throws IOException {
+		Result result = new Result();
+		Set<String> expFiles = list(expected);
+		Set<String> actFiles = list(actual);
+		expFiles.remove(MANIFEST);
+		actFiles.remove(MANIFEST);
+
+		for (String file : expFiles)
+			if (!actFiles.contains(file))
+				result.missing.add(file);
+		for (String file : actFiles)
+			if (!expFiles.contains(file))
+				result.extra.add(file);
+		if (failFast && !result.isEqual())
+			return result;
+
+		Map<String, String> manifest = readManifest(expected);
+		List<String> common = new ArrayList<>(expFiles);
+		common.retainAll(actFiles);
+
+		AtomicBoolean stop = new AtomicBoolean(false);
+		try {
+			common.parallelStream().forEach(file -> {
+				if (stop.get())
+					return;
+				String diff = compareFile(expected.resolve(file), actual.resolve(file), manifest.get(file));
+				if (diff != null) {
+					result.different.put(file, diff);
+					if (failFast)
+						stop.set(true);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+
+		return result;
+	}
+
+	private static String compareFile(
+			Path expected,
+			Path actual,
+			String expectedHash) {
+		try {
+			if (!expected.getFileName().toString().equals(REPORT)) {
+				byte[] act = Files.readAllBytes(actual);
+				if (expectedHash != null) {
+					if (expectedHash.equals(hash(act)))
+						return null;
+				} else {
+					if (Arrays.equals(Files.readAllBytes(expected), act))
+						return null;
+				}
+			}
+
+			// contents differ: fall back to the structural diff
+			return structuralDiff(expected, actual);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static String structuralDiff(
+			Path expected,
+			Path actual)
+			throws IOException {
+		String name = expected.getFileName().toString();
+		if (!name.endsWith(".json")) {
+			List<String> exp = Files.readAllLines(expected);
+			List<String> act = Files.readAllLines(actual);
+			for (int i = 0; i < Math.min(exp.size(), act.size()); i++)
+				if (!exp.get(i).equals(act.get(i)))
+					return "line " + (i + 1);
+			return exp.size() == act.size() ? null : "different number of lines";
+		}
+
+		JsonNode exp = MAPPER.readTree(expected.toFile());
+		JsonNode act = MAPPER.readTree(actual.toFile());
+		if (name.equals(REPORT)) {
+			exp = normalizeReport(exp);
+			act = normalizeReport(act);
+		}
+		return diff("", canonical(exp), canonical(act));
+	}
+
+	private static JsonNode normalizeReport(
+			JsonNode report) {
+		if (!(report instanceof ObjectNode))
+			return report;
+		ObjectNode copy = ((ObjectNode) report).deepCopy();
+		// run-dependent information
+		copy.remove("info");
+		JsonNode conf = copy.get("configuration");
+		if (conf instanceof ObjectNode)
+			((ObjectNode) conf).remove("workdir");
+		// warnings and files are sets
+		for (String field : new String[] { "warnings", "files" }) {
+			JsonNode array = copy.get(field);
+			if (array != null && array.isArray()) {
+				List<JsonNode> elements = new ArrayList<>();
+				array.forEach(elements::add);
+				elements.sort((a, b) -> a.toString().compareTo(b.toString()));
+				copy.putArray(field).addAll(elements);
+			}
+		}
+		return copy;
+	}
+
+	/**
+	 * Yields a copy of the given node where the elements of each array of
+	 * objects are sorted, so that arrays holding the same objects in different
+	 * orders become equal.
+	 */
+	private static JsonNode canonical(
+			JsonNode node) {
+		if (node.isObject()) {
+			ObjectNode copy = MAPPER.createObjectNode();
+			node.fields().forEachRemaining(field -> copy.set(field.getKey(), canonical(field.getValue())));
+			return copy;
+		}
+		if (node.isArray()) {
+			List<JsonNode> elements = new ArrayList<>();
+			boolean objects = true;
+			for (JsonNode element : node) {
+				elements.add(canonical(element));
+				objects &= element.isObject();
+			}
+			if (objects)
+				elements.sort((a, b) -> a.toString().compareTo(b.toString()));
+			ArrayNode copy = MAPPER.createArrayNode();
+			copy.addAll(elements);
+			return copy;
+		}
+		return node;
+	}
+
+	private static String diff(
+			String path,
+			JsonNode exp,
+			JsonNode act) {
+		if (exp.equals(act))
+			return null;
+		if (exp.getNodeType() != act.getNodeType())
+			return "type mismatch at '" + path + "'";
+
+		if (exp.isObject()) {
+			Set<String> names = new TreeSet<>();
+			exp.fieldNames().forEachRemaining(names::add);
+			act.fieldNames().forEachRemaining(names::add);
+			for (String field : names) {
+				if (!exp.has(field) || !act.has(field))
+					return "field '" + path + "/" + field + "' only on one side";
+				String inner = diff(path + "/" + field, exp.get(field), act.get(field));
+				if (inner != null)
+					return inner;
+			}
+		} else if (exp.isArray()) {
+			if (exp.size() != act.size())
+				return "array '" + path + "' has " + act.size() + " elements instead of " + exp.size();
+			for (int i = 0; i < exp.size(); i++) {
+				String inner = diff(path + "/" + i, exp.get(i), act.get(i));
+				if (inner != null)
+					return inner;
+			}
+		}
+
+		return "value mismatch at '" + path + "'";
+	}
+
+	/**
+	 * Computes the hash of each file in the given directory and stores them in
+	 * its {@value #MANIFEST} file, to be used by later comparisons. Expected
+	 * files modified after this call are read again by later comparisons,
+	 * until the manifest is rewritten.
+	 *
+	 * @param expected the directory containing the expected files
+	 *
+	 * @throws IOException if the directory cannot be read or the manifest
+	 *                         cannot be written
+	 */
+	public static void writeManifest(
+			Path expected)
+			throws IOException {
+		Set<String> files = list(expected);
+		files.remove(MANIFEST);
+		Map<String, String> hashes;
+		try {
+			hashes = files.parallelStream().collect(Collectors.toConcurrentMap(f -> f, f -> {
+				try {
+					return hash(Files.readAllBytes(expected.resolve(f)));
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}));
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+
+		try (Writer writer = Files.newBufferedWriter(expected.resolve(MANIFEST), StandardCharsets.UTF_8)) {
+			for (String file : files)
+				writer.write(hashes.get(file) + "  " + file + "\n");
+		}
+	}
+
+	private static Map<String, String> readManifest(
+			Path expected)
+			throws IOException {
+		Map<String, String> hashes = new HashMap<>();
+		Path manifest = expected.resolve(MANIFEST);
+		if (!Files.exists(manifest))
+			return hashes;
+		FileTime written = Files.getLastModifiedTime(manifest);
+		for (String line : Files.readAllLines(manifest)) {
+			int sep = line.indexOf("  ");
+			if (sep <= 0)
+				continue;
+			String file = line.substring(sep + 2);
+			Path path = expected.resolve(file);
+			// a file changed after the manifest would be hidden by a stale hash
+			if (Files.isRegularFile(path) && Files.getLastModifiedTime(path).compareTo(written) <= 0)
+				hashes.put(file, line.substring(0, sep));
+		}
+		return hashes;
+	}
+
+	private static Set<String> list(
+			Path dir)
+			throws IOException {
+		Set<String> files = new HashSet<>();
+		if (!Files.isDirectory(dir))
+			return files;
+		try (Stream<Path> walk = Files.walk(dir)) {
+			walk.filter(Files::isRegularFile)
+					.forEach(p -> files.add(dir.relativize(p).toString().replace('\\', '/')));
+		}
+		return files;
+	}
+
+	private static String hash(
+			byte[] content) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+			StringBuilder sb = new StringBuilder();
+			for (byte b : digest)
+				sb.append(String.format("%02x", b));
+			return sb.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+}
@@ -0,0 +1,349 @@
+package it.unive.scsr.outputs;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import it.unive.lisa.analysis.AbstractState;
+import it.unive.lisa.analysis.AnalyzedCFG;
+import it.unive.lisa.checks.semantic.CheckToolWithAnalysisResults;
+import it.unive.lisa.checks.semantic.SemanticCheck;
+import it.unive.lisa.checks.warnings.CFGWarning;
+import it.unive.lisa.checks.warnings.StatementWarning;
+import it.unive.lisa.checks.warnings.Warning;
+import it.unive.lisa.conf.LiSAConfiguration;
+import it.unive.lisa.conf.LiSAConfiguration.GraphType;
+import it.unive.lisa.program.Global;
+import it.unive.lisa.program.Unit;
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.edge.Edge;
+import it.unive.lisa.program.cfg.statement.Statement;
+
+/**
+ * A warning-focused output mode. Instead of letting LiSA dump an html page, a
+ * json file and a copy of the javascript libraries for every CFG and context,
+ * this mode keeps only LiSA's {@code report.json} and streams, in the
+ * {@value #FILE_NAME} file of the working directory, one json object per line
+ * for:
+ * <ul>
+ * <li>each warning, with its CFG and location, as soon as the semantic check
+ * that raises it is done visiting the statement;</li>
+ * <li>each statement of each CFG that received at least one warning, together
+ * with its post-state in every context, once all the checks are done (so that
+ * the warnings raised on the same CFG by later visits or checks are taken
+ * into account).</li>
+ * </ul>
+ * If requested, a lightweight html page is also produced for each warned CFG,
+ * referring to a stylesheet stored once in a shared asset directory.
+ * Contexts are identified by the scope of their results (e.g., the call
+ * string for {@code ContextBasedAnalysis}).
+ */
+public class StreamingOutput implements Closeable {
+
+	/**
+	 * The name of the streamed file.
+	 */
+	public static final String FILE_NAME = "warnings.ndjson";
+
+	/**
+	 * The name of the stylesheet stored in the shared asset directory.
+	 */
+	public static final String STYLESHEET = "streaming.css";
+
+	private final Path workdir;
+
+	private final Path assets;
+
+	private final Writer writer;
+
+	private final Set<Warning> streamed = new HashSet<>();
+
+	private final Set<CFG> warned = new LinkedHashSet<>();
+
+	private int checks;
+
+	private int finished;
+
+	/**
+	 * Builds the output, without html pages.
+	 *
+	 * @param workdir the working directory of the analysis
+	 *
+	 * @throws IOException if the output file cannot be created
+	 */
+	public StreamingOutput(
+			String workdir)
+			throws IOException {
+		this(workdir, null);
+	}
+
+	/**
+	 * Builds the output.
+	 *
+	 * @param workdir the working directory of the analysis
+	 * @param assets  the shared asset directory where the stylesheet of the
+	 *                    html pages is stored, or {@code null} if no html page
+	 *                    should be produced
+	 *
+	 * @throws IOException if the output file cannot be created
+	 */
+	public StreamingOutput(
+			String workdir,
+			String assets)
+			throws IOException {
+		this.workdir = Paths.get(workdir);
+		this.assets = assets == null ? null : Paths.get(assets);
+		Files.createDirectories(this.workdir);
+		this.writer = Files.newBufferedWriter(this.workdir.resolve(FILE_NAME), StandardCharsets.UTF_8);
+
+		if (this.assets != null) {
+			Files.createDirectories(this.assets);
+			Path css = this.assets.resolve(STYLESHEET);
+			if (!Files.exists(css))
+				Files.writeString(css, "table { border-collapse: collapse; font-family: monospace; }\n"
+						+ "td, th { border: 1px solid #999; padding: 2px 6px; vertical-align: top; }\n"
+						+ "tr.warned { background: #fdd; }\n");
+		}
+	}
+
+	/**
+	 * Switches the given configuration to the streaming mode: graphs, result
+	 * serialization and asset copies are disabled, while {@code report.json}
+	 * is kept. Each semantic check is wrapped so that its warnings are streamed
+	 * as soon as they are raised.
+	 *
+	 * @param conf the configuration to modify
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public void configure(
+			LiSAConfiguration conf) {
+		conf.workdir = workdir.toString();
+		conf.analysisGraphs = GraphType.NONE;
+		conf.serializeResults = false;
+		conf.jsonOutput = true;
+
+		List<SemanticCheck<?>> checks = new ArrayList<>(conf.semanticChecks);
+		conf.semanticChecks.clear();
+		for (SemanticCheck<?> check : checks)
+			conf.semanticChecks.add(new StreamingCheck(check));
+		this.checks += checks.size();
+	}
+
+	private synchronized <A extends AbstractState<A>> void collect(
+			CheckToolWithAnalysisResults<A> tool) {
+		// warnings are never removed: same size means nothing new
+		if (tool.getWarnings().size() == streamed.size())
+			return;
+
+		List<Warning> fresh = new ArrayList<>();
+		for (Warning warning : tool.getWarnings())
+			if (streamed.add(warning))
+				fresh.add(warning);
+
+		if (fresh.isEmpty())
+			return;
+
+		try {
+			for (Warning warning : fresh) {
+				CFG cfg = cfgOf(warning);
+				writer.write("{\"type\":\"warning\",\"kind\":" + quote(warning.getClass().getSimpleName())
+						+ ",\"cfg\":" + (cfg == null ? "null" : quote(cfg.getDescriptor().getFullSignature()))
+						+ ",\"location\":" + (warning instanceof StatementWarning
+								? quote(String.valueOf(((StatementWarning) warning).getStatement().getLocation()))
+								: "null")
+						+ ",\"message\":" + quote(warning.toString()) + "}\n");
+				if (cfg != null)
+					warned.add(cfg);
+			}
+
+			writer.flush();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private synchronized <A extends AbstractState<A>> void finish(
+			CheckToolWithAnalysisResults<A> tool) {
+		// checks are executed one after the other: when the last one is
+		// done, no other warning can be raised
+		if (++finished < checks)
+			return;
+
+		try {
+			for (CFG cfg : warned)
+				dump(tool, cfg);
+			writer.flush();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static CFG cfgOf(
+			Warning warning) {
+		if (warning instanceof StatementWarning)
+			return ((StatementWarning) warning).getStatement().getCFG();
+		if (warning instanceof CFGWarning)
+			return ((CFGWarning) warning).getCFG();
+		return null;
+	}
+
+	private <A extends AbstractState<A>> void dump(
+			CheckToolWithAnalysisResults<A> tool,
+			CFG cfg)
+			throws IOException {
+		String name = cfg.getDescriptor().getFullSignature();
+		Set<Statement> statements = new HashSet<>();
+		for (Warning warning : streamed)
+			if (warning instanceof StatementWarning && ((StatementWarning) warning).getStatement().getCFG() == cfg)
+				statements.add(((StatementWarning) warning).getStatement());
+
+		StringBuilder html = assets == null ? null : new StringBuilder();
+		if (html != null)
+			html.append("<html><head><title>").append(escape(name))
+					.append("</title><link rel=\"stylesheet\" href=\"")
+					.append(workdir.toAbsolutePath().relativize(assets.resolve(STYLESHEET).toAbsolutePath())
+							.toString().replace('\\', '/'))
+					.append("\"></head><body><h1>").append(escape(name))
+					.append("</h1><table><tr><th>context</th><th>statement</th><th>location</th><th>post-state</th></tr>\n");
+
+		for (AnalyzedCFG<A> result : tool.getResultOf(cfg)) {
+			String context = String.valueOf(result.getId());
+			for (Statement st : cfg.getNodes()) {
+				String state = result.getAnalysisStateAfter(st).representation().toString();
+				writer.write("{\"type\":\"state\",\"cfg\":" + quote(name) + ",\"context\":" + quote(context)
+						+ ",\"statement\":" + quote(st.toString()) + ",\"location\":"
+						+ quote(String.valueOf(st.getLocation())) + ",\"state\":" + quote(state) + "}\n");
+				if (html != null)
+					html.append("<tr").append(statements.contains(st) ? " class=\"warned\"" : "").append("><td>")
+							.append(escape(context)).append("</td><td>").append(escape(st.toString())).append("</td><td>")
+							.append(escape(String.valueOf(st.getLocation()))).append("</td><td>")
+							.append(escape(state)).append("</td></tr>\n");
+			}
+		}
+
+		if (html != null) {
+			html.append("</table></body></html>\n");
+			String file = name.replaceAll("[^a-zA-Z0-9_.\\-]", "_") + ".html";
+			Files.writeString(workdir.resolve(file), html.toString());
+		}
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		writer.close();
+	}
+
+	private static String quote(
+			String str) {
+		StringBuilder sb = new StringBuilder("\"");
+		for (char c : str.toCharArray())
+			switch (c) {
+			case '"':
+				sb.append("\\\"");
+				break;
+			case '\\':
+				sb.append("\\\\");
+				break;
+			case '\n':
+				sb.append("\\n");
+				break;
+			case '\r':
+				sb.append("\\r");
+				break;
+			case '\t':
+				sb.append("\\t");
+				break;
+			default:
+				if (c < 0x20)
+					sb.append(String.format("\\u%04x", (int) c));
+				else
+					sb.append(c);
+			}
+		return sb.append('"').toString();
+	}
+
+	private static String escape(
+			String str) {
+		return str.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+	}
+
+	private class StreamingCheck<A extends AbstractState<A>> implements SemanticCheck<A> {
+
+		private final SemanticCheck<A> wrapped;
+
+		private StreamingCheck(
+				SemanticCheck<A> wrapped) {
+			this.wrapped = wrapped;
+		}
+
+		@Override
+		public void beforeExecution(
+				CheckToolWithAnalysisResults<A> tool) {
+			wrapped.beforeExecution(tool);
+			collect(tool);
+		}
+
+		@Override
+		public void afterExecution(
+				CheckToolWithAnalysisResults<A> tool) {
+			wrapped.afterExecution(tool);
+			collect(tool);
+			finish(tool);
+		}
+
+		@Override
+		public boolean visitUnit(
+				CheckToolWithAnalysisResults<A> tool,
+				Unit unit) {
+			return wrapped.visitUnit(tool, unit);
+		}
+
+		@Override
+		public void visitGlobal(
+				CheckToolWithAnalysisResults<A> tool,
+				Unit unit,
+				Global global,
+				boolean instance) {
+			wrapped.visitGlobal(tool, unit, global, instance);
+		}
+
+		@Override
+		public boolean visit(
+				CheckToolWithAnalysisResults<A> tool,
+				CFG graph) {
+			boolean result = wrapped.visit(tool, graph);
+			collect(tool);
+			return result;
+		}
+
+		@Override
+		public boolean visit(
+				CheckToolWithAnalysisResults<A> tool,
+				CFG graph,
+				Statement node) {
+			boolean result = wrapped.visit(tool, graph, node);
+			collect(tool);
+			return result;
+		}
+
+		@Override
+		public boolean visit(
+				CheckToolWithAnalysisResults<A> tool,
+				CFG graph,
+				Edge edge) {
+			boolean result = wrapped.visit(tool, graph, edge);
+			collect(tool);
+			return result;
+		}
+	}
+}
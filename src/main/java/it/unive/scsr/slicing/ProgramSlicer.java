@@ -0,0 +1,225 @@
+package it.unive.scsr.slicing;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import it.unive.lisa.checks.semantic.SemanticCheck;
+import it.unive.lisa.program.Program;
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.edge.Edge;
+import it.unive.lisa.program.cfg.statement.Assignment;
+import it.unive.lisa.program.cfg.statement.Statement;
+import it.unive.lisa.program.cfg.statement.VariableRef;
+import it.unive.lisa.program.cfg.statement.call.Call;
+import it.unive.lisa.program.cfg.statement.numeric.Division;
+import it.unive.lisa.util.datastructures.graph.GraphVisitor;
+import it.unive.scsr.checkers.DivisionByZeroChecker;
+import it.unive.scsr.checkers.TaintChecker;
+import it.unive.scsr.checkers.TaintThreeLevelsChecker;
+import it.unive.scsr.fixpoint.WTOWorkingSet;
+
+/**
+ * A backward slicer removing, from the cfgs of a {@link Program}, the
+ * assignments whose value cannot reach the statements inspected by
+ * {@link DivisionByZeroChecker}, {@link TaintChecker} and
+ * {@link TaintThreeLevelsChecker}. The slicing criteria are the statements
+ * containing a {@link Division} (whose right operand is checked) or a
+ * {@link Call} (whose arguments may reach a sink, also in the callee). Calls
+ * are kept whatever their target, since the slicer does not resolve them.
+ * <br>
+ * <br>
+ * A variable is relevant after a node if it is read, before being assigned
+ * again, by a criterion, by a branching node, by a return, or by an
+ * assignment to a relevant variable. Branching nodes are always kept, with
+ * the assignments they depend on, so that the sliced cfgs have the same
+ * control structure of the original ones (thus covering control
+ * dependencies), and no kept node reads a variable whose definitions have
+ * been removed. An assignment to a variable that is not relevant after it is
+ * removed, and its predecessors are linked to its follower. Entrypoints are
+ * never removed.
+ * <br>
+ * <br>
+ * Cfgs are sliced in place, and kept nodes are the original statements: the
+ * warnings raised on them by the checks already refer to the original
+ * locations. Since the cfgs are modified, slicing must happen before they
+ * are analyzed: information computed and cached per cfg before slicing (as
+ * the orderings of a {@link WTOWorkingSet}, shared by all the working sets
+ * it makes) still refers to the removed nodes and edges, and must be
+ * discarded (e.g., using a new {@link WTOWorkingSet}).
+ */
+public final class ProgramSlicer {
+
+	private ProgramSlicer() {
+		// static helpers
+	}
+
+	/**
+	 * Slices the given program with respect to the given checks, if all of
+	 * them are supported. If any other check is present, its queries cannot
+	 * be predicted and the program is left unchanged.
+	 *
+	 * @param checks  the checks that will be executed
+	 * @param program the program to slice
+	 *
+	 * @return the number of nodes removed from the program
+	 */
+	public static int sliceFor(
+			Collection<? extends SemanticCheck<?>> checks,
+			Program program) {
+		for (SemanticCheck<?> check : checks)
+			if (!(check instanceof DivisionByZeroChecker)
+					&& !(check instanceof TaintChecker)
+					&& !(check instanceof TaintThreeLevelsChecker))
+				return 0;
+		return slice(program);
+	}
+
+	/**
+	 * Slices all the cfgs of the given program.
+	 *
+	 * @param program the program to slice
+	 *
+	 * @return the number of nodes removed from the program
+	 */
+	public static int slice(
+			Program program) {
+		int removed = 0;
+		for (CFG cfg : program.getAllCFGs())
+			removed += slice(cfg);
+		return removed;
+	}
+
+	/**
+	 * Slices the given cfg.
+	 *
+	 * @param cfg the cfg to slice
+	 *
+	 * @return the number of nodes removed from the cfg
+	 */
+	public static int slice(
+			CFG cfg) {
+		Set<Statement> removable = irrelevantAssignments(cfg);
+		for (Statement st : removable) {
+			Statement follower = cfg.followersOf(st).iterator().next();
+			for (Edge in : new ArrayList<>(cfg.getIngoingEdges(st)))
+				cfg.addEdge(in.newInstance(in.getSource(), follower));
+			cfg.getNodeList().removeNode(st);
+		}
+		return removable.size();
+	}
+
+	/**
+	 * Yields the assignments of the given cfg that can be removed, that is,
+	 * the ones to variables that are not relevant after them.
+	 *
+	 * @param cfg the cfg
+	 *
+	 * @return the removable assignments
+	 */
+	public static Set<Statement> irrelevantAssignments(
+			CFG cfg) {
+		Map<Statement, Node> nodes = new HashMap<>();
+		for (Statement st : cfg.getNodes())
+			nodes.put(st, new Node(st));
+
+		// backward worklist, as for liveness, but only following relevant
+		// uses
+		Map<Statement, Set<String>> relevantAfter = new HashMap<>();
+		Map<Statement, Set<String>> relevantIn = new HashMap<>();
+		for (Statement st : cfg.getNodes())
+			relevantAfter.put(st, new HashSet<>());
+		Deque<Statement> ws = new ArrayDeque<>(cfg.getNodes());
+		Set<Statement> pending = new HashSet<>(ws);
+		while (!ws.isEmpty()) {
+			Statement st = ws.pop();
+			pending.remove(st);
+
+			Set<String> out = relevantAfter.get(st);
+			for (Statement follower : cfg.followersOf(st))
+				out.addAll(relevantIn.getOrDefault(follower, Collections.emptySet()));
+
+			Node node = nodes.get(st);
+			Set<String> in = new HashSet<>(out);
+			if (!node.candidate || out.contains(node.target)) {
+				if (node.target != null)
+					in.remove(node.target);
+				in.addAll(node.uses);
+			}
+			if (!in.equals(relevantIn.get(st))) {
+				relevantIn.put(st, in);
+				for (Statement pred : cfg.predecessorsOf(st))
+					if (pending.add(pred))
+						ws.push(pred);
+			}
+		}
+
+		Set<Statement> removable = new HashSet<>();
+		for (Statement st : cfg.getNodes()) {
+			Node node = nodes.get(st);
+			if (node.candidate
+					&& !relevantAfter.get(st).contains(node.target)
+					&& !cfg.getEntrypoints().contains(st)
+					&& cfg.followersOf(st).size() == 1
+					&& !cfg.followersOf(st).contains(st))
+				removable.add(st);
+		}
+		return removable;
+	}
+
+	/**
+	 * The variables read and assigned by a node, and whether it can be
+	 * removed if the assigned variable is not relevant.
+	 */
+	private static class Node implements GraphVisitor<CFG, Statement, Edge, Void> {
+
+		private final List<VariableRef> refs = new ArrayList<>();
+
+		private final Set<VariableRef> targets = Collections.newSetFromMap(new IdentityHashMap<>());
+
+		private final Set<String> uses = new HashSet<>();
+
+		private String target;
+
+		private boolean criterion;
+
+		private final boolean candidate;
+
+		private Node(
+				Statement st) {
+			st.accept(this, null);
+			// children are visited before their parents: targets are only
+			// known at the end of the visit
+			for (VariableRef ref : refs)
+				if (!targets.contains(ref))
+					uses.add(ref.getName());
+			candidate = !criterion
+					&& st instanceof Assignment
+					&& ((Assignment) st).getLeft() instanceof VariableRef;
+		}
+
+		@Override
+		public boolean visit(
+				Void tool,
+				CFG graph,
+				Statement node) {
+			if (node instanceof Division || node instanceof Call)
+				criterion = true;
+			if (node instanceof Assignment && ((Assignment) node).getLeft() instanceof VariableRef) {
+				VariableRef ref = (VariableRef) ((Assignment) node).getLeft();
+				targets.add(ref);
+				target = ref.getName();
+			} else if (node instanceof VariableRef)
+				refs.add((VariableRef) node);
+			return true;
+		}
+	}
+}
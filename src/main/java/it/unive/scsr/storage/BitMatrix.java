@@ -0,0 +1,419 @@
+package it.unive.scsr.storage;
+
+import java.util.Arrays;
+
+/**
+ * An immutable square matrix of bits, stored as one {@code long[]} row per
+ * index. Rows are shared between the matrices derived from one another, and
+ * are copied only when modified; a missing or shorter row is implicitly filled
+ * with zeros. Operations on whole rows (and, or, inclusion) process 64 columns
+ * per word.
+ */
+public final class BitMatrix {
+
+	private static final long[][] NO_ROWS = new long[0][];
+
+	/**
+	 * The empty matrix.
+	 */
+	public static final BitMatrix EMPTY = new BitMatrix(NO_ROWS);
+
+	private final long[][] rows;
+
+	private BitMatrix(
+			long[][] rows) {
+		this.rows = rows;
+	}
+
+	private static int word(
+			int column) {
+		return column >>> 6;
+	}
+
+	private static long mask(
+			int column) {
+		return 1L << (column & 63);
+	}
+
+	private static boolean isSet(
+			long[] row,
+			int column) {
+		return row != null && word(column) < row.length && (row[word(column)] & mask(column)) != 0;
+	}
+
+	private static boolean isEmpty(
+			long[] row) {
+		if (row != null)
+			for (long word : row)
+				if (word != 0)
+					return false;
+		return true;
+	}
+
+	// whether all the bits of sub are also in row
+	private static boolean covers(
+			long[] row,
+			long[] sub) {
+		if (sub == null || row == sub)
+			return true;
+		for (int w = 0; w < sub.length; w++)
+			if ((sub[w] & ~(row != null && w < row.length ? row[w] : 0L)) != 0)
+				return false;
+		return true;
+	}
+
+	private long[][] rows(
+			int size) {
+		return rows.length >= size ? rows.clone() : Arrays.copyOf(rows, size);
+	}
+
+	/**
+	 * Yields the number of rows of this matrix. Rows and columns beyond this
+	 * number are empty.
+	 *
+	 * @return the number of rows
+	 */
+	public int size() {
+		return rows.length;
+	}
+
+	/**
+	 * Yields whether the bit at the given position is set.
+	 *
+	 * @param row    the row
+	 * @param column the column
+	 *
+	 * @return {@code true} if the bit is set
+	 */
+	public boolean get(
+			int row,
+			int column) {
+		return row < rows.length && isSet(rows[row], column);
+	}
+
+	/**
+	 * Yields whether the given row has no bit set.
+	 *
+	 * @param row the row
+	 *
+	 * @return {@code true} if the row is empty
+	 */
+	public boolean isEmpty(
+			int row) {
+		return row >= rows.length || isEmpty(rows[row]);
+	}
+
+	/**
+	 * Yields the columns of the bits set in the given row, in increasing
+	 * order.
+	 *
+	 * @param row the row
+	 *
+	 * @return the columns
+	 */
+	public int[] columns(
+			int row) {
+		if (row >= rows.length || rows[row] == null)
+			return new int[0];
+		long[] bits = rows[row];
+		int count = 0;
+		for (long word : bits)
+			count += Long.bitCount(word);
+		int[] result = new int[count];
+		int next = 0;
+		for (int w = 0; w < bits.length; w++)
+			for (long word = bits[w]; word != 0; word &= word - 1)
+				result[next++] = (w << 6) + Long.numberOfTrailingZeros(word);
+		return result;
+	}
+
+	/**
+	 * Yields a matrix where the bit at the given position is set.
+	 *
+	 * @param row    the row
+	 * @param column the column
+	 *
+	 * @return the resulting matrix
+	 */
+	public BitMatrix set(
+			int row,
+			int column) {
+		if (get(row, column))
+			return this;
+		long[][] result = rows(row + 1);
+		long[] bits = result[row] == null ? new long[word(column) + 1]
+				: Arrays.copyOf(result[row], Math.max(result[row].length, word(column) + 1));
+		bits[word(column)] |= mask(column);
+		result[row] = bits;
+		return new BitMatrix(result);
+	}
+
+	/**
+	 * Yields a matrix where the given row is the bitwise or of itself and
+	 * {@code bits}.
+	 *
+	 * @param row  the row
+	 * @param bits the bits to add, indexed by column
+	 *
+	 * @return the resulting matrix
+	 */
+	public BitMatrix orRow(
+			int row,
+			long[] bits) {
+		if (covers(row < rows.length ? rows[row] : null, bits))
+			return this;
+		long[][] result = rows(row + 1);
+		long[] old = result[row];
+		long[] merged = old == null ? bits.clone() : Arrays.copyOf(old, Math.max(old.length, bits.length));
+		if (old != null)
+			for (int w = 0; w < bits.length; w++)
+				merged[w] |= bits[w];
+		result[row] = merged;
+		return new BitMatrix(result);
+	}
+
+	/**
+	 * Yields a matrix where the row {@code target} is a copy of the row
+	 * {@code source}.
+	 *
+	 * @param source the row to copy
+	 * @param target the row to overwrite
+	 *
+	 * @return the resulting matrix
+	 */
+	public BitMatrix copyRow(
+			int source,
+			int target) {
+		long[] bits = source < rows.length ? rows[source] : null;
+		if (target < rows.length && rows[target] == bits)
+			return this;
+		long[][] result = rows(target + 1);
+		// rows are never modified in place, so they can be shared
+		result[target] = bits;
+		return new BitMatrix(result);
+	}
+
+	/**
+	 * Yields a matrix where the given row is empty.
+	 *
+	 * @param row the row
+	 *
+	 * @return the resulting matrix
+	 */
+	public BitMatrix clearRow(
+			int row) {
+		if (isEmpty(row))
+			return this;
+		long[][] result = rows.clone();
+		result[row] = null;
+		return new BitMatrix(result);
+	}
+
+	/**
+	 * Yields a matrix where the given column is empty.
+	 *
+	 * @param column the column
+	 *
+	 * @return the resulting matrix
+	 */
+	public BitMatrix clearColumn(
+			int column) {
+		long[][] result = null;
+		for (int i = 0; i < rows.length; i++)
+			if (isSet(rows[i], column)) {
+				if (result == null)
+					result = rows.clone();
+				long[] bits = rows[i].clone();
+				bits[word(column)] &= ~mask(column);
+				result[i] = bits;
+			}
+		return result == null ? this : new BitMatrix(result);
+	}
+
+	/**
+	 * Yields the row-wise bitwise and of this matrix and the given one.
+	 *
+	 * @param other the other matrix
+	 *
+	 * @return the resulting matrix
+	 */
+	public BitMatrix and(
+			BitMatrix other) {
+		int n = Math.min(rows.length, other.rows.length);
+		long[][] result = new long[n][];
+		for (int i = 0; i < n; i++) {
+			long[] a = rows[i], b = other.rows[i];
+			if (a == b || covers(b, a))
+				result[i] = a;
+			else if (covers(a, b))
+				result[i] = b;
+			else {
+				long[] bits = new long[Math.min(a.length, b.length)];
+				for (int w = 0; w < bits.length; w++)
+					bits[w] = a[w] & b[w];
+				result[i] = bits;
+			}
+		}
+		return new BitMatrix(result);
+	}
+
+	/**
+	 * Yields the row-wise bitwise or of this matrix and the given one.
+	 *
+	 * @param other the other matrix
+	 *
+	 * @return the resulting matrix
+	 */
+	public BitMatrix or(
+			BitMatrix other) {
+		long[][] result = null;
+		for (int i = 0; i < other.rows.length; i++) {
+			long[] a = i < rows.length ? rows[i] : null, b = other.rows[i];
+			if (covers(a, b))
+				continue;
+			if (result == null)
+				result = rows(other.rows.length);
+			if (covers(b, a))
+				result[i] = b;
+			else {
+				long[] bits = Arrays.copyOf(a, Math.max(a.length, b.length));
+				for (int w = 0; w < b.length; w++)
+					bits[w] |= b[w];
+				result[i] = bits;
+			}
+		}
+		return result == null ? this : new BitMatrix(result);
+	}
+
+	/**
+	 * Yields whether each row of the given matrix is included in the
+	 * corresponding row of this one.
+	 *
+	 * @param other the other matrix
+	 *
+	 * @return {@code true} if all the bits of {@code other} are set in this
+	 *             matrix
+	 */
+	public boolean includes(
+			BitMatrix other) {
+		for (int i = 0; i < other.rows.length; i++)
+			if (!covers(i < rows.length ? rows[i] : null, other.rows[i]))
+				return false;
+		return true;
+	}
+
+	/**
+	 * Yields the transitive closure of this matrix, seen as a relation,
+	 * computed with Warshall's algorithm: for each index {@code k}, every row
+	 * that has the bit {@code k} set is or-ed with the row {@code k}.
+	 *
+	 * @return the closed matrix
+	 */
+	public BitMatrix closure() {
+		int n = rows.length;
+		long[][] result = rows.clone();
+		// rows copied by this closure, that can be modified in place
+		boolean[] owned = new boolean[n];
+		boolean changed = false;
+		for (int k = 0; k < n; k++) {
+			long[] rowK = result[k];
+			if (isEmpty(rowK))
+				continue;
+			for (int i = 0; i < n; i++) {
+				long[] row = result[i];
+				if (!isSet(row, k) || covers(row, rowK))
+					continue;
+				if (!owned[i] || row.length < rowK.length) {
+					row = Arrays.copyOf(row, Math.max(row.length, rowK.length));
+					owned[i] = true;
+					result[i] = row;
+				}
+				for (int w = 0; w < rowK.length; w++)
+					row[w] |= rowK[w];
+				changed = true;
+			}
+		}
+		return changed ? new BitMatrix(result) : this;
+	}
+
+	/**
+	 * Yields whether a bit on the diagonal is set.
+	 *
+	 * @return {@code true} if some index is related to itself
+	 */
+	public boolean hasDiagonal() {
+		for (int i = 0; i < rows.length; i++)
+			if (isSet(rows[i], i))
+				return true;
+		return false;
+	}
+
+	/**
+	 * Yields a matrix where each index {@code i} is moved to
+	 * {@code mapping[i]}, both as a row and as a column. Indexes mapped to a
+	 * negative value, or beyond the length of {@code mapping}, are dropped.
+	 *
+	 * @param mapping the new index of each index
+	 *
+	 * @return the resulting matrix
+	 */
+	public BitMatrix rename(
+			int[] mapping) {
+		int n = 0;
+		for (int target : mapping)
+			n = Math.max(n, target + 1);
+		long[][] result = new long[n][];
+		for (int i = 0; i < rows.length && i < mapping.length; i++) {
+			if (mapping[i] < 0)
+				continue;
+			for (int j : columns(i))
+				if (j < mapping.length && mapping[j] >= 0) {
+					int row = mapping[i], column = mapping[j];
+					if (result[row] == null)
+						result[row] = new long[word(n - 1) + 1];
+					result[row][word(column)] |= mask(column);
+				}
+		}
+		return new BitMatrix(result);
+	}
+
+	@Override
+	public int hashCode() {
+		int result = 0;
+		// zero words do not contribute, whatever the length of the rows
+		for (int i = 0; i < rows.length; i++)
+			if (rows[i] != null)
+				for (int w = 0; w < rows[i].length; w++)
+					if (rows[i][w] != 0)
+						result += (i * 31 + w) * 31 + Long.hashCode(rows[i][w]);
+		return result;
+	}
+
+	@Override
+	public boolean equals(
+			Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		BitMatrix other = (BitMatrix) obj;
+		for (int i = 0; i < Math.max(rows.length, other.rows.length); i++) {
+			long[] a = i < rows.length ? rows[i] : null;
+			long[] b = i < other.rows.length ? other.rows[i] : null;
+			if (!covers(a, b) || !covers(b, a))
+				return false;
+		}
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("{");
+		for (int i = 0; i < rows.length; i++)
+			if (!isEmpty(rows[i]))
+				sb.append(sb.length() > 1 ? ", " : "").append(i).append("=").append(Arrays.toString(columns(i)));
+		return sb.append("}").toString();
+	}
+}
@@ -0,0 +1,46 @@
+package it.unive.scsr.storage;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import it.unive.lisa.analysis.SemanticException;
+import it.unive.lisa.analysis.heap.HeapDomain;
+import it.unive.lisa.analysis.nonrelational.value.NonRelationalTypeDomain;
+import it.unive.lisa.analysis.nonrelational.value.NonRelationalValueDomain;
+import it.unive.scsr.Taint;
+
+/**
+ * An {@link EnvironmentCodec} for value domains with few distinct elements
+ * (e.g., {@link Taint}). Each value is written as its number in a
+ * {@link Numbering} owned by the codec, and decoded as the very same object:
+ * this also preserves domains that compare their elements by identity, as
+ * {@link Taint} does.
+ *
+ * @param <H> the type of heap domain
+ * @param <V> the type of non-relational value domain
+ * @param <T> the type of non-relational type domain
+ */
+public class DictionaryEnvironmentCodec<H extends HeapDomain<H>, V extends NonRelationalValueDomain<V>,
+		T extends NonRelationalTypeDomain<T>>
+		extends
+		EnvironmentCodec<H, V, T> {
+
+	private final Numbering<V> values = new Numbering<>();
+
+	@Override
+	protected void writeValue(
+			V value,
+			DataOutput out)
+			throws IOException {
+		out.writeInt(values.number(value));
+	}
+
+	@Override
+	protected V readValue(
+			ByteBuffer in,
+			V lattice)
+			throws SemanticException {
+		return values.get(in.getInt());
+	}
+}
@@ -0,0 +1,164 @@
+package it.unive.scsr.storage;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import it.unive.lisa.analysis.SemanticException;
+import it.unive.lisa.analysis.SimpleAbstractState;
+import it.unive.lisa.analysis.heap.HeapDomain;
+import it.unive.lisa.analysis.nonrelational.value.NonRelationalTypeDomain;
+import it.unive.lisa.analysis.nonrelational.value.NonRelationalValueDomain;
+import it.unive.lisa.analysis.nonrelational.value.TypeEnvironment;
+import it.unive.lisa.analysis.nonrelational.value.ValueEnvironment;
+import it.unive.lisa.symbolic.value.Identifier;
+
+/**
+ * A {@link StateCodec} for states made of a heap, a {@link ValueEnvironment}
+ * and a {@link TypeEnvironment}. Identifiers are written as their number in
+ * an {@link IdentifierNumbering} owned by the codec, so that they are rebuilt
+ * exactly as they were (heap identifiers included). The values of the value
+ * environment are written by subclasses. The types of each identifier and
+ * the heap states are written as their number in a {@link Numbering} owned
+ * by the codec: a program only has a handful of distinct type sets, and
+ * programs that do not allocate only one heap state, so that these are
+ * kept on the heap once. Programs allocating memory have one heap state for
+ * each distinct set of allocation sites, all of them kept by the codec.
+ *
+ * @param <H> the type of heap domain
+ * @param <V> the type of non-relational value domain
+ * @param <T> the type of non-relational type domain
+ */
+public abstract class EnvironmentCodec<H extends HeapDomain<H>, V extends NonRelationalValueDomain<V>,
+		T extends NonRelationalTypeDomain<T>>
+		implements
+		StateCodec<SimpleAbstractState<H, ValueEnvironment<V>, TypeEnvironment<T>>> {
+
+	private static final byte FUNCTION = 0;
+
+	private static final byte TOP = 1;
+
+	private static final byte BOTTOM = 2;
+
+	private final IdentifierNumbering identifiers = new IdentifierNumbering();
+
+	private final Numbering<H> heaps = new Numbering<>();
+
+	private final Numbering<T> types = new Numbering<>();
+
+	/**
+	 * Writes a value of the value environment.
+	 *
+	 * @param value the value
+	 * @param out   where the value is written
+	 *
+	 * @throws IOException if the value cannot be written
+	 */
+	protected abstract void writeValue(
+			V value,
+			DataOutput out)
+			throws IOException;
+
+	/**
+	 * Reads a value written by {@link #writeValue(NonRelationalValueDomain, DataOutput)}.
+	 *
+	 * @param in      the buffer, positioned at the start of the value
+	 * @param lattice the singleton of the value domain
+	 *
+	 * @return the value
+	 *
+	 * @throws SemanticException if the value cannot be rebuilt
+	 */
+	protected abstract V readValue(
+			ByteBuffer in,
+			V lattice)
+			throws SemanticException;
+
+	@Override
+	public void encode(
+			SimpleAbstractState<H, ValueEnvironment<V>, TypeEnvironment<T>> state,
+			DataOutput out)
+			throws IOException {
+		out.writeInt(heaps.number(state.getHeapState()));
+
+		ValueEnvironment<V> values = state.getValueState();
+		if (writeKind(values.isTop(), values.isBottom(), out)) {
+			out.writeInt(values.getKeys().size());
+			for (Entry<Identifier, V> entry : values) {
+				out.writeInt(identifiers.number(entry.getKey()));
+				writeValue(entry.getValue(), out);
+			}
+		}
+
+		TypeEnvironment<T> typeEnv = state.getTypeState();
+		if (writeKind(typeEnv.isTop(), typeEnv.isBottom(), out)) {
+			out.writeInt(typeEnv.getKeys().size());
+			for (Entry<Identifier, T> entry : typeEnv) {
+				out.writeInt(identifiers.number(entry.getKey()));
+				out.writeInt(types.number(entry.getValue()));
+			}
+		}
+	}
+
+	// writes the tag of an environment, yielding whether its entries follow
+	private static boolean writeKind(
+			boolean top,
+			boolean bottom,
+			DataOutput out)
+			throws IOException {
+		if (top)
+			out.writeByte(TOP);
+		else if (bottom)
+			out.writeByte(BOTTOM);
+		else
+			out.writeByte(FUNCTION);
+		return !top && !bottom;
+	}
+
+	@Override
+	public SimpleAbstractState<H, ValueEnvironment<V>, TypeEnvironment<T>> decode(
+			ByteBuffer in,
+			SimpleAbstractState<H, ValueEnvironment<V>, TypeEnvironment<T>> template)
+			throws SemanticException {
+		H heap = heaps.get(in.getInt());
+
+		ValueEnvironment<V> values = template.getValueState();
+		byte kind = in.get();
+		if (kind == TOP)
+			values = values.top();
+		else if (kind == BOTTOM)
+			values = values.bottom();
+		else if (kind == FUNCTION) {
+			int size = in.getInt();
+			Map<Identifier, V> function = new HashMap<>(size * 2);
+			for (int i = 0; i < size; i++) {
+				Identifier id = identifiers.get(in.getInt());
+				function.put(id, readValue(in, values.lattice));
+			}
+			values = new ValueEnvironment<>(values.lattice, function);
+		} else
+			throw new SemanticException("Malformed state record: unknown kind " + kind);
+
+		TypeEnvironment<T> typeEnv = template.getTypeState();
+		kind = in.get();
+		if (kind == TOP)
+			typeEnv = typeEnv.top();
+		else if (kind == BOTTOM)
+			typeEnv = typeEnv.bottom();
+		else if (kind == FUNCTION) {
+			int size = in.getInt();
+			Map<Identifier, T> function = new HashMap<>(size * 2);
+			for (int i = 0; i < size; i++) {
+				Identifier id = identifiers.get(in.getInt());
+				function.put(id, types.get(in.getInt()));
+			}
+			typeEnv = new TypeEnvironment<>(typeEnv.lattice, function);
+		} else
+			throw new SemanticException("Malformed state record: unknown kind " + kind);
+
+		return new SimpleAbstractState<>(heap, values, typeEnv);
+	}
+}
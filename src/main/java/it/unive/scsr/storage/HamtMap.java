@@ -0,0 +1,396 @@
+package it.unive.scsr.storage;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A {@link Map} backed by a persistent hash array mapped trie. The trie is
+ * never modified in place: each update creates a new root that shares all the
+ * untouched subtrees with the previous one, costing a number of node copies
+ * logarithmic in the size of the map. This makes {@link #copy()} a constant
+ * time operation, since the copy simply points to the same root, and lets
+ * maps derived from a common one be compared quickly, since identical
+ * subtrees are recognized by identity.
+ * <br>
+ * <br>
+ * The map does not support {@code null} keys, and is not thread-safe: copies,
+ * however, can be updated from different threads independently.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+public class HamtMap<K, V> extends AbstractMap<K, V> {
+
+	private static final int BITS = 5;
+
+	private static final int MASK = (1 << BITS) - 1;
+
+	private static final Node EMPTY = new Node(0, new Object[0]);
+
+	private Node root;
+
+	private int size;
+
+	/**
+	 * Builds an empty map.
+	 */
+	public HamtMap() {
+		this(EMPTY, 0);
+	}
+
+	/**
+	 * Builds a map containing the mappings of the given one.
+	 *
+	 * @param other the map to copy
+	 */
+	public HamtMap(
+			Map<? extends K, ? extends V> other) {
+		this(EMPTY, 0);
+		if (other instanceof HamtMap) {
+			HamtMap<?, ?> hamt = (HamtMap<?, ?>) other;
+			root = hamt.root;
+			size = hamt.size;
+		} else
+			putAll(other);
+	}
+
+	private HamtMap(
+			Node root,
+			int size) {
+		this.root = root;
+		this.size = size;
+	}
+
+	/**
+	 * Yields a copy of this map, sharing its whole structure.
+	 *
+	 * @return the copy
+	 */
+	public HamtMap<K, V> copy() {
+		return new HamtMap<>(root, size);
+	}
+
+	/**
+	 * Yields whether this map and the given one share the same trie, in which
+	 * case they are guaranteed to be equal.
+	 *
+	 * @param other the other map
+	 *
+	 * @return {@code true} if the maps share the same trie
+	 */
+	public boolean sharesStructureWith(
+			HamtMap<?, ?> other) {
+		return root == other.root;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean containsKey(
+			Object key) {
+		return key != null && root.find(key, key.hashCode(), 0) != null;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public V get(
+			Object key) {
+		if (key == null)
+			return null;
+		Entry<?, ?> entry = root.find(key, key.hashCode(), 0);
+		return entry == null ? null : (V) entry.getValue();
+	}
+
+	@Override
+	public V put(
+			K key,
+			V value) {
+		Objects.requireNonNull(key, "Null keys are not supported");
+		V previous = get(key);
+		boolean present = previous != null || containsKey(key);
+		if (present && previous == value)
+			return previous;
+		root = root.put(new SimpleImmutableEntry<>(key, value), key.hashCode(), 0);
+		if (!present)
+			size++;
+		return previous;
+	}
+
+	@Override
+	public V remove(
+			Object key) {
+		if (key == null || !containsKey(key))
+			return null;
+		V previous = get(key);
+		root = root.remove(key, key.hashCode(), 0);
+		size--;
+		return previous;
+	}
+
+	@Override
+	public void clear() {
+		root = EMPTY;
+		size = 0;
+	}
+
+	@Override
+	public Set<Entry<K, V>> entrySet() {
+		return new AbstractSet<Entry<K, V>>() {
+
+			@Override
+			public Iterator<Entry<K, V>> iterator() {
+				return new EntryIterator();
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+		};
+	}
+
+	@Override
+	public boolean equals(
+			Object o) {
+		if (o instanceof HamtMap && sharesStructureWith((HamtMap<?, ?>) o))
+			return true;
+		return super.equals(o);
+	}
+
+	@Override
+	public int hashCode() {
+		return super.hashCode();
+	}
+
+	/**
+	 * A node of the trie. Each slot of the node is either an entry, a child
+	 * node, or a collision list (an array of entries with the same hash). The
+	 * bitmap tells which of the 32 possible slots are present, and slots are
+	 * stored compactly in the order of their index.
+	 */
+	private static final class Node {
+
+		private final int bitmap;
+
+		private final Object[] slots;
+
+		private Node(
+				int bitmap,
+				Object[] slots) {
+			this.bitmap = bitmap;
+			this.slots = slots;
+		}
+
+		private static int bit(
+				int hash,
+				int shift) {
+			return 1 << ((hash >>> shift) & MASK);
+		}
+
+		private int index(
+				int bit) {
+			return Integer.bitCount(bitmap & (bit - 1));
+		}
+
+		private Entry<?, ?> find(
+				Object key,
+				int hash,
+				int shift) {
+			int bit = bit(hash, shift);
+			if ((bitmap & bit) == 0)
+				return null;
+			Object slot = slots[index(bit)];
+			if (slot instanceof Node)
+				return ((Node) slot).find(key, hash, shift + BITS);
+			if (slot instanceof Entry[]) {
+				for (Entry<?, ?> entry : (Entry<?, ?>[]) slot)
+					if (entry.getKey().equals(key))
+						return entry;
+				return null;
+			}
+			Entry<?, ?> entry = (Entry<?, ?>) slot;
+			return entry.getKey().equals(key) ? entry : null;
+		}
+
+		private Node put(
+				Entry<?, ?> entry,
+				int hash,
+				int shift) {
+			int bit = bit(hash, shift);
+			int idx = index(bit);
+			if ((bitmap & bit) == 0) {
+				Object[] copy = new Object[slots.length + 1];
+				System.arraycopy(slots, 0, copy, 0, idx);
+				copy[idx] = entry;
+				System.arraycopy(slots, idx, copy, idx + 1, slots.length - idx);
+				return new Node(bitmap | bit, copy);
+			}
+
+			Object slot = slots[idx];
+			Object replacement;
+			if (slot instanceof Node)
+				replacement = ((Node) slot).put(entry, hash, shift + BITS);
+			else if (slot instanceof Entry[])
+				replacement = putCollision((Entry<?, ?>[]) slot, entry);
+			else {
+				Entry<?, ?> existing = (Entry<?, ?>) slot;
+				if (existing.getKey().equals(entry.getKey()))
+					replacement = entry;
+				else {
+					int existingHash = existing.getKey().hashCode();
+					if (existingHash == hash)
+						replacement = new Entry<?, ?>[] { existing, entry };
+					else
+						replacement = EMPTY.put(existing, existingHash, shift + BITS).put(entry, hash, shift + BITS);
+				}
+			}
+
+			Object[] copy = slots.clone();
+			copy[idx] = replacement;
+			return new Node(bitmap, copy);
+		}
+
+		private static Entry<?, ?>[] putCollision(
+				Entry<?, ?>[] entries,
+				Entry<?, ?> entry) {
+			for (int i = 0; i < entries.length; i++)
+				if (entries[i].getKey().equals(entry.getKey())) {
+					Entry<?, ?>[] copy = entries.clone();
+					copy[i] = entry;
+					return copy;
+				}
+			Entry<?, ?>[] copy = Arrays.copyOf(entries, entries.length + 1);
+			copy[entries.length] = entry;
+			return copy;
+		}
+
+		private Node remove(
+				Object key,
+				int hash,
+				int shift) {
+			int bit = bit(hash, shift);
+			int idx = index(bit);
+			Object slot = slots[idx];
+			Object replacement;
+			if (slot instanceof Node) {
+				Node child = ((Node) slot).remove(key, hash, shift + BITS);
+				// a child with a single entry is inlined
+				replacement = child.slots.length == 0 ? null
+						: child.slots.length == 1 && !(child.slots[0] instanceof Node) ? child.slots[0] : child;
+			} else if (slot instanceof Entry[]) {
+				Entry<?, ?>[] entries = (Entry<?, ?>[]) slot;
+				Entry<?, ?>[] left = Arrays.stream(entries).filter(e -> !e.getKey().equals(key))
+						.toArray(Entry<?, ?>[]::new);
+				replacement = left.length == 1 ? left[0] : left;
+			} else
+				replacement = null;
+
+			if (replacement != null) {
+				Object[] copy = slots.clone();
+				copy[idx] = replacement;
+				return new Node(bitmap, copy);
+			}
+
+			Object[] copy = new Object[slots.length - 1];
+			System.arraycopy(slots, 0, copy, 0, idx);
+			System.arraycopy(slots, idx + 1, copy, idx, slots.length - idx - 1);
+			return new Node(bitmap & ~bit, copy);
+		}
+	}
+
+	private class EntryIterator implements Iterator<Entry<K, V>> {
+
+		private final Deque<Object[]> stack = new ArrayDeque<>();
+
+		private final Deque<Integer> positions = new ArrayDeque<>();
+
+		private Entry<?, ?>[] collisions;
+
+		private int collision;
+
+		private Entry<K, V> next;
+
+		private K last;
+
+		private EntryIterator() {
+			stack.push(root.slots);
+			positions.push(0);
+			advance();
+		}
+
+		private void advance() {
+			next = null;
+			if (collisions != null) {
+				if (collision < collisions.length) {
+					next = cast(collisions[collision++]);
+					return;
+				}
+				collisions = null;
+			}
+
+			while (!stack.isEmpty()) {
+				Object[] slots = stack.peek();
+				int pos = positions.pop();
+				if (pos == slots.length) {
+					stack.pop();
+					continue;
+				}
+				positions.push(pos + 1);
+				Object slot = slots[pos];
+				if (slot instanceof Node) {
+					stack.push(((Node) slot).slots);
+					positions.push(0);
+				} else if (slot instanceof Entry[]) {
+					collisions = (Entry<?, ?>[]) slot;
+					collision = 1;
+					next = cast(collisions[0]);
+					return;
+				} else {
+					next = cast((Entry<?, ?>) slot);
+					return;
+				}
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		private Entry<K, V> cast(
+				Entry<?, ?> entry) {
+			return (Entry<K, V>) entry;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next != null;
+		}
+
+		@Override
+		public Entry<K, V> next() {
+			if (next == null)
+				throw new NoSuchElementException();
+			Entry<K, V> result = next;
+			last = result.getKey();
+			advance();
+			return result;
+		}
+
+		@Override
+		public void remove() {
+			if (last == null)
+				throw new IllegalStateException();
+			// the iterator walks a snapshot of the trie, so it is not affected
+			HamtMap.this.remove(last);
+			last = null;
+		}
+	}
+}
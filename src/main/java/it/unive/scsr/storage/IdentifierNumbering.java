@@ -0,0 +1,12 @@
+package it.unive.scsr.storage;
+
+import it.unive.lisa.symbolic.value.Identifier;
+
+/**
+ * A dense numbering of identifiers, growing as new identifiers are seen.
+ * Numbers are never reused, so that domains indexing arrays through the same
+ * numbering can compare and combine them position by position. The numbering
+ * can be shared among threads.
+ */
+public class IdentifierNumbering extends Numbering<Identifier> {
+}
@@ -0,0 +1,254 @@
+package it.unive.scsr.storage;
+
+import java.util.Objects;
+import java.util.function.Predicate;
+
+import it.unive.lisa.analysis.ScopeToken;
+import it.unive.lisa.analysis.SemanticException;
+import it.unive.lisa.analysis.SemanticOracle;
+import it.unive.lisa.analysis.lattices.Satisfiability;
+import it.unive.lisa.analysis.value.ValueDomain;
+import it.unive.lisa.program.cfg.ProgramPoint;
+import it.unive.lisa.symbolic.value.Identifier;
+import it.unive.lisa.symbolic.value.ValueExpression;
+import it.unive.lisa.util.representation.StructuredRepresentation;
+
+/**
+ * A {@link ValueDomain} that wraps another one, hash-consing every instance
+ * it produces through an {@link Interner}. Equal states (e.g., the ones of
+ * consecutive statements that do not modify the tracked values) are thus
+ * stored once, and partial order tests and equality checks between them
+ * reduce to reference comparisons. The structural hash of each state is
+ * computed once, when it is interned, and kept by the wrapper: the wrapped
+ * domains (e.g., {@code ValueEnvironment}) do not cache it. The wrapper can be placed around any
+ * value domain of this project, e.g.
+ * {@code new InternedDomain<>(new ValueEnvironment<>(new Intervals()))} or
+ * {@code new InternedDomain<>(new Pentagons())}.
+ *
+ * @param <D> the type of the wrapped domain
+ */
+public class InternedDomain<D extends ValueDomain<D>> implements ValueDomain<InternedDomain<D>> {
+
+	/**
+	 * The table of canonical instances, shared by all the instances derived
+	 * from the same one.
+	 */
+	private final Interner<D> interner;
+
+	private final D wrapped;
+
+	private final int hash;
+
+	/**
+	 * Builds the domain.
+	 *
+	 * @param wrapped the domain to wrap
+	 */
+	public InternedDomain(
+			D wrapped) {
+		this.interner = new Interner<>();
+		this.hash = wrapped.hashCode();
+		this.wrapped = interner.intern(wrapped, hash);
+	}
+
+	private InternedDomain(
+			Interner<D> interner,
+			D canonical,
+			int hash) {
+		this.interner = interner;
+		this.wrapped = canonical;
+		this.hash = hash;
+	}
+
+	/**
+	 * Yields the wrapped domain instance.
+	 *
+	 * @return the wrapped domain
+	 */
+	public D getWrapped() {
+		return wrapped;
+	}
+
+	/**
+	 * Yields the table of canonical instances used by this domain.
+	 *
+	 * @return the table
+	 */
+	public Interner<D> getInterner() {
+		return interner;
+	}
+
+	private InternedDomain<D> wrap(
+			D result) {
+		if (result == wrapped)
+			return this;
+		// the only structural hash computed for this state
+		int hash = result.hashCode();
+		D canonical = interner.intern(result, hash);
+		return canonical == wrapped ? this : new InternedDomain<>(interner, canonical, hash);
+	}
+
+	@Override
+	public InternedDomain<D> assign(
+			Identifier id,
+			ValueExpression expression,
+			ProgramPoint pp,
+			SemanticOracle oracle)
+			throws SemanticException {
+		return wrap(wrapped.assign(id, expression, pp, oracle));
+	}
+
+	@Override
+	public InternedDomain<D> smallStepSemantics(
+			ValueExpression expression,
+			ProgramPoint pp,
+			SemanticOracle oracle)
+			throws SemanticException {
+		return wrap(wrapped.smallStepSemantics(expression, pp, oracle));
+	}
+
+	@Override
+	public InternedDomain<D> assume(
+			ValueExpression expression,
+			ProgramPoint src,
+			ProgramPoint dest,
+			SemanticOracle oracle)
+			throws SemanticException {
+		return wrap(wrapped.assume(expression, src, dest, oracle));
+	}
+
+	@Override
+	public InternedDomain<D> lub(
+			InternedDomain<D> other)
+			throws SemanticException {
+		return wrap(wrapped.lub(other.wrapped));
+	}
+
+	@Override
+	public InternedDomain<D> glb(
+			InternedDomain<D> other)
+			throws SemanticException {
+		return wrap(wrapped.glb(other.wrapped));
+	}
+
+	@Override
+	public InternedDomain<D> widening(
+			InternedDomain<D> other)
+			throws SemanticException {
+		return wrap(wrapped.widening(other.wrapped));
+	}
+
+	@Override
+	public InternedDomain<D> narrowing(
+			InternedDomain<D> other)
+			throws SemanticException {
+		return wrap(wrapped.narrowing(other.wrapped));
+	}
+
+	@Override
+	public boolean lessOrEqual(
+			InternedDomain<D> other)
+			throws SemanticException {
+		// canonical instances: equal states are the same object
+		if (wrapped == other.wrapped)
+			return true;
+		return wrapped.lessOrEqual(other.wrapped);
+	}
+
+	@Override
+	public InternedDomain<D> forgetIdentifier(
+			Identifier id)
+			throws SemanticException {
+		return wrap(wrapped.forgetIdentifier(id));
+	}
+
+	@Override
+	public InternedDomain<D> forgetIdentifiersIf(
+			Predicate<Identifier> test)
+			throws SemanticException {
+		return wrap(wrapped.forgetIdentifiersIf(test));
+	}
+
+	@Override
+	public Satisfiability satisfies(
+			ValueExpression expression,
+			ProgramPoint pp,
+			SemanticOracle oracle)
+			throws SemanticException {
+		return wrapped.satisfies(expression, pp, oracle);
+	}
+
+	@Override
+	public InternedDomain<D> pushScope(
+			ScopeToken token)
+			throws SemanticException {
+		return wrap(wrapped.pushScope(token));
+	}
+
+	@Override
+	public InternedDomain<D> popScope(
+			ScopeToken token)
+			throws SemanticException {
+		return wrap(wrapped.popScope(token));
+	}
+
+	@Override
+	public boolean knowsIdentifier(
+			Identifier id) {
+		return wrapped.knowsIdentifier(id);
+	}
+
+	@Override
+	public InternedDomain<D> top() {
+		return wrap(wrapped.top());
+	}
+
+	@Override
+	public boolean isTop() {
+		return wrapped.isTop();
+	}
+
+	@Override
+	public InternedDomain<D> bottom() {
+		return wrap(wrapped.bottom());
+	}
+
+	@Override
+	public boolean isBottom() {
+		return wrapped.isBottom();
+	}
+
+	@Override
+	public StructuredRepresentation representation() {
+		return wrapped.representation();
+	}
+
+	@Override
+	public int hashCode() {
+		// the hash the state was interned with
+		return hash;
+	}
+
+	@Override
+	public boolean equals(
+			Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		InternedDomain<?> other = (InternedDomain<?>) obj;
+		if (wrapped == other.wrapped)
+			return true;
+		if (interner == other.interner)
+			// same table: different instances are different states
+			return false;
+		return Objects.equals(wrapped, other.wrapped);
+	}
+
+	@Override
+	public String toString() {
+		return wrapped.toString();
+	}
+}
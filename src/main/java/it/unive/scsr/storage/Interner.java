@@ -0,0 +1,141 @@
+package it.unive.scsr.storage;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread-safe table of canonical instances (hash-consing): equal objects
+ * passed to {@link #intern(Object)} are mapped to the same instance, so that
+ * they are stored once and can be later compared by reference. The structural
+ * hash of each object is computed once, when it is interned, or supplied by
+ * the caller through {@link #intern(Object, int)} when it is already known;
+ * equality is only tested between objects with the same hash. The table only
+ * holds weak references to its instances: canonical instances that are
+ * no longer used elsewhere are collected, and their entries are purged
+ * lazily.
+ *
+ * @param <T> the type of the interned objects
+ */
+public class Interner<T> {
+
+	private final Map<Key<T>, Key<T>> table = new ConcurrentHashMap<>();
+
+	private final ReferenceQueue<T> collected = new ReferenceQueue<>();
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * Yields the canonical instance equal to the given object, that is the
+	 * object itself if no equal instance has been interned before.
+	 *
+	 * @param obj the object
+	 *
+	 * @return the canonical instance
+	 */
+	public T intern(
+			T obj) {
+		return intern(obj, obj.hashCode());
+	}
+
+	/**
+	 * Yields the canonical instance equal to the given object, that is the
+	 * object itself if no equal instance has been interned before, using the
+	 * given value as its hash code.
+	 *
+	 * @param obj  the object
+	 * @param hash the hash code of the object
+	 *
+	 * @return the canonical instance
+	 */
+	public T intern(
+			T obj,
+			int hash) {
+		purge();
+		Key<T> key = new Key<>(obj, hash, collected);
+		while (true) {
+			Key<T> existing = table.putIfAbsent(key, key);
+			if (existing == null) {
+				misses.increment();
+				return obj;
+			}
+			T canonical = existing.get();
+			if (canonical != null) {
+				hits.increment();
+				return canonical;
+			}
+			// collected while we were looking it up
+			table.remove(existing, existing);
+		}
+	}
+
+	/**
+	 * Yields the number of canonical instances currently stored.
+	 *
+	 * @return the number of instances
+	 */
+	public int size() {
+		purge();
+		return table.size();
+	}
+
+	/**
+	 * Yields the number of interned objects that were already present.
+	 *
+	 * @return the number of hits
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * Yields the number of interned objects that became canonical instances.
+	 *
+	 * @return the number of misses
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	private void purge() {
+		Object ref;
+		while ((ref = collected.poll()) != null)
+			table.remove(ref, ref);
+	}
+
+	private static final class Key<T> extends WeakReference<T> {
+
+		private final int hash;
+
+		private Key(
+				T referent,
+				int hash,
+				ReferenceQueue<T> queue) {
+			super(referent, queue);
+			this.hash = hash;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(
+				Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof Key))
+				return false;
+			Key<?> other = (Key<?>) obj;
+			if (hash != other.hash)
+				return false;
+			Object mine = get();
+			return mine != null && mine.equals(other.get());
+		}
+	}
+}
@@ -0,0 +1,538 @@
+package it.unive.scsr.storage;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import it.unive.lisa.analysis.BaseLattice;
+import it.unive.lisa.analysis.Lattice;
+import it.unive.lisa.analysis.ScopeToken;
+import it.unive.lisa.analysis.SemanticException;
+import it.unive.lisa.analysis.SemanticOracle;
+import it.unive.lisa.analysis.lattices.Satisfiability;
+import it.unive.lisa.analysis.nonrelational.value.ValueEnvironment;
+import it.unive.lisa.analysis.value.ValueDomain;
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.ProgramPoint;
+import it.unive.lisa.symbolic.SymbolicExpression;
+import it.unive.lisa.symbolic.value.BinaryExpression;
+import it.unive.lisa.symbolic.value.Identifier;
+import it.unive.lisa.symbolic.value.TernaryExpression;
+import it.unive.lisa.symbolic.value.UnaryExpression;
+import it.unive.lisa.symbolic.value.ValueExpression;
+import it.unive.lisa.util.numeric.MathNumber;
+import it.unive.lisa.util.numeric.MathNumberConversionException;
+import it.unive.lisa.util.representation.MapRepresentation;
+import it.unive.lisa.util.representation.StringRepresentation;
+import it.unive.lisa.util.representation.StructuredRepresentation;
+import it.unive.scsr.Intervals;
+
+/**
+ * An environment of {@link Intervals}, alternative to
+ * {@code ValueEnvironment<Intervals>}, that stores the lows and highs of all
+ * variables in two {@code long[]} arrays. Identifiers are mapped to positions
+ * of the arrays through a dense numbering, so that lub, glb, widening,
+ * narrowing and the partial order are element-wise loops over the arrays (see
+ * {@link IntervalKernels}), vectorized when the {@code jdk.incubator.vector}
+ * module is available. Bounds that do not fit in a {@code long} are treated
+ * as infinite.
+ * <br>
+ * <br>
+ * Each cfg has its own numbering, shared by all the environments derived
+ * from the same instance: the arrays are as long as the identifiers of the
+ * cfg being analyzed, not as the ones of the whole program. An environment
+ * moves to the numbering of a cfg when it is first updated by one of its
+ * program points, and environments with different numberings are aligned
+ * before being combined.
+ * <br>
+ * <br>
+ * Transfer functions are delegated to {@link Intervals}, on a
+ * {@link ValueEnvironment} holding only the identifiers appearing in the
+ * expression, so that the results are the ones of
+ * {@code ValueEnvironment<Intervals>}.
+ */
+public class IntervalArrayEnvironment
+		implements
+		ValueDomain<IntervalArrayEnvironment>,
+		BaseLattice<IntervalArrayEnvironment> {
+
+	private static final long[] EMPTY = new long[0];
+
+	private static final Intervals INTERVALS = new Intervals();
+
+	private final Map<CFG, IdentifierNumbering> numberings;
+
+	private final IdentifierNumbering numbering;
+
+	private final long[] lows;
+
+	private final long[] highs;
+
+	private final boolean isTop;
+
+	private final boolean isBottom;
+
+	/**
+	 * Builds the top environment, with a fresh identifier numbering.
+	 */
+	public IntervalArrayEnvironment() {
+		this(new ConcurrentHashMap<>(), new IdentifierNumbering(), EMPTY, EMPTY, true, false);
+	}
+
+	private IntervalArrayEnvironment(
+			Map<CFG, IdentifierNumbering> numberings,
+			IdentifierNumbering numbering,
+			long[] lows,
+			long[] highs,
+			boolean isTop,
+			boolean isBottom) {
+		this.numberings = numberings;
+		this.numbering = numbering;
+		this.lows = lows;
+		this.highs = highs;
+		this.isTop = isTop;
+		this.isBottom = isBottom;
+	}
+
+	/**
+	 * Yields a short description of the implementation of the lattice
+	 * operations in use, either scalar or vectorized.
+	 *
+	 * @return the description
+	 */
+	public static String kernels() {
+		return IntervalKernels.INSTANCE.name();
+	}
+
+	/**
+	 * Yields the interval of the given identifier.
+	 *
+	 * @param id the identifier
+	 *
+	 * @return the interval, bottom if the identifier is not tracked
+	 */
+	public Intervals getState(
+			Identifier id) {
+		if (isTop)
+			return INTERVALS.top();
+		int i = numbering.indexOf(id);
+		if (isBottom || i < 0 || i >= lows.length || lows[i] > highs[i])
+			return INTERVALS.bottom();
+		return new Intervals(toNumber(lows[i]), toNumber(highs[i]));
+	}
+
+	/**
+	 * Yields the identifiers tracked by this environment.
+	 *
+	 * @return the identifiers
+	 */
+	public Set<Identifier> getKeys() {
+		Set<Identifier> keys = new HashSet<>();
+		for (int i = 0; i < lows.length; i++)
+			if (lows[i] <= highs[i])
+				keys.add(numbering.get(i));
+		return keys;
+	}
+
+	private static MathNumber toNumber(
+			long bound) {
+		if (bound == IntervalKernels.MINUS_INF)
+			return MathNumber.MINUS_INFINITY;
+		if (bound == IntervalKernels.PLUS_INF)
+			return MathNumber.PLUS_INFINITY;
+		return new MathNumber(bound);
+	}
+
+	private static long toBound(
+			MathNumber number,
+			long infinity) {
+		if (number.isInfinite())
+			return infinity;
+		try {
+			return number.toLong();
+		} catch (MathNumberConversionException e) {
+			// out of the range of longs
+			return infinity;
+		}
+	}
+
+	private static long[] pad(
+			long[] array,
+			int length,
+			long fill) {
+		if (array.length >= length)
+			return array;
+		long[] result = Arrays.copyOf(array, length);
+		Arrays.fill(result, array.length, length, fill);
+		return result;
+	}
+
+	@FunctionalInterface
+	private interface Kernel {
+		void apply(
+				long[] la,
+				long[] ha,
+				long[] lb,
+				long[] hb,
+				long[] rl,
+				long[] rh,
+				int from,
+				int to);
+	}
+
+	// this environment, over the numbering of the cfg of the program point
+	private IntervalArrayEnvironment localTo(
+			ProgramPoint pp) {
+		if (pp == null || pp.getCFG() == null)
+			return this;
+		return rebase(numberings.computeIfAbsent(pp.getCFG(), cfg -> new IdentifierNumbering()));
+	}
+
+	// this environment, over the given numbering
+	private IntervalArrayEnvironment rebase(
+			IdentifierNumbering target) {
+		if (target == numbering)
+			return this;
+		if (isTop || isBottom)
+			return new IntervalArrayEnvironment(numberings, target, EMPTY, EMPTY, isTop, isBottom);
+		int n = 0;
+		for (int i = 0; i < lows.length; i++)
+			if (lows[i] <= highs[i])
+				n = Math.max(n, target.number(numbering.get(i)) + 1);
+		long[] rl = pad(EMPTY, n, IntervalKernels.EMPTY_LOW);
+		long[] rh = pad(EMPTY, n, IntervalKernels.EMPTY_HIGH);
+		for (int i = 0; i < lows.length; i++)
+			if (lows[i] <= highs[i]) {
+				int to = target.number(numbering.get(i));
+				rl[to] = lows[i];
+				rh[to] = highs[i];
+			}
+		return new IntervalArrayEnvironment(numberings, target, rl, rh, false, false);
+	}
+
+	private IntervalArrayEnvironment combine(
+			IntervalArrayEnvironment that,
+			Kernel kernel) {
+		IntervalArrayEnvironment other = that.rebase(numbering);
+		int n = Math.max(lows.length, other.lows.length);
+		long[] rl = new long[n];
+		long[] rh = new long[n];
+		kernel.apply(
+				pad(lows, n, IntervalKernels.EMPTY_LOW),
+				pad(highs, n, IntervalKernels.EMPTY_HIGH),
+				pad(other.lows, n, IntervalKernels.EMPTY_LOW),
+				pad(other.highs, n, IntervalKernels.EMPTY_HIGH),
+				rl, rh, 0, n);
+		return new IntervalArrayEnvironment(numberings, numbering, rl, rh, false, false);
+	}
+
+	@Override
+	public IntervalArrayEnvironment lubAux(
+			IntervalArrayEnvironment other)
+			throws SemanticException {
+		return combine(other, IntervalKernels.INSTANCE::lub);
+	}
+
+	@Override
+	public IntervalArrayEnvironment glbAux(
+			IntervalArrayEnvironment other)
+			throws SemanticException {
+		return combine(other, IntervalKernels.INSTANCE::glb);
+	}
+
+	@Override
+	public IntervalArrayEnvironment wideningAux(
+			IntervalArrayEnvironment other)
+			throws SemanticException {
+		return combine(other, IntervalKernels.INSTANCE::widening);
+	}
+
+	@Override
+	public IntervalArrayEnvironment narrowingAux(
+			IntervalArrayEnvironment other)
+			throws SemanticException {
+		return combine(other, IntervalKernels.INSTANCE::narrowing);
+	}
+
+	@Override
+	public boolean lessOrEqualAux(
+			IntervalArrayEnvironment that)
+			throws SemanticException {
+		IntervalArrayEnvironment other = that.rebase(numbering);
+		int n = Math.max(lows.length, other.lows.length);
+		return IntervalKernels.INSTANCE.leq(
+				pad(lows, n, IntervalKernels.EMPTY_LOW),
+				pad(highs, n, IntervalKernels.EMPTY_HIGH),
+				pad(other.lows, n, IntervalKernels.EMPTY_LOW),
+				pad(other.highs, n, IntervalKernels.EMPTY_HIGH),
+				0, n);
+	}
+
+	private static void collect(
+			SymbolicExpression expression,
+			Set<Identifier> ids) {
+		if (expression instanceof Identifier)
+			ids.add((Identifier) expression);
+		else if (expression instanceof UnaryExpression)
+			collect(((UnaryExpression) expression).getExpression(), ids);
+		else if (expression instanceof BinaryExpression) {
+			collect(((BinaryExpression) expression).getLeft(), ids);
+			collect(((BinaryExpression) expression).getRight(), ids);
+		} else if (expression instanceof TernaryExpression) {
+			collect(((TernaryExpression) expression).getLeft(), ids);
+			collect(((TernaryExpression) expression).getMiddle(), ids);
+			collect(((TernaryExpression) expression).getRight(), ids);
+		}
+	}
+
+	private ValueEnvironment<Intervals> restrict(
+			Set<Identifier> ids) {
+		ValueEnvironment<Intervals> env = new ValueEnvironment<>(INTERVALS);
+		if (isTop)
+			return env.top();
+		if (isBottom)
+			return env.bottom();
+		Map<Identifier, Intervals> function = new HashMap<>();
+		for (Identifier id : ids) {
+			Intervals state = getState(id);
+			if (!state.isBottom())
+				function.put(id, state);
+		}
+		return new ValueEnvironment<>(INTERVALS, function);
+	}
+
+	private IntervalArrayEnvironment update(
+			ValueEnvironment<Intervals> env,
+			Set<Identifier> ids) {
+		if (env.isBottom())
+			return bottom();
+		if (env.isTop())
+			return top();
+
+		// a top environment loses all the identifiers that are not assigned
+		Set<Identifier> changed = new HashSet<>(env.getKeys());
+		if (!isTop)
+			changed.addAll(ids);
+		int n = isTop ? 0 : lows.length;
+		for (Identifier id : changed)
+			n = Math.max(n, numbering.number(id) + 1);
+
+		long[] rl = pad(isTop ? EMPTY : lows.clone(), n, IntervalKernels.EMPTY_LOW);
+		long[] rh = pad(isTop ? EMPTY : highs.clone(), n, IntervalKernels.EMPTY_HIGH);
+		for (Identifier id : changed) {
+			int i = numbering.number(id);
+			Intervals state = env.getState(id);
+			if (state.isBottom()) {
+				rl[i] = IntervalKernels.EMPTY_LOW;
+				rh[i] = IntervalKernels.EMPTY_HIGH;
+			} else {
+				rl[i] = toBound(state.interval.getLow(), IntervalKernels.MINUS_INF);
+				rh[i] = toBound(state.interval.getHigh(), IntervalKernels.PLUS_INF);
+			}
+		}
+		return new IntervalArrayEnvironment(numberings, numbering, rl, rh, false, false);
+	}
+
+	@Override
+	public IntervalArrayEnvironment assign(
+			Identifier id,
+			ValueExpression expression,
+			ProgramPoint pp,
+			SemanticOracle oracle)
+			throws SemanticException {
+		if (isBottom)
+			return this;
+		Set<Identifier> ids = new HashSet<>();
+		collect(expression, ids);
+		ids.add(id);
+		IntervalArrayEnvironment local = localTo(pp);
+		return local.update(local.restrict(ids).assign(id, expression, pp, oracle), ids);
+	}
+
+	@Override
+	public IntervalArrayEnvironment smallStepSemantics(
+			ValueExpression expression,
+			ProgramPoint pp,
+			SemanticOracle oracle)
+			throws SemanticException {
+		// expressions have no side effects on the values
+		return this;
+	}
+
+	@Override
+	public IntervalArrayEnvironment assume(
+			ValueExpression expression,
+			ProgramPoint src,
+			ProgramPoint dest,
+			SemanticOracle oracle)
+			throws SemanticException {
+		if (isBottom)
+			return this;
+		Set<Identifier> ids = new HashSet<>();
+		collect(expression, ids);
+		ValueEnvironment<Intervals> env = restrict(ids);
+		ValueEnvironment<Intervals> result = env.assume(expression, src, dest, oracle);
+		return result.equals(env) ? this : localTo(src).update(result, ids);
+	}
+
+	@Override
+	public Satisfiability satisfies(
+			ValueExpression expression,
+			ProgramPoint pp,
+			SemanticOracle oracle)
+			throws SemanticException {
+		Set<Identifier> ids = new HashSet<>();
+		collect(expression, ids);
+		return restrict(ids).satisfies(expression, pp, oracle);
+	}
+
+	@Override
+	public IntervalArrayEnvironment forgetIdentifier(
+			Identifier id)
+			throws SemanticException {
+		return forgetIdentifiersIf(id::equals);
+	}
+
+	@Override
+	public IntervalArrayEnvironment forgetIdentifiersIf(
+			Predicate<Identifier> test)
+			throws SemanticException {
+		if (isTop || isBottom)
+			return this;
+		long[] rl = null, rh = null;
+		for (int i = 0; i < lows.length; i++)
+			if (lows[i] <= highs[i] && test.test(numbering.get(i))) {
+				if (rl == null) {
+					rl = lows.clone();
+					rh = highs.clone();
+				}
+				rl[i] = IntervalKernels.EMPTY_LOW;
+				rh[i] = IntervalKernels.EMPTY_HIGH;
+			}
+		return rl == null ? this : new IntervalArrayEnvironment(numberings, numbering, rl, rh, false, false);
+	}
+
+	@Override
+	public IntervalArrayEnvironment pushScope(
+			ScopeToken token)
+			throws SemanticException {
+		if (isTop || isBottom)
+			return this;
+		Map<Identifier, Identifier> renaming = new HashMap<>();
+		for (Identifier id : getKeys())
+			renaming.put(id, id.pushScope(token));
+		return rename(renaming);
+	}
+
+	@Override
+	public IntervalArrayEnvironment popScope(
+			ScopeToken token)
+			throws SemanticException {
+		if (isTop || isBottom)
+			return this;
+		Map<Identifier, Identifier> renaming = new HashMap<>();
+		for (Identifier id : getKeys()) {
+			Identifier popped = id.popScope(token);
+			// identifiers that are not in the scope are dropped
+			if (popped != null)
+				renaming.put(id, popped);
+		}
+		return rename(renaming);
+	}
+
+	private IntervalArrayEnvironment rename(
+			Map<Identifier, Identifier> renaming) {
+		int n = 0;
+		for (Identifier target : renaming.values())
+			n = Math.max(n, numbering.number(target) + 1);
+		long[] rl = pad(EMPTY, n, IntervalKernels.EMPTY_LOW);
+		long[] rh = pad(EMPTY, n, IntervalKernels.EMPTY_HIGH);
+		for (Map.Entry<Identifier, Identifier> entry : renaming.entrySet()) {
+			int from = numbering.indexOf(entry.getKey());
+			int to = numbering.number(entry.getValue());
+			rl[to] = lows[from];
+			rh[to] = highs[from];
+		}
+		return new IntervalArrayEnvironment(numberings, numbering, rl, rh, false, false);
+	}
+
+	@Override
+	public boolean knowsIdentifier(
+			Identifier id) {
+		int i = numbering.indexOf(id);
+		return !isTop && !isBottom && i >= 0 && i < lows.length && lows[i] <= highs[i];
+	}
+
+	@Override
+	public IntervalArrayEnvironment top() {
+		return isTop ? this : new IntervalArrayEnvironment(numberings, numbering, EMPTY, EMPTY, true, false);
+	}
+
+	@Override
+	public boolean isTop() {
+		return isTop;
+	}
+
+	@Override
+	public IntervalArrayEnvironment bottom() {
+		return isBottom ? this : new IntervalArrayEnvironment(numberings, numbering, EMPTY, EMPTY, false, true);
+	}
+
+	@Override
+	public boolean isBottom() {
+		return isBottom;
+	}
+
+	@Override
+	public StructuredRepresentation representation() {
+		if (isTop)
+			return Lattice.topRepresentation();
+		if (isBottom)
+			return Lattice.bottomRepresentation();
+		Map<StructuredRepresentation, StructuredRepresentation> mapping = new HashMap<>();
+		for (Identifier id : getKeys())
+			mapping.put(new StringRepresentation(id), getState(id).representation());
+		return new MapRepresentation(mapping);
+	}
+
+	@Override
+	public int hashCode() {
+		int result = Boolean.hashCode(isTop) * 31 + Boolean.hashCode(isBottom);
+		// empty positions do not contribute, whatever the length of the arrays
+		// and the numbering
+		for (int i = 0; i < lows.length; i++)
+			if (lows[i] <= highs[i])
+				result += (numbering.get(i).hashCode() * 31 + Long.hashCode(lows[i])) * 31 + Long.hashCode(highs[i]);
+		return result;
+	}
+
+	@Override
+	public boolean equals(
+			Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		IntervalArrayEnvironment that = (IntervalArrayEnvironment) obj;
+		if (isTop != that.isTop || isBottom != that.isBottom || numberings != that.numberings)
+			return false;
+		IntervalArrayEnvironment other = that.rebase(numbering);
+		int n = Math.max(lows.length, other.lows.length);
+		long[] la = pad(lows, n, IntervalKernels.EMPTY_LOW);
+		long[] ha = pad(highs, n, IntervalKernels.EMPTY_HIGH);
+		long[] lb = pad(other.lows, n, IntervalKernels.EMPTY_LOW);
+		long[] hb = pad(other.highs, n, IntervalKernels.EMPTY_HIGH);
+		return Arrays.equals(la, lb) && Arrays.equals(ha, hb);
+	}
+
+	@Override
+	public String toString() {
+		return representation().toString();
+	}
+}
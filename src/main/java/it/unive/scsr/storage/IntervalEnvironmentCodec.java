@@ -0,0 +1,105 @@
+package it.unive.scsr.storage;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import it.unive.lisa.analysis.SemanticException;
+import it.unive.lisa.analysis.heap.HeapDomain;
+import it.unive.lisa.analysis.nonrelational.value.NonRelationalTypeDomain;
+import it.unive.lisa.util.numeric.MathNumber;
+import it.unive.lisa.util.numeric.MathNumberConversionException;
+import it.unive.scsr.Intervals;
+
+/**
+ * An {@link EnvironmentCodec} for {@link Intervals}. Each bound is a tag byte
+ * followed, for finite bounds, by a {@code long}.
+ *
+ * @param <H> the type of heap domain
+ * @param <T> the type of non-relational type domain
+ */
+public class IntervalEnvironmentCodec<H extends HeapDomain<H>, T extends NonRelationalTypeDomain<T>>
+		extends
+		EnvironmentCodec<H, Intervals, T> {
+
+	private static final byte BOUNDS = 0;
+
+	private static final byte BOTTOM = 2;
+
+	private static final byte FINITE = 0;
+
+	private static final byte MINUS_INFINITY = 1;
+
+	private static final byte PLUS_INFINITY = 2;
+
+	// finite bounds that do not fit in a long
+	private static final byte DECIMAL = 3;
+
+	@Override
+	protected void writeValue(
+			Intervals value,
+			DataOutput out)
+			throws IOException {
+		if (value.isBottom())
+			out.writeByte(BOTTOM);
+		else {
+			out.writeByte(BOUNDS);
+			writeBound(value.interval.getLow(), out);
+			writeBound(value.interval.getHigh(), out);
+		}
+	}
+
+	private static void writeBound(
+			MathNumber bound,
+			DataOutput out)
+			throws IOException {
+		if (bound.isMinusInfinity())
+			out.writeByte(MINUS_INFINITY);
+		else if (bound.isPlusInfinity())
+			out.writeByte(PLUS_INFINITY);
+		else
+			try {
+				long value = bound.toLong();
+				out.writeByte(FINITE);
+				out.writeLong(value);
+			} catch (MathNumberConversionException e) {
+				byte[] digits = bound.toString().getBytes(StandardCharsets.UTF_8);
+				out.writeByte(DECIMAL);
+				out.writeInt(digits.length);
+				out.write(digits);
+			}
+	}
+
+	@Override
+	protected Intervals readValue(
+			ByteBuffer in,
+			Intervals lattice)
+			throws SemanticException {
+		if (in.get() == BOTTOM)
+			return Intervals.BOTTOM;
+		MathNumber low = readBound(in);
+		return new Intervals(low, readBound(in));
+	}
+
+	private static MathNumber readBound(
+			ByteBuffer in)
+			throws SemanticException {
+		byte kind = in.get();
+		switch (kind) {
+		case FINITE:
+			return new MathNumber(in.getLong());
+		case MINUS_INFINITY:
+			return MathNumber.MINUS_INFINITY;
+		case PLUS_INFINITY:
+			return MathNumber.PLUS_INFINITY;
+		case DECIMAL:
+			byte[] digits = new byte[in.getInt()];
+			in.get(digits);
+			return new MathNumber(new BigDecimal(new String(digits, StandardCharsets.UTF_8)));
+		default:
+			throw new SemanticException("Malformed state record: unknown bound " + kind);
+		}
+	}
+}
@@ -0,0 +1,221 @@
+package it.unive.scsr.storage;
+
+/**
+ * The element-wise lattice operations of {@link IntervalArrayEnvironment}.
+ * Each operation reads the lows and highs of two environments, aligned on the
+ * same identifier numbering, and works on the positions in
+ * {@code [from, to)}. Infinite bounds are encoded as {@link #MINUS_INF} and
+ * {@link #PLUS_INF}, while a position holding an empty interval has its low
+ * greater than its high (and is always written back as
+ * {@code [EMPTY_LOW, EMPTY_HIGH]}).
+ * <br>
+ * <br>
+ * This class is the scalar implementation. When the project is built with
+ * {@code -Pvector} and the {@code jdk.incubator.vector} module is available,
+ * {@link #INSTANCE} is a {@code VectorIntervalKernels} instead, that runs the
+ * same operations over SIMD lanes and falls back to this implementation for
+ * the tail of the arrays. Setting the {@value #PROPERTY} system property to
+ * {@code false} forces the scalar implementation.
+ */
+class IntervalKernels {
+
+	/**
+	 * The name of the system property that enables the vectorized
+	 * implementation.
+	 */
+	static final String PROPERTY = "scsr.intervals.vector";
+
+	/**
+	 * The encoding of {@code -Inf}.
+	 */
+	static final long MINUS_INF = Long.MIN_VALUE;
+
+	/**
+	 * The encoding of {@code +Inf}.
+	 */
+	static final long PLUS_INF = Long.MAX_VALUE;
+
+	/**
+	 * The low of an empty interval.
+	 */
+	static final long EMPTY_LOW = PLUS_INF;
+
+	/**
+	 * The high of an empty interval.
+	 */
+	static final long EMPTY_HIGH = MINUS_INF;
+
+	/**
+	 * The implementation in use.
+	 */
+	static final IntervalKernels INSTANCE = load();
+
+	private static IntervalKernels load() {
+		if (!Boolean.parseBoolean(System.getProperty(PROPERTY, "true"))
+				|| ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty())
+			return new IntervalKernels();
+		try {
+			// loaded reflectively: the class cannot be linked without the module
+			return (IntervalKernels) Class.forName(IntervalKernels.class.getPackageName() + ".VectorIntervalKernels")
+					.getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException | LinkageError e) {
+			return new IntervalKernels();
+		}
+	}
+
+	/**
+	 * Yields a short description of this implementation.
+	 *
+	 * @return the description
+	 */
+	String name() {
+		return "scalar";
+	}
+
+	/**
+	 * Computes the lub of {@code [la, ha]} and {@code [lb, hb]}.
+	 *
+	 * @param la   the lows of the first environment
+	 * @param ha   the highs of the first environment
+	 * @param lb   the lows of the second environment
+	 * @param hb   the highs of the second environment
+	 * @param rl   where the lows of the result are stored
+	 * @param rh   where the highs of the result are stored
+	 * @param from the first position, inclusive
+	 * @param to   the last position, exclusive
+	 */
+	void lub(
+			long[] la,
+			long[] ha,
+			long[] lb,
+			long[] hb,
+			long[] rl,
+			long[] rh,
+			int from,
+			int to) {
+		// the encoding of empty intervals is neutral for min and max
+		for (int i = from; i < to; i++) {
+			rl[i] = Math.min(la[i], lb[i]);
+			rh[i] = Math.max(ha[i], hb[i]);
+		}
+	}
+
+	/**
+	 * Computes the glb of {@code [la, ha]} and {@code [lb, hb]}.
+	 *
+	 * @param la   the lows of the first environment
+	 * @param ha   the highs of the first environment
+	 * @param lb   the lows of the second environment
+	 * @param hb   the highs of the second environment
+	 * @param rl   where the lows of the result are stored
+	 * @param rh   where the highs of the result are stored
+	 * @param from the first position, inclusive
+	 * @param to   the last position, exclusive
+	 */
+	void glb(
+			long[] la,
+			long[] ha,
+			long[] lb,
+			long[] hb,
+			long[] rl,
+			long[] rh,
+			int from,
+			int to) {
+		for (int i = from; i < to; i++) {
+			long low = Math.max(la[i], lb[i]);
+			long high = Math.min(ha[i], hb[i]);
+			rl[i] = low > high ? EMPTY_LOW : low;
+			rh[i] = low > high ? EMPTY_HIGH : high;
+		}
+	}
+
+	/**
+	 * Computes the widening of {@code [la, ha]} (the old environment) with
+	 * {@code [lb, hb]} (the new one).
+	 *
+	 * @param la   the lows of the old environment
+	 * @param ha   the highs of the old environment
+	 * @param lb   the lows of the new environment
+	 * @param hb   the highs of the new environment
+	 * @param rl   where the lows of the result are stored
+	 * @param rh   where the highs of the result are stored
+	 * @param from the first position, inclusive
+	 * @param to   the last position, exclusive
+	 */
+	void widening(
+			long[] la,
+			long[] ha,
+			long[] lb,
+			long[] hb,
+			long[] rl,
+			long[] rh,
+			int from,
+			int to) {
+		for (int i = from; i < to; i++)
+			if (la[i] > ha[i]) {
+				// nothing to widen
+				rl[i] = lb[i];
+				rh[i] = hb[i];
+			} else {
+				rl[i] = lb[i] < la[i] ? MINUS_INF : la[i];
+				rh[i] = hb[i] > ha[i] ? PLUS_INF : ha[i];
+			}
+	}
+
+	/**
+	 * Computes the narrowing of {@code [la, ha]} (the old environment) with
+	 * {@code [lb, hb]} (the new one).
+	 *
+	 * @param la   the lows of the old environment
+	 * @param ha   the highs of the old environment
+	 * @param lb   the lows of the new environment
+	 * @param hb   the highs of the new environment
+	 * @param rl   where the lows of the result are stored
+	 * @param rh   where the highs of the result are stored
+	 * @param from the first position, inclusive
+	 * @param to   the last position, exclusive
+	 */
+	void narrowing(
+			long[] la,
+			long[] ha,
+			long[] lb,
+			long[] hb,
+			long[] rl,
+			long[] rh,
+			int from,
+			int to) {
+		for (int i = from; i < to; i++) {
+			long low = la[i] == MINUS_INF ? lb[i] : la[i];
+			long high = ha[i] == PLUS_INF ? hb[i] : ha[i];
+			rl[i] = low > high ? EMPTY_LOW : low;
+			rh[i] = low > high ? EMPTY_HIGH : high;
+		}
+	}
+
+	/**
+	 * Yields whether {@code [la, ha]} is contained in {@code [lb, hb]} for all
+	 * positions.
+	 *
+	 * @param la   the lows of the first environment
+	 * @param ha   the highs of the first environment
+	 * @param lb   the lows of the second environment
+	 * @param hb   the highs of the second environment
+	 * @param from the first position, inclusive
+	 * @param to   the last position, exclusive
+	 *
+	 * @return {@code true} if the first environment is less or equal than the
+	 *             second one
+	 */
+	boolean leq(
+			long[] la,
+			long[] ha,
+			long[] lb,
+			long[] hb,
+			int from,
+			int to) {
+		for (int i = from; i < to; i++)
+			if (la[i] <= ha[i] && (lb[i] > la[i] || ha[i] > hb[i]))
+				return false;
+		return true;
+	}
+}
@@ -0,0 +1,75 @@
+package it.unive.scsr.storage;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A dense numbering of objects, distinguished by {@link Object#equals(Object)}
+ * and growing as new objects are seen. Numbers are never reused. The
+ * numbering can be shared among threads.
+ *
+ * @param <E> the type of objects numbered
+ */
+public class Numbering<E> {
+
+	private final Map<E, Integer> indexes = new ConcurrentHashMap<>();
+
+	private final List<E> elements = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Yields the number of the given object, without numbering it.
+	 *
+	 * @param element the object
+	 *
+	 * @return the number, or {@code -1} if the object has not been numbered
+	 *             yet
+	 */
+	public int indexOf(
+			E element) {
+		Integer index = indexes.get(element);
+		return index == null ? -1 : index;
+	}
+
+	/**
+	 * Yields the number of the given object, numbering it if needed.
+	 *
+	 * @param element the object
+	 *
+	 * @return the number
+	 */
+	public int number(
+			E element) {
+		Integer index = indexes.get(element);
+		if (index != null)
+			return index;
+		synchronized (this) {
+			return indexes.computeIfAbsent(element, k -> {
+				elements.add(k);
+				return elements.size() - 1;
+			});
+		}
+	}
+
+	/**
+	 * Yields the object with the given number.
+	 *
+	 * @param index the number
+	 *
+	 * @return the object
+	 */
+	public E get(
+			int index) {
+		return elements.get(index);
+	}
+
+	/**
+	 * Yields how many objects have been numbered so far.
+	 *
+	 * @return the number of objects
+	 */
+	public int size() {
+		return elements.size();
+	}
+}
@@ -0,0 +1,125 @@
+package it.unive.scsr.storage;
+
+import java.util.Map;
+
+import it.unive.lisa.analysis.SemanticException;
+import it.unive.lisa.analysis.nonrelational.value.NonRelationalValueDomain;
+import it.unive.lisa.analysis.nonrelational.value.ValueEnvironment;
+import it.unive.lisa.symbolic.value.Identifier;
+
+/**
+ * A {@link ValueEnvironment} whose function is stored in a {@link HamtMap}.
+ * The environment behaves exactly as its parent class, but every time a new
+ * function is derived from an existing one (e.g., by {@code putState},
+ * {@code assign} or {@code forgetIdentifier}) the copy shares the trie of the
+ * original one, and only the updated path is duplicated. Environments derived
+ * from the same one without being modified (e.g., the ones flowing through
+ * statements that do not touch the tracked identifiers) are also recognized
+ * by identity of their tries, short-circuiting partial order tests and
+ * upper bounds.
+ * <br>
+ * <br>
+ * It can be used in place of a {@link ValueEnvironment} in all the domains of
+ * this project, e.g.
+ * {@code new PersistentValueEnvironment<>(new Intervals())} or
+ * {@code new Pentagons(new PersistentValueEnvironment<>(new UpperBounds(true)).top(), new PersistentValueEnvironment<>(new Intervals()).top())}.
+ *
+ * @param <T> the type of {@link NonRelationalValueDomain} stored in the
+ *                environment
+ */
+public class PersistentValueEnvironment<T extends NonRelationalValueDomain<T>> extends ValueEnvironment<T> {
+
+	/**
+	 * Builds an empty environment.
+	 *
+	 * @param domain a singleton instance to be used during semantic
+	 *                   operations to retrieve top and bottom values
+	 */
+	public PersistentValueEnvironment(
+			T domain) {
+		super(domain);
+	}
+
+	/**
+	 * Builds an environment containing the given mapping.
+	 *
+	 * @param domain   a singleton instance to be used during semantic
+	 *                     operations to retrieve top and bottom values
+	 * @param function the function representing the mapping contained in the
+	 *                     new environment; can be {@code null}
+	 */
+	public PersistentValueEnvironment(
+			T domain,
+			Map<Identifier, T> function) {
+		super(domain, function == null || function instanceof HamtMap ? function : new HamtMap<>(function));
+	}
+
+	@Override
+	public PersistentValueEnvironment<T> mk(
+			T lattice,
+			Map<Identifier, T> function) {
+		return new PersistentValueEnvironment<>(lattice, function);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public Map<Identifier, T> mkNewFunction(
+			Map<Identifier, T> other,
+			boolean preserveNull) {
+		if (other == null)
+			return preserveNull ? null : new HamtMap<>();
+		if (other instanceof HamtMap)
+			return ((HamtMap<Identifier, T>) other).copy();
+		return new HamtMap<>(other);
+	}
+
+	private boolean sharesStructureWith(
+			ValueEnvironment<T> other) {
+		return function instanceof HamtMap
+				&& other.function instanceof HamtMap
+				&& ((HamtMap<?, ?>) function).sharesStructureWith((HamtMap<?, ?>) other.function);
+	}
+
+	@Override
+	public boolean lessOrEqualAux(
+			ValueEnvironment<T> other)
+			throws SemanticException {
+		if (sharesStructureWith(other))
+			return true;
+		return super.lessOrEqualAux(other);
+	}
+
+	@Override
+	public ValueEnvironment<T> lubAux(
+			ValueEnvironment<T> other)
+			throws SemanticException {
+		if (sharesStructureWith(other))
+			return this;
+		return super.lubAux(other);
+	}
+
+	@Override
+	public ValueEnvironment<T> wideningAux(
+			ValueEnvironment<T> other)
+			throws SemanticException {
+		if (sharesStructureWith(other))
+			return this;
+		return super.wideningAux(other);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public boolean equals(
+			Object obj) {
+		if (obj instanceof PersistentValueEnvironment
+				&& sharesStructureWith((PersistentValueEnvironment<T>) obj)
+				&& lattice.equals(((PersistentValueEnvironment<?>) obj).lattice))
+			return true;
+		return super.equals(obj);
+	}
+
+	@Override
+	public int hashCode() {
+		return super.hashCode();
+	}
+}
@@ -0,0 +1,104 @@
+package it.unive.scsr.storage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Predicate;
+
+import it.unive.lisa.checks.semantic.SemanticCheck;
+import it.unive.lisa.conf.LiSAConfiguration;
+import it.unive.lisa.program.cfg.statement.Assignment;
+import it.unive.lisa.program.cfg.statement.Expression;
+import it.unive.lisa.program.cfg.statement.Statement;
+import it.unive.lisa.program.cfg.statement.VariableRef;
+import it.unive.lisa.program.cfg.statement.call.Call;
+import it.unive.lisa.program.cfg.statement.numeric.Division;
+import it.unive.scsr.checkers.DivisionByZeroChecker;
+import it.unive.scsr.checkers.OverflowChecker;
+import it.unive.scsr.checkers.TaintChecker;
+import it.unive.scsr.checkers.TaintThreeLevelsChecker;
+
+/**
+ * A storage mode for analysis results that only keeps the post-states of
+ * few statements. With LiSA's optimized fixpoint ({@code conf.optimize}),
+ * states are stored only at widening points and call sites, and all the other
+ * ones are recomputed on demand by replaying the transfer functions from the
+ * closest stored state. This class adds to them the statements whose states
+ * are queried by the active checkers (the {@code hotspots} of the
+ * configuration), so that the checkers never trigger a recomputation:
+ * <ul>
+ * <li>{@link OverflowChecker}: assignments and variable references;</li>
+ * <li>{@link DivisionByZeroChecker}: the divisors;</li>
+ * <li>{@link TaintChecker} and {@link TaintThreeLevelsChecker}: the
+ * parameters of calls.</li>
+ * </ul>
+ * If another check is active, its queries cannot be predicted and the states
+ * of all statements are kept.
+ */
+public final class SparseResults {
+
+	private SparseResults() {
+		// static helpers
+	}
+
+	/**
+	 * Switches the given configuration to the sparse storage mode, keeping the
+	 * states queried by its semantic checks. Checks must be added to the
+	 * configuration before calling this method.
+	 *
+	 * @param conf the configuration to modify
+	 */
+	public static void apply(
+			LiSAConfiguration conf) {
+		conf.optimize = true;
+		conf.dumpForcesUnwinding = false;
+		conf.hotspots = queriedBy(conf.semanticChecks);
+	}
+
+	/**
+	 * Yields a predicate matching the statements whose states are queried by
+	 * the given checks.
+	 *
+	 * @param checks the checks
+	 *
+	 * @return the predicate
+	 */
+	public static Predicate<Statement> queriedBy(
+			Collection<? extends SemanticCheck<?>> checks) {
+		List<Predicate<Statement>> queried = new ArrayList<>();
+		for (SemanticCheck<?> check : checks)
+			if (check instanceof OverflowChecker)
+				queried.add(st -> st instanceof Assignment || st instanceof VariableRef);
+			else if (check instanceof DivisionByZeroChecker)
+				queried.add(SparseResults::isDivisor);
+			else if (check instanceof TaintChecker || check instanceof TaintThreeLevelsChecker)
+				queried.add(SparseResults::isParameter);
+			else
+				// unknown queries: keep everything
+				return st -> true;
+
+		return st -> {
+			for (Predicate<Statement> test : queried)
+				if (test.test(st))
+					return true;
+			return false;
+		};
+	}
+
+	private static boolean isDivisor(
+			Statement st) {
+		if (!(st instanceof Expression))
+			return false;
+		Statement parent = ((Expression) st).getParentStatement();
+		return parent instanceof Division && ((Division) parent).getRight() == st;
+	}
+
+	private static boolean isParameter(
+			Statement st) {
+		if (!(st instanceof Expression))
+			return false;
+		Statement parent = ((Expression) st).getParentStatement();
+		return parent instanceof Call && Arrays.asList(((Call) parent).getParameters()).contains(st);
+	}
+}
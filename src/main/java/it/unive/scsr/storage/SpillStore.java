@@ -0,0 +1,178 @@
+package it.unive.scsr.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import it.unive.lisa.analysis.AbstractState;
+import it.unive.lisa.analysis.AnalysisState;
+import it.unive.lisa.analysis.AnalyzedCFG;
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.edge.Edge;
+import it.unive.lisa.program.cfg.statement.Statement;
+import it.unive.lisa.util.datastructures.graph.GraphVisitor;
+
+/**
+ * A store that moves the per-statement states of {@link AnalyzedCFG}s out of
+ * the heap. The abstract states are encoded through a {@link StateCodec} and
+ * appended to a single file in the working directory; for each cfg, the store
+ * keeps an index from its statements to the offsets of their records, and the
+ * region of the file holding them is memory-mapped the first time one of them
+ * is read. The {@link SpilledAnalyzedCFG}s returned by
+ * {@link #spill(AnalyzedCFG)} decode states lazily, so that only the ones
+ * actually queried (e.g., by the semantic checks) are materialized on the
+ * heap again.
+ * <br>
+ * <br>
+ * Each record is a 4-bytes length followed by the bytes written by the
+ * codec. The expressions computed by each statement are not encoded: they
+ * are kept on the heap, paired with the abstract state of the exit of the
+ * cfg, that is shared by all of them.
+ *
+ * @param <A> the type of {@link AbstractState} stored
+ */
+public class SpillStore<A extends AbstractState<A>> implements Closeable {
+
+	/**
+	 * The name of the file holding the states.
+	 */
+	public static final String FILE_NAME = "states.spill";
+
+	private final StateCodec<A> codec;
+
+	private final FileChannel channel;
+
+	private final AtomicInteger spilled = new AtomicInteger();
+
+	/**
+	 * Builds the store.
+	 *
+	 * @param workdir the directory where the file holding the states is
+	 *                    created
+	 * @param codec   the encoding of the states
+	 *
+	 * @throws IOException if the file cannot be created
+	 */
+	public SpillStore(
+			String workdir,
+			StateCodec<A> codec)
+			throws IOException {
+		Path dir = Paths.get(workdir);
+		Files.createDirectories(dir);
+		this.codec = codec;
+		this.channel = FileChannel.open(dir.resolve(FILE_NAME), StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+	}
+
+	/**
+	 * Moves the states of the given result to this store.
+	 *
+	 * @param result the result to spill
+	 *
+	 * @return a result that reads its states back from this store
+	 */
+	public SpilledAnalyzedCFG<A> spill(
+			AnalyzedCFG<A> result) {
+		Set<Statement> statements = new LinkedHashSet<>();
+		for (Statement st : result.getNodes())
+			st.accept(new Collector(), statements);
+
+		Map<Statement, Integer> index = new HashMap<>();
+		Map<Statement, AnalysisState<A>> computed = new HashMap<>();
+		Map<Statement, AnalysisState<A>> entries = new HashMap<>();
+		for (Statement entry : result.getEntrypoints())
+			entries.put(entry, result.getAnalysisStateBefore(entry));
+
+		AnalysisState<A> template = result.getExitState();
+		ByteArrayOutputStream records = new ByteArrayOutputStream();
+		ByteArrayOutputStream record = new ByteArrayOutputStream();
+		try {
+			DataOutputStream out = new DataOutputStream(records);
+			DataOutputStream recordOut = new DataOutputStream(record);
+			for (Statement st : statements) {
+				AnalysisState<A> state = result.getAnalysisStateAfter(st);
+				record.reset();
+				codec.encode(state.getState(), recordOut);
+				recordOut.flush();
+				index.put(st, out.size());
+				out.writeInt(record.size());
+				record.writeTo(out);
+				computed.put(st, new AnalysisState<>(template.getState(), state.getComputedExpressions(),
+						state.getFixpointInformation()));
+			}
+			out.flush();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		ByteBuffer buffer = ByteBuffer.wrap(records.toByteArray());
+		long base;
+		synchronized (channel) {
+			try {
+				base = channel.size();
+				while (buffer.hasRemaining())
+					channel.write(buffer, base + buffer.position());
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		spilled.addAndGet(index.size());
+
+		return new SpilledAnalyzedCFG<>(result, template, entries, computed, this, base, buffer.limit(), index);
+	}
+
+	/**
+	 * Yields the number of states moved out of the heap so far.
+	 *
+	 * @return the number of spilled states
+	 */
+	public int getSpilledStates() {
+		return spilled.get();
+	}
+
+	MappedByteBuffer map(
+			long base,
+			int length) {
+		try {
+			return channel.map(MapMode.READ_ONLY, base, length);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	StateCodec<A> getCodec() {
+		return codec;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	private static class Collector implements GraphVisitor<CFG, Statement, Edge, Set<Statement>> {
+
+		@Override
+		public boolean visit(
+				Set<Statement> tool,
+				CFG graph,
+				Statement node) {
+			tool.add(node);
+			return true;
+		}
+	}
+}
@@ -0,0 +1,89 @@
+package it.unive.scsr.storage;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Map;
+
+import it.unive.lisa.analysis.AbstractState;
+import it.unive.lisa.analysis.AnalysisState;
+import it.unive.lisa.analysis.AnalyzedCFG;
+import it.unive.lisa.analysis.SemanticException;
+import it.unive.lisa.program.cfg.statement.Statement;
+
+/**
+ * An {@link AnalyzedCFG} whose per-statement states live in a
+ * {@link SpillStore}. States are decoded each time they are requested, using
+ * the exit state of the cfg as template, and are never cached: the heap only holds the offsets of the
+ * records, the entry states and the expressions computed by each statement.
+ *
+ * @param <A> the type of {@link AbstractState} contained in this result
+ */
+public class SpilledAnalyzedCFG<A extends AbstractState<A>> extends AnalyzedCFG<A> {
+
+	private final AnalysisState<A> template;
+
+	private final SpillStore<A> store;
+
+	private final long base;
+
+	private final int length;
+
+	private final Map<Statement, Integer> index;
+
+	private final Map<Statement, AnalysisState<A>> computed;
+
+	private ByteBuffer region;
+
+	SpilledAnalyzedCFG(
+			AnalyzedCFG<A> original,
+			AnalysisState<A> template,
+			Map<Statement, AnalysisState<A>> entryStates,
+			Map<Statement, AnalysisState<A>> computed,
+			SpillStore<A> store,
+			long base,
+			int length,
+			Map<Statement, Integer> index) {
+		super(original, original.getId(), template, entryStates, Collections.emptyMap());
+		this.computed = computed;
+		this.template = template;
+		this.store = store;
+		this.base = base;
+		this.length = length;
+		this.index = index;
+	}
+
+	@Override
+	public AnalysisState<A> getAnalysisStateAfter(
+			Statement st) {
+		Integer offset = index.get(st);
+		if (offset == null)
+			return super.getAnalysisStateAfter(st);
+
+		ByteBuffer records = region().duplicate();
+		// skip the length of the record
+		records.position(offset + 4);
+		AnalysisState<A> shell = computed.get(st);
+		try {
+			return new AnalysisState<>(store.getCodec().decode(records, template.getState()),
+					shell.getComputedExpressions(), shell.getFixpointInformation());
+		} catch (SemanticException e) {
+			throw new IllegalStateException("Cannot decode the spilled state of " + st, e);
+		}
+	}
+
+	/**
+	 * Yields the number of states that are stored out of the heap.
+	 *
+	 * @return the number of spilled states
+	 */
+	public int getSpilledStates() {
+		return index.size();
+	}
+
+	private synchronized ByteBuffer region() {
+		// mapped on first access, shared by all the reads on this cfg
+		if (region == null)
+			region = store.map(base, length);
+		return region;
+	}
+}
@@ -0,0 +1,49 @@
+package it.unive.scsr.storage;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import it.unive.lisa.analysis.AbstractState;
+import it.unive.lisa.analysis.SemanticException;
+
+/**
+ * A binary encoding of abstract states, used by {@link SpillStore} to move
+ * them out of the heap. Each state is encoded as a self-delimited record:
+ * {@link #decode(ByteBuffer, AbstractState)} reads exactly the bytes written
+ * by {@link #encode(AbstractState, DataOutput)}.
+ *
+ * @param <A> the type of {@link AbstractState} encoded
+ */
+public interface StateCodec<A extends AbstractState<A>> {
+
+	/**
+	 * Encodes the given state.
+	 *
+	 * @param state the state
+	 * @param out   where the record is written
+	 *
+	 * @throws IOException if the record cannot be written
+	 */
+	void encode(
+			A state,
+			DataOutput out)
+			throws IOException;
+
+	/**
+	 * Decodes a state, starting at the current position of the given buffer.
+	 *
+	 * @param in       the buffer holding the record
+	 * @param template a state of the analysis, providing what is shared by
+	 *                     all the states (e.g., the singletons of the
+	 *                     lattices)
+	 *
+	 * @return the state
+	 *
+	 * @throws SemanticException if the state cannot be rebuilt
+	 */
+	A decode(
+			ByteBuffer in,
+			A template)
+			throws SemanticException;
+}
@@ -0,0 +1,174 @@
+package it.unive.scsr.storage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import it.unive.lisa.symbolic.value.BinaryExpression;
+import it.unive.lisa.symbolic.value.Identifier;
+import it.unive.lisa.symbolic.value.TernaryExpression;
+import it.unive.lisa.symbolic.value.UnaryExpression;
+import it.unive.lisa.symbolic.value.ValueExpression;
+import it.unive.lisa.symbolic.value.operator.AdditionOperator;
+import it.unive.lisa.symbolic.value.operator.MultiplicationOperator;
+import it.unive.lisa.symbolic.value.operator.binary.BinaryOperator;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonEq;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonNe;
+import it.unive.lisa.symbolic.value.operator.binary.LogicalAnd;
+import it.unive.lisa.symbolic.value.operator.binary.LogicalOr;
+
+/**
+ * A value-numbering table, hash-consing value expressions into dense
+ * numbers. An expression is numbered bottom-up: its key is made of its
+ * operator and of the numbers of its operands, so that each tree is hashed
+ * once, and structurally equal expressions get the same number. The operands
+ * of commutative operators are ordered by number, so that {@code a + b} and
+ * {@code b + a} also share the same number. Identifiers and other leaves are
+ * their own key.
+ * <br>
+ * <br>
+ * For each number, the table also records the identifiers read by the
+ * expression and, for each identifier, the expressions reading it, both as
+ * {@link BitSet}s over the same numbering. Numbers are never reused, and the
+ * table can be shared among threads.
+ */
+public class ValueNumbering {
+
+	private final Map<Object, Integer> numbers = new HashMap<>();
+
+	private final List<ValueExpression> expressions = new ArrayList<>();
+
+	private final List<BitSet> reads = new ArrayList<>();
+
+	private final List<BitSet> readers = new ArrayList<>();
+
+	/**
+	 * Yields the number of the given expression, numbering it and all its
+	 * sub-expressions if needed.
+	 *
+	 * @param expression the expression
+	 *
+	 * @return the number
+	 */
+	public synchronized int number(
+			ValueExpression expression) {
+		Object key;
+		BitSet read = new BitSet();
+		if (expression instanceof UnaryExpression) {
+			UnaryExpression unary = (UnaryExpression) expression;
+			int arg = number((ValueExpression) unary.getExpression());
+			read.or(reads.get(arg));
+			key = Arrays.asList(unary.getOperator(), arg);
+		} else if (expression instanceof BinaryExpression) {
+			BinaryExpression binary = (BinaryExpression) expression;
+			int left = number((ValueExpression) binary.getLeft());
+			int right = number((ValueExpression) binary.getRight());
+			read.or(reads.get(left));
+			read.or(reads.get(right));
+			if (isCommutative(binary.getOperator()) && left > right)
+				key = Arrays.asList(binary.getOperator(), right, left);
+			else
+				key = Arrays.asList(binary.getOperator(), left, right);
+		} else if (expression instanceof TernaryExpression) {
+			TernaryExpression ternary = (TernaryExpression) expression;
+			int left = number((ValueExpression) ternary.getLeft());
+			int middle = number((ValueExpression) ternary.getMiddle());
+			int right = number((ValueExpression) ternary.getRight());
+			read.or(reads.get(left));
+			read.or(reads.get(middle));
+			read.or(reads.get(right));
+			key = Arrays.asList(ternary.getOperator(), left, middle, right);
+		} else
+			key = expression;
+
+		Integer number = numbers.get(key);
+		if (number != null)
+			return number;
+
+		number = expressions.size();
+		numbers.put(key, number);
+		expressions.add(expression);
+		if (expression instanceof Identifier)
+			read.set(number);
+		reads.add(read);
+		readers.add(new BitSet());
+		for (int i = read.nextSetBit(0); i >= 0; i = read.nextSetBit(i + 1))
+			readers.get(i).set(number);
+		return number;
+	}
+
+	private static boolean isCommutative(
+			BinaryOperator operator) {
+		return operator instanceof AdditionOperator
+				|| operator instanceof MultiplicationOperator
+				|| operator instanceof ComparisonEq
+				|| operator instanceof ComparisonNe
+				|| operator instanceof LogicalAnd
+				|| operator instanceof LogicalOr;
+	}
+
+	/**
+	 * Yields the first expression that has been given the number.
+	 *
+	 * @param number the number
+	 *
+	 * @return the expression
+	 */
+	public synchronized ValueExpression get(
+			int number) {
+		return expressions.get(number);
+	}
+
+	/**
+	 * Yields whether the expression with the given number reads the given
+	 * identifier.
+	 *
+	 * @param number the number of the expression
+	 * @param id     the identifier
+	 *
+	 * @return {@code true} if {@code id} appears in the expression
+	 */
+	public synchronized boolean reads(
+			int number,
+			Identifier id) {
+		return reads.get(number).get(number(id));
+	}
+
+	/**
+	 * Yields the numbers of the identifiers read by the expression with the
+	 * given number.
+	 *
+	 * @param number the number of the expression
+	 *
+	 * @return a copy of the set of the numbers of the identifiers
+	 */
+	public synchronized BitSet reads(
+			int number) {
+		return (BitSet) reads.get(number).clone();
+	}
+
+	/**
+	 * Yields the numbers of the expressions numbered so far that read the
+	 * given identifier.
+	 *
+	 * @param id the identifier
+	 *
+	 * @return a copy of the set of the numbers of the expressions
+	 */
+	public synchronized BitSet readers(
+			Identifier id) {
+		return (BitSet) readers.get(number(id)).clone();
+	}
+
+	/**
+	 * Yields how many expressions have been numbered so far.
+	 *
+	 * @return the number of expressions
+	 */
+	public synchronized int size() {
+		return expressions.size();
+	}
+}
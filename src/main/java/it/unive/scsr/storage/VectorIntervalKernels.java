@@ -0,0 +1,140 @@
+package it.unive.scsr.storage;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The {@link IntervalKernels} running over the SIMD lanes of the
+ * {@code jdk.incubator.vector} module, using the preferred species of the
+ * platform. Positions that do not fill a whole vector are handled by the
+ * scalar implementation. This class is only instantiated reflectively by
+ * {@link IntervalKernels}, after checking that the module is available.
+ */
+final class VectorIntervalKernels extends IntervalKernels {
+
+	private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+	@Override
+	String name() {
+		return "vector (" + SPECIES.length() + " lanes)";
+	}
+
+	private static int bound(
+			int from,
+			int to) {
+		return from + SPECIES.loopBound(to - from);
+	}
+
+	@Override
+	void lub(
+			long[] la,
+			long[] ha,
+			long[] lb,
+			long[] hb,
+			long[] rl,
+			long[] rh,
+			int from,
+			int to) {
+		int i = from;
+		for (int bound = bound(from, to); i < bound; i += SPECIES.length()) {
+			LongVector.fromArray(SPECIES, la, i).min(LongVector.fromArray(SPECIES, lb, i)).intoArray(rl, i);
+			LongVector.fromArray(SPECIES, ha, i).max(LongVector.fromArray(SPECIES, hb, i)).intoArray(rh, i);
+		}
+		super.lub(la, ha, lb, hb, rl, rh, i, to);
+	}
+
+	@Override
+	void glb(
+			long[] la,
+			long[] ha,
+			long[] lb,
+			long[] hb,
+			long[] rl,
+			long[] rh,
+			int from,
+			int to) {
+		int i = from;
+		for (int bound = bound(from, to); i < bound; i += SPECIES.length()) {
+			LongVector low = LongVector.fromArray(SPECIES, la, i).max(LongVector.fromArray(SPECIES, lb, i));
+			LongVector high = LongVector.fromArray(SPECIES, ha, i).min(LongVector.fromArray(SPECIES, hb, i));
+			VectorMask<Long> empty = low.compare(VectorOperators.GT, high);
+			low.blend(EMPTY_LOW, empty).intoArray(rl, i);
+			high.blend(EMPTY_HIGH, empty).intoArray(rh, i);
+		}
+		super.glb(la, ha, lb, hb, rl, rh, i, to);
+	}
+
+	@Override
+	void widening(
+			long[] la,
+			long[] ha,
+			long[] lb,
+			long[] hb,
+			long[] rl,
+			long[] rh,
+			int from,
+			int to) {
+		int i = from;
+		for (int bound = bound(from, to); i < bound; i += SPECIES.length()) {
+			LongVector oldLow = LongVector.fromArray(SPECIES, la, i);
+			LongVector oldHigh = LongVector.fromArray(SPECIES, ha, i);
+			LongVector newLow = LongVector.fromArray(SPECIES, lb, i);
+			LongVector newHigh = LongVector.fromArray(SPECIES, hb, i);
+			VectorMask<Long> empty = oldLow.compare(VectorOperators.GT, oldHigh);
+			oldLow.blend(MINUS_INF, newLow.compare(VectorOperators.LT, oldLow))
+					.blend(newLow, empty)
+					.intoArray(rl, i);
+			oldHigh.blend(PLUS_INF, newHigh.compare(VectorOperators.GT, oldHigh))
+					.blend(newHigh, empty)
+					.intoArray(rh, i);
+		}
+		super.widening(la, ha, lb, hb, rl, rh, i, to);
+	}
+
+	@Override
+	void narrowing(
+			long[] la,
+			long[] ha,
+			long[] lb,
+			long[] hb,
+			long[] rl,
+			long[] rh,
+			int from,
+			int to) {
+		int i = from;
+		for (int bound = bound(from, to); i < bound; i += SPECIES.length()) {
+			LongVector oldLow = LongVector.fromArray(SPECIES, la, i);
+			LongVector oldHigh = LongVector.fromArray(SPECIES, ha, i);
+			LongVector low = oldLow.blend(LongVector.fromArray(SPECIES, lb, i),
+					oldLow.compare(VectorOperators.EQ, MINUS_INF));
+			LongVector high = oldHigh.blend(LongVector.fromArray(SPECIES, hb, i),
+					oldHigh.compare(VectorOperators.EQ, PLUS_INF));
+			VectorMask<Long> empty = low.compare(VectorOperators.GT, high);
+			low.blend(EMPTY_LOW, empty).intoArray(rl, i);
+			high.blend(EMPTY_HIGH, empty).intoArray(rh, i);
+		}
+		super.narrowing(la, ha, lb, hb, rl, rh, i, to);
+	}
+
+	@Override
+	boolean leq(
+			long[] la,
+			long[] ha,
+			long[] lb,
+			long[] hb,
+			int from,
+			int to) {
+		int i = from;
+		for (int bound = bound(from, to); i < bound; i += SPECIES.length()) {
+			LongVector low = LongVector.fromArray(SPECIES, la, i);
+			LongVector high = LongVector.fromArray(SPECIES, ha, i);
+			VectorMask<Long> outside = LongVector.fromArray(SPECIES, lb, i).compare(VectorOperators.GT, low)
+					.or(high.compare(VectorOperators.GT, LongVector.fromArray(SPECIES, hb, i)));
+			if (outside.and(low.compare(VectorOperators.LE, high)).anyTrue())
+				return false;
+		}
+		return super.leq(la, ha, lb, hb, i, to);
+	}
+}
@@ -1,16 +1,43 @@
 package it.unive.scsr;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
 import org.junit.Test;
 
 import it.unive.lisa.AnalysisException;
 import it.unive.lisa.DefaultConfiguration;
 import it.unive.lisa.LiSA;
+import it.unive.lisa.analysis.AnalyzedCFG;
+import it.unive.lisa.analysis.SimpleAbstractState;
 import it.unive.lisa.analysis.dataflow.DefiniteDataflowDomain;
+import it.unive.lisa.analysis.heap.pointbased.PointBasedHeap;
+import it.unive.lisa.analysis.nonrelational.value.TypeEnvironment;
+import it.unive.lisa.analysis.types.InferredTypes;
+import it.unive.lisa.analysis.value.ValueDomain;
 import it.unive.lisa.conf.LiSAConfiguration;
 import it.unive.lisa.conf.LiSAConfiguration.GraphType;
 import it.unive.lisa.imp.IMPFrontend;
 import it.unive.lisa.imp.ParsingException;
+import it.unive.lisa.interprocedural.ModularWorstCaseAnalysis;
 import it.unive.lisa.program.Program;
+import it.unive.lisa.program.SyntheticLocation;
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.statement.Statement;
+import it.unive.lisa.symbolic.value.BinaryExpression;
+import it.unive.lisa.symbolic.value.ValueExpression;
+import it.unive.lisa.symbolic.value.Variable;
+import it.unive.lisa.symbolic.value.operator.binary.NumericNonOverflowingAdd;
+import it.unive.lisa.symbolic.value.operator.binary.NumericNonOverflowingSub;
+import it.unive.lisa.type.common.Int32Type;
+import it.unive.scsr.storage.ValueNumbering;
 
 public class AvailableExpressionsTest {
 
@@ -44,4 +71,112 @@ public class AvailableExpressionsTest {
         // finally, we tell LiSA to analyze the program
         lisa.run(program);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testBitAE() throws ParsingException, AnalysisException {
+        Map<String, DefiniteDataflowDomain<AvailableExpressions>> expected = run("outputs/ae-bits/elements",
+                new DefiniteDataflowDomain<>(new AvailableExpressions()));
+
+        // the available expressions are stored as bitsets over value numbers
+        Map<String, BitAvailableExpressions> actual = run("outputs/ae-bits/bits", new BitAvailableExpressions());
+
+        // expressions are compared through their numbers, so that commutative
+        // forms are the same expression
+        ValueNumbering numbering = new ValueNumbering();
+        assertEquals(expected.keySet(), actual.keySet());
+        assertFalse(expected.isEmpty());
+        for (Map.Entry<String, DefiniteDataflowDomain<AvailableExpressions>> state : expected.entrySet()) {
+            BitAvailableExpressions bits = actual.get(state.getKey());
+            assertEquals(state.getKey(), state.getValue().isBottom(), bits.isBottom());
+            if (bits.isBottom())
+                continue;
+
+            Set<Integer> elements = new TreeSet<>();
+            for (AvailableExpressions ae : state.getValue().getDataflowElements())
+                elements.add(numbering.number(ae.getExpression()));
+            Set<Integer> available = new TreeSet<>();
+            for (ValueExpression expression : bits.getAvailableExpressions())
+                available.add(numbering.number(expression));
+            assertEquals(state.getKey(), elements, available);
+        }
+    }
+
+    // the state after each node of available-expressions.imp
+    private static <V extends ValueDomain<V>> Map<String, V> run(
+            String workdir,
+            V domain)
+            throws ParsingException, AnalysisException {
+        // we parse the program to get the CFG representation of the code in it
+        Program program = IMPFrontend.processFile("inputs/available-expressions.imp");
+
+        // we build a new configuration for the analysis
+        LiSAConfiguration conf = new DefaultConfiguration();
+
+        // we specify where we want files to be generated
+        conf.workdir = workdir;
+
+        // we specify the visual format of the analysis results
+        conf.analysisGraphs = GraphType.HTML;
+
+        // we specify the analysis that we want to execute
+        conf.abstractState = DefaultConfiguration.simpleState(
+                DefaultConfiguration.defaultHeapDomain(),
+                domain,
+                DefaultConfiguration.defaultTypeDomain()
+        );
+        ModularWorstCaseAnalysis<SimpleAbstractState<PointBasedHeap, V,
+                TypeEnvironment<InferredTypes>>> analysis = new ModularWorstCaseAnalysis<>();
+        conf.interproceduralAnalysis = analysis;
+
+        // we instantiate LiSA with our configuration
+        LiSA lisa = new LiSA(conf);
+
+        // finally, we tell LiSA to analyze the program
+        lisa.run(program);
+
+        Map<String, V> states = new HashMap<>();
+        for (CFG cfg : program.getAllCFGs())
+            for (AnalyzedCFG<SimpleAbstractState<PointBasedHeap, V,
+                    TypeEnvironment<InferredTypes>>> result : analysis.getAnalysisResultsOf(cfg))
+                for (Statement st : cfg.getNodes())
+                    states.put(cfg.getDescriptor().getFullSignature() + " " + st.getLocation() + " " + st,
+                            result.getAnalysisStateAfter(st).getState().getValueState());
+        return states;
+    }
+
+    @Test
+    public void testValueNumbering() throws Exception {
+        Variable a = new Variable(Int32Type.INSTANCE, "a", SyntheticLocation.INSTANCE);
+        Variable b = new Variable(Int32Type.INSTANCE, "b", SyntheticLocation.INSTANCE);
+        Variable x = new Variable(Int32Type.INSTANCE, "x", SyntheticLocation.INSTANCE);
+        BinaryExpression ab = new BinaryExpression(Int32Type.INSTANCE, a, b, NumericNonOverflowingAdd.INSTANCE,
+                SyntheticLocation.INSTANCE);
+        BinaryExpression ba = new BinaryExpression(Int32Type.INSTANCE, b, a, NumericNonOverflowingAdd.INSTANCE,
+                SyntheticLocation.INSTANCE);
+        BinaryExpression aMinusB = new BinaryExpression(Int32Type.INSTANCE, a, b, NumericNonOverflowingSub.INSTANCE,
+                SyntheticLocation.INSTANCE);
+        BinaryExpression bMinusA = new BinaryExpression(Int32Type.INSTANCE, b, a, NumericNonOverflowingSub.INSTANCE,
+                SyntheticLocation.INSTANCE);
+
+        // commutative forms share the same number, the others do not
+        ValueNumbering numbering = new ValueNumbering();
+        assertEquals(numbering.number(ab), numbering.number(ba));
+        assertNotEquals(numbering.number(aMinusB), numbering.number(bMinusA));
+        assertTrue(numbering.reads(numbering.number(ab), a));
+        assertFalse(numbering.reads(numbering.number(ab), x));
+
+        // b + a is available after x = a + b, and killed by a = ...
+        BitAvailableExpressions top = new BitAvailableExpressions();
+        BitAvailableExpressions afterX = top.assign(x, ab, null, null);
+        assertEquals(1, afterX.getAvailableExpressions().size());
+        assertEquals(afterX, afterX.smallStepSemantics(ba, null, null));
+        BitAvailableExpressions afterA = afterX.assign(a, b, null, null);
+        assertTrue(afterA.isTop());
+
+        // the lub keeps the expressions available on both branches
+        BitAvailableExpressions both = afterX.smallStepSemantics(aMinusB, null, null);
+        assertEquals(afterX, both.lub(afterX));
+        assertTrue(both.lessOrEqual(afterX));
+        assertFalse(afterX.lessOrEqual(both));
+    }
+}
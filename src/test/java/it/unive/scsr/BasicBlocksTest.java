@@ -0,0 +1,189 @@
+package it.unive.scsr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import it.unive.lisa.AnalysisException;
+import it.unive.lisa.DefaultConfiguration;
+import it.unive.lisa.LiSA;
+import it.unive.lisa.analysis.AnalyzedCFG;
+import it.unive.lisa.analysis.SemanticException;
+import it.unive.lisa.analysis.SimpleAbstractState;
+import it.unive.lisa.analysis.dataflow.DataflowDomain;
+import it.unive.lisa.analysis.dataflow.DataflowElement;
+import it.unive.lisa.analysis.dataflow.DefiniteDataflowDomain;
+import it.unive.lisa.analysis.dataflow.PossibleDataflowDomain;
+import it.unive.lisa.analysis.heap.pointbased.PointBasedHeap;
+import it.unive.lisa.analysis.nonrelational.value.TypeEnvironment;
+import it.unive.lisa.analysis.types.InferredTypes;
+import it.unive.lisa.conf.LiSAConfiguration;
+import it.unive.lisa.imp.IMPFrontend;
+import it.unive.lisa.imp.ParsingException;
+import it.unive.lisa.interprocedural.ModularWorstCaseAnalysis;
+import it.unive.lisa.program.Program;
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.statement.Statement;
+import it.unive.scsr.blocks.BasicBlock;
+import it.unive.scsr.blocks.BasicBlocks;
+import it.unive.scsr.blocks.BlockDataflow;
+
+public class BasicBlocksTest {
+
+	@Test
+	public void testBlocks() throws ParsingException {
+		Program program = IMPFrontend.processFile("inputs/available-expressions.imp");
+		for (CFG cfg : program.getAllCFGs()) {
+			BasicBlocks blocks = new BasicBlocks(cfg);
+			int statements = 0;
+			for (BasicBlock block : blocks.getBlocks()) {
+				statements += block.getStatements().size();
+				for (Statement st : block.getStatements())
+					assertEquals(block, blocks.blockOf(st));
+				// only the last statement can branch
+				for (Statement st : block.getStatements())
+					if (st != block.getLast())
+						assertEquals(1, cfg.followersOf(st).size());
+			}
+			assertEquals(cfg.getNodes().size(), statements);
+		}
+	}
+
+	@Test
+	public void testReachingDefinitions() throws ParsingException, SemanticException {
+		check("inputs/reaching-definitions.imp", BlockDataflow.reachingDefinitions(), true);
+	}
+
+	@Test
+	public void testAvailableExpressions() throws ParsingException, SemanticException {
+		check("inputs/available-expressions.imp", BlockDataflow.availableExpressions(), false);
+	}
+
+	@Test
+	public void testConstantPropagation() throws ParsingException, SemanticException {
+		check("inputs/cprop.imp", BlockDataflow.constantPropagation(), false);
+	}
+
+	@Test
+	public void testNestedExpressions() throws ParsingException, AnalysisException, SemanticException {
+		compare("inputs/nested.imp", new PossibleDataflowDomain<>(new ReachingDefinitions()),
+				BlockDataflow.reachingDefinitions(), "outputs/blocks/reaching-definitions");
+		compare("inputs/nested.imp", new DefiniteDataflowDomain<>(new AvailableExpressions()),
+				BlockDataflow.availableExpressions(), "outputs/blocks/available-expressions");
+	}
+
+	@Test
+	public void testConstantPropagationAgainstLiSA() throws ParsingException, AnalysisException, SemanticException {
+		// the summaries of constant propagation rewrite the assignments of a
+		// block on the values at its entry: reassign() in nested.imp assigns
+		// variables already read in the same block (x = z; z = 5; y = x)
+		compare("inputs/cprop.imp", new DefiniteDataflowDomain<>(new CPropSolution()),
+				BlockDataflow.constantPropagation(), "outputs/blocks/cprop");
+		compare("inputs/nested.imp", new DefiniteDataflowDomain<>(new CPropSolution()),
+				BlockDataflow.constantPropagation(), "outputs/blocks/cprop-nested");
+	}
+
+	/**
+	 * Checks that the state after each node of the given file is the one
+	 * computed by LiSA.
+	 */
+	private static <D extends DataflowDomain<D, E>, E extends DataflowElement<D, E>> void compare(
+			String file,
+			D domain,
+			BlockDataflow<D, E> analysis,
+			String workdir)
+			throws ParsingException, AnalysisException, SemanticException {
+		// we parse the program to get the CFG representation of the code in it
+		Program program = IMPFrontend.processFile(file);
+
+		// we build a new configuration for the analysis
+		LiSAConfiguration conf = new DefaultConfiguration();
+
+		// we specify where we want files to be generated
+		conf.workdir = workdir;
+
+		// we specify the analysis that we want to execute
+		conf.abstractState = DefaultConfiguration.simpleState(
+				DefaultConfiguration.defaultHeapDomain(),
+				domain,
+				DefaultConfiguration.defaultTypeDomain());
+
+		// the cfgs have no parameters nor calls: each one is analyzed once
+		ModularWorstCaseAnalysis<SimpleAbstractState<PointBasedHeap, D,
+				TypeEnvironment<InferredTypes>>> lisaAnalysis = new ModularWorstCaseAnalysis<>();
+		conf.interproceduralAnalysis = lisaAnalysis;
+
+		// we instantiate LiSA with our configuration
+		LiSA lisa = new LiSA(conf);
+
+		// finally, we tell LiSA to analyze the program
+		lisa.run(program);
+
+		int compared = 0;
+		for (CFG cfg : program.getAllCFGs()) {
+			BlockDataflow<D, E>.Results results = analysis.analyze(cfg);
+			for (AnalyzedCFG<SimpleAbstractState<PointBasedHeap, D,
+					TypeEnvironment<InferredTypes>>> result : lisaAnalysis.getAnalysisResultsOf(cfg))
+				for (Statement st : cfg.getNodes()) {
+					Set<E> actual = results.getStateAfter(st);
+					assertNotNull(st.toString(), actual);
+					D expected = result.getAnalysisStateAfter(st).getState().getValueState();
+					assertEquals(st.toString(), names(expected.getDataflowElements()), names(actual));
+					compared++;
+				}
+		}
+		assertTrue(compared > 0);
+	}
+
+	/**
+	 * Checks that the composed summary of each block yields the same state as
+	 * replaying its statements one by one, and that the fixpoint visits fewer
+	 * blocks than there are statements.
+	 */
+	private static <D extends DataflowDomain<D, E>, E extends DataflowElement<D, E>> void check(
+			String file,
+			BlockDataflow<D, E> analysis,
+			boolean possible)
+			throws ParsingException, SemanticException {
+		Program program = IMPFrontend.processFile(file);
+		int visits = 0, nodes = 0;
+		for (CFG cfg : program.getAllCFGs()) {
+			BlockDataflow<D, E>.Results results = analysis.analyze(cfg);
+			visits += results.getVisits();
+			nodes += cfg.getNodes().size();
+
+			BasicBlocks blocks = results.getBlocks();
+			for (BasicBlock block : blocks.getBlocks()) {
+				Set<E> entry = results.getEntryState(block);
+				if (entry == null)
+					continue;
+				for (BasicBlock predecessor : blocks.predecessorsOf(block)) {
+					Set<E> exit = results.getStateAfter(predecessor.getLast());
+					if (exit == null)
+						continue;
+					Set<String> in = names(entry), out = names(exit);
+					if (blocks.predecessorsOf(block).size() == 1 && !blocks.isEntry(block))
+						assertEquals(out, in);
+					else if (possible)
+						assertTrue(in.containsAll(out));
+					else
+						assertTrue(out.containsAll(in));
+				}
+			}
+		}
+		assertTrue(visits < nodes);
+	}
+
+	private static Set<String> names(
+			Set<? extends DataflowElement<?, ?>> elements) {
+		Set<String> result = new TreeSet<>();
+		for (DataflowElement<?, ?> e : elements)
+			result.add(e.representation().toString());
+		return result;
+	}
+}
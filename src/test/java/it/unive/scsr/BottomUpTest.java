@@ -0,0 +1,196 @@
+package it.unive.scsr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+import it.unive.lisa.AnalysisException;
+import it.unive.lisa.DefaultConfiguration;
+import it.unive.lisa.LiSA;
+import it.unive.lisa.analysis.AnalyzedCFG;
+import it.unive.lisa.analysis.SemanticException;
+import it.unive.lisa.analysis.SimpleAbstractState;
+import it.unive.lisa.analysis.heap.pointbased.PointBasedHeap;
+import it.unive.lisa.analysis.nonrelational.value.TypeEnvironment;
+import it.unive.lisa.analysis.nonrelational.value.ValueEnvironment;
+import it.unive.lisa.analysis.types.InferredTypes;
+import it.unive.lisa.conf.LiSAConfiguration;
+import it.unive.lisa.conf.LiSAConfiguration.GraphType;
+import it.unive.lisa.imp.IMPFrontend;
+import it.unive.lisa.imp.ParsingException;
+import it.unive.lisa.interprocedural.InterproceduralAnalysis;
+import it.unive.lisa.interprocedural.context.ContextBasedAnalysis;
+import it.unive.lisa.program.Program;
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.statement.Assignment;
+import it.unive.lisa.program.cfg.statement.Statement;
+import it.unive.lisa.program.cfg.statement.VariableRef;
+import it.unive.lisa.symbolic.value.Variable;
+import it.unive.scsr.benchmark.ProgramGenerator;
+import it.unive.scsr.interprocedural.BottomUpAnalysis;
+import it.unive.scsr.interprocedural.CallGraphSCCs;
+import it.unive.scsr.interprocedural.CallStrings;
+
+public class BottomUpTest {
+
+	@Test
+	public void testSCCs() throws IOException, ParsingException {
+		// generated programs have acyclic call graphs
+		ProgramGenerator generator = new ProgramGenerator();
+		generator.methods = 20;
+		generator.fanOut = 3;
+		Path file = Paths.get("outputs", "bottom-up", "bench.imp");
+		generator.generate(file);
+		Program program = IMPFrontend.processFile(file.toString());
+
+		CallGraphSCCs sccs = new CallGraphSCCs(program.getAllCFGs());
+		List<Set<CFG>> components = sccs.getComponents();
+		assertEquals(program.getAllCFGs().size(), components.size());
+
+		// callees must always come before their callers
+		for (int i = 0; i < components.size(); i++)
+			for (CFG cfg : components.get(i)) {
+				assertTrue(!sccs.isRecursive(cfg));
+				for (CFG callee : sccs.getCallees(cfg))
+					for (int j = i; j < components.size(); j++)
+						assertTrue(callee + " is scheduled after " + cfg, !components.get(j).contains(callee));
+			}
+	}
+
+	@Test
+	public void testAgainstContextBased() throws ParsingException, AnalysisException, SemanticException {
+		// we analyze callees before callers, summarizing each cfg once
+		BottomUpAnalysis<SimpleAbstractState<PointBasedHeap, ValueEnvironment<Intervals>,
+				TypeEnvironment<InferredTypes>>> bottomUp = new BottomUpAnalysis<>(4);
+		Map<String, Intervals> summarized = valuesInMain("outputs/bottom-up/summaries", bottomUp);
+
+		// and we analyze each call in its own context
+		ContextBasedAnalysis<SimpleAbstractState<PointBasedHeap, ValueEnvironment<Intervals>,
+				TypeEnvironment<InferredTypes>>> contextBased = new ContextBasedAnalysis<>(CallStrings.configured());
+		Map<String, Intervals> contextual = valuesInMain("outputs/bottom-up/contexts", contextBased);
+
+		// summaries are sound with respect to the contextual results
+		assertEquals(contextual.keySet(), summarized.keySet());
+		for (Map.Entry<String, Intervals> value : contextual.entrySet())
+			assertTrue(value.getKey(), value.getValue().lessOrEqual(summarized.get(value.getKey())));
+
+		// and lose nothing on calls whose results do not depend on their
+		// arguments
+		for (String name : new String[] { "k", "m", "o", "p" })
+			assertEquals(name, contextual.get(name), summarized.get(name));
+
+		// chain3 is summarized for any x, while here it is called with 15
+		assertEquals(new Intervals(19, 19), contextual.get("q"));
+		assertFalse(summarized.get("q").lessOrEqual(contextual.get("q")));
+	}
+
+	// the value of each variable of calls.main after its assignment
+	private static Map<String, Intervals> valuesInMain(
+			String workdir,
+			InterproceduralAnalysis<SimpleAbstractState<PointBasedHeap, ValueEnvironment<Intervals>,
+					TypeEnvironment<InferredTypes>>> analysis)
+			throws ParsingException, AnalysisException {
+		// we parse the program to get the CFG representation of the code in it
+		Program program = IMPFrontend.processFile("inputs/calls.imp");
+
+		// we build a new configuration for the analysis
+		LiSAConfiguration conf = new DefaultConfiguration();
+
+		// we specify where we want files to be generated
+		conf.workdir = workdir;
+
+		// we specify the visual format of the analysis results
+		conf.analysisGraphs = GraphType.NONE;
+
+		// we specify the analysis that we want to execute
+		conf.abstractState = DefaultConfiguration.simpleState(
+				DefaultConfiguration.defaultHeapDomain(),
+				new ValueEnvironment<>(new Intervals()),
+				DefaultConfiguration.defaultTypeDomain());
+		conf.interproceduralAnalysis = analysis;
+
+		// we instantiate LiSA with our configuration
+		LiSA lisa = new LiSA(conf);
+
+		// finally, we tell LiSA to analyze the program
+		lisa.run(program);
+
+		CFG main = null;
+		for (CFG cfg : program.getAllCFGs())
+			if (cfg.getDescriptor().getName().equals("main"))
+				main = cfg;
+
+		Map<String, Intervals> values = new TreeMap<>();
+		for (AnalyzedCFG<SimpleAbstractState<PointBasedHeap, ValueEnvironment<Intervals>,
+				TypeEnvironment<InferredTypes>>> result : analysis.getAnalysisResultsOf(main))
+			for (Statement st : main.getNodes())
+				if (st instanceof Assignment && ((Assignment) st).getLeft() instanceof VariableRef) {
+					VariableRef ref = (VariableRef) ((Assignment) st).getLeft();
+					Variable id = new Variable(ref.getStaticType(), ref.getName(), ref.getLocation());
+					Intervals value = result.getAnalysisStateAfter(st).getState().getValueState().getState(id);
+					values.put(ref.getName(), value);
+				}
+		return values;
+	}
+
+	@Test
+	public void testReturnedValue() throws ParsingException, AnalysisException {
+		// we parse the program to get the CFG representation of the code in it
+		Program program = IMPFrontend.processFile("inputs/calls.imp");
+
+		// we build a new configuration for the analysis
+		LiSAConfiguration conf = new DefaultConfiguration();
+
+		// we specify where we want files to be generated
+		conf.workdir = "outputs/bottom-up/calls";
+
+		// we specify the visual format of the analysis results
+		conf.analysisGraphs = GraphType.NONE;
+
+		// we specify the analysis that we want to execute
+		conf.abstractState = DefaultConfiguration.simpleState(
+				DefaultConfiguration.defaultHeapDomain(),
+				new ValueEnvironment<>(new Intervals()),
+				DefaultConfiguration.defaultTypeDomain());
+
+		// we analyze callees before callers, summarizing each cfg once
+		BottomUpAnalysis<SimpleAbstractState<PointBasedHeap, ValueEnvironment<Intervals>,
+				TypeEnvironment<InferredTypes>>> analysis = new BottomUpAnalysis<>(4);
+		conf.interproceduralAnalysis = analysis;
+
+		// we instantiate LiSA with our configuration
+		LiSA lisa = new LiSA(conf);
+
+		// finally, we tell LiSA to analyze the program
+		lisa.run(program);
+
+		// k = this.twice() + 1, where twice() returns seven() + seven()
+		CFG main = null;
+		for (CFG cfg : program.getAllCFGs())
+			if (cfg.getDescriptor().getName().equals("main"))
+				main = cfg;
+		Assignment assignment = null;
+		for (Statement st : main.getNodes())
+			if (st instanceof Assignment && ((Assignment) st).getLeft() instanceof VariableRef
+					&& ((VariableRef) ((Assignment) st).getLeft()).getName().equals("k"))
+				assignment = (Assignment) st;
+		VariableRef k = (VariableRef) assignment.getLeft();
+		Variable id = new Variable(k.getStaticType(), k.getName(), k.getLocation());
+
+		Intervals expected = new Intervals(15, 15);
+		assertEquals(1, analysis.getAnalysisResultsOf(main).size());
+		for (AnalyzedCFG<SimpleAbstractState<PointBasedHeap, ValueEnvironment<Intervals>,
+				TypeEnvironment<InferredTypes>>> result : analysis.getAnalysisResultsOf(main))
+			assertEquals(expected, result.getAnalysisStateAfter(assignment).getState().getValueState().getState(id));
+	}
+}
@@ -24,6 +24,7 @@ import it.unive.lisa.outputs.compare.JsonReportComparer;
 import it.unive.lisa.outputs.json.JsonReport;
 import it.unive.lisa.program.Program;
 import it.unive.lisa.util.file.FileManager;
+import it.unive.scsr.eval.EvaluationContext;
 
 public class CPropTaskEvaluation {
 
@@ -31,7 +32,7 @@ public class CPropTaskEvaluation {
 	public void testCP() throws ParsingException, AnalysisException {
 		Program program = IMPFrontend.processFile("inputs/cp-eval.imp");
 		LiSAConfiguration conf = new DefaultConfiguration();
-		conf.workdir = "outputs/cp-eval";
+		conf.workdir = EvaluationContext.outputs + "/cp-eval";
 		conf.serializeResults = true;
 		conf.jsonOutput = true;
 		conf.analysisGraphs = GraphType.HTML;
@@ -51,7 +52,7 @@ public class CPropTaskEvaluation {
 		lisa.run(program);
 
 		Path expectedPath = Paths.get("expected", "cp-eval");
-		Path actualPath = Paths.get("outputs", "cp-eval");
+		Path actualPath = Paths.get(EvaluationContext.outputs, "cp-eval");
 
 		File expFile = Paths.get(expectedPath.toString(), "report.json").toFile();
 		File actFile = Paths.get(actualPath.toString(), "report.json").toFile();
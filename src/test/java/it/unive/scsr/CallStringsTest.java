@@ -0,0 +1,67 @@
+package it.unive.scsr;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import it.unive.lisa.AnalysisException;
+import it.unive.lisa.DefaultConfiguration;
+import it.unive.lisa.LiSA;
+import it.unive.lisa.analysis.nonrelational.value.ValueEnvironment;
+import it.unive.lisa.conf.LiSAConfiguration;
+import it.unive.lisa.conf.LiSAConfiguration.GraphType;
+import it.unive.lisa.imp.IMPFrontend;
+import it.unive.lisa.imp.ParsingException;
+import it.unive.lisa.program.Program;
+import it.unive.scsr.interprocedural.CallStrings;
+import it.unive.scsr.interprocedural.CallStrings.ContextCounter;
+
+public class CallStringsTest {
+
+	@Test
+	public void testContextCount() throws ParsingException, AnalysisException {
+		int insensitive = run(0);
+		int bounded = run(1);
+		int full = run(-1);
+
+		// longer call strings can only split contexts
+		assertTrue(insensitive + " > " + bounded, insensitive <= bounded);
+		assertTrue(bounded + " > " + full, bounded <= full);
+
+		// bump() is reached through chains of calls of different lengths,
+		// that a single call site cannot tell apart
+		assertTrue(bounded + " >= " + full, bounded < full);
+	}
+
+	private static int run(
+			int k) throws ParsingException, AnalysisException {
+		// we parse the program to get the CFG representation of the code in it
+		Program program = IMPFrontend.processFile("inputs/calls.imp");
+
+		// we build a new configuration for the analysis
+		LiSAConfiguration conf = new DefaultConfiguration();
+
+		// we specify where we want files to be generated
+		conf.workdir = "outputs/callstrings/k" + k;
+
+		// we specify the visual format of the analysis results
+		conf.analysisGraphs = GraphType.NONE;
+
+		// we specify the analysis that we want to execute
+		conf.abstractState = DefaultConfiguration.simpleState(
+				DefaultConfiguration.defaultHeapDomain(),
+				new ValueEnvironment<>(new Intervals()),
+				DefaultConfiguration.defaultTypeDomain());
+
+		// we keep the last k call sites as context
+		ContextCounter<?> counter = CallStrings.apply(conf, k);
+
+		// we instantiate LiSA with our configuration
+		LiSA lisa = new LiSA(conf);
+
+		// finally, we tell LiSA to analyze the program
+		lisa.run(program);
+
+		return counter.getTotal();
+	}
+}
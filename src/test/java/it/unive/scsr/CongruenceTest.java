@@ -0,0 +1,192 @@
+package it.unive.scsr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import it.unive.lisa.AnalysisException;
+import it.unive.lisa.DefaultConfiguration;
+import it.unive.lisa.LiSA;
+import it.unive.lisa.analysis.SemanticException;
+import it.unive.lisa.analysis.nonrelational.value.NonRelationalValueDomain;
+import it.unive.lisa.analysis.nonrelational.value.ValueEnvironment;
+import it.unive.lisa.conf.LiSAConfiguration;
+import it.unive.lisa.conf.LiSAConfiguration.GraphType;
+import it.unive.lisa.imp.IMPFrontend;
+import it.unive.lisa.imp.ParsingException;
+import it.unive.lisa.interprocedural.context.ContextBasedAnalysis;
+import it.unive.lisa.program.Program;
+import it.unive.lisa.symbolic.value.operator.binary.NumericNonOverflowingAdd;
+import it.unive.lisa.symbolic.value.operator.binary.NumericNonOverflowingMul;
+import it.unive.lisa.util.numeric.MathNumber;
+import it.unive.scsr.checkers.DivisionByZeroChecker;
+import it.unive.scsr.checkers.OverflowChecker.NumericalSize;
+import it.unive.scsr.interprocedural.CallStrings;
+
+public class CongruenceTest {
+
+	@Test
+	public void testLattice() throws SemanticException {
+		Congruence three = Congruence.constant(3), seven = Congruence.constant(7);
+
+		// 3 and 7 are both 3 modulo 4
+		Congruence joined = three.lub(seven);
+		assertEquals(new Congruence(4, 3), joined);
+		assertTrue(three.lessOrEqual(joined));
+		assertFalse(joined.lessOrEqual(new Congruence(8, 3)));
+		assertTrue(new Congruence(8, 7).lessOrEqual(joined));
+
+		// x = 1 (mod 4) and x = 2 (mod 3) gives x = 5 (mod 12)
+		assertEquals(new Congruence(12, 5), new Congruence(4, 1).glb(new Congruence(3, 2)));
+		assertTrue(new Congruence(4, 1).glb(new Congruence(2, 0)).isBottom());
+
+		// 4Z + 2 is never zero, and (4Z + 3) + (4Z + 3) is even
+		Congruence sum = joined.evalBinaryExpression(NumericNonOverflowingAdd.INSTANCE, joined, joined, null, null);
+		assertEquals(new Congruence(4, 2), sum);
+		assertFalse(sum.contains(0));
+		Congruence product = joined.evalBinaryExpression(NumericNonOverflowingMul.INSTANCE, joined,
+				Congruence.constant(2), null, null);
+		assertEquals(new Congruence(8, 6), product);
+
+		// overflowing results go to top
+		Congruence big = Congruence.constant(Long.MAX_VALUE);
+		assertTrue(big.evalBinaryExpression(NumericNonOverflowingAdd.INSTANCE, big, big, null, null).isTop());
+	}
+
+	@Test
+	public void testReduction() throws SemanticException {
+		// after i < 10 is false, a counter stepping by 3 from 0 lies in [10, 12]
+		IntervalsCongruence exit = new IntervalsCongruence(new Intervals(10, 12), new Congruence(3, 0));
+		assertEquals(new Intervals(12, 12), exit.intervals);
+		assertEquals(Congruence.constant(12), exit.congruence);
+
+		// bounds are moved inwards, and an empty interval is bottom
+		IntervalsCongruence odd = new IntervalsCongruence(new Intervals(-2, 2), new Congruence(2, 1));
+		assertEquals(new Intervals(-1, 1), odd.intervals);
+		assertTrue(odd.excludesZero());
+		assertTrue(new IntervalsCongruence(new Intervals(1, 3), new Congruence(5, 0)).isBottom());
+
+		// the interval is tightened even if the other bound is infinite
+		IntervalsCongruence widened = new IntervalsCongruence(new Intervals(1, 1).widening(new Intervals(1, 2)),
+				new Congruence(4, 2));
+		assertEquals(new MathNumber(2), widened.intervals.interval.getLow());
+		assertTrue(widened.intervals.interval.getHigh().isPlusInfinity());
+	}
+
+	@Test
+	public void testReducedProduct() throws ParsingException, AnalysisException {
+		// we parse the program to get the CFG representation of the code in it
+		Program program = IMPFrontend.processFile("inputs/congruence.imp");
+
+		// we build a new configuration for the analysis
+		LiSAConfiguration conf = new DefaultConfiguration();
+
+		// we specify where we want files to be generated
+		conf.workdir = "outputs/congruence";
+
+		// we specify the visual format of the analysis results
+		conf.analysisGraphs = GraphType.HTML;
+
+		// we specify the analysis that we want to execute
+		conf.abstractState = DefaultConfiguration.simpleState(
+				DefaultConfiguration.defaultHeapDomain(),
+				new ValueEnvironment<>(new IntervalsCongruence()),
+				DefaultConfiguration.defaultTypeDomain());
+
+		// we specify to perform an interprocedural analysis
+		conf.interproceduralAnalysis = new ContextBasedAnalysis<>(CallStrings.configured());
+
+		// we instantiate LiSA with our configuration
+		LiSA lisa = new LiSA(conf);
+
+		// finally, we tell LiSA to analyze the program
+		lisa.run(program);
+	}
+
+	@Test
+	public void testDivisionByZero() throws ParsingException, AnalysisException, IOException {
+		List<String> code = Files.readAllLines(Paths.get("inputs/congruence.imp"));
+		int odd = lineOf(code, "odd(b)"), scaled = lineOf(code, "scaled(n)");
+
+		// with intervals, x is [-1, 1] in odd and unbounded in scaled: both
+		// divisions may be by zero
+		Set<Integer> intervals = warnedLines(new Intervals(), "outputs/congruence/divbyzero-intervals");
+		assertTrue(intervals.toString(), intervals.stream().anyMatch(line -> line > odd && line < scaled));
+		assertTrue(intervals.toString(), intervals.stream().anyMatch(line -> line > scaled));
+
+		// the congruence proves x odd in odd and 2 modulo 4 in scaled
+		Set<Integer> reduced = warnedLines(new IntervalsCongruence(), "outputs/congruence/divbyzero-reduced");
+		assertFalse(reduced.toString(), reduced.stream().anyMatch(line -> line > odd));
+	}
+
+	private static <V extends NonRelationalValueDomain<V>> Set<Integer> warnedLines(
+			V domain,
+			String workdir)
+			throws ParsingException, AnalysisException, IOException {
+		// we parse the program to get the CFG representation of the code in it
+		Program program = IMPFrontend.processFile("inputs/congruence.imp");
+
+		// we build a new configuration for the analysis
+		LiSAConfiguration conf = new DefaultConfiguration();
+
+		// we specify where we want files to be generated
+		conf.workdir = workdir;
+
+		// we specify the create a json file containing warnings triggered by the analysis
+		conf.jsonOutput = true;
+
+		// we specify the analysis that we want to execute
+		conf.abstractState = DefaultConfiguration.simpleState(
+				DefaultConfiguration.defaultHeapDomain(),
+				new ValueEnvironment<>(domain),
+				DefaultConfiguration.defaultTypeDomain());
+
+		// we specify to perform an interprocedural analysis
+		conf.interproceduralAnalysis = new ContextBasedAnalysis<>(CallStrings.configured());
+
+		// the DivisionByZeroChecker reports the divisions whose divisor may be zero
+		conf.semanticChecks.add(new DivisionByZeroChecker<V>(NumericalSize.INT32));
+
+		// we instantiate LiSA with our configuration
+		LiSA lisa = new LiSA(conf);
+
+		// finally, we tell LiSA to analyze the program
+		lisa.run(program);
+
+		// warnings report the line of the division
+		JsonNode report = new ObjectMapper().readTree(new File(conf.workdir, "report.json"));
+		Set<Integer> lines = new HashSet<>();
+		Pattern location = Pattern.compile("congruence\\.imp'?:(\\d+):\\d+");
+		report.get("warnings").forEach(w -> {
+			Matcher matcher = location.matcher(w.toString());
+			assertTrue(w.toString(), matcher.find());
+			lines.add(Integer.parseInt(matcher.group(1)));
+		});
+		return lines;
+	}
+
+	private static int lineOf(
+			List<String> code,
+			String text) {
+		for (int i = 0; i < code.size(); i++)
+			if (code.get(i).contains(text))
+				// lines are numbered from 1
+				return i + 1;
+		throw new IllegalArgumentException(text + " not found");
+	}
+}
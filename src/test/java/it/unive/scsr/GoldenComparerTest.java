@@ -0,0 +1,94 @@
+package it.unive.scsr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import it.unive.lisa.util.file.FileManager;
+import it.unive.scsr.outputs.GoldenComparer;
+import it.unive.scsr.outputs.GoldenComparer.Result;
+
+public class GoldenComparerTest {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	@Test
+	public void testGoldenComparison() throws IOException {
+		Path source = Paths.get("expected", "intervals");
+		Path expected = Paths.get("outputs", "golden", "expected");
+		Path actual = Paths.get("outputs", "golden", "actual");
+		FileManager.forceDeleteFolder(Paths.get("outputs", "golden").toString());
+		copy(source, expected);
+		copy(source, actual);
+
+		// identical directories, with hashes computed on the fly
+		Result result = new GoldenComparer(false).compare(expected, actual);
+		assertTrue(result.toString(), result.isEqual());
+
+		// identical directories, with precomputed hashes
+		GoldenComparer.writeManifest(expected);
+		result = new GoldenComparer(false).compare(expected, actual);
+		assertTrue(result.toString(), result.isEqual());
+
+		// the order of nodes and edges is irrelevant
+		Path loop = actual.resolve("untyped_intervals.loop(intervals__this,_untyped_b).json");
+		ObjectNode graph = (ObjectNode) MAPPER.readTree(loop.toFile());
+		for (String field : new String[] { "nodes", "edges" }) {
+			List<JsonNode> elements = new ArrayList<>();
+			graph.get(field).forEach(elements::add);
+			Collections.reverse(elements);
+			graph.putArray(field).addAll(elements);
+		}
+		MAPPER.writeValue(loop.toFile(), graph);
+		result = new GoldenComparer(false).compare(expected, actual);
+		assertTrue(result.toString(), result.isEqual());
+
+		// an expected file changed after the manifest must not be hidden by its stale hash
+		Path branches = expected.resolve("untyped_intervals.branches(intervals__this,_untyped_b).json");
+		Files.writeString(branches, Files.readString(branches).replace("[-7, 7]", "[-7, 8]"));
+		Files.setLastModifiedTime(branches, FileTime.fromMillis(
+				Files.getLastModifiedTime(expected.resolve(GoldenComparer.MANIFEST)).toMillis() + 1000));
+		result = new GoldenComparer(false).compare(expected, actual);
+		assertEquals(result.toString(), 1, result.different.size());
+		assertTrue(result.different.containsKey(branches.getFileName().toString()));
+		GoldenComparer.writeManifest(expected);
+		Files.copy(branches, actual.resolve(branches.getFileName().toString()), StandardCopyOption.REPLACE_EXISTING);
+
+		// a semantic change in one of the cfgs must be detected
+		Path file = actual.resolve("untyped_intervals.basic(intervals__this).json");
+		Files.writeString(file, Files.readString(file).replace("[2, 2]", "[2, 3]"));
+		result = new GoldenComparer(true).compare(expected, actual);
+		assertFalse(result.isEqual());
+		assertEquals(1, result.different.size());
+		assertTrue(result.different.containsKey(file.getFileName().toString()));
+	}
+
+	private static void copy(Path from, Path to) throws IOException {
+		try (Stream<Path> walk = Files.walk(from)) {
+			for (Path p : (Iterable<Path>) walk::iterator) {
+				Path dest = to.resolve(from.relativize(p).toString());
+				if (Files.isDirectory(p))
+					Files.createDirectories(dest);
+				else
+					Files.copy(p, dest);
+			}
+		}
+	}
+}
@@ -0,0 +1,169 @@
+package it.unive.scsr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import it.unive.lisa.AnalysisException;
+import it.unive.lisa.DefaultConfiguration;
+import it.unive.lisa.LiSA;
+import it.unive.lisa.analysis.AnalyzedCFG;
+import it.unive.lisa.analysis.SimpleAbstractState;
+import it.unive.lisa.analysis.heap.pointbased.PointBasedHeap;
+import it.unive.lisa.analysis.nonrelational.value.NonRelationalValueDomain;
+import it.unive.lisa.analysis.nonrelational.value.TypeEnvironment;
+import it.unive.lisa.analysis.nonrelational.value.ValueEnvironment;
+import it.unive.lisa.analysis.types.InferredTypes;
+import it.unive.lisa.conf.LiSAConfiguration;
+import it.unive.lisa.conf.LiSAConfiguration.GraphType;
+import it.unive.lisa.imp.IMPFrontend;
+import it.unive.lisa.imp.ParsingException;
+import it.unive.lisa.interprocedural.ModularWorstCaseAnalysis;
+import it.unive.lisa.program.Program;
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.statement.Statement;
+import it.unive.lisa.symbolic.value.Identifier;
+import it.unive.scsr.storage.HamtMap;
+import it.unive.scsr.storage.PersistentValueEnvironment;
+
+public class HamtMapTest {
+
+	@Test
+	public void testAgainstHashMap() {
+		Random random = new Random(42);
+		Map<Integer, Integer> expected = new HashMap<>();
+		HamtMap<Integer, Integer> actual = new HamtMap<>();
+
+		for (int i = 0; i < 10000; i++) {
+			// keys differing only in their high bits force deep tries
+			Integer key = random.nextInt(2000) * (i % 3 == 0 ? 1 << 20 : 1);
+			if (random.nextInt(4) == 0)
+				assertEquals(expected.remove(key), actual.remove(key));
+			else
+				assertEquals(expected.put(key, i), actual.put(key, i));
+			assertEquals(expected.size(), actual.size());
+		}
+
+		assertEquals(expected, actual);
+		assertEquals(actual, expected);
+		assertEquals(expected.hashCode(), actual.hashCode());
+	}
+
+	@Test
+	public void testCollisions() {
+		// "Aa" and "BB" have the same hash code
+		HamtMap<String, Integer> map = new HamtMap<>();
+		map.put("Aa", 1);
+		map.put("BB", 2);
+		map.put("AaBB", 3);
+		map.put("BBAa", 4);
+		assertEquals(4, map.size());
+		assertEquals(Integer.valueOf(2), map.get("BB"));
+		assertEquals(Integer.valueOf(4), map.get("BBAa"));
+
+		map.remove("Aa");
+		map.remove("AaBB");
+		assertEquals(2, map.size());
+		assertFalse(map.containsKey("Aa"));
+		assertEquals(Integer.valueOf(4), map.get("BBAa"));
+	}
+
+	@Test
+	public void testStructuralSharing() {
+		HamtMap<String, Integer> parent = new HamtMap<>();
+		for (int i = 0; i < 100; i++)
+			parent.put("x" + i, i);
+
+		HamtMap<String, Integer> copy = parent.copy();
+		assertTrue(copy.sharesStructureWith(parent));
+
+		// updates never leak into the map they were copied from
+		copy.put("x0", -1);
+		copy.remove("x1");
+		assertFalse(copy.sharesStructureWith(parent));
+		assertEquals(Integer.valueOf(0), parent.get("x0"));
+		assertEquals(Integer.valueOf(1), parent.get("x1"));
+		assertEquals(Integer.valueOf(-1), copy.get("x0"));
+		assertFalse(copy.containsKey("x1"));
+	}
+
+	@Test
+	public void testPersistentPentagons() throws ParsingException, AnalysisException {
+		// plain environments
+		Map<String, Pentagons> expected = run("outputs/penta-persistent/plain", new Pentagons());
+
+		// the same analysis, on persistent environments
+		Map<String, Pentagons> actual = run("outputs/penta-persistent/persistent",
+				new Pentagons(new PersistentValueEnvironment<>(new UpperBounds(true)).top(),
+						new PersistentValueEnvironment<>(new Intervals()).top()));
+
+		assertEquals(expected.keySet(), actual.keySet());
+		assertFalse(expected.isEmpty());
+		for (Map.Entry<String, Pentagons> state : expected.entrySet()) {
+			Pentagons plain = state.getValue(), persistent = actual.get(state.getKey());
+			same(state.getKey(), plain.intervals, persistent.intervals);
+			same(state.getKey(), plain.upperbounds, persistent.upperbounds);
+		}
+	}
+
+	// environments of different classes are never equal: they are compared
+	// on their mappings
+	private static <T extends NonRelationalValueDomain<T>> void same(
+			String node,
+			ValueEnvironment<T> expected,
+			ValueEnvironment<T> actual) {
+		assertEquals(node, expected.isBottom(), actual.isBottom());
+		assertEquals(node, expected.isTop(), actual.isTop());
+		assertEquals(node, expected.getKeys(), actual.getKeys());
+		for (Identifier id : expected.getKeys())
+			assertEquals(node + ": " + id, expected.getState(id), actual.getState(id));
+	}
+
+	// the state after each node of pentagons.imp
+	private static Map<String, Pentagons> run(
+			String workdir,
+			Pentagons domain)
+			throws ParsingException, AnalysisException {
+		// we parse the program to get the CFG representation of the code in it
+		Program program = IMPFrontend.processFile("inputs/pentagons.imp");
+
+		// we build a new configuration for the analysis
+		LiSAConfiguration conf = new DefaultConfiguration();
+
+		// we specify where we want files to be generated
+		conf.workdir = workdir;
+
+		// we specify the visual format of the analysis results
+		conf.analysisGraphs = GraphType.HTML;
+
+		// we specify the analysis that we want to execute
+		conf.abstractState = DefaultConfiguration.simpleState(
+				DefaultConfiguration.defaultHeapDomain(),
+				domain,
+				DefaultConfiguration.defaultTypeDomain());
+		ModularWorstCaseAnalysis<SimpleAbstractState<PointBasedHeap, Pentagons,
+				TypeEnvironment<InferredTypes>>> analysis = new ModularWorstCaseAnalysis<>();
+		conf.interproceduralAnalysis = analysis;
+
+		// we instantiate LiSA with our configuration
+		LiSA lisa = new LiSA(conf);
+
+		// finally, we tell LiSA to analyze the program
+		lisa.run(program);
+
+		Map<String, Pentagons> states = new HashMap<>();
+		for (CFG cfg : program.getAllCFGs())
+			for (AnalyzedCFG<SimpleAbstractState<PointBasedHeap, Pentagons,
+					TypeEnvironment<InferredTypes>>> result : analysis.getAnalysisResultsOf(cfg))
+				for (Statement st : cfg.getNodes())
+					states.put(cfg.getDescriptor().getFullSignature() + " " + st.getLocation() + " " + st,
+							result.getAnalysisStateAfter(st).getState().getValueState());
+		return states;
+	}
+}
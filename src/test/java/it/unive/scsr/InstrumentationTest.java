@@ -0,0 +1,148 @@
+package it.unive.scsr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import it.unive.lisa.AnalysisException;
+import it.unive.lisa.DefaultConfiguration;
+import it.unive.lisa.LiSA;
+import it.unive.lisa.analysis.nonrelational.value.ValueEnvironment;
+import it.unive.lisa.conf.LiSAConfiguration;
+import it.unive.lisa.conf.LiSAConfiguration.GraphType;
+import it.unive.lisa.imp.IMPFrontend;
+import it.unive.lisa.imp.ParsingException;
+import it.unive.lisa.program.Program;
+import it.unive.lisa.util.file.FileManager;
+import it.unive.scsr.checkers.TaintAnnotations;
+import it.unive.scsr.checkers.TaintChecker;
+import it.unive.scsr.instrumentation.AnalysisEvents.FixpointEvent;
+import it.unive.scsr.instrumentation.InstrumentedDomain;
+import it.unive.scsr.instrumentation.Metrics;
+import it.unive.scsr.instrumentation.Metrics.Operation;
+import it.unive.scsr.instrumentation.Profiler;
+import it.unive.scsr.interprocedural.CallStrings;
+import it.unive.scsr.interprocedural.CallStrings.ContextCounter;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class InstrumentationTest {
+
+	@Test
+	public void testInstrumentedIntervals() throws ParsingException, AnalysisException {
+		// we parse the program to get the CFG representation of the code in it
+		Program program = IMPFrontend.processFile("inputs/intervals.imp");
+
+		// we build a new configuration for the analysis
+		LiSAConfiguration conf = new DefaultConfiguration();
+
+		// we specify where we want files to be generated
+		conf.workdir = "outputs/instrumentation";
+
+		// we specify the visual format of the analysis results
+		conf.analysisGraphs = GraphType.NONE;
+		conf.jsonOutput = true;
+
+		// we wrap the domain to collect operation counters
+		conf.abstractState = DefaultConfiguration.simpleState(
+				DefaultConfiguration.defaultHeapDomain(),
+				new InstrumentedDomain<>(new ValueEnvironment<>(new Intervals())),
+				DefaultConfiguration.defaultTypeDomain());
+
+		try {
+			FileManager.forceDeleteFolder(conf.workdir);
+		} catch (IOException e) {
+			e.printStackTrace(System.err);
+			fail("Cannot delete working directory '" + conf.workdir + "': " + e.getMessage());
+		}
+
+		// counters are written at the end of every run with this configuration
+		Metrics.reset();
+		Metrics.install(conf);
+		try {
+			new LiSA(conf).run(program);
+		} finally {
+			Metrics.setEnabled(false);
+		}
+
+		assertTrue("No transfer function was counted", Metrics.count(Operation.TRANSFER) > 0);
+		// the loop in intervals.loop requires joins
+		assertTrue("No lub was counted", Metrics.count(Operation.LUB) > 0);
+
+		// the file is next to the report, without further calls
+		assertTrue(Paths.get(conf.workdir, "report.json").toFile().exists());
+		assertTrue(Paths.get(conf.workdir, Metrics.FILE_NAME).toFile().exists());
+	}
+
+	@Test
+	public void testFixpointEvents() throws ParsingException, IOException {
+		// we parse the program to get the CFG representation of the code in it
+		Program program = IMPFrontend.processFile("inputs/taint.imp");
+		TaintAnnotations.load(program,
+				new String[] { "source1", "source2" },
+				new String[] { "sanitizer1", "sanitizer2" },
+				new String[] { "sink1", "sinks" });
+
+		LiSAConfiguration conf = new DefaultConfiguration();
+		conf.workdir = "outputs/instrumentation-events";
+		conf.analysisGraphs = GraphType.NONE;
+		conf.abstractState = DefaultConfiguration.simpleState(
+				DefaultConfiguration.defaultHeapDomain(),
+				new InstrumentedDomain<>(new ValueEnvironment<>(new Taint())),
+				DefaultConfiguration.defaultTypeDomain());
+		ContextCounter<?> counter = CallStrings.apply(conf, -1);
+		conf.semanticChecks.add(new TaintChecker());
+
+		try {
+			FileManager.forceDeleteFolder(conf.workdir);
+		} catch (IOException e) {
+			e.printStackTrace(System.err);
+			fail("Cannot delete working directory '" + conf.workdir + "': " + e.getMessage());
+		}
+		Files.createDirectories(Paths.get(conf.workdir));
+
+		// we record the fixpoint events of a run where callees are analyzed
+		// while their callers' fixpoints are running
+		Path dump = Paths.get(conf.workdir, "events.jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable(FixpointEvent.class);
+			recording.start();
+			Profiler.run(conf, program);
+			recording.stop();
+			recording.dump(dump);
+		}
+
+		List<RecordedEvent> events = RecordingFile.readAllEvents(dump).stream()
+				.filter(e -> e.getEventType().getName().equals("it.unive.scsr.Fixpoint"))
+				.collect(Collectors.toList());
+		assertTrue("No fixpoint event was recorded", !events.isEmpty());
+
+		Map<String, Integer> fixpoints = new TreeMap<>();
+		for (RecordedEvent event : events) {
+			// each event covers a whole fixpoint: it has a cfg and at least
+			// the transfers of its entrypoint
+			assertNotNull("Fixpoint event without cfg", event.getString("cfg"));
+			assertTrue("Fixpoint event without transfers", event.getLong("transfers") > 0);
+			fixpoints.merge(event.getString("cfg"), 1, Integer::sum);
+		}
+
+		// callers are not split by the fixpoints of their callees, and the
+		// contexts of a cfg are not merged: there is one event per context
+		for (Map.Entry<String, Integer> contexts : counter.getContexts().entrySet())
+			assertEquals("Wrong number of fixpoint events for " + contexts.getKey(), contexts.getValue(),
+					fixpoints.getOrDefault(contexts.getKey(), 0));
+	}
+}
@@ -0,0 +1,121 @@
+package it.unive.scsr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import it.unive.lisa.AnalysisException;
+import it.unive.lisa.DefaultConfiguration;
+import it.unive.lisa.LiSA;
+import it.unive.lisa.analysis.AnalyzedCFG;
+import it.unive.lisa.analysis.SimpleAbstractState;
+import it.unive.lisa.analysis.heap.pointbased.PointBasedHeap;
+import it.unive.lisa.analysis.nonrelational.value.TypeEnvironment;
+import it.unive.lisa.analysis.nonrelational.value.ValueEnvironment;
+import it.unive.lisa.analysis.types.InferredTypes;
+import it.unive.lisa.analysis.value.ValueDomain;
+import it.unive.lisa.conf.LiSAConfiguration;
+import it.unive.lisa.conf.LiSAConfiguration.GraphType;
+import it.unive.lisa.imp.IMPFrontend;
+import it.unive.lisa.imp.ParsingException;
+import it.unive.lisa.interprocedural.ModularWorstCaseAnalysis;
+import it.unive.lisa.program.Program;
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.statement.Statement;
+import it.unive.scsr.storage.InternedDomain;
+import it.unive.scsr.storage.Interner;
+
+public class InterningTest {
+
+	@Test
+	public void testInterner() {
+		Interner<Intervals> interner = new Interner<>();
+		Intervals first = new Intervals(1, 5);
+		Intervals second = new Intervals(1, 5);
+		assertNotSame(first, second);
+
+		// equal objects are mapped to the first one interned
+		assertSame(first, interner.intern(first));
+		assertSame(first, interner.intern(second));
+		assertEquals(1, interner.getHits());
+		assertEquals(1, interner.getMisses());
+		// canonical instances are only weakly held: we keep them reachable
+		Intervals zero = interner.intern(new Intervals(0, 0));
+		assertSame(zero, interner.intern(new Intervals(0, 0)));
+		assertEquals(2, interner.size());
+		assertSame(first, interner.intern(new Intervals(1, 5)));
+		assertSame(zero, interner.intern(new Intervals(0, 0)));
+	}
+
+	@Test
+	public void testInternedIntervals() throws ParsingException, AnalysisException {
+		// we parse the program to get the CFG representation of the code in it
+		Program program = IMPFrontend.processFile("inputs/intervals.imp");
+
+		// we specify the analysis that we want to execute, storing equal states once
+		InternedDomain<ValueEnvironment<Intervals>> domain = new InternedDomain<>(
+				new ValueEnvironment<>(new Intervals()));
+		ModularWorstCaseAnalysis<SimpleAbstractState<PointBasedHeap, InternedDomain<ValueEnvironment<Intervals>>,
+				TypeEnvironment<InferredTypes>>> interned = run(program, "outputs/interned", domain);
+
+		// and the same analysis, without interning
+		ModularWorstCaseAnalysis<SimpleAbstractState<PointBasedHeap, ValueEnvironment<Intervals>,
+				TypeEnvironment<InferredTypes>>> plain = run(program, "outputs/not-interned",
+						new ValueEnvironment<>(new Intervals()));
+
+		// interning must not change the results
+		int compared = 0;
+		for (CFG cfg : program.getAllCFGs())
+			for (AnalyzedCFG<SimpleAbstractState<PointBasedHeap, InternedDomain<ValueEnvironment<Intervals>>,
+					TypeEnvironment<InferredTypes>>> actual : interned.getAnalysisResultsOf(cfg))
+				for (AnalyzedCFG<SimpleAbstractState<PointBasedHeap, ValueEnvironment<Intervals>,
+						TypeEnvironment<InferredTypes>>> expected : plain.getAnalysisResultsOf(cfg))
+					for (Statement st : cfg.getNodes()) {
+						assertEquals(st.toString(),
+								expected.getAnalysisStateAfter(st).getState().getValueState(),
+								actual.getAnalysisStateAfter(st).getState().getValueState().getWrapped());
+						compared++;
+					}
+		assertTrue(compared > 0);
+
+		// consecutive statements often share their states
+		assertTrue(domain.getInterner().getHits() > 0);
+	}
+
+	private static <V extends ValueDomain<V>> ModularWorstCaseAnalysis<SimpleAbstractState<PointBasedHeap, V,
+			TypeEnvironment<InferredTypes>>> run(
+					Program program,
+					String workdir,
+					V domain)
+					throws AnalysisException {
+		// we build a new configuration for the analysis
+		LiSAConfiguration conf = new DefaultConfiguration();
+
+		// we specify where we want files to be generated
+		conf.workdir = workdir;
+
+		// we specify the visual format of the analysis results
+		conf.analysisGraphs = GraphType.HTML;
+
+		// we specify the analysis that we want to execute
+		conf.abstractState = DefaultConfiguration.simpleState(
+				DefaultConfiguration.defaultHeapDomain(),
+				domain,
+				DefaultConfiguration.defaultTypeDomain());
+
+		// each cfg is analyzed once, from a worst-case entry state
+		ModularWorstCaseAnalysis<SimpleAbstractState<PointBasedHeap, V,
+				TypeEnvironment<InferredTypes>>> analysis = new ModularWorstCaseAnalysis<>();
+		conf.interproceduralAnalysis = analysis;
+
+		// we instantiate LiSA with our configuration
+		LiSA lisa = new LiSA(conf);
+
+		// finally, we tell LiSA to analyze the program
+		lisa.run(program);
+		return analysis;
+	}
+}
@@ -0,0 +1,170 @@
+package it.unive.scsr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import it.unive.lisa.AnalysisException;
+import it.unive.lisa.DefaultConfiguration;
+import it.unive.lisa.LiSA;
+import it.unive.lisa.analysis.AnalyzedCFG;
+import it.unive.lisa.analysis.SemanticException;
+import it.unive.lisa.analysis.SimpleAbstractState;
+import it.unive.lisa.analysis.heap.pointbased.PointBasedHeap;
+import it.unive.lisa.analysis.nonrelational.value.TypeEnvironment;
+import it.unive.lisa.analysis.nonrelational.value.ValueEnvironment;
+import it.unive.lisa.analysis.types.InferredTypes;
+import it.unive.lisa.analysis.value.ValueDomain;
+import it.unive.lisa.conf.LiSAConfiguration;
+import it.unive.lisa.conf.LiSAConfiguration.GraphType;
+import it.unive.lisa.imp.IMPFrontend;
+import it.unive.lisa.imp.ParsingException;
+import it.unive.lisa.interprocedural.ModularWorstCaseAnalysis;
+import it.unive.lisa.program.Program;
+import it.unive.lisa.program.SyntheticLocation;
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.statement.Statement;
+import it.unive.lisa.symbolic.value.Constant;
+import it.unive.lisa.symbolic.value.Identifier;
+import it.unive.lisa.symbolic.value.Variable;
+import it.unive.lisa.type.common.Int32Type;
+import it.unive.scsr.storage.IntervalArrayEnvironment;
+
+public class IntervalArraysTest {
+
+	// more variables than the lanes of any vector species, plus a tail
+	private static final int VARIABLES = 37;
+
+	@Test
+	public void testIntervalArrays() throws ParsingException, AnalysisException {
+		Map<String, ValueEnvironment<Intervals>> expected = run("outputs/interval-arrays/environments",
+				new ValueEnvironment<>(new Intervals()));
+
+		// we store intervals in arrays
+		Map<String, IntervalArrayEnvironment> actual = run("outputs/interval-arrays/arrays",
+				new IntervalArrayEnvironment());
+
+		assertEquals(expected.keySet(), actual.keySet());
+		assertFalse(expected.isEmpty());
+		for (Map.Entry<String, ValueEnvironment<Intervals>> state : expected.entrySet()) {
+			ValueEnvironment<Intervals> env = state.getValue();
+			IntervalArrayEnvironment arrays = actual.get(state.getKey());
+			assertEquals(state.getKey(), env.isBottom(), arrays.isBottom());
+			assertEquals(state.getKey(), env.isTop(), arrays.isTop());
+			if (env.isBottom() || env.isTop())
+				continue;
+			Set<Identifier> ids = new HashSet<>(env.getKeys());
+			ids.addAll(arrays.getKeys());
+			for (Identifier id : ids)
+				assertEquals(state.getKey() + ": " + id, env.getState(id), arrays.getState(id));
+		}
+	}
+
+	// the state after each node of intervals.imp
+	private static <V extends ValueDomain<V>> Map<String, V> run(
+			String workdir,
+			V domain)
+			throws ParsingException, AnalysisException {
+		// we parse the program to get the CFG representation of the code in it
+		Program program = IMPFrontend.processFile("inputs/intervals.imp");
+
+		// we build a new configuration for the analysis
+		LiSAConfiguration conf = new DefaultConfiguration();
+
+		// we specify where we want files to be generated
+		conf.workdir = workdir;
+
+		// we specify the visual format of the analysis results
+		conf.analysisGraphs = GraphType.HTML;
+
+		// we specify the analysis that we want to execute
+		conf.abstractState = DefaultConfiguration.simpleState(
+				DefaultConfiguration.defaultHeapDomain(),
+				domain,
+				DefaultConfiguration.defaultTypeDomain());
+		ModularWorstCaseAnalysis<SimpleAbstractState<PointBasedHeap, V,
+				TypeEnvironment<InferredTypes>>> analysis = new ModularWorstCaseAnalysis<>();
+		conf.interproceduralAnalysis = analysis;
+
+		// we instantiate LiSA with our configuration
+		LiSA lisa = new LiSA(conf);
+
+		// finally, we tell LiSA to analyze the program
+		lisa.run(program);
+
+		Map<String, V> states = new HashMap<>();
+		for (CFG cfg : program.getAllCFGs())
+			for (AnalyzedCFG<SimpleAbstractState<PointBasedHeap, V,
+					TypeEnvironment<InferredTypes>>> result : analysis.getAnalysisResultsOf(cfg))
+				for (Statement st : cfg.getNodes())
+					states.put(cfg.getDescriptor().getFullSignature() + " " + st.getLocation() + " " + st,
+							result.getAnalysisStateAfter(st).getState().getValueState());
+		return states;
+	}
+
+	@Test
+	public void testLatticeOperations() throws SemanticException {
+		Random random = new Random(42);
+		List<Variable> vars = new ArrayList<>();
+		for (int i = 0; i < VARIABLES; i++)
+			vars.add(new Variable(Int32Type.INSTANCE, "v" + i, SyntheticLocation.INSTANCE));
+
+		IntervalArrayEnvironment arrays = new IntervalArrayEnvironment();
+		ValueEnvironment<Intervals> env = new ValueEnvironment<>(new Intervals());
+		for (int round = 0; round < 20; round++) {
+			IntervalArrayEnvironment a = arrays.top(), b = arrays.top();
+			ValueEnvironment<Intervals> ea = env.top(), eb = env.top();
+			for (Variable v : vars) {
+				// some variables are left unassigned on one side
+				if (random.nextInt(5) > 0) {
+					Constant c = new Constant(Int32Type.INSTANCE, random.nextInt(20) - 10, SyntheticLocation.INSTANCE);
+					a = a.assign(v, c, null, null);
+					ea = ea.assign(v, c, null, null);
+				}
+				if (random.nextInt(5) > 0) {
+					Constant c = new Constant(Int32Type.INSTANCE, random.nextInt(20) - 10, SyntheticLocation.INSTANCE);
+					b = b.assign(v, c, null, null);
+					eb = eb.assign(v, c, null, null);
+				}
+			}
+
+			IntervalArrayEnvironment lub = a.lub(b);
+			ValueEnvironment<Intervals> elub = ea.lub(eb);
+			IntervalArrayEnvironment widening = a.widening(lub);
+			ValueEnvironment<Intervals> ewidening = ea.widening(elub);
+			IntervalArrayEnvironment glb = a.glb(b);
+			ValueEnvironment<Intervals> eglb = ea.glb(eb);
+			for (Variable v : vars) {
+				assertEquals(elub.getState(v), lub.getState(v));
+				assertEquals(ewidening.getState(v), widening.getState(v));
+				assertEquals(eglb.getState(v), glb.getState(v));
+			}
+
+			assertTrue(a.lessOrEqual(lub));
+			assertTrue(b.lessOrEqual(lub));
+			assertTrue(lub.lessOrEqual(widening));
+			assertEquals(ea.lessOrEqual(eb), a.lessOrEqual(b));
+			assertEquals(lub, b.lub(a));
+			assertEquals(lub.hashCode(), b.lub(a).hashCode());
+		}
+
+		// a single variable out of bounds breaks the order
+		Variable last = vars.get(VARIABLES - 1);
+		IntervalArrayEnvironment small = arrays.top().assign(last,
+				new Constant(Int32Type.INSTANCE, 1, SyntheticLocation.INSTANCE), null, null);
+		IntervalArrayEnvironment other = arrays.top().assign(last,
+				new Constant(Int32Type.INSTANCE, 2, SyntheticLocation.INSTANCE), null, null);
+		assertFalse(small.lessOrEqual(other));
+		assertTrue(small.lessOrEqual(small.lub(other)));
+	}
+}
@@ -0,0 +1,157 @@
+package it.unive.scsr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.junit.Test;
+
+import it.unive.lisa.AnalysisException;
+import it.unive.lisa.DefaultConfiguration;
+import it.unive.lisa.LiSA;
+import it.unive.lisa.analysis.AnalyzedCFG;
+import it.unive.lisa.analysis.SimpleAbstractState;
+import it.unive.lisa.analysis.heap.pointbased.PointBasedHeap;
+import it.unive.lisa.analysis.nonrelational.value.TypeEnvironment;
+import it.unive.lisa.analysis.nonrelational.value.ValueEnvironment;
+import it.unive.lisa.analysis.types.InferredTypes;
+import it.unive.lisa.analysis.value.ValueDomain;
+import it.unive.lisa.conf.LiSAConfiguration;
+import it.unive.lisa.conf.LiSAConfiguration.GraphType;
+import it.unive.lisa.imp.IMPFrontend;
+import it.unive.lisa.imp.ParsingException;
+import it.unive.lisa.interprocedural.ModularWorstCaseAnalysis;
+import it.unive.lisa.program.Program;
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.statement.Assignment;
+import it.unive.lisa.program.cfg.statement.Statement;
+import it.unive.lisa.program.cfg.statement.VariableRef;
+import it.unive.lisa.symbolic.value.Identifier;
+import it.unive.lisa.symbolic.value.Variable;
+import it.unive.scsr.liveness.LiveVariablesDomain;
+import it.unive.scsr.liveness.Liveness;
+
+public class LivenessTest {
+
+	@Test
+	public void testLiveness() throws ParsingException {
+		Program program = IMPFrontend.processFile("inputs/intervals.imp");
+
+		for (CFG cfg : program.getAllCFGs()) {
+			Liveness liveness = new Liveness(cfg);
+			for (Statement st : cfg.getNodes())
+				// nothing is live at the end of the cfg
+				if (cfg.followersOf(st).isEmpty())
+					assertTrue(st + " in " + cfg, liveness.getLiveAfter(st).isEmpty());
+		}
+	}
+
+	@Test
+	public void testLiveIntervals() throws ParsingException, AnalysisException {
+		int removed = compare(new ValueEnvironment<>(new Intervals()), env -> env, "inputs/intervals.imp",
+				"intervals");
+		// basic() ends with four variables, only one of which is still read
+		assertTrue(removed > 0);
+	}
+
+	@Test
+	public void testLivePentagons() throws ParsingException, AnalysisException {
+		compare(new Pentagons(), penta -> penta.intervals, "inputs/pentagons.imp", "pentagons");
+	}
+
+	// checks that, after each assignment, the run with liveness tracks exactly
+	// the live variables (and the assigned one), with the same intervals of
+	// the run without it; yields the number of removed variables
+	private static <V extends ValueDomain<V>> int compare(
+			V domain,
+			Function<V, ValueEnvironment<Intervals>> intervals,
+			String file,
+			String path)
+			throws ParsingException, AnalysisException {
+		Map<String, V> plain = runAnalysis(domain, file, path + "/plain");
+		Map<String, LiveVariablesDomain<V>> live = runAnalysis(new LiveVariablesDomain<>(domain), file, path);
+
+		int removed = 0, compared = 0;
+		for (CFG cfg : IMPFrontend.processFile(file).getAllCFGs()) {
+			Liveness liveness = new Liveness(cfg);
+			for (Statement st : cfg.getNodes()) {
+				if (!(st instanceof Assignment) || !(((Assignment) st).getLeft() instanceof VariableRef))
+					continue;
+				String assigned = ((VariableRef) ((Assignment) st).getLeft()).getName();
+				ValueEnvironment<Intervals> expected = intervals.apply(plain.get(key(cfg, st)));
+				ValueEnvironment<Intervals> actual = intervals.apply(live.get(key(cfg, st)).getWrapped());
+				if (expected.isBottom() || expected.isTop()) {
+					assertEquals(st.toString(), expected.isBottom(), actual.isBottom());
+					continue;
+				}
+
+				for (Identifier id : expected.getKeys()) {
+					if (!(id instanceof Variable))
+						continue;
+					if (liveness.isDeadAfter(st, id.getName()) && !id.getName().equals(assigned)) {
+						// dead variables are gone
+						assertFalse(st + ": " + id, actual.getKeys().contains(id));
+						removed++;
+					} else
+						// live ones are untouched
+						assertEquals(st + ": " + id, expected.getState(id), actual.getState(id));
+				}
+				compared++;
+			}
+		}
+		assertTrue(compared > 0);
+		return removed;
+	}
+
+	private static String key(
+			CFG cfg,
+			Statement st) {
+		return cfg.getDescriptor().getFullSignature() + " " + st.getLocation() + " " + st;
+	}
+
+	// the state after each node of the given file
+	private static <V extends ValueDomain<V>> Map<String, V> runAnalysis(
+			V domain,
+			String file,
+			String path)
+			throws ParsingException, AnalysisException {
+		// we parse the program to get the CFG representation of the code in it
+		Program program = IMPFrontend.processFile(file);
+
+		// we build a new configuration for the analysis
+		LiSAConfiguration conf = new DefaultConfiguration();
+
+		// we specify where we want files to be generated
+		conf.workdir = "outputs/liveness/" + path;
+
+		// we specify the visual format of the analysis results
+		conf.analysisGraphs = GraphType.HTML;
+
+		// we specify the analysis that we want to execute
+		conf.abstractState = DefaultConfiguration.simpleState(
+				DefaultConfiguration.defaultHeapDomain(),
+				domain,
+				DefaultConfiguration.defaultTypeDomain());
+		ModularWorstCaseAnalysis<SimpleAbstractState<PointBasedHeap, V,
+				TypeEnvironment<InferredTypes>>> analysis = new ModularWorstCaseAnalysis<>();
+		conf.interproceduralAnalysis = analysis;
+
+		// we instantiate LiSA with our configuration
+		LiSA lisa = new LiSA(conf);
+
+		// finally, we tell LiSA to analyze the program
+		lisa.run(program);
+
+		Map<String, V> states = new HashMap<>();
+		for (CFG cfg : program.getAllCFGs())
+			for (AnalyzedCFG<SimpleAbstractState<PointBasedHeap, V,
+					TypeEnvironment<InferredTypes>>> result : analysis.getAnalysisResultsOf(cfg))
+				for (Statement st : cfg.getNodes())
+					states.put(key(cfg, st), result.getAnalysisStateAfter(st).getState().getValueState());
+		return states;
+	}
+}
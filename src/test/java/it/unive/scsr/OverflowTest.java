@@ -12,10 +12,10 @@ import it.unive.lisa.conf.LiSAConfiguration.GraphType;
 import it.unive.lisa.imp.IMPFrontend;
 import it.unive.lisa.imp.ParsingException;
 import it.unive.lisa.interprocedural.context.ContextBasedAnalysis;
-import it.unive.lisa.interprocedural.context.FullStackToken;
 import it.unive.lisa.program.Program;
 import it.unive.scsr.checkers.OverflowChecker;
 import it.unive.scsr.checkers.OverflowChecker.NumericalSize;
+import it.unive.scsr.interprocedural.CallStrings;
 
 public class OverflowTest {
 	
@@ -74,7 +74,7 @@ public class OverflowTest {
 				DefaultConfiguration.defaultTypeDomain());
 		 
 		// we specify to perform an interprocedural analysis
-		conf.interproceduralAnalysis = new ContextBasedAnalysis<>(FullStackToken.getSingleton());
+		conf.interproceduralAnalysis = new ContextBasedAnalysis<>(CallStrings.configured());
 		 
 		// the OverflowChecker is executed after the numerical analysis and it checks if a abstract numerical value leads to an overflow/underflow
 		conf.semanticChecks.add(new OverflowChecker(size));
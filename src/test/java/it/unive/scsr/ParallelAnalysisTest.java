@@ -0,0 +1,117 @@
+package it.unive.scsr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import it.unive.lisa.AnalysisException;
+import it.unive.lisa.DefaultConfiguration;
+import it.unive.lisa.LiSA;
+import it.unive.lisa.analysis.nonrelational.value.ValueEnvironment;
+import it.unive.lisa.conf.LiSAConfiguration;
+import it.unive.lisa.conf.LiSAConfiguration.GraphType;
+import it.unive.lisa.imp.IMPFrontend;
+import it.unive.lisa.imp.ParsingException;
+import it.unive.lisa.interprocedural.ModularWorstCaseAnalysis;
+import it.unive.lisa.program.Program;
+import it.unive.lisa.util.file.FileManager;
+import it.unive.scsr.checkers.OverflowChecker;
+import it.unive.scsr.checkers.OverflowChecker.NumericalSize;
+import it.unive.scsr.interprocedural.ParallelModularAnalysis;
+import it.unive.scsr.outputs.GoldenComparer;
+import it.unive.scsr.outputs.GoldenComparer.Result;
+
+public class ParallelAnalysisTest {
+
+	@Test
+	public void testParallelIntervals() throws ParsingException, AnalysisException, IOException {
+		FileManager.forceDeleteFolder("outputs/parallel");
+		run("inputs/intervals.imp", "outputs/parallel/sequential", false);
+		run("inputs/intervals.imp", "outputs/parallel/parallel", true);
+
+		// the reports differ in the configured interprocedural analysis
+		Files.delete(Paths.get("outputs/parallel/sequential/report.json"));
+		Files.delete(Paths.get("outputs/parallel/parallel/report.json"));
+
+		// results must not depend on the scheduling of the tasks
+		Result result = new GoldenComparer(false).compare(Paths.get("outputs/parallel/sequential"),
+				Paths.get("outputs/parallel/parallel"));
+		assertTrue(result.toString(), result.isEqual());
+	}
+
+	@Test
+	public void testParallelCalls() throws ParsingException, AnalysisException, IOException {
+		// all the tasks resolve their calls on the same call graph
+		FileManager.forceDeleteFolder("outputs/parallel-calls");
+		run("inputs/calls.imp", "outputs/parallel-calls/sequential", false);
+		run("inputs/calls.imp", "outputs/parallel-calls/parallel", true);
+
+		assertEquals(warnings("outputs/parallel-calls/sequential"), warnings("outputs/parallel-calls/parallel"));
+
+		Files.delete(Paths.get("outputs/parallel-calls/sequential/report.json"));
+		Files.delete(Paths.get("outputs/parallel-calls/parallel/report.json"));
+
+		Result result = new GoldenComparer(false).compare(Paths.get("outputs/parallel-calls/sequential"),
+				Paths.get("outputs/parallel-calls/parallel"));
+		assertTrue(result.toString(), result.isEqual());
+	}
+
+	private static List<String> warnings(
+			String workdir) throws IOException {
+		JsonNode report = new ObjectMapper().readTree(new File(workdir, "report.json"));
+		List<String> warnings = new ArrayList<>();
+		report.get("warnings").forEach(w -> warnings.add(w.toString()));
+		warnings.sort(null);
+		return warnings;
+	}
+
+	private static void run(
+			String file,
+			String workdir,
+			boolean parallel)
+			throws ParsingException, AnalysisException {
+		// we parse the program to get the CFG representation of the code in it
+		Program program = IMPFrontend.processFile(file);
+
+		// we build a new configuration for the analysis
+		LiSAConfiguration conf = new DefaultConfiguration();
+
+		// we specify where we want files to be generated
+		conf.workdir = workdir;
+
+		// we only compare the serialized results
+		conf.analysisGraphs = GraphType.NONE;
+		conf.serializeResults = true;
+		conf.jsonOutput = true;
+
+		// we specify the analysis that we want to execute
+		conf.abstractState = DefaultConfiguration.simpleState(
+				DefaultConfiguration.defaultHeapDomain(),
+				new ValueEnvironment<>(new Intervals()),
+				DefaultConfiguration.defaultTypeDomain());
+		if (parallel)
+			conf.interproceduralAnalysis = new ParallelModularAnalysis<>(4);
+		else
+			conf.interproceduralAnalysis = new ModularWorstCaseAnalysis<>();
+
+		// the OverflowChecker is executed after the numerical analysis and it checks if a abstract numerical value leads to an overflow/underflow
+		conf.semanticChecks.add(new OverflowChecker(NumericalSize.INT16));
+
+		// we instantiate LiSA with our configuration
+		LiSA lisa = new LiSA(conf);
+
+		// finally, we tell LiSA to analyze the program
+		lisa.run(program);
+	}
+}
@@ -1,16 +1,45 @@
 package it.unive.scsr;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
 import org.junit.Test;
 
 import it.unive.lisa.AnalysisException;
 import it.unive.lisa.DefaultConfiguration;
 import it.unive.lisa.LiSA;
-
+import it.unive.lisa.analysis.AnalyzedCFG;
+import it.unive.lisa.analysis.SimpleAbstractState;
+import it.unive.lisa.analysis.heap.pointbased.PointBasedHeap;
+import it.unive.lisa.analysis.nonrelational.value.TypeEnvironment;
+import it.unive.lisa.analysis.types.InferredTypes;
+import it.unive.lisa.analysis.value.ValueDomain;
 import it.unive.lisa.conf.LiSAConfiguration;
 import it.unive.lisa.conf.LiSAConfiguration.GraphType;
 import it.unive.lisa.imp.IMPFrontend;
 import it.unive.lisa.imp.ParsingException;
+import it.unive.lisa.interprocedural.InterproceduralAnalysis;
+import it.unive.lisa.interprocedural.ModularWorstCaseAnalysis;
 import it.unive.lisa.program.Program;
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.statement.Assignment;
+import it.unive.lisa.program.cfg.statement.Statement;
+import it.unive.lisa.symbolic.value.Identifier;
+import it.unive.scsr.fixpoint.DescendingPhase;
+import it.unive.scsr.fixpoint.WideningPolicy;
+import it.unive.scsr.instrumentation.InstrumentedDomain;
+import it.unive.scsr.instrumentation.Metrics;
+import it.unive.scsr.instrumentation.Metrics.Operation;
+import it.unive.scsr.storage.BitMatrix;
 
 public class PentagonsTest {
 
@@ -41,5 +70,272 @@ public class PentagonsTest {
 		// finally, we tell LiSA to analyze the program
 		lisa.run(program);
 	}
-	
+
+	@Test
+	public void testPentagonsDescending() throws ParsingException, AnalysisException {
+		// without a descending phase, widening loses the upper bound of i
+		Pentagons widened = descend("outputs/penta-descending/none", new Pentagons(), new DescendingPhase(0));
+		assertTrue(interval(widened, "i").interval.getHigh().isPlusInfinity());
+
+		// at most 3 descending iterations on each node recover it
+		Pentagons descended = descend("outputs/penta-descending/glb", new Pentagons(), new DescendingPhase(3));
+		assertEquals(new Intervals(10, 10), interval(descended, "i"));
+		assertEquals(new Intervals(10, 10), interval(descended, "j"));
+		assertTrue(implied(descended).get(id(descended, "i")).contains(id(descended, "k")));
+	}
+
+	@Test
+	public void testPentagonsNarrowing() throws ParsingException, AnalysisException {
+		Pentagons widened = descend("outputs/penta-narrowing/none", new Pentagons(), new DescendingPhase(0));
+		assertTrue(interval(widened, "i").interval.getHigh().isPlusInfinity());
+		assertEquals(new Intervals(20, 20), interval(widened, "k"));
+		// i might still exceed k
+		assertFalse(implied(widened).getOrDefault(id(widened, "i"), Set.of()).contains(id(widened, "k")));
+
+		// narrowing refines the infinite bound of i, and with it the bounds
+		// implied by the intervals
+		Metrics.reset();
+		Metrics.setEnabled(true);
+		long unbounded, bounded;
+		Pentagons narrowed, once;
+		try {
+			narrowed = descend("outputs/penta-narrowing/unbounded",
+					new InstrumentedDomain<>(new Pentagons()), DescendingPhase.withNarrowing()).getWrapped();
+			unbounded = Metrics.count(Operation.NARROWING);
+
+			// each node is narrowed at most once
+			Metrics.reset();
+			once = descend("outputs/penta-narrowing/bounded",
+					new InstrumentedDomain<>(new Pentagons()), DescendingPhase.withNarrowing(1)).getWrapped();
+			bounded = Metrics.count(Operation.NARROWING);
+		} finally {
+			Metrics.setEnabled(false);
+		}
+
+		for (Pentagons state : new Pentagons[] { narrowed, once }) {
+			assertEquals(new Intervals(10, 10), interval(state, "i"));
+			assertEquals(new Intervals(10, 10), interval(state, "j"));
+			assertEquals(new Intervals(20, 20), interval(state, "k"));
+			assertTrue(implied(state).get(id(state, "i")).contains(id(state, "k")));
+			assertTrue(implied(state).get(id(state, "j")).contains(id(state, "k")));
+		}
+
+		// the loop guard is narrowed again once the body is refined, unless
+		// the budget is exhausted
+		Program program = IMPFrontend.processFile("inputs/narrowing.imp");
+		int nodes = 0;
+		for (CFG cfg : program.getAllCFGs())
+			nodes += cfg.getNodes().size();
+		assertTrue(bounded > 0);
+		assertTrue(bounded <= nodes);
+		assertTrue(bounded < unbounded);
+	}
+
+	// the state after the last assignment of narrowing.imp, where the loop is
+	// widened as soon as possible and then refined by the given phase
+	private static <V extends ValueDomain<V>> V descend(
+			String workdir,
+			V domain,
+			DescendingPhase phase)
+			throws ParsingException, AnalysisException {
+		// we parse the program to get the CFG representation of the code in it
+		Program program = IMPFrontend.processFile("inputs/narrowing.imp");
+
+		// we build a new configuration for the analysis
+		LiSAConfiguration conf = new DefaultConfiguration();
+
+		// we specify where we want files to be generated
+		conf.workdir = workdir;
+
+		// we specify the visual format of the analysis results
+		conf.analysisGraphs = GraphType.HTML;
+
+		// we widen aggressively, and then try to recover precision
+		new WideningPolicy(true, 0).apply(conf);
+		phase.apply(conf);
+
+		// we specify the analysis that we want to execute
+		conf.abstractState = DefaultConfiguration.simpleState(
+				DefaultConfiguration.defaultHeapDomain(),
+				domain,
+				DefaultConfiguration.defaultTypeDomain());
+		ModularWorstCaseAnalysis<SimpleAbstractState<PointBasedHeap, V,
+				TypeEnvironment<InferredTypes>>> analysis = new ModularWorstCaseAnalysis<>();
+		conf.interproceduralAnalysis = analysis;
+
+		// we instantiate LiSA with our configuration
+		LiSA lisa = new LiSA(conf);
+
+		// finally, we tell LiSA to analyze the program
+		lisa.run(program);
+
+		for (CFG cfg : program.getAllCFGs())
+			for (AnalyzedCFG<SimpleAbstractState<PointBasedHeap, V,
+					TypeEnvironment<InferredTypes>>> result : analysis.getAnalysisResultsOf(cfg))
+				for (Statement st : cfg.getNodes())
+					if (st instanceof Assignment && ((Assignment) st).getLeft().toString().equals("j"))
+						return result.getAnalysisStateAfter(st).getState().getValueState();
+		throw new AssertionError("No assignment to j in narrowing.imp");
+	}
+
+	private static Identifier id(
+			Pentagons state,
+			String name) {
+		for (Identifier id : state.intervals.getKeys())
+			if (id.getName().equals(name))
+				return id;
+		throw new AssertionError("No interval for " + name + " in " + state);
+	}
+
+	private static Intervals interval(
+			Pentagons state,
+			String name) {
+		return state.intervals.getState(id(state, name));
+	}
+
+	@Test
+	public void testBitPentagons() throws ParsingException, AnalysisException {
+		ModularWorstCaseAnalysis<SimpleAbstractState<PointBasedHeap, Pentagons,
+				TypeEnvironment<InferredTypes>>> pentagons = new ModularWorstCaseAnalysis<>();
+		Program expected = run("outputs/penta-bits/pentagons", new Pentagons(), pentagons);
+
+		// the upper bounds are stored as a bit matrix
+		ModularWorstCaseAnalysis<SimpleAbstractState<PointBasedHeap, BitPentagons,
+				TypeEnvironment<InferredTypes>>> bits = new ModularWorstCaseAnalysis<>();
+		Program actual = run("outputs/penta-bits/bits", new BitPentagons(), bits);
+
+		Map<String, Pentagons> states = new HashMap<>();
+		for (CFG cfg : expected.getAllCFGs())
+			for (AnalyzedCFG<SimpleAbstractState<PointBasedHeap, Pentagons,
+					TypeEnvironment<InferredTypes>>> result : pentagons.getAnalysisResultsOf(cfg))
+				for (Statement st : cfg.getNodes())
+					states.put(key(cfg, st), result.getAnalysisStateAfter(st).getState().getValueState());
+
+		int compared = 0;
+		for (CFG cfg : actual.getAllCFGs())
+			for (AnalyzedCFG<SimpleAbstractState<PointBasedHeap, BitPentagons,
+					TypeEnvironment<InferredTypes>>> result : bits.getAnalysisResultsOf(cfg))
+				for (Statement st : cfg.getNodes()) {
+					Pentagons penta = states.get(key(cfg, st));
+					assertNotNull(st.toString(), penta);
+					BitPentagons bit = result.getAnalysisStateAfter(st).getState().getValueState();
+					assertEquals(st.toString(), penta.intervals.isBottom(), bit.isBottom());
+					if (penta.intervals.isBottom() || penta.intervals.isTop())
+						continue;
+
+					// same intervals
+					for (Identifier id : penta.intervals.getKeys())
+						assertEquals(st + ": " + id, penta.intervals.getState(id), bit.getInterval(id));
+
+					// the bounds implied by the intervals are always there,
+					// and no bound comes from nowhere
+					Map<Identifier, Set<Identifier>> implied = implied(penta);
+					for (Identifier x : penta.intervals.getKeys())
+						for (Identifier y : penta.intervals.getKeys()) {
+							Intervals ix = penta.intervals.getState(x), iy = penta.intervals.getState(y);
+							if (!ix.isBottom() && !iy.isBottom()
+									&& ix.interval.getHigh().compareTo(iy.interval.getLow()) < 0)
+								assertTrue(st + ": " + x + " < " + y, bit.getBounds(x).contains(y));
+						}
+					for (Identifier x : penta.intervals.getKeys())
+						for (Identifier y : bit.getBounds(x))
+							assertTrue(st + ": " + x + " < " + y, implied.getOrDefault(x, Set.of()).contains(y));
+					compared++;
+				}
+		assertTrue(compared > 0);
+	}
+
+	private static String key(
+			CFG cfg,
+			Statement st) {
+		return cfg.getDescriptor().getFullSignature() + " " + st.getLocation() + " " + st;
+	}
+
+	// the transitive closure of the explicit bounds and of the ones implied by
+	// the intervals
+	private static Map<Identifier, Set<Identifier>> implied(
+			Pentagons state) {
+		Map<Identifier, Set<Identifier>> bounds = new HashMap<>();
+		Set<Identifier> ids = new HashSet<>(state.intervals.getKeys());
+		ids.addAll(state.upperbounds.getKeys());
+		for (Identifier x : ids) {
+			Set<Identifier> row = new HashSet<>();
+			for (Identifier y : state.upperbounds.getState(x))
+				row.add(y);
+			for (Identifier y : ids) {
+				Intervals ix = state.intervals.getState(x), iy = state.intervals.getState(y);
+				if (!ix.isBottom() && !iy.isBottom() && ix.interval.getHigh().compareTo(iy.interval.getLow()) < 0)
+					row.add(y);
+			}
+			bounds.put(x, row);
+		}
+
+		boolean changed;
+		do {
+			changed = false;
+			for (Set<Identifier> row : bounds.values())
+				for (Identifier y : new ArrayList<>(row))
+					changed |= row.addAll(bounds.getOrDefault(y, Set.of()));
+		} while (changed);
+		return bounds;
+	}
+
+	private static <V extends ValueDomain<V>> Program run(
+			String workdir,
+			V domain,
+			InterproceduralAnalysis<?> analysis)
+			throws ParsingException, AnalysisException {
+		// we parse the program to get the CFG representation of the code in it
+		Program program = IMPFrontend.processFile("inputs/pentagons.imp");
+
+		// we build a new configuration for the analysis
+		LiSAConfiguration conf = new DefaultConfiguration();
+
+		// we specify where we want files to be generated
+		conf.workdir = workdir;
+
+		// we specify the visual format of the analysis results
+		conf.analysisGraphs = GraphType.HTML;
+
+		// we specify the analysis that we want to execute
+		conf.abstractState = DefaultConfiguration.simpleState(
+				DefaultConfiguration.defaultHeapDomain(),
+				domain,
+				DefaultConfiguration.defaultTypeDomain());
+		conf.interproceduralAnalysis = analysis;
+
+		// we instantiate LiSA with our configuration
+		LiSA lisa = new LiSA(conf);
+
+		// finally, we tell LiSA to analyze the program
+		lisa.run(program);
+		return program;
+	}
+
+	@Test
+	public void testBitMatrixClosure() {
+		// a chain 0 < 1 < ... < 99, crossing several words
+		BitMatrix chain = BitMatrix.EMPTY;
+		for (int i = 0; i < 99; i++)
+			chain = chain.set(i, i + 1);
+		BitMatrix closed = chain.closure();
+		assertTrue(closed.includes(chain));
+		assertTrue(closed.get(0, 99));
+		assertTrue(closed.get(63, 64));
+		assertFalse(closed.get(99, 0));
+		assertFalse(closed.hasDiagonal());
+		assertArrayEquals(new int[] { 98, 99 }, closed.columns(97));
+
+		// the lub keeps only the common bounds
+		BitMatrix other = BitMatrix.EMPTY.set(0, 99).set(5, 7);
+		BitMatrix lub = closed.and(other);
+		assertTrue(lub.get(0, 99));
+		assertTrue(lub.get(5, 7));
+		assertFalse(lub.get(0, 1));
+		assertTrue(closed.includes(lub));
+		assertTrue(other.includes(lub));
+
+		// a cycle is detected on the diagonal
+		assertTrue(chain.set(99, 0).closure().hasDiagonal());
+	}
 }
@@ -0,0 +1,73 @@
+package it.unive.scsr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+import it.unive.lisa.imp.IMPFrontend;
+import it.unive.lisa.imp.ParsingException;
+import it.unive.lisa.program.Program;
+import it.unive.scsr.benchmark.ProgramGenerator;
+import it.unive.scsr.benchmark.ScalabilityBenchmark;
+import it.unive.scsr.benchmark.ScalabilityBenchmark.Analysis;
+import it.unive.scsr.benchmark.ScalabilityBenchmark.Measurement;
+
+public class ProgramGeneratorTest {
+
+	@Test
+	public void testGenerator() throws IOException, ParsingException {
+		// we build a generator producing a small program
+		ProgramGenerator generator = new ProgramGenerator();
+		generator.methods = 5;
+		generator.loopDepth = 2;
+		generator.sourceSinkDensity = 0.5;
+
+		// the same seed must always yield the same program, another seed a different one
+		String code = generator.generate();
+		assertEquals("Generation is not deterministic", code, generator.generate());
+		ProgramGenerator other = new ProgramGenerator();
+		other.methods = 5;
+		other.loopDepth = 2;
+		other.sourceSinkDensity = 0.5;
+		other.seed = 7;
+		assertNotEquals("The seed is ignored", code, other.generate());
+
+		// each method but the last one calls fanOut later methods: the call graph is acyclic
+		Pattern call = Pattern.compile("this\\.m(\\d+)\\(");
+		int calls = 0;
+		String[] methods = code.split("\n\tm");
+		for (int i = 1; i < methods.length; i++) {
+			int caller = Integer.parseInt(methods[i].substring(0, methods[i].indexOf('(')));
+			Matcher m = call.matcher(methods[i]);
+			while (m.find()) {
+				assertTrue("m" + caller + " calls an earlier method", Integer.parseInt(m.group(1)) > caller);
+				calls++;
+			}
+		}
+		assertEquals("Unexpected number of calls", (generator.methods - 1) * generator.fanOut, calls);
+
+		Path file = Paths.get("outputs", "generator", "bench.imp");
+		generator.generate(file);
+
+		// the generated program must be accepted by the frontend, with the
+		// source, the sanitizer, the sink and the generated methods
+		Program program = IMPFrontend.processFile(file.toString());
+		assertEquals(generator.methods + 3, program.getAllCFGs().size());
+
+		// and by all the analyses
+		for (Analysis analysis : Analysis.values()) {
+			program = IMPFrontend.processFile(file.toString());
+			Measurement m = ScalabilityBenchmark.measure(program, analysis,
+					Paths.get("outputs", "generator", analysis.name().toLowerCase()));
+			assertTrue("No heap usage recorded for " + analysis, m.peakHeap > 0);
+		}
+	}
+}
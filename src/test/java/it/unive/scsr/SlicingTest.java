@@ -0,0 +1,126 @@
+package it.unive.scsr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import it.unive.lisa.AnalysisException;
+import it.unive.lisa.DefaultConfiguration;
+import it.unive.lisa.LiSA;
+import it.unive.lisa.analysis.nonrelational.value.ValueEnvironment;
+import it.unive.lisa.conf.LiSAConfiguration;
+import it.unive.lisa.conf.LiSAConfiguration.GraphType;
+import it.unive.lisa.imp.IMPFrontend;
+import it.unive.lisa.imp.ParsingException;
+import it.unive.lisa.interprocedural.context.ContextBasedAnalysis;
+import it.unive.lisa.program.Program;
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.statement.Statement;
+import it.unive.scsr.checkers.DivisionByZeroChecker;
+import it.unive.scsr.checkers.OverflowChecker;
+import it.unive.scsr.checkers.OverflowChecker.NumericalSize;
+import it.unive.scsr.interprocedural.CallStrings;
+import it.unive.scsr.slicing.ProgramSlicer;
+
+public class SlicingTest {
+
+	@Test
+	public void testSlice() throws ParsingException {
+		Program program = IMPFrontend.processFile("inputs/slicing.imp");
+		Set<String> removed = new HashSet<>();
+		for (CFG cfg : program.getAllCFGs())
+			for (Statement st : ProgramSlicer.irrelevantAssignments(cfg))
+				removed.add(st.toString());
+
+		// unused and z in f, and both assignments to the accumulator of g,
+		// cannot reach the divisions; y and i are divisors
+		assertEquals(4, removed.size());
+		assertTrue(removed.stream().anyMatch(s -> s.startsWith("unused")));
+		assertTrue(removed.stream().anyMatch(s -> s.startsWith("z")));
+		assertEquals(2, removed.stream().filter(s -> s.startsWith("acc")).count());
+		assertTrue(removed.stream().allMatch(s -> !s.startsWith("y") && !s.startsWith("i")));
+
+		int before = 0, after = 0;
+		for (CFG cfg : program.getAllCFGs())
+			before += cfg.getNodes().size();
+		assertEquals(4, ProgramSlicer.slice(program));
+		for (CFG cfg : program.getAllCFGs())
+			after += cfg.getNodes().size();
+		assertEquals(before - 4, after);
+
+		// other checks may query any statement
+		Program other = IMPFrontend.processFile("inputs/slicing.imp");
+		assertEquals(0, ProgramSlicer.sliceFor(
+				Collections.singleton(new OverflowChecker(NumericalSize.INT32)), other));
+	}
+
+	@Test
+	public void testSlicedDivByZero() throws ParsingException, AnalysisException, IOException {
+		Set<String> unsliced = warnings("outputs/divbyzero/intervals-unsliced", false);
+		Set<String> sliced = warnings("outputs/divbyzero/intervals-sliced", true);
+
+		// kept nodes are the original statements: the warnings, locations
+		// included, are the same
+		assertFalse(unsliced.isEmpty());
+		assertEquals(unsliced, sliced);
+	}
+
+	private static Set<String> warnings(
+			String workdir,
+			boolean slice)
+			throws ParsingException, AnalysisException, IOException {
+		// we parse the program to get the CFG representation of the code in it
+		Program program = IMPFrontend.processFile("inputs/divbyzero.imp");
+
+		// we build a new configuration for the analysis
+		LiSAConfiguration conf = new DefaultConfiguration();
+
+		// we specify where we want files to be generated
+		conf.workdir = workdir;
+
+		// we specify the visual format of the analysis results
+		conf.analysisGraphs = GraphType.HTML;
+
+		// we specify the create a json file containing warnings triggered by the analysis
+		conf.jsonOutput = true;
+
+		// we specify the analysis that we want to execute
+		conf.abstractState = DefaultConfiguration.simpleState(
+				DefaultConfiguration.defaultHeapDomain(),
+				new ValueEnvironment<>(new Intervals()),
+				DefaultConfiguration.defaultTypeDomain());
+
+		// we specify to perform an interprocedural analysis
+		conf.interproceduralAnalysis = new ContextBasedAnalysis<>(CallStrings.configured());
+
+		// the DivisionByZeroChecker is executed after the numerical analysis
+		conf.semanticChecks.add(new DivisionByZeroChecker<Intervals>(NumericalSize.UINT8));
+
+		// we remove the code that cannot reach the divisors, before the
+		// analysis starts
+		if (slice)
+			assertTrue(ProgramSlicer.sliceFor(conf.semanticChecks, program) > 0);
+
+		// we instantiate LiSA with our configuration
+		LiSA lisa = new LiSA(conf);
+
+		// finally, we tell LiSA to analyze the program
+		lisa.run(program);
+
+		JsonNode report = new ObjectMapper().readTree(new File(conf.workdir, "report.json"));
+		Set<String> warnings = new HashSet<>();
+		report.get("warnings").forEach(w -> warnings.add(w.toString()));
+		return warnings;
+	}
+}
@@ -0,0 +1,90 @@
+package it.unive.scsr;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import it.unive.lisa.AnalysisException;
+import it.unive.lisa.DefaultConfiguration;
+import it.unive.lisa.LiSA;
+import it.unive.lisa.analysis.nonrelational.value.ValueEnvironment;
+import it.unive.lisa.conf.LiSAConfiguration;
+import it.unive.lisa.conf.LiSAConfiguration.GraphType;
+import it.unive.lisa.imp.IMPFrontend;
+import it.unive.lisa.imp.ParsingException;
+import it.unive.lisa.interprocedural.context.ContextBasedAnalysis;
+import it.unive.lisa.program.Program;
+import it.unive.scsr.checkers.DivisionByZeroChecker;
+import it.unive.scsr.checkers.OverflowChecker.NumericalSize;
+import it.unive.scsr.interprocedural.CallStrings;
+import it.unive.scsr.storage.SparseResults;
+
+public class SparseResultsTest {
+
+	@Test
+	public void testSparseDivByZero() throws ParsingException, AnalysisException, IOException {
+		run("outputs/sparse/dense", false);
+		run("outputs/sparse/sparse", true);
+
+		// keeping fewer states must not change the warnings
+		assertEquals(warnings("outputs/sparse/dense"), warnings("outputs/sparse/sparse"));
+	}
+
+	private static List<String> warnings(
+			String workdir) throws IOException {
+		JsonNode report = new ObjectMapper().readTree(new File(workdir, "report.json"));
+		List<String> warnings = new ArrayList<>();
+		report.get("warnings").forEach(w -> warnings.add(w.toString()));
+		warnings.sort(null);
+		return warnings;
+	}
+
+	private static void run(
+			String workdir,
+			boolean sparse)
+			throws ParsingException, AnalysisException {
+		// we parse the program to get the CFG representation of the code in it
+		Program program = IMPFrontend.processFile("inputs/divbyzero.imp");
+
+		// we build a new configuration for the analysis
+		LiSAConfiguration conf = new DefaultConfiguration();
+
+		// we specify where we want files to be generated
+		conf.workdir = workdir;
+
+		// we dump the results, without graphs
+		conf.analysisGraphs = GraphType.NONE;
+		conf.serializeResults = true;
+		conf.jsonOutput = true;
+
+		// we specify the analysis that we want to execute
+		conf.abstractState = DefaultConfiguration.simpleState(
+				DefaultConfiguration.defaultHeapDomain(),
+				new ValueEnvironment<>(new Intervals()),
+				DefaultConfiguration.defaultTypeDomain());
+
+		// we specify to perform an interprocedural analysis
+		conf.interproceduralAnalysis = new ContextBasedAnalysis<>(CallStrings.configured());
+
+		// the DivisionByZeroChecker is executed after the numerical analysis
+		conf.semanticChecks.add(new DivisionByZeroChecker<Intervals>(NumericalSize.UINT8));
+
+		// only the states queried by the checker are kept
+		if (sparse)
+			SparseResults.apply(conf);
+
+		// we instantiate LiSA with our configuration
+		LiSA lisa = new LiSA(conf);
+
+		// finally, we tell LiSA to analyze the program
+		lisa.run(program);
+	}
+}
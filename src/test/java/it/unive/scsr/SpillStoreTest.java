@@ -0,0 +1,202 @@
+package it.unive.scsr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import it.unive.lisa.AnalysisException;
+import it.unive.lisa.DefaultConfiguration;
+import it.unive.lisa.LiSA;
+import it.unive.lisa.analysis.AnalyzedCFG;
+import it.unive.lisa.analysis.SimpleAbstractState;
+import it.unive.lisa.analysis.heap.pointbased.PointBasedHeap;
+import it.unive.lisa.analysis.nonrelational.value.NonRelationalValueDomain;
+import it.unive.lisa.analysis.nonrelational.value.TypeEnvironment;
+import it.unive.lisa.analysis.nonrelational.value.ValueEnvironment;
+import it.unive.lisa.analysis.types.InferredTypes;
+import it.unive.lisa.checks.semantic.SemanticCheck;
+import it.unive.lisa.conf.LiSAConfiguration;
+import it.unive.lisa.conf.LiSAConfiguration.GraphType;
+import it.unive.lisa.imp.IMPFrontend;
+import it.unive.lisa.imp.ParsingException;
+import it.unive.lisa.program.Program;
+import it.unive.lisa.program.cfg.statement.Statement;
+import it.unive.scsr.checkers.DivisionByZeroChecker;
+import it.unive.scsr.checkers.OverflowChecker.NumericalSize;
+import it.unive.scsr.checkers.TaintAnnotations;
+import it.unive.scsr.checkers.TaintChecker;
+import it.unive.scsr.interprocedural.ParallelModularAnalysis;
+import it.unive.scsr.storage.DictionaryEnvironmentCodec;
+import it.unive.scsr.storage.IntervalEnvironmentCodec;
+import it.unive.scsr.storage.StateCodec;
+import it.unive.scsr.storage.SpillStore;
+import it.unive.scsr.storage.SpilledAnalyzedCFG;
+
+public class SpillStoreTest {
+
+	// the signatures of the sources, sanitizers and sinks of taint.imp
+	private static final String[] SOURCES = new String[] { "source1", "source2" };
+
+	private static final String[] SANITIZERS = new String[] { "sanitizer1", "sanitizer2" };
+
+	private static final String[] SINKS = new String[] { "sink1", "sinks" };
+
+	@Test
+	public void testSpilledDivByZero() throws ParsingException, AnalysisException, IOException {
+		run("inputs/divbyzero.imp", "outputs/spill/heap", new Intervals(), new IntervalEnvironmentCodec<>(),
+				new DivisionByZeroChecker<Intervals>(NumericalSize.UINT8), false);
+		assertTrue(run("inputs/divbyzero.imp", "outputs/spill/spilled", new Intervals(),
+				new IntervalEnvironmentCodec<>(), new DivisionByZeroChecker<Intervals>(NumericalSize.UINT8), true) > 0);
+
+		// reading states back from the store must not change the warnings
+		assertEquals(warnings("outputs/spill/heap"), warnings("outputs/spill/spilled"));
+	}
+
+	@Test
+	public void testSpilledTaint() throws ParsingException, AnalysisException, IOException {
+		run("inputs/taint.imp", "outputs/spill/taint-heap", new Taint(), new DictionaryEnvironmentCodec<>(),
+				new TaintChecker(), false);
+		assertTrue(run("inputs/taint.imp", "outputs/spill/taint-spilled", new Taint(),
+				new DictionaryEnvironmentCodec<>(), new TaintChecker(), true) > 0);
+
+		// the taint checker reads the states of the calls to the sinks
+		assertEquals(warnings("outputs/spill/taint-heap"), warnings("outputs/spill/taint-spilled"));
+	}
+
+	@Test
+	public void testReadBack() throws ParsingException, AnalysisException, IOException {
+		readBack("inputs/intervals.imp", "outputs/spill/readback", new Intervals(), new IntervalEnvironmentCodec<>());
+		readBack("inputs/taint.imp", "outputs/spill/readback-taint", new Taint(), new DictionaryEnvironmentCodec<>());
+	}
+
+	/**
+	 * Checks that each state read from the store is the one the analysis of
+	 * the given file kept on the heap, heap and types included.
+	 */
+	private static <V extends NonRelationalValueDomain<V>> void readBack(
+			String file,
+			String workdir,
+			V domain,
+			StateCodec<SimpleAbstractState<PointBasedHeap, ValueEnvironment<V>,
+					TypeEnvironment<InferredTypes>>> codec)
+			throws ParsingException, AnalysisException, IOException {
+		// we parse the program to get the CFG representation of the code in it
+		Program program = IMPFrontend.processFile(file);
+
+		// we load annotation for identify sources, sanitizer, and sinks during the analysis
+		TaintAnnotations.load(program, SOURCES, SANITIZERS, SINKS);
+
+		// we build a new configuration for the analysis
+		LiSAConfiguration conf = new DefaultConfiguration();
+
+		// we specify where we want files to be generated
+		conf.workdir = workdir;
+
+		// we specify the visual format of the analysis results
+		conf.analysisGraphs = GraphType.NONE;
+
+		// we specify the analysis that we want to execute
+		conf.abstractState = DefaultConfiguration.simpleState(
+				DefaultConfiguration.defaultHeapDomain(),
+				new ValueEnvironment<>(domain),
+				DefaultConfiguration.defaultTypeDomain());
+
+		// results are kept on the heap
+		ParallelModularAnalysis<SimpleAbstractState<PointBasedHeap, ValueEnvironment<V>,
+				TypeEnvironment<InferredTypes>>> analysis = new ParallelModularAnalysis<>(2);
+		conf.interproceduralAnalysis = analysis;
+
+		// we instantiate LiSA with our configuration
+		LiSA lisa = new LiSA(conf);
+
+		// finally, we tell LiSA to analyze the program
+		lisa.run(program);
+
+		try (SpillStore<SimpleAbstractState<PointBasedHeap, ValueEnvironment<V>,
+				TypeEnvironment<InferredTypes>>> store = new SpillStore<>(conf.workdir, codec)) {
+			for (AnalyzedCFG<SimpleAbstractState<PointBasedHeap, ValueEnvironment<V>,
+					TypeEnvironment<InferredTypes>>> result : analysis.getResults().values()) {
+				SpilledAnalyzedCFG<SimpleAbstractState<PointBasedHeap, ValueEnvironment<V>,
+						TypeEnvironment<InferredTypes>>> spilled = store.spill(result);
+				// sub-expressions are spilled too
+				assertTrue(spilled.getSpilledStates() >= result.getNodes().size());
+				for (Statement st : result.getNodes()) {
+					assertEquals(st.toString(), result.getAnalysisStateAfter(st).getState(),
+							spilled.getAnalysisStateAfter(st).getState());
+					assertEquals(st.toString(), result.getAnalysisStateAfter(st).getComputedExpressions(),
+							spilled.getAnalysisStateAfter(st).getComputedExpressions());
+				}
+			}
+			assertTrue(store.getSpilledStates() > 0);
+		}
+	}
+
+	private static List<String> warnings(
+			String workdir) throws IOException {
+		JsonNode report = new ObjectMapper().readTree(new File(workdir, "report.json"));
+		List<String> warnings = new ArrayList<>();
+		report.get("warnings").forEach(w -> warnings.add(w.toString()));
+		warnings.sort(null);
+		return warnings;
+	}
+
+	private static <V extends NonRelationalValueDomain<V>> int run(
+			String file,
+			String workdir,
+			V domain,
+			StateCodec<SimpleAbstractState<PointBasedHeap, ValueEnvironment<V>,
+					TypeEnvironment<InferredTypes>>> codec,
+			SemanticCheck<SimpleAbstractState<PointBasedHeap, ValueEnvironment<V>,
+					TypeEnvironment<InferredTypes>>> check,
+			boolean spill)
+			throws ParsingException, AnalysisException, IOException {
+		// we parse the program to get the CFG representation of the code in it
+		Program program = IMPFrontend.processFile(file);
+
+		// we load annotation for identify sources, sanitizer, and sinks during the analysis and checker execution
+		TaintAnnotations.load(program, SOURCES, SANITIZERS, SINKS);
+
+		// we build a new configuration for the analysis
+		LiSAConfiguration conf = new DefaultConfiguration();
+
+		// we specify where we want files to be generated
+		conf.workdir = workdir;
+
+		// we specify the visual format of the analysis results
+		conf.analysisGraphs = GraphType.NONE;
+
+		// we specify the create a json file containing warnings triggered by the analysis
+		conf.jsonOutput = true;
+
+		// we specify the analysis that we want to execute
+		conf.abstractState = DefaultConfiguration.simpleState(
+				DefaultConfiguration.defaultHeapDomain(),
+				new ValueEnvironment<>(domain),
+				DefaultConfiguration.defaultTypeDomain());
+
+		// the check is executed after the analysis, reading the states back
+		conf.semanticChecks.add(check);
+
+		try (SpillStore<SimpleAbstractState<PointBasedHeap, ValueEnvironment<V>,
+				TypeEnvironment<InferredTypes>>> store = new SpillStore<>(workdir, codec)) {
+			// results are moved to memory-mapped files as soon as they are computed
+			conf.interproceduralAnalysis = new ParallelModularAnalysis<>(2, spill ? store : null);
+
+			// we instantiate LiSA with our configuration
+			LiSA lisa = new LiSA(conf);
+
+			// finally, we tell LiSA to analyze the program
+			lisa.run(program);
+			return store.getSpilledStates();
+		}
+	}
+}
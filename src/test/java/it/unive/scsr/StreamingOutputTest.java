@@ -0,0 +1,102 @@
+package it.unive.scsr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import it.unive.lisa.AnalysisException;
+import it.unive.lisa.DefaultConfiguration;
+import it.unive.lisa.LiSA;
+import it.unive.lisa.analysis.nonrelational.value.ValueEnvironment;
+import it.unive.lisa.conf.LiSAConfiguration;
+import it.unive.lisa.imp.IMPFrontend;
+import it.unive.lisa.imp.ParsingException;
+import it.unive.lisa.interprocedural.context.ContextBasedAnalysis;
+import it.unive.lisa.interprocedural.context.FullStackToken;
+import it.unive.lisa.program.Program;
+import it.unive.lisa.util.file.FileManager;
+import it.unive.scsr.checkers.TaintAnnotations;
+import it.unive.scsr.checkers.TaintChecker;
+import it.unive.scsr.outputs.StreamingOutput;
+
+public class StreamingOutputTest {
+
+	@Test
+	public void testStreamingTaint() throws ParsingException, AnalysisException, IOException {
+		// we parse the program to get the CFG representation of the code in it
+		Program program = IMPFrontend.processFile("inputs/taint.imp");
+		TaintAnnotations.load(program,
+				new String[] { "source1" },
+				new String[] { "sanitizer1" },
+				new String[] { "sink1" });
+
+		String workdir = "outputs/taint-streaming";
+		try {
+			FileManager.forceDeleteFolder(workdir);
+		} catch (IOException e) {
+			e.printStackTrace(System.err);
+			fail("Cannot delete working directory '" + workdir + "': " + e.getMessage());
+		}
+
+		LiSAConfiguration conf = new DefaultConfiguration();
+		conf.abstractState = DefaultConfiguration.simpleState(
+				DefaultConfiguration.defaultHeapDomain(),
+				new ValueEnvironment<>(new Taint()),
+				DefaultConfiguration.defaultTypeDomain());
+		conf.interproceduralAnalysis = new ContextBasedAnalysis<>(FullStackToken.getSingleton());
+		conf.semanticChecks.add(new TaintChecker());
+
+		// we stream warnings, with html pages for the warned cfgs only
+		try (StreamingOutput output = new StreamingOutput(workdir, "outputs/assets")) {
+			output.configure(conf);
+			new LiSA(conf).run(program);
+		}
+
+		Path stream = Paths.get(workdir, StreamingOutput.FILE_NAME);
+		List<String> lines = Files.readAllLines(stream);
+		assertTrue("No warning was streamed", lines.stream().anyMatch(l -> l.startsWith("{\"type\":\"warning\"")));
+		assertTrue("No state was streamed", lines.stream().anyMatch(l -> l.startsWith("{\"type\":\"state\"")));
+		assertTrue(Paths.get(workdir, "report.json").toFile().exists());
+		assertFalse("Assets should not be copied", Paths.get(workdir, "js").toFile().exists());
+
+		// states refer to the context they have been computed in, not to an index
+		assertTrue("States must carry their context",
+				lines.stream().filter(l -> l.startsWith("{\"type\":\"state\"")).allMatch(l -> l.contains("\"context\":\"")));
+
+		// all the warned statements are highlighted in the html pages, also
+		// the ones warned after the first warning of their cfg
+		Pattern location = Pattern.compile("\"location\":\"([^\"]*)\"");
+		Set<String> warned = new HashSet<>();
+		for (String line : lines)
+			if (line.startsWith("{\"type\":\"warning\"")) {
+				Matcher m = location.matcher(line);
+				if (m.find())
+					warned.add(m.group(1));
+			}
+		Pattern row = Pattern.compile("<tr class=\"warned\"><td>.*?</td><td>.*?</td><td>(.*?)</td>");
+		Set<String> highlighted = new HashSet<>();
+		try (Stream<Path> pages = Files.list(Paths.get(workdir))) {
+			for (Path page : pages.filter(p -> p.toString().endsWith(".html")).collect(Collectors.toList())) {
+				Matcher m = row.matcher(Files.readString(page));
+				while (m.find())
+					highlighted.add(m.group(1));
+			}
+		}
+		assertEquals("Warned statements and highlighted rows differ", warned, highlighted);
+	}
+}
@@ -0,0 +1,138 @@
+package it.unive.scsr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.Test;
+
+import it.unive.lisa.AnalysisException;
+import it.unive.lisa.DefaultConfiguration;
+import it.unive.lisa.LiSA;
+import it.unive.lisa.analysis.SimpleAbstractState;
+import it.unive.lisa.analysis.heap.pointbased.PointBasedHeap;
+import it.unive.lisa.analysis.nonrelational.value.NonRelationalValueDomain;
+import it.unive.lisa.analysis.nonrelational.value.TypeEnvironment;
+import it.unive.lisa.analysis.nonrelational.value.ValueEnvironment;
+import it.unive.lisa.analysis.types.InferredTypes;
+import it.unive.lisa.conf.LiSAConfiguration;
+import it.unive.lisa.conf.LiSAConfiguration.GraphType;
+import it.unive.lisa.imp.IMPFrontend;
+import it.unive.lisa.imp.ParsingException;
+import it.unive.lisa.program.Program;
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.util.file.FileManager;
+import it.unive.scsr.interprocedural.BottomUpAnalysis;
+import it.unive.scsr.interprocedural.SummaryStore;
+import it.unive.scsr.interprocedural.ValueEnvironmentCodec;
+
+public class SummaryStoreTest {
+
+	@Test
+	public void testIncrementalIntervals() throws ParsingException, AnalysisException {
+		FileManager.forceDeleteFolder("outputs/summaries");
+
+		// the first run analyzes every component
+		SummaryStore store = new SummaryStore("outputs/summaries/store");
+		run(IMPFrontend.processFile("inputs/overflow.imp"), "outputs/summaries/first", store);
+		assertEquals(0, store.getHits());
+		assertTrue(store.getMisses() > 0);
+
+		// the second run reuses all the summaries
+		SummaryStore again = new SummaryStore("outputs/summaries/store");
+		Program program = IMPFrontend.processFile("inputs/overflow.imp");
+		BottomUpAnalysis<?> analysis = run(program, "outputs/summaries/second", again);
+		assertEquals(0, again.getMisses());
+		assertEquals(store.getMisses(), again.getHits());
+
+		// checks still need the results of the reused cfgs
+		for (CFG cfg : program.getAllCFGs())
+			assertFalse(cfg.toString(), analysis.getAnalysisResultsOf(cfg).isEmpty());
+	}
+
+	@Test
+	public void testEditedCallee() throws ParsingException, AnalysisException, IOException {
+		FileManager.forceDeleteFolder("outputs/summaries-edit");
+
+		SummaryStore store = new SummaryStore("outputs/summaries-edit/store");
+		run(IMPFrontend.processFile("inputs/calls.imp"), "outputs/summaries-edit/first", store);
+
+		// big() is only called by fan() and main(): the edit keeps all the
+		// other lines where they are
+		Path edited = Paths.get("outputs", "summaries-edit", "calls.imp");
+		String code = Files.readString(Paths.get("inputs", "calls.imp"));
+		assertTrue(code.contains("return 32767;"));
+		Files.createDirectories(edited.getParent());
+		Files.writeString(edited, code.replace("return 32767;", "return 32766;"));
+
+		SummaryStore again = new SummaryStore("outputs/summaries-edit/store");
+		run(IMPFrontend.processFile(edited.toString()), "outputs/summaries-edit/second", again);
+		assertEquals(3, again.getMisses());
+		assertEquals(store.getMisses() - 3, again.getHits());
+	}
+
+	@Test
+	public void testDifferentDomains() throws ParsingException, AnalysisException {
+		FileManager.forceDeleteFolder("outputs/summaries-domains");
+
+		SummaryStore store = new SummaryStore("outputs/summaries-domains/store");
+		run(IMPFrontend.processFile("inputs/calls.imp"), "outputs/summaries-domains/intervals", store);
+		assertEquals(0, store.getHits());
+
+		// the code did not change, but the summaries of intervals cannot be
+		// used by a taint analysis
+		SummaryStore again = new SummaryStore("outputs/summaries-domains/store");
+		run(IMPFrontend.processFile("inputs/calls.imp"), "outputs/summaries-domains/taint", again, new Taint(),
+				ValueEnvironmentCodec.taint());
+		assertEquals(0, again.getHits());
+		assertEquals(store.getMisses(), again.getMisses());
+	}
+
+	private static BottomUpAnalysis<?> run(
+			Program program,
+			String workdir,
+			SummaryStore store)
+			throws AnalysisException {
+		return run(program, workdir, store, new Intervals(), ValueEnvironmentCodec.intervals());
+	}
+
+	private static <V extends NonRelationalValueDomain<V>> BottomUpAnalysis<?> run(
+			Program program,
+			String workdir,
+			SummaryStore store,
+			V domain,
+			ValueEnvironmentCodec<PointBasedHeap, V, TypeEnvironment<InferredTypes>> codec)
+			throws AnalysisException {
+		// we build a new configuration for the analysis
+		LiSAConfiguration conf = new DefaultConfiguration();
+
+		// we specify where we want files to be generated
+		conf.workdir = workdir;
+
+		// we specify the visual format of the analysis results
+		conf.analysisGraphs = GraphType.NONE;
+
+		// we specify the analysis that we want to execute
+		conf.abstractState = DefaultConfiguration.simpleState(
+				DefaultConfiguration.defaultHeapDomain(),
+				new ValueEnvironment<>(domain),
+				DefaultConfiguration.defaultTypeDomain());
+
+		// summaries are persisted, and reused when the code did not change
+		BottomUpAnalysis<SimpleAbstractState<PointBasedHeap, ValueEnvironment<V>,
+				TypeEnvironment<InferredTypes>>> analysis = new BottomUpAnalysis<>(2, store, codec);
+		conf.interproceduralAnalysis = analysis;
+
+		// we instantiate LiSA with our configuration
+		LiSA lisa = new LiSA(conf);
+
+		// finally, we tell LiSA to analyze the program
+		lisa.run(program);
+		return analysis;
+	}
+}
@@ -11,13 +11,10 @@ import it.unive.lisa.conf.LiSAConfiguration.GraphType;
 import it.unive.lisa.imp.IMPFrontend;
 import it.unive.lisa.imp.ParsingException;
 import it.unive.lisa.interprocedural.context.ContextBasedAnalysis;
-import it.unive.lisa.interprocedural.context.FullStackToken;
-import it.unive.lisa.program.ClassUnit;
 import it.unive.lisa.program.Program;
-import it.unive.lisa.program.Unit;
-import it.unive.lisa.program.cfg.CodeMember;
-import it.unive.lisa.program.cfg.Parameter;
+import it.unive.scsr.checkers.TaintAnnotations;
 import it.unive.scsr.checkers.TaintChecker;
+import it.unive.scsr.interprocedural.CallStrings;
 
 public class TaintTest {
 	
@@ -57,7 +54,7 @@ public class TaintTest {
 				DefaultConfiguration.defaultTypeDomain());
 		 
 		 // we specify to perform an interprocedural analysis (require to recognize calls to sources, sanitizers, and sinks)
-		 conf.interproceduralAnalysis = new ContextBasedAnalysis<>(FullStackToken.getSingleton());
+		 conf.interproceduralAnalysis = new ContextBasedAnalysis<>(CallStrings.configured());
 		 
 		 // the TaintChecker is executed after the Taint analysis and it checks if a tainted value is flowed in a sink
 		 conf.semanticChecks.add(new TaintChecker());
@@ -72,50 +69,7 @@ public class TaintTest {
 
 
 	private void loadAnnotations(Program program) {
-		
-		for(Unit unit : program.getUnits()) {
-			if(unit instanceof ClassUnit) {
-				ClassUnit cunit = (ClassUnit) unit;
-				for(CodeMember cm : cunit.getInstanceCodeMembers(false)) {
-					if(isSource(cm))
-						cm.getDescriptor().getAnnotations().addAnnotation(Taint.TAINTED_ANNOTATION);
-					else if(isSanitizer(cm)) 
-						cm.getDescriptor().getAnnotations().addAnnotation(Taint.CLEAN_ANNOTATION);
-					else if(isSink(cm))
-						for(Parameter param : cm.getDescriptor().getFormals()) {
-							param.addAnnotation(TaintChecker.SINK_ANNOTATION);
-						}		
-				}	
-			}
-		}
-		
-	}
-
-
-	private boolean isSource(CodeMember cm) {
-		for(String signatureName : sources) {
-			if(cm.getDescriptor().getName().equals(signatureName))
-				return true;
-		}
-		return false;
-	}
-	
-
-	private boolean isSanitizer(CodeMember cm) {
-		for(String signatureName : sanitizers) {
-			if(cm.getDescriptor().getName().equals(signatureName))
-				return true;
-		}
-		return false;
-	}
-	
-
-	private boolean isSink(CodeMember cm) {
-		for(String signatureName : sinks) {
-			if(cm.getDescriptor().getName().equals(signatureName))
-				return true;
-		}
-		return false;
+		TaintAnnotations.load(program, sources, sanitizers, sinks);
 	}
 	
 }
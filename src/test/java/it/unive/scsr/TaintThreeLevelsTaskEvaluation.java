@@ -31,6 +31,7 @@ import it.unive.lisa.program.Unit;
 import it.unive.lisa.program.cfg.CodeMember;
 import it.unive.lisa.program.cfg.Parameter;
 import it.unive.lisa.util.file.FileManager;
+import it.unive.scsr.eval.EvaluationContext;
 import it.unive.scsr.checkers.TaintThreeLevelsChecker;
 
 public class TaintThreeLevelsTaskEvaluation {
@@ -55,7 +56,7 @@ public class TaintThreeLevelsTaskEvaluation {
 		LiSAConfiguration conf = new DefaultConfiguration();
 
 		// we specify where we want files to be generated
-		conf.workdir = "outputs/taint-3lvs-eval";
+		conf.workdir = EvaluationContext.outputs + "/taint-3lvs-eval";
 
 		// we specify the visual format of the analysis results
 		conf.analysisGraphs = GraphType.HTML;
@@ -95,7 +96,7 @@ public class TaintThreeLevelsTaskEvaluation {
 		
 
 		Path expectedPath = Paths.get("expected", "taint-3lvs-eval");
-		Path actualPath = Paths.get("outputs", "taint-3lvs-eval");
+		Path actualPath = Paths.get(EvaluationContext.outputs, "taint-3lvs-eval");
 
 		File expFile = Paths.get(expectedPath.toString(), "report.json").toFile();
 		File actFile = Paths.get(actualPath.toString(), "report.json").toFile();
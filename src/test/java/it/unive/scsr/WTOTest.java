@@ -0,0 +1,178 @@
+package it.unive.scsr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import it.unive.lisa.AnalysisException;
+import it.unive.lisa.DefaultConfiguration;
+import it.unive.lisa.LiSA;
+import it.unive.lisa.analysis.AnalyzedCFG;
+import it.unive.lisa.analysis.SimpleAbstractState;
+import it.unive.lisa.analysis.heap.pointbased.PointBasedHeap;
+import it.unive.lisa.analysis.nonrelational.value.TypeEnvironment;
+import it.unive.lisa.analysis.nonrelational.value.ValueEnvironment;
+import it.unive.lisa.analysis.types.InferredTypes;
+import it.unive.lisa.conf.LiSAConfiguration;
+import it.unive.lisa.conf.LiSAConfiguration.GraphType;
+import it.unive.lisa.imp.IMPFrontend;
+import it.unive.lisa.imp.ParsingException;
+import it.unive.lisa.interprocedural.ModularWorstCaseAnalysis;
+import it.unive.lisa.program.ClassUnit;
+import it.unive.lisa.program.Program;
+import it.unive.lisa.program.Unit;
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.CodeMember;
+import it.unive.lisa.program.cfg.statement.Statement;
+import it.unive.lisa.util.collections.workset.WorkingSet;
+import it.unive.scsr.fixpoint.WTOWorkingSet;
+import it.unive.scsr.fixpoint.WeakTopologicalOrder;
+
+public class WTOTest {
+
+	@Test
+	public void testOrdering() throws ParsingException {
+		Program program = IMPFrontend.processFile("inputs/intervals.imp");
+
+		for (Unit unit : program.getUnits())
+			if (unit instanceof ClassUnit)
+				for (CodeMember cm : ((ClassUnit) unit).getInstanceCodeMembers(false)) {
+					WeakTopologicalOrder wto = new WeakTopologicalOrder((CFG) cm);
+					// every node is ordered exactly once
+					assertEquals(((CFG) cm).getNodes().size(), wto.size());
+					// only the loop has a component
+					String name = cm.getDescriptor().getName();
+					assertEquals(name, name.equals("loop") ? 1 : 0, wto.getHeads().size());
+				}
+	}
+
+	@Test
+	public void testIntervalsWithWTO() throws ParsingException, AnalysisException {
+		for (String file : new String[] { "intervals", "overflow" }) {
+			// the default working set of LiSA
+			CountingWorkingSet fifo = new CountingWorkingSet(new DefaultConfiguration().fixpointWorkingSet);
+			Map<String, ValueEnvironment<Intervals>> expected = run(file, "outputs/wto/" + file + "-default", fifo);
+
+			// we iterate following the weak topological ordering of each cfg
+			CountingWorkingSet wto = new CountingWorkingSet(new WTOWorkingSet());
+			Map<String, ValueEnvironment<Intervals>> actual = run(file, "outputs/wto/" + file, wto);
+
+			// loops are visited in the same way, so the results are the same,
+			// but nodes after a loop are only processed once it is stable
+			assertEquals(file, expected.keySet(), actual.keySet());
+			for (Map.Entry<String, ValueEnvironment<Intervals>> state : expected.entrySet())
+				assertEquals(state.getKey(), state.getValue(), actual.get(state.getKey()));
+			assertTrue(file + ": " + wto.pops + " > " + fifo.pops, wto.pops.get() <= fifo.pops.get());
+		}
+	}
+
+	// the value state after each node of the given program, analyzed with the
+	// given working set
+	private static Map<String, ValueEnvironment<Intervals>> run(
+			String file,
+			String workdir,
+			WorkingSet<Statement> ws)
+			throws ParsingException, AnalysisException {
+		// we parse the program to get the CFG representation of the code in it
+		Program program = IMPFrontend.processFile("inputs/" + file + ".imp");
+
+		// we build a new configuration for the analysis
+		LiSAConfiguration conf = new DefaultConfiguration();
+
+		// we specify where we want files to be generated
+		conf.workdir = workdir;
+
+		// we specify the visual format of the analysis results
+		conf.analysisGraphs = GraphType.HTML;
+
+		// we specify the order in which nodes are iterated
+		conf.fixpointWorkingSet = ws;
+
+		// we specify the analysis that we want to execute
+		conf.abstractState = DefaultConfiguration.simpleState(
+				DefaultConfiguration.defaultHeapDomain(),
+				new ValueEnvironment<>(new Intervals()),
+				DefaultConfiguration.defaultTypeDomain());
+		ModularWorstCaseAnalysis<SimpleAbstractState<PointBasedHeap, ValueEnvironment<Intervals>,
+				TypeEnvironment<InferredTypes>>> analysis = new ModularWorstCaseAnalysis<>();
+		conf.interproceduralAnalysis = analysis;
+
+		// we instantiate LiSA with our configuration
+		LiSA lisa = new LiSA(conf);
+
+		// finally, we tell LiSA to analyze the program
+		lisa.run(program);
+
+		Map<String, ValueEnvironment<Intervals>> states = new HashMap<>();
+		for (CFG cfg : program.getAllCFGs())
+			for (AnalyzedCFG<SimpleAbstractState<PointBasedHeap, ValueEnvironment<Intervals>,
+					TypeEnvironment<InferredTypes>>> result : analysis.getAnalysisResultsOf(cfg))
+				for (Statement st : cfg.getNodes())
+					states.put(cfg.getDescriptor().getFullSignature() + " " + st.getLocation() + " " + st,
+							result.getAnalysisStateAfter(st).getState().getValueState());
+		return states;
+	}
+
+	// counts the nodes processed by all the fixpoints
+	private static class CountingWorkingSet implements WorkingSet<Statement> {
+
+		private final WorkingSet<Statement> wrapped;
+
+		private final AtomicInteger pops;
+
+		private CountingWorkingSet(
+				WorkingSet<Statement> wrapped) {
+			this(wrapped, new AtomicInteger());
+		}
+
+		private CountingWorkingSet(
+				WorkingSet<Statement> wrapped,
+				AtomicInteger pops) {
+			this.wrapped = wrapped;
+			this.pops = pops;
+		}
+
+		@Override
+		public void push(
+				Statement e) {
+			wrapped.push(e);
+		}
+
+		@Override
+		public Statement pop() {
+			pops.incrementAndGet();
+			return wrapped.pop();
+		}
+
+		@Override
+		public Statement peek() {
+			return wrapped.peek();
+		}
+
+		@Override
+		public int size() {
+			return wrapped.size();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return wrapped.isEmpty();
+		}
+
+		@Override
+		public Collection<Statement> getContents() {
+			return wrapped.getContents();
+		}
+
+		@Override
+		public CountingWorkingSet mk() {
+			return new CountingWorkingSet(wrapped.mk(), pops);
+		}
+	}
+}
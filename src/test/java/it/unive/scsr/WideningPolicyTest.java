@@ -0,0 +1,111 @@
+package it.unive.scsr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import it.unive.lisa.AnalysisException;
+import it.unive.lisa.DefaultConfiguration;
+import it.unive.lisa.LiSA;
+import it.unive.lisa.analysis.AnalyzedCFG;
+import it.unive.lisa.analysis.SimpleAbstractState;
+import it.unive.lisa.analysis.heap.pointbased.PointBasedHeap;
+import it.unive.lisa.analysis.nonrelational.value.TypeEnvironment;
+import it.unive.lisa.analysis.types.InferredTypes;
+import it.unive.lisa.conf.LiSAConfiguration;
+import it.unive.lisa.conf.LiSAConfiguration.GraphType;
+import it.unive.lisa.imp.IMPFrontend;
+import it.unive.lisa.imp.ParsingException;
+import it.unive.lisa.interprocedural.ModularWorstCaseAnalysis;
+import it.unive.lisa.program.Program;
+import it.unive.lisa.program.SourceCodeLocation;
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.statement.Assignment;
+import it.unive.lisa.program.cfg.statement.Statement;
+import it.unive.lisa.symbolic.value.Identifier;
+import it.unive.lisa.util.numeric.MathNumber;
+import it.unive.scsr.fixpoint.WideningPolicy;
+
+public class WideningPolicyTest {
+
+	@Test
+	public void testPentagonsLoopHeadWidening() throws ParsingException, AnalysisException {
+		// we widen everywhere, right away
+		Intervals eager = afterLoop("outputs/widening-policy/eager", new WideningPolicy(false, 0));
+
+		// we widen only at loop heads, after 3 iterations of plain lub
+		Intervals delayed = afterLoop("outputs/widening-policy/delayed", new WideningPolicy(true, 3));
+
+		// in f5, c is b + 1 with b < 3 inside the loop: plain lubs find c <= 3
+		// at the guard, while widening it right away loses the bound
+		assertTrue(eager.interval.getHigh().isPlusInfinity());
+		assertEquals(new MathNumber(4), delayed.interval.getHigh());
+		assertTrue(delayed.lessOrEqual(eager));
+	}
+
+	// the interval of c after the last assignment of overflow.f5, analyzed
+	// with the given policy
+	private static Intervals afterLoop(
+			String workdir,
+			WideningPolicy policy)
+			throws ParsingException, AnalysisException {
+		// we parse the program to get the CFG representation of the code in it
+		Program program = IMPFrontend.processFile("inputs/overflow.imp");
+
+		// we build a new configuration for the analysis
+		LiSAConfiguration conf = new DefaultConfiguration();
+
+		// we specify where we want files to be generated
+		conf.workdir = workdir;
+
+		// we specify the visual format of the analysis results
+		conf.analysisGraphs = GraphType.HTML;
+
+		// we specify where and when to widen
+		policy.apply(conf);
+
+		// we specify the analysis that we want to execute
+		conf.abstractState = DefaultConfiguration.simpleState(
+				DefaultConfiguration.defaultHeapDomain(),
+				new Pentagons(),
+				DefaultConfiguration.defaultTypeDomain());
+		ModularWorstCaseAnalysis<SimpleAbstractState<PointBasedHeap, Pentagons,
+				TypeEnvironment<InferredTypes>>> analysis = new ModularWorstCaseAnalysis<>();
+		conf.interproceduralAnalysis = analysis;
+
+		// we instantiate LiSA with our configuration
+		LiSA lisa = new LiSA(conf);
+
+		// finally, we tell LiSA to analyze the program
+		lisa.run(program);
+
+		for (CFG cfg : program.getAllCFGs()) {
+			if (!cfg.getDescriptor().getName().equals("f5"))
+				continue;
+			// the assignment to c that comes last in the source
+			Assignment last = null;
+			for (Statement st : cfg.getNodes())
+				if (st instanceof Assignment && ((Assignment) st).getLeft().toString().equals("c")
+						&& (last == null || line(st) > line(last)))
+					last = (Assignment) st;
+			assertTrue(last != null);
+
+			for (AnalyzedCFG<SimpleAbstractState<PointBasedHeap, Pentagons,
+					TypeEnvironment<InferredTypes>>> result : analysis.getAnalysisResultsOf(cfg)) {
+				Pentagons state = result.getAnalysisStateAfter(last).getState().getValueState();
+				for (Identifier id : state.intervals.getKeys())
+					if (id.getName().equals("c"))
+						return state.intervals.getState(id);
+				// c is not tracked when top
+				return new Intervals();
+			}
+		}
+		throw new AssertionError("No results for overflow.f5");
+	}
+
+	private static int line(
+			Statement st) {
+		return ((SourceCodeLocation) st.getLocation()).getLine();
+	}
+}
@@ -0,0 +1,150 @@
+package it.unive.scsr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import it.unive.lisa.AnalysisException;
+import it.unive.lisa.DefaultConfiguration;
+import it.unive.lisa.LiSA;
+import it.unive.lisa.analysis.SemanticException;
+import it.unive.lisa.analysis.nonrelational.value.ValueEnvironment;
+import it.unive.lisa.conf.LiSAConfiguration;
+import it.unive.lisa.conf.LiSAConfiguration.GraphType;
+import it.unive.lisa.imp.IMPFrontend;
+import it.unive.lisa.imp.ParsingException;
+import it.unive.lisa.interprocedural.context.ContextBasedAnalysis;
+import it.unive.lisa.program.Program;
+import it.unive.lisa.symbolic.value.operator.binary.NumericNonOverflowingAdd;
+import it.unive.lisa.symbolic.value.operator.binary.NumericNonOverflowingDiv;
+import it.unive.lisa.symbolic.value.operator.binary.NumericNonOverflowingMul;
+import it.unive.lisa.symbolic.value.operator.unary.NumericNegation;
+import it.unive.scsr.WrappedIntervals.Wrapping;
+import it.unive.scsr.checkers.OverflowChecker.NumericalSize;
+import it.unive.scsr.checkers.WrapAroundChecker;
+import it.unive.scsr.interprocedural.CallStrings;
+
+public class WrappedIntervalsTest {
+
+	@Test
+	public void testWrapping() throws SemanticException {
+		WrappedIntervals hundred = new WrappedIntervals(NumericalSize.INT8, 100, 100);
+
+		// 100 + 100 = 200 = -56 (mod 256)
+		WrappedIntervals sum = hundred.evalBinaryExpression(NumericNonOverflowingAdd.INSTANCE, hundred, hundred, null,
+				null);
+		assertEquals(new WrappedIntervals(NumericalSize.INT8, -56, -56), sum);
+		assertEquals(Wrapping.MUST, WrappedIntervals.wrappingOf(NumericNonOverflowingAdd.INSTANCE, hundred, hundred));
+
+		// a result crossing the boundary covers the whole range
+		WrappedIntervals max = new WrappedIntervals(NumericalSize.INT16, 32767, 32767);
+		WrappedIntervals small = new WrappedIntervals(NumericalSize.INT16, 0, 1);
+		assertTrue(max.evalBinaryExpression(NumericNonOverflowingAdd.INSTANCE, max, small, null, null).isTop());
+		assertEquals(Wrapping.MAY, WrappedIntervals.wrappingOf(NumericNonOverflowingAdd.INSTANCE, max, small));
+
+		// -MIN wraps, -0 does not
+		WrappedIntervals min = new WrappedIntervals(NumericalSize.INT32, Integer.MIN_VALUE, Integer.MIN_VALUE);
+		assertEquals(min, min.evalUnaryExpression(NumericNegation.INSTANCE, min, null, null));
+		assertEquals(Wrapping.MUST, WrappedIntervals.wrappingOf(NumericNegation.INSTANCE, min));
+		WrappedIntervals zero = new WrappedIntervals(NumericalSize.UINT8, 0, 0);
+		assertEquals(Wrapping.NONE, WrappedIntervals.wrappingOf(NumericNegation.INSTANCE, zero));
+
+		// products of unsigned 32-bit values do not fit in a long
+		WrappedIntervals top = new WrappedIntervals(NumericalSize.UINT32);
+		assertTrue(top.evalBinaryExpression(NumericNonOverflowingMul.INSTANCE, top, top, null, null).isTop());
+		assertEquals(Wrapping.MAY, WrappedIntervals.wrappingOf(NumericNonOverflowingMul.INSTANCE, top, top));
+
+		// the divisor excludes zero
+		WrappedIntervals divisor = new WrappedIntervals(NumericalSize.INT8, -2, 2);
+		WrappedIntervals ten = new WrappedIntervals(NumericalSize.INT8, 10, 10);
+		assertEquals(new WrappedIntervals(NumericalSize.INT8, -10, 10),
+				ten.evalBinaryExpression(NumericNonOverflowingDiv.INSTANCE, ten, divisor, null, null));
+		WrappedIntervals noDivisor = new WrappedIntervals(NumericalSize.INT8, 0, 0);
+		assertTrue(ten.evalBinaryExpression(NumericNonOverflowingDiv.INSTANCE, ten, noDivisor, null, null).isBottom());
+
+		// widening jumps to the bounds of the range
+		WrappedIntervals widened = small.widening(new WrappedIntervals(NumericalSize.INT16, 0, 2));
+		assertEquals(new WrappedIntervals(NumericalSize.INT16, 0, 32767), widened);
+		assertFalse(widened.isTop());
+	}
+
+	@Test
+	public void testWrapAroundChecker() throws ParsingException, AnalysisException, IOException {
+		// we parse the program to get the CFG representation of the code in it
+		Program program = IMPFrontend.processFile("inputs/overflow.imp");
+
+		// we build a new configuration for the analysis
+		LiSAConfiguration conf = new DefaultConfiguration();
+
+		// we specify where we want files to be generated
+		conf.workdir = "outputs/overflow/wrapped-int16";
+
+		// we specify the visual format of the analysis results
+		conf.analysisGraphs = GraphType.HTML;
+
+		// we specify the create a json file containing warnings triggered by the analysis
+		conf.jsonOutput = true;
+
+		// we specify the analysis that we want to execute, on 16-bit machine integers
+		conf.abstractState = DefaultConfiguration.simpleState(
+				DefaultConfiguration.defaultHeapDomain(),
+				new ValueEnvironment<>(new WrappedIntervals(NumericalSize.INT16)),
+				DefaultConfiguration.defaultTypeDomain());
+
+		// we specify to perform an interprocedural analysis
+		conf.interproceduralAnalysis = new ContextBasedAnalysis<>(CallStrings.configured());
+
+		// the WrapAroundChecker reports the operations that wrap around
+		conf.semanticChecks.add(new WrapAroundChecker());
+
+		// we instantiate LiSA with our configuration
+		LiSA lisa = new LiSA(conf);
+
+		// finally, we tell LiSA to analyze the program
+		lisa.run(program);
+
+		// warnings report the line of the operation
+		JsonNode report = new ObjectMapper().readTree(new File(conf.workdir, "report.json"));
+		Set<Integer> lines = new HashSet<>();
+		Pattern location = Pattern.compile("overflow\\.imp'?:(\\d+):\\d+");
+		report.get("warnings").forEach(w -> {
+			assertTrue(w.toString(), w.toString().contains("wrap around"));
+			Matcher matcher = location.matcher(w.toString());
+			assertTrue(w.toString(), matcher.find());
+			lines.add(Integer.parseInt(matcher.group(1)));
+		});
+
+		// x + 1 in f2 and 32767 + b in f6 may wrap, while the constants of f1
+		// all fit in 16 bits
+		List<String> code = Files.readAllLines(Paths.get("inputs/overflow.imp"));
+		assertTrue(lines.toString(), lines.contains(lineOf(code, "def r = x + 1;")));
+		assertTrue(lines.toString(), lines.contains(lineOf(code, "def d = 32767 + b;")));
+		for (int line = lineOf(code, "f1()"); line < lineOf(code, "f2(b)"); line++)
+			assertFalse(lines.toString(), lines.contains(line));
+	}
+
+	private static int lineOf(
+			List<String> code,
+			String text) {
+		for (int i = 0; i < code.size(); i++)
+			if (code.get(i).contains(text))
+				// lines are numbered from 1
+				return i + 1;
+		throw new IllegalArgumentException(text + " not found");
+	}
+}
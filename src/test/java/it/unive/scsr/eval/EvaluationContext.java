@@ -0,0 +1,21 @@
+package it.unive.scsr.eval;
+
+/**
+ * Settings shared by the task evaluation tests. When a submission is
+ * evaluated by the {@link SubmissionHarness}, this class is loaded by the
+ * submission's own class loader and its fields are set by the harness, so
+ * each submission sees (and writes into) its own output folder even if
+ * several submissions run at the same time. Outside of the harness, the
+ * defaults apply.
+ */
+public final class EvaluationContext {
+
+	/**
+	 * The folder where the evaluation tests write their outputs.
+	 */
+	public static String outputs = "outputs";
+
+	private EvaluationContext() {
+		// static settings
+	}
+}
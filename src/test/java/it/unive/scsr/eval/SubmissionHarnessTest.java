@@ -0,0 +1,129 @@
+package it.unive.scsr.eval;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+
+import org.junit.Test;
+
+import it.unive.lisa.util.file.FileManager;
+import it.unive.scsr.eval.SubmissionHarness.Outcome;
+import it.unive.scsr.eval.SubmissionHarness.Submission;
+
+public class SubmissionHarnessTest {
+
+	private static final String WORKDIR = "outputs/harness";
+
+	/**
+	 * The key of the system properties holding the barrier that the tests of
+	 * the submissions wait on: system properties are the only state that the
+	 * class loaders of the submissions share.
+	 */
+	private static final String BARRIER = "it.unive.scsr.eval.barrier";
+
+	// a class that every submission provides, with its own name
+	private static String marker(
+			String name) {
+		return "package it.unive.scsr.eval;\n"
+				+ "public class Marker {\n"
+				+ "	public static String name() { return \"" + name + "\"; }\n"
+				+ "}\n";
+	}
+
+	// the test of a submission, that expects its own marker and output folder
+	// while the other submission is being evaluated
+	private static String probe(
+			String expected) {
+		return "package it.unive.scsr.eval;\n"
+				+ "import static org.junit.Assert.assertEquals;\n"
+				+ "import static org.junit.Assert.assertTrue;\n"
+				+ "import java.nio.file.Paths;\n"
+				+ "import java.util.concurrent.CyclicBarrier;\n"
+				+ "import java.util.concurrent.TimeUnit;\n"
+				+ "import org.junit.Test;\n"
+				+ "public class Probe {\n"
+				+ "	@Test\n"
+				+ "	public void probe() throws Exception {\n"
+				+ "		((CyclicBarrier) System.getProperties().get(\"" + BARRIER + "\")).await(60, TimeUnit.SECONDS);\n"
+				+ "		assertEquals(\"" + expected + "\", Marker.name());\n"
+				+ "		assertTrue(EvaluationContext.outputs, Paths.get(EvaluationContext.outputs).getParent().endsWith(\""
+				+ expected + "\"));\n"
+				+ "	}\n"
+				+ "}\n";
+	}
+
+	private static void write(
+			Path file,
+			String content)
+			throws IOException {
+		Files.createDirectories(file.getParent());
+		Files.writeString(file, content);
+	}
+
+	@Test
+	public void testParallelSubmissions() throws IOException, InterruptedException {
+		try {
+			FileManager.forceDeleteFolder(WORKDIR);
+		} catch (IOException e) {
+			e.printStackTrace(System.err);
+			fail("Cannot delete working directory '" + WORKDIR + "': " + e.getMessage());
+		}
+
+		// two submissions providing the same classes, and one that does not
+		// compile
+		Path root = Paths.get(WORKDIR, "submissions");
+		write(root.resolve("alice-1/eval/Marker.java"), marker("alice-1"));
+		write(root.resolve("alice-1/eval/Probe.java"), probe("alice-1"));
+		write(root.resolve("bob-2/eval/Marker.java"), marker("bob-2"));
+		write(root.resolve("bob-2/eval/Probe.java"), probe("bob-2"));
+		write(root.resolve("carol-3/eval/Marker.java"), "package it.unive.scsr.eval;\npublic class Marker {\n");
+
+		List<Submission> submissions = SubmissionHarness.fromDirectories(root);
+		assertEquals(3, submissions.size());
+		assertEquals(2, submissions.get(0).sources.size());
+		assertTrue(submissions.get(0).sources.containsKey("eval/Marker.java"));
+
+		// the two probes only pass if they run at the same time
+		System.getProperties().put(BARRIER, new CyclicBarrier(2));
+		Map<String, Outcome> outcomes;
+		try {
+			SubmissionHarness harness = new SubmissionHarness(Paths.get(WORKDIR, "logs"),
+					new String[] { "it.unive.scsr.eval.Probe" }, 3);
+			outcomes = harness.evaluate(submissions);
+		} finally {
+			System.getProperties().remove(BARRIER);
+		}
+
+		assertTrue(outcomes.get("alice-1").log.toString(), outcomes.get("alice-1").passed);
+		assertTrue(outcomes.get("bob-2").log.toString(), outcomes.get("bob-2").passed);
+		assertFalse(outcomes.get("carol-3").compiled);
+		assertTrue(Files.exists(Paths.get(WORKDIR, "logs", "carol-3.log")));
+
+		// the classes of the submissions do not leak out of their loaders
+		try {
+			Class.forName("it.unive.scsr.eval.Marker");
+			fail("The classes of a submission are visible outside of the harness");
+		} catch (ClassNotFoundException e) {
+			// expected
+		}
+		assertEquals("outputs", EvaluationContext.outputs);
+
+		Path report = Paths.get(WORKDIR, "report.csv");
+		SubmissionHarness.writeReport(outcomes, report);
+		assertEquals(List.of(
+				",branch,id,compile,test",
+				"0,alice-1,alice,1,1",
+				"1,bob-2,bob,1,1",
+				"2,carol-3,carol,0,0"),
+				Files.readAllLines(report));
+	}
+}